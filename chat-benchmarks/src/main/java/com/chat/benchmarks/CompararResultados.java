@@ -0,0 +1,101 @@
+package com.chat.benchmarks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compara dos archivos de resultados JSON de JMH (uno base y uno nuevo) y lista cada
+ * benchmark con su variación. Devuelve 1 si alguno empeoró más que el umbral
+ * (10 % por defecto), para poder usarlo como paso de un build.
+ */
+public class CompararResultados {
+    
+    private static final double UMBRAL_DEFECTO = 10.0;
+    
+    public static int ejecutar(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: comparar <base.json> <nuevo.json> [umbral%]");
+            return 2;
+        }
+        double umbral = args.length > 2 ? Double.parseDouble(args[2]) : UMBRAL_DEFECTO;
+        
+        Map<String, Resultado> base = leer(args[0]);
+        Map<String, Resultado> nuevo = leer(args[1]);
+        
+        int regresiones = 0;
+        System.out.println(String.format("%-90s %14s %14s %9s", "Benchmark", "Base", "Nuevo", "Cambio"));
+        for (Map.Entry<String, Resultado> entrada : nuevo.entrySet()) {
+            Resultado actual = entrada.getValue();
+            Resultado anterior = base.get(entrada.getKey());
+            if (anterior == null) {
+                System.out.println(String.format("%-90s %14s %14.3f %9s", entrada.getKey(), "-", actual.puntaje, "nuevo"));
+                continue;
+            }
+            
+            // Porcentaje de empeoramiento: en throughput baja el puntaje, en tiempos sube
+            double cambio = (actual.puntaje - anterior.puntaje) / anterior.puntaje * 100.0;
+            double empeora = actual.mayorEsMejor ? -cambio : cambio;
+            String marca = "";
+            if (empeora > umbral) {
+                marca = "  << REGRESIÓN";
+                regresiones++;
+            } else if (empeora < -umbral) {
+                marca = "  mejora";
+            }
+            System.out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%%s",
+                entrada.getKey(), anterior.puntaje, actual.puntaje, cambio, marca));
+        }
+        
+        System.out.println();
+        System.out.println(regresiones == 0
+            ? "Sin regresiones mayores al " + umbral + " %"
+            : regresiones + " benchmark(s) empeoraron más del " + umbral + " %");
+        return regresiones == 0 ? 0 : 1;
+    }
+    
+    /**
+     * Resultados por "benchmark [parámetros] (unidad)"
+     */
+    private static Map<String, Resultado> leer(String archivo) throws IOException {
+        Map<String, Resultado> resultados = new TreeMap<>();
+        try (Reader lector = Files.newBufferedReader(Paths.get(archivo), StandardCharsets.UTF_8)) {
+            JsonArray lista = JsonParser.parseReader(lector).getAsJsonArray();
+            for (JsonElement elemento : lista) {
+                JsonObject benchmark = elemento.getAsJsonObject();
+                JsonObject metrica = benchmark.getAsJsonObject("primaryMetric");
+                
+                StringBuilder clave = new StringBuilder(benchmark.get("benchmark").getAsString()
+                    .replace("com.chat.benchmarks.", ""));
+                if (benchmark.has("params")) {
+                    Map<String, String> parametros = new TreeMap<>();
+                    for (Map.Entry<String, JsonElement> parametro : benchmark.getAsJsonObject("params").entrySet()) {
+                        parametros.put(parametro.getKey(), parametro.getValue().getAsString());
+                    }
+                    clave.append(" ").append(parametros);
+                }
+                clave.append(" (").append(metrica.get("scoreUnit").getAsString()).append(")");
+                
+                Resultado resultado = new Resultado();
+                resultado.puntaje = metrica.get("score").getAsDouble();
+                resultado.mayorEsMejor = "thrpt".equals(benchmark.get("mode").getAsString());
+                resultados.put(clave.toString(), resultado);
+            }
+        }
+        return resultados;
+    }
+    
+    private static class Resultado {
+        double puntaje;
+        boolean mayorEsMejor;
+    }
+}
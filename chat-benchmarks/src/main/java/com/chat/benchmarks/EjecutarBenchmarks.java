@@ -0,0 +1,49 @@
+package com.chat.benchmarks;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.chat.benchmarks.carga.GeneradorCarga;
+
+/**
+ * Punto de entrada del JAR de benchmarks.
+ *
+ * Uso:
+ *   java -jar chat-benchmarks.jar [opciones de JMH]     ejecutar (p. ej. "Ruteo" o -p clientes=1000)
+ *   java -jar chat-benchmarks.jar comparar base.json nuevo.json [umbral%]
+ *   java -jar chat-benchmarks.jar carga [--usuarios N ...]       prueba de carga contra un servidor
+ *
+ * Si no se indica -rf/-rff, los resultados se guardan en JSON en
+ * resultados-jmh/jmh-AAAAMMDD-HHMMSS.json para compararlos entre builds.
+ */
+public class EjecutarBenchmarks {
+    
+    private static final String DIRECTORIO_RESULTADOS = "resultados-jmh";
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "comparar".equals(args[0])) {
+            System.exit(CompararResultados.ejecutar(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && "carga".equals(args[0])) {
+            GeneradorCarga.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        List<String> argumentos = new ArrayList<>(Arrays.asList(args));
+        if (!argumentos.contains("-rf")) {
+            argumentos.add("-rf");
+            argumentos.add("json");
+        }
+        if (!argumentos.contains("-rff")) {
+            new java.io.File(DIRECTORIO_RESULTADOS).mkdirs();
+            String fecha = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            argumentos.add("-rff");
+            argumentos.add(DIRECTORIO_RESULTADOS + "/jmh-" + fecha + ".json");
+        }
+        
+        org.openjdk.jmh.Main.main(argumentos.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,144 @@
+package com.chat.benchmarks;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import com.chat.servidor.presentacion.ManejadorCliente;
+
+/**
+ * Datos de prueba para los benchmarks. Se generan de forma determinista (semilla fija)
+ * para que dos ejecuciones en builds distintos midan exactamente la misma entrada.
+ */
+final class Fixturas {
+    
+    private static final long SEMILLA = 20240601L;
+    private static final String FRASE = "Recuerden que la entrega del laboratorio de redes es el viernes antes de las 18:00 ";
+    
+    private Fixturas() {
+    }
+    
+    static byte[] bytesAleatorios(int cantidad) {
+        byte[] datos = new byte[cantidad];
+        new Random(SEMILLA).nextBytes(datos);
+        return datos;
+    }
+    
+    /**
+     * Lista de mensajes de texto (como la de OBTENER_MENSAJES) que suma unos bytesTexto caracteres
+     */
+    static List<Map<String, Object>> historial(int bytesTexto) {
+        List<Map<String, Object>> mensajes = new ArrayList<>();
+        long id = 1;
+        for (int acumulado = 0; acumulado < bytesTexto; acumulado += FRASE.length()) {
+            HashMap<String, Object> mensaje = new HashMap<>();
+            mensaje.put("id", id);
+            mensaje.put("remitente", "estudiante" + (id % 50));
+            mensaje.put("contenido", FRASE + id);
+            mensaje.put("fecha", "2024-06-01 10:" + String.format("%02d", id % 60) + ":00");
+            mensajes.add(mensaje);
+            id++;
+        }
+        return mensajes;
+    }
+    
+    /**
+     * Manejador de cliente sin socket, marcado como autenticado (solo para el ruteo)
+     */
+    static ManejadorCliente manejadorAutenticado(String username, long usuarioId) {
+        ManejadorCliente manejador = new ManejadorCliente(null, null);
+        asignar(manejador, "username", username);
+        asignar(manejador, "usuarioId", usuarioId);
+        asignar(manejador, "autenticado", true);
+        try {
+            // Lo que se le entrega se serializa y se descarta
+            asignar(manejador, "salida", new ObjectOutputStream(OutputStream.nullOutputStream()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return manejador;
+    }
+    
+    private static void asignar(Object objeto, String campo, Object valor) {
+        try {
+            Field field = objeto.getClass().getDeclaredField(campo);
+            field.setAccessible(true);
+            field.set(objeto, valor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo preparar el campo " + campo, e);
+        }
+    }
+    
+    /**
+     * WAV PCM 16 bits con una voz sintética (fundamental de 140 Hz con armónicos y sílabas
+     * de 200 ms separadas por silencios), para ejercitar decodificación, conversión y Vosk
+     */
+    static byte[] wav(double segundos, float frecuenciaMuestreo, int canales) throws IOException {
+        int frames = (int) (segundos * frecuenciaMuestreo);
+        byte[] pcm = new byte[frames * canales * 2];
+        Random ruido = new Random(SEMILLA);
+        int posicion = 0;
+        for (int i = 0; i < frames; i++) {
+            double t = i / frecuenciaMuestreo;
+            boolean silaba = ((int) (t / 0.2)) % 3 != 2;
+            double muestra = 0;
+            if (silaba) {
+                double envolvente = Math.sin(Math.PI * ((t % 0.2) / 0.2));
+                muestra = envolvente * (0.5 * Math.sin(2 * Math.PI * 140 * t)
+                    + 0.25 * Math.sin(2 * Math.PI * 280 * t)
+                    + 0.12 * Math.sin(2 * Math.PI * 700 * t));
+            }
+            muestra += (ruido.nextDouble() - 0.5) * 0.01;
+            short valor = (short) (muestra * 12000);
+            for (int c = 0; c < canales; c++) {
+                pcm[posicion++] = (byte) (valor & 0xFF);
+                pcm[posicion++] = (byte) ((valor >> 8) & 0xFF);
+            }
+        }
+        
+        AudioFormat formato = new AudioFormat(frecuenciaMuestreo, 16, canales, true, false);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(pcm.length + 44);
+        try (AudioInputStream audio = new AudioInputStream(new ByteArrayInputStream(pcm), formato, frames)) {
+            AudioSystem.write(audio, AudioFileFormat.Type.WAVE, salida);
+        }
+        return salida.toByteArray();
+    }
+    
+    /**
+     * Foto de perfil codificada (PNG o JPEG) con degradado y formas, como las que suben los usuarios
+     */
+    static byte[] foto(int ancho, int alto, String formato) throws IOException {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = imagen.createGraphics();
+        g2.setPaint(new GradientPaint(0, 0, new Color(41, 128, 185), ancho, alto, new Color(231, 76, 60)));
+        g2.fillRect(0, 0, ancho, alto);
+        Random aleatorio = new Random(SEMILLA);
+        for (int i = 0; i < 40; i++) {
+            g2.setColor(new Color(aleatorio.nextInt(0xFFFFFF)));
+            g2.fillOval(aleatorio.nextInt(ancho), aleatorio.nextInt(alto), ancho / 6, alto / 6);
+        }
+        g2.dispose();
+        
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, formato, salida);
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,62 @@
+package com.chat.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.ImageIcon;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chat.cliente.presentacion.gui.helpers.UIHelper;
+
+/**
+ * Decodificación y escalado de fotos de perfil con UIHelper.crearIconoFoto, que la lista
+ * de contactos y los encabezados de chat llaman para cada avatar que pintan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class IconoFotoBenchmark {
+    
+    /** Lado de la foto original en píxeles */
+    @Param({"128", "512", "1600"})
+    public int ladoOriginal;
+    
+    @Param({"png", "jpg"})
+    public String formato;
+    
+    /** Lado del icono: 40 en la lista de contactos, 120 en el perfil */
+    @Param({"40", "120"})
+    public int ladoIcono;
+    
+    private byte[] foto;
+    
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        foto = Fixturas.foto(ladoOriginal, ladoOriginal, formato);
+    }
+    
+    @Benchmark
+    public ImageIcon crearIconoFoto() {
+        return UIHelper.crearIconoFoto(foto, ladoIcono, ladoIcono);
+    }
+    
+    @Benchmark
+    public ImageIcon crearIconoPorDefecto() {
+        return UIHelper.crearIconoFoto(null, ladoIcono, ladoIcono);
+    }
+}
@@ -0,0 +1,101 @@
+package com.chat.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chat.common.metricas.ConexionMedida;
+import com.chat.servidor.datos.EsquemaH2;
+import com.chat.servidor.datos.LogMensajeDAO;
+
+/**
+ * Inserciones de LogMensajeDAO contra H2 embebida en memoria (modo MySQL), con el esquema
+ * que EsquemaH2 crea desde init_mysql.sql (sin FULLTEXT y sin comprobar claves foráneas).
+ *
+ * Mide el costo del DAO y del driver sin red; con conexion=medida la conexión va envuelta
+ * en ConexionMedida, como la entrega el pool del servidor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogMensajeDAOBenchmark {
+    
+    private static final String URL_H2 = "jdbc:h2:mem:logs;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+        + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+    
+    @Param({"directa", "medida"})
+    public String conexion;
+    
+    private Connection conexionH2;
+    private LogMensajeDAO dao;
+    private byte[] audio;
+    private long contador;
+    
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        conexionH2 = DriverManager.getConnection(URL_H2, "sa", "");
+        EsquemaH2.aplicar(conexionH2, "database/init_mysql.sql");
+        try (Statement stmt = conexionH2.createStatement()) {
+            // Los IDs de usuario y canal son sintéticos: no hay filas a las que apunten
+            stmt.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        }
+        Connection usada = "medida".equals(conexion) ? ConexionMedida.envolver(conexionH2) : conexionH2;
+        dao = new LogMensajeDAO(usada);
+        audio = Fixturas.bytesAleatorios(32 * 1024);
+    }
+    
+    /**
+     * Vaciar la tabla en cada iteración para que los índices no crezcan sin límite
+     */
+    @Setup(Level.Iteration)
+    public void vaciar() throws SQLException {
+        try (Statement stmt = conexionH2.createStatement()) {
+            stmt.execute("TRUNCATE TABLE logs_mensajes");
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conexionH2.close();
+    }
+    
+    @Benchmark
+    public boolean guardarTextoPrivado() {
+        long n = ++contador;
+        return dao.guardarLogTextoPrivado("estudiante" + (n % 500), n % 500, "estudiante" + (n % 487), n % 487,
+            "Mensaje de prueba número " + n, "192.168.0.10");
+    }
+    
+    @Benchmark
+    public boolean guardarTextoGrupo() {
+        long n = ++contador;
+        return dao.guardarLogTextoGrupo("estudiante" + (n % 500), n % 500, "Redes 2024", n % 20,
+            "Mensaje grupal de prueba número " + n, "192.168.0.10");
+    }
+    
+    @Benchmark
+    public boolean guardarAudioPrivado() {
+        long n = ++contador;
+        return dao.guardarLogAudioPrivado("estudiante" + (n % 500), n % 500, "estudiante" + (n % 487), n % 487,
+            audio, "hola a todos", 2L, "WAV", "192.168.0.10");
+    }
+}
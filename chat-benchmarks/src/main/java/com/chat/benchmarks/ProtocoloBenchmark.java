@@ -0,0 +1,112 @@
+package com.chat.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chat.common.dto.RequestDTO;
+import com.chat.common.dto.ResponseDTO;
+import com.chat.common.network.ProtocoloMensaje;
+
+/**
+ * Serialización de ProtocoloMensaje con RequestDTO/ResponseDTO, tal como viajan por el
+ * ObjectOutputStream del socket, según el tamaño del payload.
+ *
+ * El tipo "audio" lleva un byte[] (mensaje de voz) y el tipo "historial" una lista de
+ * mapas con mensajes de texto de ~100 caracteres, como la respuesta de OBTENER_MENSAJES.
+ * Cada operación usa un stream nuevo, así que incluye escribir los descriptores de clase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocoloBenchmark {
+    
+    @Param({"0", "1024", "65536", "1048576"})
+    public int bytesPayload;
+    
+    @Param({"audio", "historial"})
+    public String tipoPayload;
+    
+    private ProtocoloMensaje request;
+    private ProtocoloMensaje response;
+    private byte[] responseSerializada;
+    
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        RequestDTO dto = new RequestDTO(RequestDTO.TipoRequest.ENVIAR_MENSAJE);
+        dto.setUsuarioId(42L);
+        dto.addDato("destinatario", "estudiante0042");
+        ResponseDTO respuesta = ResponseDTO.exitoso("Mensajes obtenidos");
+        
+        if ("audio".equals(tipoPayload)) {
+            byte[] audio = Fixturas.bytesAleatorios(bytesPayload);
+            dto.addDato("audio", audio);
+            dto.addDato("formato", "WAV");
+            respuesta.addDato("audio", audio);
+        } else {
+            List<Map<String, Object>> mensajes = Fixturas.historial(bytesPayload);
+            dto.addDato("contenido", mensajes.isEmpty() ? "" : mensajes.get(0).get("contenido"));
+            respuesta.addDato("mensajes", new ArrayList<>(mensajes));
+        }
+        
+        request = new ProtocoloMensaje(ProtocoloMensaje.TipoProtocolo.REQUEST, dto);
+        response = new ProtocoloMensaje(ProtocoloMensaje.TipoProtocolo.RESPONSE, respuesta);
+        responseSerializada = serializar(response);
+    }
+    
+    @Benchmark
+    public byte[] serializarResponse() throws IOException {
+        return serializar(response);
+    }
+    
+    @Benchmark
+    public Object deserializarResponse() throws IOException, ClassNotFoundException {
+        return deserializar(responseSerializada);
+    }
+    
+    @Benchmark
+    public Object idaYVueltaRequest() throws IOException, ClassNotFoundException {
+        return deserializar(serializar(request));
+    }
+    
+    @Benchmark
+    public Object idaYVueltaResponse() throws IOException, ClassNotFoundException {
+        return deserializar(serializar(response));
+    }
+    
+    private static byte[] serializar(Object objeto) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream salida = new ObjectOutputStream(buffer)) {
+            salida.writeObject(objeto);
+        }
+        return buffer.toByteArray();
+    }
+    
+    private static Object deserializar(byte[] datos) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(datos))) {
+            return entrada.readObject();
+        }
+    }
+}
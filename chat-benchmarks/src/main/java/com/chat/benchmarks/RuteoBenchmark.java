@@ -0,0 +1,115 @@
+package com.chat.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chat.common.log.Log;
+import com.chat.common.models.Canal;
+import com.chat.servidor.presentacion.ManejadorCliente;
+import com.chat.servidor.presentacion.ServidorChat;
+
+/**
+ * Ruteo de ServidorChat con N clientes conectados: el destinatario de un mensaje privado
+ * por username, los miembros conectados de un canal y un broadcast a todos los usuarios.
+ *
+ * Los clientes no tienen socket: escriben en un stream nulo, así que en el broadcast se
+ * mide la serialización y el reparto en paralelo sin la red.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuteoBenchmark {
+    
+    @Param({"100", "1000", "5000"})
+    public int clientes;
+    
+    /** Miembros del canal como porcentaje de los clientes conectados */
+    @Param({"5", "50"})
+    public int porcentajeMiembros;
+    
+    private ServidorChat servidor;
+    private Canal canal;
+    private String[] usernames;
+    private int siguiente;
+    
+    @Setup(Level.Trial)
+    public void preparar() {
+        // Un evento de log por broadcast llenaría la salida del benchmark
+        Properties log = new Properties();
+        log.setProperty("log.nivel", "WARN");
+        log.setProperty("log.consola", "false");
+        Log.configurar(log);
+        
+        servidor = new ServidorChat();
+        usernames = new String[clientes];
+        List<Long> miembros = new ArrayList<>();
+        Random aleatorio = new Random(7);
+        for (int i = 0; i < clientes; i++) {
+            long usuarioId = i + 1;
+            usernames[i] = "estudiante" + usuarioId;
+            ManejadorCliente manejador = Fixturas.manejadorAutenticado(usernames[i], usuarioId);
+            servidor.agregarCliente(manejador);
+            servidor.registrarAutenticado(manejador);
+            if (aleatorio.nextInt(100) < porcentajeMiembros) {
+                miembros.add(usuarioId);
+            }
+        }
+        // Miembros que no están conectados, como en un canal real
+        for (long i = clientes + 1; i <= clientes + 200; i++) {
+            miembros.add(i);
+        }
+        
+        canal = new Canal("Redes 2024", "Canal de la materia", 1L, false);
+        canal.setId(1L);
+        canal.setMiembrosIds(miembros);
+    }
+    
+    /**
+     * Destinatario aleatorio (búsqueda en el índice por username)
+     */
+    @Benchmark
+    public ManejadorCliente buscarPorUsername() {
+        siguiente = (siguiente + 7919) % clientes;
+        return servidor.buscarClienteAutenticado(usernames[siguiente]);
+    }
+    
+    /**
+     * Usuario que no está conectado
+     */
+    @Benchmark
+    public ManejadorCliente buscarUsernameDesconectado() {
+        return servidor.buscarClienteAutenticado("desconectado");
+    }
+    
+    @Benchmark
+    public List<ManejadorCliente> miembrosConectadosDeCanal() {
+        return servidor.obtenerMiembrosConectados(canal);
+    }
+    
+    /**
+     * Notificación del servidor a todos los clientes hasta la última entrega
+     */
+    @Benchmark
+    public int broadcastUsuarios() {
+        return servidor.enviarMensajeBroadcastUsuarios("Se suspende el examen de Redes de mañana");
+    }
+}
@@ -0,0 +1,74 @@
+package com.chat.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chat.transcripcion.ServicioTranscripcion;
+
+/**
+ * Transcripción de notas de voz con ServicioTranscripcion (Vosk) sobre WAV de prueba:
+ * 16 kHz mono (formato nativo de Vosk) y 44,1 kHz estéreo (requiere conversión).
+ *
+ * Necesita el modelo de Vosk descargado; la ruta se pasa con -p rutaModelo=... Si no
+ * se encuentra, este benchmark falla en el setup y el resto de la ejecución continúa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TranscripcionBenchmark {
+    
+    @Param({"chat-transcripcion/src/main/resources/vosk-model-small-es-0.42"})
+    public String rutaModelo;
+    
+    @Param({"16000-mono", "44100-estereo"})
+    public String formato;
+    
+    @Param({"3", "15"})
+    public int segundos;
+    
+    private ServicioTranscripcion servicio;
+    private byte[] wav;
+    
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        servicio = ServicioTranscripcion.obtenerInstancia();
+        if (!servicio.inicializar(new File(rutaModelo).getAbsolutePath())) {
+            throw new IllegalStateException("Modelo de Vosk no disponible en " + rutaModelo
+                + " (use -p rutaModelo=<directorio del modelo>)");
+        }
+        
+        if ("44100-estereo".equals(formato)) {
+            wav = Fixturas.wav(segundos, 44100f, 2);
+        } else {
+            wav = Fixturas.wav(segundos, 16000f, 1);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        servicio.cerrar();
+    }
+    
+    @Benchmark
+    public String transcribir() {
+        return servicio.transcribir(wav);
+    }
+}
@@ -0,0 +1,180 @@
+package com.chat.benchmarks.carga;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parámetros del generador de carga, leídos de la línea de comandos como "--clave valor".
+ */
+public class ConfiguracionCarga {
+    
+    String host = "localhost";
+    int puerto = 5000;
+    /** Nodos de un cluster ("host:puerto"); si hay, los usuarios se reparten entre ellos por turnos */
+    final List<String> nodos = new ArrayList<>();
+    /** Estudiantes simulados (una conexión TCP cada uno) */
+    int usuarios = 200;
+    /** Canales a crear y miembros de cada uno */
+    int canales = 10;
+    int miembros = 25;
+    /** Segundos de carga sostenida (sin contar la preparación) */
+    int duracion = 60;
+    /** Acciones por minuto de cada usuario (intervalos exponenciales) */
+    double ritmo = 6;
+    /** Pesos de cada acción: privado, grupo, audio (nota de voz) y presencia (logout + login) */
+    final Map<String, Integer> mezcla = new LinkedHashMap<>();
+    int audioSegundos = 2;
+    /** Hilos que ejecutan las acciones de todos los usuarios */
+    int hilos = 64;
+    /** Conexiones, registros y logins simultáneos durante la preparación */
+    int paralelas = 32;
+    /** Segundos de espera al final para recibir las entregas pendientes */
+    int drenaje = 5;
+    String prefijo = "carga";
+    /** Pedir compresión al servidor en cada conexión */
+    boolean compresion = true;
+    String password = "Carga2024!";
+    /** Archivo JSON opcional con el resumen final */
+    String salida;
+    
+    ConfiguracionCarga() {
+        mezcla.put("privado", 60);
+        mezcla.put("grupo", 25);
+        mezcla.put("audio", 10);
+        mezcla.put("presencia", 5);
+    }
+    
+    static ConfiguracionCarga desdeArgumentos(String[] args) {
+        ConfiguracionCarga config = new ConfiguracionCarga();
+        for (int i = 0; i < args.length; i++) {
+            String clave = args[i];
+            if (!clave.startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Argumento inválido: " + clave);
+            }
+            String valor = args[++i];
+            switch (clave.substring(2)) {
+                case "host":
+                    config.host = valor;
+                    break;
+                case "puerto":
+                    config.puerto = Integer.parseInt(valor);
+                    break;
+                case "nodos":
+                    for (String nodo : valor.split(",")) {
+                        if (!nodo.trim().isEmpty()) {
+                            config.nodos.add(nodo.trim());
+                        }
+                    }
+                    break;
+                case "usuarios":
+                    config.usuarios = Integer.parseInt(valor);
+                    break;
+                case "canales":
+                    config.canales = Integer.parseInt(valor);
+                    break;
+                case "miembros":
+                    config.miembros = Integer.parseInt(valor);
+                    break;
+                case "duracion":
+                    config.duracion = Integer.parseInt(valor);
+                    break;
+                case "ritmo":
+                    config.ritmo = Double.parseDouble(valor);
+                    break;
+                case "mezcla":
+                    config.leerMezcla(valor);
+                    break;
+                case "audio-segundos":
+                    config.audioSegundos = Integer.parseInt(valor);
+                    break;
+                case "hilos":
+                    config.hilos = Integer.parseInt(valor);
+                    break;
+                case "paralelas":
+                    config.paralelas = Integer.parseInt(valor);
+                    break;
+                case "drenaje":
+                    config.drenaje = Integer.parseInt(valor);
+                    break;
+                case "prefijo":
+                    config.prefijo = valor;
+                    break;
+                case "compresion":
+                    config.compresion = valor.equals("si") || Boolean.parseBoolean(valor);
+                    break;
+                case "password":
+                    config.password = valor;
+                    break;
+                case "salida":
+                    config.salida = valor;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + clave);
+            }
+        }
+        if (config.usuarios < 2) {
+            throw new IllegalArgumentException("Se necesitan al menos 2 usuarios");
+        }
+        config.miembros = Math.min(config.miembros, config.usuarios);
+        return config;
+    }
+    
+    /**
+     * "privado=60,grupo=25,audio=10,presencia=5" (las acciones no indicadas quedan en 0)
+     */
+    private void leerMezcla(String valor) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String clave : mezcla.keySet()) {
+            pesos.put(clave, 0);
+        }
+        for (String parte : valor.split(",")) {
+            String[] par = parte.trim().split("=");
+            if (par.length != 2 || !pesos.containsKey(par[0].trim())) {
+                throw new IllegalArgumentException("Mezcla inválida: " + parte + " (acciones: " + mezcla.keySet() + ")");
+            }
+            pesos.put(par[0].trim(), Integer.parseInt(par[1].trim()));
+        }
+        if (pesos.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("La mezcla debe tener algún peso mayor que 0");
+        }
+        mezcla.clear();
+        mezcla.putAll(pesos);
+    }
+    
+    /**
+     * Host del servidor al que se conecta el usuario i
+     */
+    String hostDe(int indice) {
+        if (nodos.isEmpty()) {
+            return host;
+        }
+        String nodo = nodos.get(indice % nodos.size());
+        return nodo.substring(0, nodo.lastIndexOf(':'));
+    }
+    
+    int puertoDe(int indice) {
+        if (nodos.isEmpty()) {
+            return puerto;
+        }
+        String nodo = nodos.get(indice % nodos.size());
+        return Integer.parseInt(nodo.substring(nodo.lastIndexOf(':') + 1));
+    }
+    
+    static String uso() {
+        return "Uso: carga [--host localhost] [--puerto 5000] [--nodos host:5000,host:5001] [--usuarios 200]\n"
+            + "            [--canales 10] [--miembros 25]\n"
+            + "            [--duracion 60] [--ritmo 6] [--mezcla privado=60,grupo=25,audio=10,presencia=5]\n"
+            + "            [--audio-segundos 2] [--hilos 64] [--paralelas 32] [--drenaje 5]\n"
+            + "            [--prefijo carga] [--password ...] [--compresion si|no] [--salida resumen.json]";
+    }
+    
+    @Override
+    public String toString() {
+        String destino = nodos.isEmpty() ? host + ":" + puerto : nodos.size() + " nodos " + nodos;
+        return usuarios + " usuarios en " + destino + ", " + canales + " canales de " + miembros
+            + " miembros, " + ritmo + " acciones/min por usuario durante " + duracion + " s, mezcla " + mezcla
+            + (compresion ? ", con compresión" : ", sin compresión");
+    }
+}
@@ -0,0 +1,76 @@
+package com.chat.benchmarks.carga;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
+
+/**
+ * Contadores e histogramas de la prueba de carga por tipo de acción, registrados en el
+ * RegistroMetricas del proceso como "carga.<accion>.<metrica>".
+ *
+ * La latencia de entrega es de extremo a extremo: desde que el remitente escribe el
+ * request hasta que el destinatario lee la notificación (ambos en esta JVM, con nanoTime).
+ */
+class EstadisticasCarga {
+    
+    static final String[] ACCIONES = {"privado", "grupo", "audio", "presencia"};
+    
+    private final Map<String, Accion> acciones = new LinkedHashMap<>();
+    
+    EstadisticasCarga() {
+        for (String nombre : ACCIONES) {
+            acciones.put(nombre, new Accion(nombre));
+        }
+    }
+    
+    Accion accion(String nombre) {
+        return acciones.get(nombre);
+    }
+    
+    Map<String, Accion> getAcciones() {
+        return acciones;
+    }
+    
+    long totalEnviados() {
+        return acciones.values().stream().mapToLong(a -> a.enviados.getValor()).sum();
+    }
+    
+    long totalEntregas() {
+        return acciones.values().stream().mapToLong(a -> a.entregas.getValor()).sum();
+    }
+    
+    long totalErrores() {
+        return acciones.values().stream().mapToLong(a -> a.errores.getValor()).sum();
+    }
+    
+    /**
+     * Métricas de un tipo de acción
+     */
+    static class Accion {
+        final String nombre;
+        /** Requests enviados y fallidos (respuesta de error, timeout o conexión caída) */
+        final Contador enviados;
+        final Contador errores;
+        /** Notificaciones recibidas por los destinatarios y las que se esperaban al enviar */
+        final Contador entregas;
+        final Contador esperadas;
+        /** Ida y vuelta del request (hasta la respuesta al remitente) */
+        final Histograma request;
+        /** Remitente → destinatario */
+        final Histograma entrega;
+        
+        Accion(String nombre) {
+            RegistroMetricas registro = RegistroMetricas.obtenerInstancia();
+            this.nombre = nombre;
+            this.enviados = registro.contador("carga." + nombre + ".enviados");
+            this.errores = registro.contador("carga." + nombre + ".errores");
+            this.entregas = registro.contador("carga." + nombre + ".entregas");
+            this.esperadas = registro.contador("carga." + nombre + ".esperadas");
+            this.request = registro.histograma("carga." + nombre + ".request");
+            this.entrega = registro.histograma("carga." + nombre + ".entrega");
+        }
+    }
+}
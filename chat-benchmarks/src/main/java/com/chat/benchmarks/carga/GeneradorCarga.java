@@ -0,0 +1,549 @@
+package com.chat.benchmarks.carga;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Generador de carga sin GUI: abre una conexión ClienteRed por estudiante simulado,
+ * registra e inicia sesión, los une a canales y reproduce una mezcla configurable de
+ * mensajes privados, mensajes de grupo, notas de voz y cambios de presencia contra un
+ * servidor real. Informa percentiles de latencia de entrega, ritmo y errores.
+ *
+ * Uso: java -jar chat-benchmarks.jar carga --usuarios 2000 --duracion 120 ...
+ * (ver ConfiguracionCarga.uso()). Pensado para correr en la misma máquina que el
+ * servidor; con miles de usuarios conviene subir el límite de archivos (ulimit -n).
+ */
+public class GeneradorCarga {
+    
+    private static final int INTERVALO_PROGRESO_SEGUNDOS = 5;
+    
+    private final ConfiguracionCarga config;
+    private final EstadisticasCarga estadisticas = new EstadisticasCarga();
+    private final List<UsuarioSimulado> usuarios = new ArrayList<>();
+    private final Map<Long, List<UsuarioSimulado>> miembrosPorCanal = new ConcurrentHashMap<>();
+    private final String[] acciones;
+    private final int[] pesosAcumulados;
+    private byte[] plantillaAudio;
+    private int inicioDatosAudio;
+    private ScheduledExecutorService planificador;
+    private volatile boolean ejecutando;
+    
+    public GeneradorCarga(ConfiguracionCarga config) {
+        this.config = config;
+        this.acciones = config.mezcla.keySet().toArray(new String[0]);
+        this.pesosAcumulados = new int[acciones.length];
+        int acumulado = 0;
+        for (int i = 0; i < acciones.length; i++) {
+            acumulado += config.mezcla.get(acciones[i]);
+            pesosAcumulados[i] = acumulado;
+        }
+    }
+    
+    public static void main(String[] args) {
+        if (args.length > 0 && ("-h".equals(args[0]) || "--ayuda".equals(args[0]))) {
+            System.out.println(ConfiguracionCarga.uso());
+            return;
+        }
+        ConfiguracionCarga config;
+        try {
+            config = ConfiguracionCarga.desdeArgumentos(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ " + e.getMessage());
+            System.err.println(ConfiguracionCarga.uso());
+            System.exit(2);
+            return;
+        }
+        System.exit(new GeneradorCarga(config).ejecutar());
+    }
+    
+    /**
+     * Ejecutar la prueba completa; devuelve el código de salida del proceso
+     */
+    public int ejecutar() {
+        System.out.println("🚀 Prueba de carga: " + config);
+        try {
+            plantillaAudio = generarWav(config.audioSegundos);
+            inicioDatosAudio = inicioDatosWav(plantillaAudio);
+            
+            if (!preparar()) {
+                return 1;
+            }
+            long duracionNanos = cargar();
+            imprimirResumen(duracionNanos);
+            if (config.salida != null) {
+                guardarResumen(duracionNanos);
+            }
+            return 0;
+            
+        } catch (IOException e) {
+            System.err.println("❌ Error en la prueba de carga: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            cerrar();
+        }
+    }
+    
+    /**
+     * Conectar, registrar e iniciar sesión de todos los usuarios, y crear los canales
+     */
+    private boolean preparar() throws InterruptedException {
+        String digitos = "%0" + String.valueOf(config.usuarios).length() + "d";
+        for (int i = 0; i < config.usuarios; i++) {
+            String username = config.prefijo + "_" + String.format(digitos, i);
+            usuarios.add(new UsuarioSimulado(i, username, config.hostDe(i), config.puertoDe(i),
+                config.compresion, estadisticas));
+        }
+        
+        List<UsuarioSimulado> fallidos = enParalelo("Conexión, registro y login", usuarios, usuario -> {
+            usuario.conectar();
+            usuario.registrar(config.password);
+            usuario.login(config.password);
+        });
+        for (UsuarioSimulado usuario : fallidos) {
+            usuario.desconectar();
+        }
+        usuarios.removeAll(fallidos);
+        if (usuarios.size() < 2) {
+            System.err.println("❌ No hay suficientes usuarios conectados para la prueba");
+            return false;
+        }
+        
+        crearCanales();
+        return true;
+    }
+    
+    /**
+     * Cada canal lo crea su primer miembro invitando a los demás; luego todos aceptan.
+     * Los miembros son bloques consecutivos de usuarios, así los canales se solapan.
+     */
+    private void crearCanales() throws InterruptedException {
+        if (config.canales <= 0) {
+            return;
+        }
+        String ejecucion = Long.toString(System.currentTimeMillis(), 36);
+        int miembros = Math.min(config.miembros, usuarios.size());
+        
+        List<Integer> indices = new ArrayList<>();
+        for (int k = 0; k < config.canales; k++) {
+            indices.add(k);
+        }
+        Map<Long, List<UsuarioSimulado>> invitadosPorCanal = new ConcurrentHashMap<>();
+        enParalelo("Creación de canales", indices, k -> {
+            List<UsuarioSimulado> grupo = new ArrayList<>();
+            for (int j = 0; j < miembros; j++) {
+                grupo.add(usuarios.get((k * miembros + j) % usuarios.size()));
+            }
+            List<String> invitados = new ArrayList<>();
+            for (UsuarioSimulado invitado : grupo.subList(1, grupo.size())) {
+                invitados.add(invitado.username);
+            }
+            UsuarioSimulado creador = grupo.get(0);
+            Long canalId = creador.crearCanal(config.prefijo + "-" + ejecucion + "-" + k, invitados);
+            invitadosPorCanal.put(canalId, grupo);
+        });
+        
+        Set<Long> canalesPrueba = invitadosPorCanal.keySet();
+        enParalelo("Aceptación de invitaciones", usuarios, usuario -> usuario.aceptarInvitaciones(canalesPrueba));
+        
+        for (Map.Entry<Long, List<UsuarioSimulado>> entrada : invitadosPorCanal.entrySet()) {
+            List<UsuarioSimulado> confirmados = new ArrayList<>();
+            for (UsuarioSimulado usuario : entrada.getValue()) {
+                if (usuario.canales.contains(entrada.getKey())) {
+                    confirmados.add(usuario);
+                }
+            }
+            miembrosPorCanal.put(entrada.getKey(), confirmados);
+        }
+        System.out.println("   " + miembrosPorCanal.size() + " canales listos");
+    }
+    
+    /**
+     * Fase de carga sostenida; devuelve su duración real en nanosegundos
+     */
+    private long cargar() throws InterruptedException {
+        planificador = Executors.newScheduledThreadPool(config.hilos);
+        double intervaloMedioMs = 60_000.0 / config.ritmo;
+        ejecutando = true;
+        
+        System.out.println("▶️ Carga durante " + config.duracion + " s con " + usuarios.size() + " usuarios ("
+            + String.format("%.0f", usuarios.size() * config.ritmo / 60.0) + " acciones/s previstas)");
+        long inicio = System.nanoTime();
+        for (UsuarioSimulado usuario : usuarios) {
+            long retraso = (long) (ThreadLocalRandom.current().nextDouble() * intervaloMedioMs);
+            planificador.schedule(() -> actuar(usuario, intervaloMedioMs), retraso, TimeUnit.MILLISECONDS);
+        }
+        
+        ScheduledExecutorService progreso = Executors.newSingleThreadScheduledExecutor();
+        Map<String, Histograma.Instantanea> anterior = new HashMap<>();
+        long[] enviadosAntes = {0};
+        progreso.scheduleAtFixedRate(() -> imprimirProgreso(inicio, anterior, enviadosAntes),
+            INTERVALO_PROGRESO_SEGUNDOS, INTERVALO_PROGRESO_SEGUNDOS, TimeUnit.SECONDS);
+        
+        Thread.sleep(config.duracion * 1000L);
+        ejecutando = false;
+        long duracion = System.nanoTime() - inicio;
+        progreso.shutdownNow();
+        planificador.shutdown();
+        
+        // Requests en curso (como mucho el timeout de ClienteRed) y entregas pendientes
+        planificador.awaitTermination(15, TimeUnit.SECONDS);
+        System.out.println("⏳ Esperando " + config.drenaje + " s las entregas pendientes...");
+        Thread.sleep(config.drenaje * 1000L);
+        return duracion;
+    }
+    
+    /**
+     * Una acción del usuario y la siguiente programada con intervalo exponencial
+     * (las acciones de un mismo usuario nunca se solapan: ClienteRed es síncrono)
+     */
+    private void actuar(UsuarioSimulado usuario, double intervaloMedioMs) {
+        if (!ejecutando) {
+            return;
+        }
+        try {
+            switch (elegirAccion()) {
+                case "grupo":
+                    enviarGrupo(usuario);
+                    break;
+                case "audio":
+                    enviarAudio(usuario);
+                    break;
+                case "presencia":
+                    usuario.rotarPresencia(config.password);
+                    break;
+                default:
+                    enviarPrivado(usuario);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Error en la acción de " + usuario.username + ": " + e.getMessage());
+        }
+        
+        if (ejecutando) {
+            double u = ThreadLocalRandom.current().nextDouble();
+            long retraso = (long) (-Math.log(1.0 - u) * intervaloMedioMs);
+            try {
+                planificador.schedule(() -> actuar(usuario, intervaloMedioMs), retraso, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // La carga terminó mientras se ejecutaba esta acción
+            }
+        }
+    }
+    
+    private String elegirAccion() {
+        int r = ThreadLocalRandom.current().nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (r < pesosAcumulados[i]) {
+                return acciones[i];
+            }
+        }
+        return acciones[acciones.length - 1];
+    }
+    
+    private void enviarPrivado(UsuarioSimulado usuario) {
+        UsuarioSimulado destino = elegirDestino(usuario);
+        usuario.enviarPrivado(destino.username, destino.isEnLinea() ? 1 : 0);
+    }
+    
+    private void enviarGrupo(UsuarioSimulado usuario) {
+        Long canalId = elegirCanal(usuario);
+        if (canalId == null) {
+            enviarPrivado(usuario);
+            return;
+        }
+        usuario.enviarGrupo(canalId, miembrosEnLinea(canalId));
+    }
+    
+    private void enviarAudio(UsuarioSimulado usuario) {
+        Long canalId = ThreadLocalRandom.current().nextBoolean() ? elegirCanal(usuario) : null;
+        if (canalId != null) {
+            usuario.enviarAudio(null, canalId, miembrosEnLinea(canalId), plantillaAudio, inicioDatosAudio,
+                config.audioSegundos);
+        } else {
+            UsuarioSimulado destino = elegirDestino(usuario);
+            usuario.enviarAudio(destino.username, null, destino.isEnLinea() ? 1 : 0, plantillaAudio,
+                inicioDatosAudio, config.audioSegundos);
+        }
+    }
+    
+    /**
+     * Otro usuario al azar, preferentemente en línea
+     */
+    private UsuarioSimulado elegirDestino(UsuarioSimulado remitente) {
+        UsuarioSimulado destino = remitente;
+        for (int intento = 0; intento < 3; intento++) {
+            destino = usuarios.get(ThreadLocalRandom.current().nextInt(usuarios.size()));
+            if (destino != remitente && destino.isEnLinea()) {
+                return destino;
+            }
+        }
+        return destino != remitente ? destino : usuarios.get((remitente.indice + 1) % usuarios.size());
+    }
+    
+    private Long elegirCanal(UsuarioSimulado usuario) {
+        List<Long> canales = usuario.canales;
+        if (canales.isEmpty()) {
+            return null;
+        }
+        return canales.get(ThreadLocalRandom.current().nextInt(canales.size()));
+    }
+    
+    /**
+     * Miembros conectados del canal (el servidor también le entrega el mensaje al remitente)
+     */
+    private int miembrosEnLinea(Long canalId) {
+        int enLinea = 0;
+        for (UsuarioSimulado miembro : miembrosPorCanal.getOrDefault(canalId, List.of())) {
+            if (miembro.isEnLinea()) {
+                enLinea++;
+            }
+        }
+        return enLinea;
+    }
+    
+    private void imprimirProgreso(long inicio, Map<String, Histograma.Instantanea> anterior, long[] enviadosAntes) {
+        long segundos = (System.nanoTime() - inicio) / 1_000_000_000L;
+        long enviados = estadisticas.totalEnviados();
+        StringBuilder linea = new StringBuilder(String.format("   t=%3ds  %6.0f acciones/s  entregas=%d  errores=%d",
+            segundos, (enviados - enviadosAntes[0]) / (double) INTERVALO_PROGRESO_SEGUNDOS,
+            estadisticas.totalEntregas(), estadisticas.totalErrores()));
+        enviadosAntes[0] = enviados;
+        
+        for (EstadisticasCarga.Accion accion : estadisticas.getAcciones().values()) {
+            Histograma.Instantanea actual = accion.entrega.instantanea();
+            Histograma.Instantanea ventana = actual.menos(anterior.get(accion.nombre));
+            anterior.put(accion.nombre, actual);
+            if (ventana.getTotal() > 0) {
+                linea.append(String.format("  %s p99=%s ms", accion.nombre, milisegundos(ventana.percentil(99))));
+            }
+        }
+        System.out.println(linea);
+    }
+    
+    private void imprimirResumen(long duracionNanos) {
+        double segundos = duracionNanos / 1_000_000_000.0;
+        System.out.println();
+        System.out.println(String.format("📊 Resultados (%d usuarios, %.1f s de carga)", usuarios.size(), segundos));
+        System.out.println(String.format("%-10s %9s %8s %9s %19s %9s %9s %9s %9s %9s %11s %11s",
+            "Acción", "Enviados", "Errores", "Env/s", "Entregas/Esperadas", "Entr/s",
+            "p50 ms", "p99 ms", "p999 ms", "Máx ms", "Req p50 ms", "Req p99 ms"));
+        for (EstadisticasCarga.Accion accion : estadisticas.getAcciones().values()) {
+            long enviados = accion.enviados.getValor();
+            if (enviados == 0) {
+                continue;
+            }
+            Histograma.Instantanea entrega = accion.entrega.instantanea();
+            Histograma.Instantanea request = accion.request.instantanea();
+            boolean hayEntregas = entrega.getTotal() > 0;
+            System.out.println(String.format("%-10s %9d %8d %9.1f %19s %9.1f %9s %9s %9s %9s %11s %11s",
+                accion.nombre, enviados, accion.errores.getValor(), enviados / segundos,
+                accion.entregas.getValor() + "/" + accion.esperadas.getValor(),
+                accion.entregas.getValor() / segundos,
+                hayEntregas ? milisegundos(entrega.percentil(50)) : "-",
+                hayEntregas ? milisegundos(entrega.percentil(99)) : "-",
+                hayEntregas ? milisegundos(entrega.percentil(99.9)) : "-",
+                hayEntregas ? milisegundos(entrega.getMaximo()) : "-",
+                milisegundos(request.percentil(50)), milisegundos(request.percentil(99))));
+        }
+        long enviados = estadisticas.totalEnviados();
+        long errores = estadisticas.totalErrores();
+        System.out.println(String.format("Total: %d acciones (%.1f/s), %d entregas (%.1f/s), %d errores (%.2f %%)",
+            enviados, enviados / segundos, estadisticas.totalEntregas(), estadisticas.totalEntregas() / segundos,
+            errores, enviados == 0 ? 0.0 : errores * 100.0 / enviados));
+        
+        Map<String, Long> contadores = RegistroMetricas.obtenerInstancia().leerContadores();
+        long enviadosOriginales = contadores.getOrDefault("red.compresion.originales", 0L);
+        long recibidosOriginales = contadores.getOrDefault("red.descompresion.originales", 0L);
+        if (enviadosOriginales + recibidosOriginales > 0) {
+            System.out.println(String.format("Compresión (todas las conexiones): enviado %.1f → %.1f KB (%.0f %%), "
+                + "recibido %.1f → %.1f KB (%.0f %%)",
+                enviadosOriginales / 1024.0, contadores.get("red.compresion.enviados") / 1024.0,
+                porcentaje(contadores.get("red.compresion.enviados"), enviadosOriginales),
+                contadores.get("red.descompresion.recibidos") / 1024.0, recibidosOriginales / 1024.0,
+                porcentaje(contadores.get("red.descompresion.recibidos"), recibidosOriginales)));
+        }
+    }
+    
+    private static double porcentaje(Long parte, long total) {
+        return total == 0 || parte == null ? 100.0 : parte * 100.0 / total;
+    }
+    
+    /**
+     * Resumen en JSON (latencias en milisegundos) para comparar ejecuciones
+     */
+    private void guardarResumen(long duracionNanos) throws IOException {
+        double segundos = duracionNanos / 1_000_000_000.0;
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("usuarios", usuarios.size());
+        resumen.put("canales", miembrosPorCanal.size());
+        resumen.put("ritmoPorUsuario", config.ritmo);
+        resumen.put("mezcla", config.mezcla);
+        resumen.put("segundos", segundos);
+        
+        Map<String, Object> porAccion = new LinkedHashMap<>();
+        for (EstadisticasCarga.Accion accion : estadisticas.getAcciones().values()) {
+            Histograma.Instantanea entrega = accion.entrega.instantanea();
+            Histograma.Instantanea request = accion.request.instantanea();
+            Map<String, Object> valores = new LinkedHashMap<>();
+            valores.put("enviados", accion.enviados.getValor());
+            valores.put("errores", accion.errores.getValor());
+            valores.put("entregas", accion.entregas.getValor());
+            valores.put("esperadas", accion.esperadas.getValor());
+            valores.put("enviadosPorSegundo", accion.enviados.getValor() / segundos);
+            valores.put("entregasPorSegundo", accion.entregas.getValor() / segundos);
+            valores.put("entregaP50", entrega.percentil(50) / 1000.0);
+            valores.put("entregaP99", entrega.percentil(99) / 1000.0);
+            valores.put("entregaP999", entrega.percentil(99.9) / 1000.0);
+            valores.put("entregaMaximo", entrega.getMaximo() / 1000.0);
+            valores.put("requestP50", request.percentil(50) / 1000.0);
+            valores.put("requestP99", request.percentil(99) / 1000.0);
+            porAccion.put(accion.nombre, valores);
+        }
+        resumen.put("acciones", porAccion);
+        
+        try (Writer escritor = Files.newBufferedWriter(Paths.get(config.salida), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(resumen, escritor);
+        }
+        System.out.println("💾 Resumen guardado en " + config.salida);
+    }
+    
+    private void cerrar() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
+        if (usuarios.isEmpty()) {
+            return;
+        }
+        try {
+            enParalelo("Desconexión", usuarios, usuario -> {
+                try {
+                    usuario.logout();
+                } finally {
+                    usuario.desconectar();
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Tarea de preparación sobre un elemento
+     */
+    @FunctionalInterface
+    private interface Paso<T> {
+        void ejecutar(T elemento) throws IOException;
+    }
+    
+    /**
+     * Ejecutar un paso para todos los elementos con config.paralelas hilos; devuelve los
+     * que fallaron (e informa el primer error)
+     */
+    private <T> List<T> enParalelo(String fase, List<T> elementos, Paso<T> paso) throws InterruptedException {
+        long inicio = System.nanoTime();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(config.paralelas);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (T elemento : elementos) {
+            tareas.add(ejecutor.submit(() -> {
+                paso.ejecutar(elemento);
+                return null;
+            }));
+        }
+        
+        List<T> fallidos = new ArrayList<>();
+        String primerError = null;
+        for (int i = 0; i < tareas.size(); i++) {
+            try {
+                tareas.get(i).get();
+            } catch (ExecutionException e) {
+                fallidos.add(elementos.get(i));
+                if (primerError == null) {
+                    primerError = e.getCause().getMessage();
+                }
+            }
+        }
+        ejecutor.shutdown();
+        
+        System.out.println(String.format("   %s: %d/%d en %.1f s%s", fase, elementos.size() - fallidos.size(),
+            elementos.size(), (System.nanoTime() - inicio) / 1_000_000_000.0,
+            primerError == null ? "" : " (primer error: " + primerError + ")"));
+        return fallidos;
+    }
+    
+    /**
+     * Nota de voz WAV 16 kHz mono: tono de 220 Hz con ruido suave
+     */
+    private static byte[] generarWav(int segundos) throws IOException {
+        float frecuencia = 16000f;
+        int frames = (int) (Math.max(1, segundos) * frecuencia);
+        byte[] pcm = new byte[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            double muestra = 0.3 * Math.sin(2 * Math.PI * 220 * i / frecuencia)
+                + (ThreadLocalRandom.current().nextDouble() - 0.5) * 0.02;
+            short valor = (short) (muestra * Short.MAX_VALUE);
+            pcm[2 * i] = (byte) (valor & 0xFF);
+            pcm[2 * i + 1] = (byte) ((valor >> 8) & 0xFF);
+        }
+        AudioFormat formato = new AudioFormat(frecuencia, 16, 1, true, false);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(pcm.length + 44);
+        try (AudioInputStream audio = new AudioInputStream(new ByteArrayInputStream(pcm), formato, frames)) {
+            AudioSystem.write(audio, AudioFileFormat.Type.WAVE, salida);
+        }
+        return salida.toByteArray();
+    }
+    
+    /**
+     * Posición donde empiezan los datos PCM (chunk "data") de un WAV, o -1
+     */
+    static int inicioDatosWav(byte[] wav) {
+        int posicion = 12;
+        while (posicion + 8 <= wav.length) {
+            int tamano = (wav[posicion + 4] & 0xFF) | (wav[posicion + 5] & 0xFF) << 8
+                | (wav[posicion + 6] & 0xFF) << 16 | (wav[posicion + 7] & 0xFF) << 24;
+            if (wav[posicion] == 'd' && wav[posicion + 1] == 'a' && wav[posicion + 2] == 't' && wav[posicion + 3] == 'a') {
+                return posicion + 8;
+            }
+            if (tamano < 0) {
+                return -1;
+            }
+            posicion += 8 + tamano + (tamano & 1);
+        }
+        return -1;
+    }
+    
+    private static String milisegundos(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+}
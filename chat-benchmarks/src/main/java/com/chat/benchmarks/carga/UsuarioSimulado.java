@@ -0,0 +1,273 @@
+package com.chat.benchmarks.carga;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.chat.cliente.negocio.ClienteRed;
+import com.chat.common.dto.RequestDTO;
+import com.chat.common.dto.ResponseDTO;
+import com.chat.common.models.Invitacion;
+
+/**
+ * Estudiante simulado: una conexión ClienteRed propia (sin GUI ni BusEventos) que
+ * envía requests del protocolo real y mide las notificaciones que recibe.
+ *
+ * Los mensajes llevan una marca con el System.nanoTime() del envío: en el texto como
+ * prefijo "[carga:NANOS] " y en las notas de voz como 12 bytes ("CRGA" + nanos) al
+ * inicio de los datos PCM del WAV.
+ */
+class UsuarioSimulado {
+    
+    static final String PREFIJO_MARCA = "[carga:";
+    static final byte[] MAGIA_AUDIO = {'C', 'R', 'G', 'A'};
+    
+    final int indice;
+    final String username;
+    final List<Long> canales = new CopyOnWriteArrayList<>();
+    
+    private final ClienteRed red;
+    private final EstadisticasCarga estadisticas;
+    private volatile Long usuarioId;
+    private volatile String token;
+    private volatile boolean enLinea;
+    
+    UsuarioSimulado(int indice, String username, String host, int puerto, boolean compresion,
+                    EstadisticasCarga estadisticas) {
+        this.indice = indice;
+        this.username = username;
+        this.estadisticas = estadisticas;
+        this.red = new ClienteRed(host, puerto);
+        this.red.setCompresion(compresion);
+        this.red.setOyenteNotificaciones(this::recibirNotificacion);
+    }
+    
+    void conectar() throws IOException {
+        red.conectar();
+    }
+    
+    void desconectar() {
+        enLinea = false;
+        red.desconectar();
+    }
+    
+    /**
+     * Registrar el usuario (si ya existe de una ejecución anterior, se reutiliza)
+     */
+    void registrar(String password) throws IOException {
+        RequestDTO request = new RequestDTO(RequestDTO.TipoRequest.REGISTRO);
+        request.addDato("username", username);
+        request.addDato("email", username + "@carga.local");
+        request.addDato("password", password);
+        request.addDato("direccionIP", "127.0.0.1");
+        ResponseDTO response = red.enviarRequest(request);
+        if (!response.isExito() && !String.valueOf(response.getMensaje()).contains("ya existe")) {
+            throw new IOException("Registro rechazado: " + response.getMensaje());
+        }
+    }
+    
+    void login(String password) throws IOException {
+        RequestDTO request = new RequestDTO(RequestDTO.TipoRequest.LOGIN);
+        request.addDato("username", username);
+        request.addDato("password", password);
+        ResponseDTO response = red.enviarRequest(request);
+        if (!response.isExito()) {
+            throw new IOException("Login rechazado: " + response.getMensaje());
+        }
+        token = (String) response.getDato("token");
+        usuarioId = ((Number) response.getDato("usuarioId")).longValue();
+        enLinea = true;
+    }
+    
+    void logout() throws IOException {
+        enLinea = false;
+        RequestDTO request = nuevoRequest(RequestDTO.TipoRequest.LOGOUT);
+        request.setSessionToken(token);
+        red.enviarRequest(request);
+    }
+    
+    /**
+     * Crear un canal invitando a otros usuarios; devuelve su id
+     */
+    Long crearCanal(String nombre, List<String> invitados) throws IOException {
+        RequestDTO request = nuevoRequest(RequestDTO.TipoRequest.CREAR_GRUPO_CON_INVITACIONES);
+        request.addDato("nombre", nombre);
+        request.addDato("descripcion", "Canal de prueba de carga");
+        request.addDato("usuariosInvitados", new ArrayList<>(invitados));
+        ResponseDTO response = red.enviarRequest(request);
+        if (!response.isExito()) {
+            throw new IOException("No se pudo crear el canal " + nombre + ": " + response.getMensaje());
+        }
+        Long canalId = ((Number) response.getDato("canalId")).longValue();
+        canales.add(canalId);
+        return canalId;
+    }
+    
+    /**
+     * Aceptar las invitaciones pendientes a los canales de esta prueba
+     */
+    @SuppressWarnings("unchecked")
+    void aceptarInvitaciones(Set<Long> canalesPrueba) throws IOException {
+        ResponseDTO pendientes = red.enviarRequest(nuevoRequest(RequestDTO.TipoRequest.OBTENER_INVITACIONES_PENDIENTES));
+        if (!pendientes.isExito()) {
+            throw new IOException("No se pudieron obtener invitaciones: " + pendientes.getMensaje());
+        }
+        List<Invitacion> invitaciones = (List<Invitacion>) pendientes.getDato("invitaciones");
+        for (Invitacion invitacion : invitaciones) {
+            if (!canalesPrueba.contains(invitacion.getCanalId())) {
+                continue;
+            }
+            RequestDTO request = nuevoRequest(RequestDTO.TipoRequest.ACEPTAR_INVITACION);
+            request.addDato("invitacionId", invitacion.getId());
+            request.addDato("canalId", invitacion.getCanalId());
+            ResponseDTO response = red.enviarRequest(request);
+            if (response.isExito()) {
+                canales.add(invitacion.getCanalId());
+            }
+        }
+    }
+    
+    void enviarPrivado(String destino, int esperadas) {
+        RequestDTO request = nuevoRequest(RequestDTO.TipoRequest.ENVIAR_MENSAJE);
+        request.addDato("usernameDestino", destino);
+        request.addDato("tipoMensaje", "TEXTO");
+        long inicio = System.nanoTime();
+        request.addDato("contenido", PREFIJO_MARCA + inicio + "] Hola, ¿ya entregaste el laboratorio?");
+        ejecutar(estadisticas.accion("privado"), request, inicio, esperadas);
+    }
+    
+    void enviarGrupo(Long canalId, int esperadas) {
+        RequestDTO request = nuevoRequest(RequestDTO.TipoRequest.ENVIAR_MENSAJE_GRUPO);
+        request.addDato("canalId", canalId);
+        request.addDato("remitente", username);
+        long inicio = System.nanoTime();
+        request.addDato("contenido", PREFIJO_MARCA + inicio + "] Recuerden la reunión de grupo mañana a las 10");
+        ejecutar(estadisticas.accion("grupo"), request, inicio, esperadas);
+    }
+    
+    /**
+     * Nota de voz a un usuario (destino) o a un canal (canalId); la plantilla es un WAV
+     * válido y la marca se escribe en una copia
+     */
+    void enviarAudio(String destino, Long canalId, int esperadas, byte[] plantilla, int inicioDatos,
+                     long duracionSegundos) {
+        RequestDTO request = nuevoRequest(RequestDTO.TipoRequest.ENVIAR_MENSAJE_AUDIO);
+        if (canalId != null) {
+            request.addDato("canalId", canalId);
+        } else {
+            request.addDato("usernameDestino", destino);
+        }
+        request.addDato("formato", "WAV");
+        request.addDato("duracionSegundos", duracionSegundos);
+        
+        byte[] audio = plantilla.clone();
+        long inicio = System.nanoTime();
+        ByteBuffer.wrap(audio, inicioDatos, 12).put(MAGIA_AUDIO).putLong(inicio);
+        request.addDato("contenidoAudio", audio);
+        ejecutar(estadisticas.accion("audio"), request, inicio, esperadas);
+    }
+    
+    /**
+     * Salir y volver a entrar (genera notificaciones USUARIOS_ACTUALIZADOS a todos)
+     */
+    void rotarPresencia(String password) {
+        EstadisticasCarga.Accion accion = estadisticas.accion("presencia");
+        long inicio = System.nanoTime();
+        accion.enviados.incrementar();
+        try {
+            logout();
+            login(password);
+            accion.request.registrarDesde(inicio);
+        } catch (IOException | RuntimeException e) {
+            accion.errores.incrementar();
+        }
+    }
+    
+    /**
+     * Enviar el request y medirlo; las entregas esperadas solo cuentan si el servidor lo aceptó
+     */
+    private void ejecutar(EstadisticasCarga.Accion accion, RequestDTO request, long inicio, int esperadas) {
+        accion.enviados.incrementar();
+        try {
+            ResponseDTO response = red.enviarRequest(request);
+            accion.request.registrarDesde(inicio);
+            if (response.isExito()) {
+                accion.esperadas.sumar(esperadas);
+            } else {
+                accion.errores.incrementar();
+            }
+        } catch (IOException e) {
+            accion.errores.incrementar();
+        }
+    }
+    
+    private RequestDTO nuevoRequest(RequestDTO.TipoRequest tipo) {
+        RequestDTO request = new RequestDTO(tipo);
+        request.setUsuarioId(usuarioId);
+        request.setSessionToken(token);
+        return request;
+    }
+    
+    /**
+     * Notificaciones del servidor (hilo de escucha de ClienteRed)
+     */
+    private void recibirNotificacion(ResponseDTO notificacion) {
+        long ahora = System.nanoTime();
+        String tipo = (String) notificacion.getDato("tipo");
+        if ("MENSAJE_ENTRANTE".equals(tipo)) {
+            registrarEntrega("privado", marcaTexto((String) notificacion.getDato("contenido")), ahora);
+        } else if ("MENSAJE_GRUPO".equals(tipo)) {
+            registrarEntrega("grupo", marcaTexto((String) notificacion.getDato("contenido")), ahora);
+        } else if ("AUDIO_ENTRANTE".equals(tipo) || "AUDIO_GRUPO".equals(tipo)) {
+            registrarEntrega("audio", marcaAudio((byte[]) notificacion.getDato("contenidoAudio")), ahora);
+        }
+    }
+    
+    private void registrarEntrega(String accion, long enviado, long ahora) {
+        if (enviado <= 0) {
+            return;
+        }
+        EstadisticasCarga.Accion metricas = estadisticas.accion(accion);
+        metricas.entregas.incrementar();
+        metricas.entrega.registrar((ahora - enviado) / 1000);
+    }
+    
+    private static long marcaTexto(String contenido) {
+        if (contenido == null || !contenido.startsWith(PREFIJO_MARCA)) {
+            return -1;
+        }
+        int fin = contenido.indexOf(']');
+        try {
+            return Long.parseLong(contenido.substring(PREFIJO_MARCA.length(), fin));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+    
+    private static long marcaAudio(byte[] audio) {
+        if (audio == null) {
+            return -1;
+        }
+        int inicio = GeneradorCarga.inicioDatosWav(audio);
+        if (inicio < 0 || audio.length < inicio + 12) {
+            return -1;
+        }
+        for (int i = 0; i < MAGIA_AUDIO.length; i++) {
+            if (audio[inicio + i] != MAGIA_AUDIO[i]) {
+                return -1;
+            }
+        }
+        return ByteBuffer.wrap(audio, inicio + MAGIA_AUDIO.length, 8).getLong();
+    }
+    
+    Long getUsuarioId() {
+        return usuarioId;
+    }
+    
+    boolean isEnLinea() {
+        return enLinea;
+    }
+}
@@ -0,0 +1,222 @@
+package com.chat.cliente.datos;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cola de escritura diferida en la base de datos local (Singleton)
+ *
+ * Los guardados de mensajes y audios se encolan y un único hilo escritor los aplica en
+ * orden de llegada: toma lo que llegó durante un tick (TICK_MS, hasta MAX_LOTE) y lo
+ * escribe en una sola transacción. Una ráfaga de mensajes de grupo es un commit en
+ * lugar de uno por mensaje, y quien guarda (p. ej. el hilo de Swing) no espera a H2.
+ *
+ * El escritor usa su propia conexión (ConexionH2.abrirConexion()): las transacciones del
+ * lote no afectan a las lecturas que el resto del cliente hace por la conexión compartida
+ * en otros hilos, que siguen en autocommit y solo ven los lotes ya confirmados.
+ *
+ * Si el lote falla se deshace y se reintenta registro a registro, para no perder todo
+ * el lote por uno. ConexionH2.cerrarConexion() vacía la cola y cierra la conexión del
+ * escritor (logout, desconexión forzada y cierre del cliente); la siguiente escritura
+ * abre otra, con la base de datos del usuario que haya entonces.
+ */
+public class ColaEscrituraH2 {
+    
+    private static final long TICK_MS = 20;
+    private static final int MAX_LOTE = 500;
+    private static final long ESPERA_VACIADO_MS = 5000;
+    
+    private static ColaEscrituraH2 instancia;
+    
+    private final LinkedBlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+    /** Protege la conexión del escritor: un lote no se cruza con su cierre */
+    private final Object candadoConexion = new Object();
+    private Connection conexion;
+    
+    /**
+     * Escritura a ejecutar dentro del lote, con la conexión del hilo escritor
+     */
+    @FunctionalInterface
+    public interface Escritura {
+        void ejecutar(Connection conexion) throws SQLException;
+    }
+    
+    private static final class Pendiente {
+        /** null: marca de vaciado, se completa cuando todo lo anterior está escrito */
+        final Escritura escritura;
+        final CompletableFuture<Void> resultado = new CompletableFuture<>();
+        
+        Pendiente(Escritura escritura) {
+            this.escritura = escritura;
+        }
+    }
+    
+    private ColaEscrituraH2() {
+        escritor = new Thread(this::escribirEnBucle, "h2-escritura");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+    
+    public static synchronized ColaEscrituraH2 obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new ColaEscrituraH2();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Vaciar la cola y cerrar la conexión del escritor, si ya se creó (no la crea solo para esto)
+     */
+    static void cerrarPendientes() {
+        ColaEscrituraH2 cola;
+        synchronized (ColaEscrituraH2.class) {
+            cola = instancia;
+        }
+        if (cola != null) {
+            cola.vaciar();
+            cola.cerrarConexion();
+        }
+    }
+    
+    /**
+     * Encolar una escritura; el futuro se completa cuando su lote se confirma
+     */
+    public CompletableFuture<Void> encolar(Escritura escritura) {
+        Pendiente pendiente = new Pendiente(escritura);
+        cola.add(pendiente);
+        return pendiente.resultado;
+    }
+    
+    /**
+     * Esperar a que todo lo encolado hasta ahora esté escrito (como mucho ESPERA_VACIADO_MS)
+     * @return true si se escribió todo a tiempo
+     */
+    public boolean vaciar() {
+        if (Thread.currentThread() == escritor) {
+            return false;
+        }
+        Pendiente marca = new Pendiente(null);
+        cola.add(marca);
+        try {
+            marca.resultado.get(ESPERA_VACIADO_MS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("✗ No se pudieron escribir en H2 " + cola.size() + " registros pendientes");
+        }
+        return false;
+    }
+    
+    private void escribirEnBucle() {
+        List<Pendiente> lote = new ArrayList<>();
+        while (true) {
+            try {
+                lote.add(cola.take());
+                // Juntar lo que llegue durante el tick
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TICK_MS);
+                while (lote.size() < MAX_LOTE) {
+                    long restante = limite - System.nanoTime();
+                    Pendiente siguiente = restante > 0 ? cola.poll(restante, TimeUnit.NANOSECONDS) : cola.poll();
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                escribirLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("✗ Error en la escritura diferida a H2: " + e.getMessage());
+                lote.forEach(p -> p.resultado.completeExceptionally(e));
+            }
+            lote.clear();
+        }
+    }
+    
+    /**
+     * Escribir un lote en una transacción; si falla, registro a registro
+     */
+    private void escribirLote(List<Pendiente> lote) {
+        synchronized (candadoConexion) {
+            escribirLoteEnConexion(lote);
+        }
+    }
+    
+    private void escribirLoteEnConexion(List<Pendiente> lote) {
+        try {
+            if (conexion == null || conexion.isClosed()) {
+                conexion = ConexionH2.abrirConexion();
+            }
+        } catch (SQLException e) {
+            System.err.println("✗ Sin conexión a H2, se descartan " + lote.size() + " escrituras: " + e.getMessage());
+            lote.forEach(p -> p.resultado.completeExceptionally(e));
+            return;
+        }
+        
+        boolean confirmado = false;
+        try {
+            conexion.setAutoCommit(false);
+            try {
+                for (Pendiente pendiente : lote) {
+                    if (pendiente.escritura != null) {
+                        pendiente.escritura.ejecutar(conexion);
+                    }
+                }
+                conexion.commit();
+                confirmado = true;
+            } catch (SQLException e) {
+                conexion.rollback();
+                System.err.println("✗ Error en lote de " + lote.size() + " escrituras a H2, reintentando una a una: "
+                    + e.getMessage());
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+            // Los futuros se completan con la conexión ya en autocommit
+            if (confirmado) {
+                lote.forEach(p -> p.resultado.complete(null));
+            } else {
+                escribirUnaAUna(conexion, lote);
+            }
+        } catch (SQLException e) {
+            System.err.println("✗ Error de transacción en H2: " + e.getMessage());
+            lote.forEach(p -> p.resultado.completeExceptionally(e));
+        }
+    }
+    
+    private void cerrarConexion() {
+        synchronized (candadoConexion) {
+            if (conexion == null) {
+                return;
+            }
+            try {
+                conexion.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la conexión de escritura a H2: " + e.getMessage());
+            }
+            conexion = null;
+        }
+    }
+    
+    private void escribirUnaAUna(Connection conexion, List<Pendiente> lote) {
+        for (Pendiente pendiente : lote) {
+            try {
+                if (pendiente.escritura != null) {
+                    pendiente.escritura.ejecutar(conexion);
+                }
+                pendiente.resultado.complete(null);
+            } catch (SQLException e) {
+                pendiente.resultado.completeExceptionally(e);
+            }
+        }
+    }
+}
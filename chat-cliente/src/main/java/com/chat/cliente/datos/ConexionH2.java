@@ -3,6 +3,7 @@ package com.chat.cliente.datos;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -63,22 +64,30 @@ public class ConexionH2 {
      */
     public static Connection obtenerConexion() throws SQLException {
         if (conexion == null || conexion.isClosed()) {
-            try {
-                Class.forName("org.h2.Driver");
-                String dbUrl = obtenerRutaBaseDatos();
-                conexion = DriverManager.getConnection(dbUrl, USER, PASSWORD);
-                System.out.println("Conexión a H2 establecida en: " + dbUrl);
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("Driver H2 no encontrado", e);
-            }
+            conexion = abrirConexion();
+            System.out.println("Conexión a H2 establecida en: " + obtenerRutaBaseDatos());
         }
         return conexion;
     }
     
     /**
-     * Cerrar conexión
+     * Abrir una conexión aparte a la base de datos del usuario actual
+     * (la usa el hilo escritor de ColaEscrituraH2)
+     */
+    static Connection abrirConexion() throws SQLException {
+        try {
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Driver H2 no encontrado", e);
+        }
+        return DriverManager.getConnection(obtenerRutaBaseDatos(), USER, PASSWORD);
+    }
+    
+    /**
+     * Cerrar conexión (antes se escribe lo pendiente en ColaEscrituraH2 y se cierra la suya)
      */
     public static void cerrarConexion() {
+        ColaEscrituraH2.cerrarPendientes();
         if (conexion != null) {
             try {
                 if (!conexion.isClosed()) {
@@ -100,52 +109,92 @@ public class ConexionH2 {
     }
     
     /**
-     * Inicializar base de datos local
+     * Migraciones del esquema local, en orden: la posición + 1 es la versión.
+     * Nunca se modifica una migración publicada; los cambios van en una nueva al final.
+     */
+    private static final String[][] MIGRACIONES = {
+        // 1: tablas iniciales (IF NOT EXISTS: las bases anteriores al versionado ya las tienen)
+        {
+            "CREATE TABLE IF NOT EXISTS logs_mensajes (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+            "remitente_username VARCHAR(50) NOT NULL," +
+            "destinatario_username VARCHAR(50)," +
+            "grupo_nombre VARCHAR(100)," +
+            "contenido TEXT NOT NULL," +
+            "fecha_envio TIMESTAMP NOT NULL," +
+            "tipo_mensaje VARCHAR(20) NOT NULL" +
+            ")",
+            "CREATE TABLE IF NOT EXISTS sesion_usuario (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+            "usuario_id BIGINT," +
+            "username VARCHAR(50)," +
+            "token VARCHAR(255)," +
+            "fecha_login TIMESTAMP" +
+            ")",
+            "CREATE TABLE IF NOT EXISTS logs_audios (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+            "remitente_username VARCHAR(50) NOT NULL," +
+            "destinatario_username VARCHAR(50)," +
+            "grupo_nombre VARCHAR(100)," +
+            "contenido_audio BLOB NOT NULL," +
+            "formato VARCHAR(20) NOT NULL," +
+            "duracion_segundos BIGINT NOT NULL," +
+            "fecha_envio TIMESTAMP NOT NULL" +
+            ")"
+        },
+        // 2: índices para el historial paginado (conversación privada por remitente/destinatario, grupo)
+        {
+            "CREATE INDEX IF NOT EXISTS idx_logs_mensajes_privado " +
+            "ON logs_mensajes (remitente_username, destinatario_username, fecha_envio, id)",
+            "CREATE INDEX IF NOT EXISTS idx_logs_mensajes_grupo " +
+            "ON logs_mensajes (grupo_nombre, fecha_envio, id)",
+            "CREATE INDEX IF NOT EXISTS idx_logs_audios_privado " +
+            "ON logs_audios (remitente_username, destinatario_username, fecha_envio, id)",
+            "CREATE INDEX IF NOT EXISTS idx_logs_audios_grupo " +
+            "ON logs_audios (grupo_nombre, fecha_envio, id)"
+        }
+    };
+    
+    /**
+     * Inicializar base de datos local: aplicar las migraciones pendientes.
+     * La versión aplicada se guarda en esquema_version; cada migración va en su propia transacción.
      */
     public static void inicializarBaseDatos() throws SQLException {
         Connection conn = obtenerConexion();
         
         try (Statement stmt = conn.createStatement()) {
-            // Tabla de logs de mensajes
-            String crearTablaLogs = 
-                "CREATE TABLE IF NOT EXISTS logs_mensajes (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "remitente_username VARCHAR(50) NOT NULL," +
-                "destinatario_username VARCHAR(50)," +
-                "grupo_nombre VARCHAR(100)," +
-                "contenido TEXT NOT NULL," +
-                "fecha_envio TIMESTAMP NOT NULL," +
-                "tipo_mensaje VARCHAR(20) NOT NULL" +
-                ")";
-            
-            // Tabla de sesión del usuario
-            String crearTablaSesion = 
-                "CREATE TABLE IF NOT EXISTS sesion_usuario (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "usuario_id BIGINT," +
-                "username VARCHAR(50)," +
-                "token VARCHAR(255)," +
-                "fecha_login TIMESTAMP" +
-                ")";
-            
-            // Tabla de logs de audios
-            String crearTablaAudios = 
-                "CREATE TABLE IF NOT EXISTS logs_audios (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "remitente_username VARCHAR(50) NOT NULL," +
-                "destinatario_username VARCHAR(50)," +
-                "grupo_nombre VARCHAR(100)," +
-                "contenido_audio BLOB NOT NULL," +
-                "formato VARCHAR(20) NOT NULL," +
-                "duracion_segundos BIGINT NOT NULL," +
-                "fecha_envio TIMESTAMP NOT NULL" +
-                ")";
-            
-            stmt.execute(crearTablaLogs);
-            stmt.execute(crearTablaSesion);
-            stmt.execute(crearTablaAudios);
-            
-            System.out.println("Base de datos local H2 inicializada");
+            stmt.execute("CREATE TABLE IF NOT EXISTS esquema_version (version INT NOT NULL)");
+        }
+        
+        int version = obtenerVersionEsquema(conn);
+        boolean autoCommit = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            for (int i = version; i < MIGRACIONES.length; i++) {
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : MIGRACIONES[i]) {
+                        stmt.execute(sql);
+                    }
+                    stmt.execute("DELETE FROM esquema_version");
+                    stmt.execute("INSERT INTO esquema_version (version) VALUES (" + (i + 1) + ")");
+                    conn.commit();
+                    System.out.println("✓ Esquema local migrado a la versión " + (i + 1));
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Error en la migración " + (i + 1) + " del esquema local", e);
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        
+        System.out.println("Base de datos local H2 inicializada (esquema v" + MIGRACIONES.length + ")");
+    }
+    
+    private static int obtenerVersionEsquema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM esquema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
         }
     }
 }
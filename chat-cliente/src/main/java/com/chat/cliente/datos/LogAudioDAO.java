@@ -108,10 +108,96 @@ public class LogAudioDAO {
         return audios;
     }
     
+    /**
+     * Página de audios de una conversación privada: los anteriores a la posición
+     * (fecha, id) dada, del más reciente al más antiguo (índice idx_logs_audios_privado).
+     * Solo metadatos: el contenido se lee con obtenerContenidoAudio al reproducirlo.
+     */
+    public List<AudioConversacion> obtenerPaginaConversacion(String usuario1, String usuario2,
+                                                             Timestamp antesDeFecha, long antesDeId,
+                                                             int limite) throws SQLException {
+        String sentido = "SELECT id, remitente_username, formato, duracion_segundos, fecha_envio " +
+                         "FROM logs_audios " +
+                         "WHERE remitente_username = ? AND destinatario_username = ? AND grupo_nombre IS NULL " +
+                         "  AND (fecha_envio < ? OR (fecha_envio = ? AND id < ?)) " +
+                         "ORDER BY fecha_envio DESC, id DESC LIMIT ?";
+        String sql = "SELECT * FROM ((" + sentido + ") UNION ALL (" + sentido + ")) " +
+                     "ORDER BY fecha_envio DESC, id DESC LIMIT ?";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            int i = 1;
+            i = asignarSentido(stmt, i, usuario1, usuario2, antesDeFecha, antesDeId, limite);
+            i = asignarSentido(stmt, i, usuario2, usuario1, antesDeFecha, antesDeId, limite);
+            stmt.setInt(i, limite);
+            return leerPagina(stmt);
+        }
+    }
+    
+    /**
+     * Página de audios de un grupo: los anteriores a la posición (fecha, id) dada,
+     * del más reciente al más antiguo (índice idx_logs_audios_grupo). Solo metadatos.
+     */
+    public List<AudioConversacion> obtenerPaginaGrupo(String grupoNombre, Timestamp antesDeFecha,
+                                                      long antesDeId, int limite) throws SQLException {
+        String sql = "SELECT id, remitente_username, formato, duracion_segundos, fecha_envio " +
+                     "FROM logs_audios " +
+                     "WHERE grupo_nombre = ? " +
+                     "  AND (fecha_envio < ? OR (fecha_envio = ? AND id < ?)) " +
+                     "ORDER BY fecha_envio DESC, id DESC LIMIT ?";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            stmt.setString(1, grupoNombre);
+            stmt.setTimestamp(2, antesDeFecha);
+            stmt.setTimestamp(3, antesDeFecha);
+            stmt.setLong(4, antesDeId);
+            stmt.setInt(5, limite);
+            return leerPagina(stmt);
+        }
+    }
+    
+    private static int asignarSentido(PreparedStatement stmt, int i, String remitente, String destinatario,
+                                      Timestamp antesDeFecha, long antesDeId, int limite) throws SQLException {
+        stmt.setString(i++, remitente);
+        stmt.setString(i++, destinatario);
+        stmt.setTimestamp(i++, antesDeFecha);
+        stmt.setTimestamp(i++, antesDeFecha);
+        stmt.setLong(i++, antesDeId);
+        stmt.setInt(i++, limite);
+        return i;
+    }
+    
+    private static List<AudioConversacion> leerPagina(PreparedStatement stmt) throws SQLException {
+        List<AudioConversacion> audios = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                audios.add(new AudioConversacion(rs.getLong("id"), rs.getString("remitente_username"),
+                    null, rs.getString("formato"),
+                    rs.getLong("duracion_segundos"), rs.getTimestamp("fecha_envio")));
+            }
+        }
+        return audios;
+    }
+    
+    /**
+     * Leer el contenido de un audio por id; null si ya no existe
+     */
+    public byte[] obtenerContenidoAudio(long id) throws SQLException {
+        String sql = "SELECT contenido_audio FROM logs_audios WHERE id = ?";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getBytes("contenido_audio") : null;
+            }
+        }
+    }
+    
     /**
      * Clase interna para representar un audio de conversación
+     * (contenidoAudio es null si se leyó solo la página de metadatos)
      */
     public static class AudioConversacion {
+        private final long id;
         private final String remitente;
         private final byte[] contenidoAudio;
         private final String formato;
@@ -120,6 +206,12 @@ public class LogAudioDAO {
         
         public AudioConversacion(String remitente, byte[] contenidoAudio, String formato,
                                 long duracionSegundos, Timestamp fechaEnvio) {
+            this(0, remitente, contenidoAudio, formato, duracionSegundos, fechaEnvio);
+        }
+        
+        public AudioConversacion(long id, String remitente, byte[] contenidoAudio, String formato,
+                                long duracionSegundos, Timestamp fechaEnvio) {
+            this.id = id;
             this.remitente = remitente;
             this.contenidoAudio = contenidoAudio;
             this.formato = formato;
@@ -127,6 +219,10 @@ public class LogAudioDAO {
             this.fechaEnvio = fechaEnvio;
         }
         
+        public long getId() {
+            return id;
+        }
+        
         public String getRemitente() {
             return remitente;
         }
@@ -89,20 +89,100 @@ public class LogMensajeDAO {
         return mensajes;
     }
     
+    /**
+     * Página de una conversación entre dos usuarios: los mensajes anteriores a la posición
+     * (fecha, id) dada, del más reciente al más antiguo.
+     * Cada sentido de la conversación se consulta por separado para usar el índice
+     * idx_logs_mensajes_privado (remitente, destinatario, fecha, id).
+     */
+    public List<MensajeConversacion> obtenerPaginaConversacion(String usuario1, String usuario2,
+                                                               Timestamp antesDeFecha, long antesDeId,
+                                                               int limite) throws SQLException {
+        String sentido = "SELECT id, remitente_username, contenido, fecha_envio " +
+                         "FROM logs_mensajes " +
+                         "WHERE remitente_username = ? AND destinatario_username = ? " +
+                         "  AND (fecha_envio < ? OR (fecha_envio = ? AND id < ?)) " +
+                         "ORDER BY fecha_envio DESC, id DESC LIMIT ?";
+        String sql = "SELECT * FROM ((" + sentido + ") UNION ALL (" + sentido + ")) " +
+                     "ORDER BY fecha_envio DESC, id DESC LIMIT ?";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            int i = 1;
+            i = asignarSentido(stmt, i, usuario1, usuario2, antesDeFecha, antesDeId, limite);
+            i = asignarSentido(stmt, i, usuario2, usuario1, antesDeFecha, antesDeId, limite);
+            stmt.setInt(i, limite);
+            return leerPagina(stmt);
+        }
+    }
+    
+    /**
+     * Página de un grupo: los mensajes anteriores a la posición (fecha, id) dada,
+     * del más reciente al más antiguo (índice idx_logs_mensajes_grupo)
+     */
+    public List<MensajeConversacion> obtenerPaginaGrupo(String grupoId, Timestamp antesDeFecha,
+                                                        long antesDeId, int limite) throws SQLException {
+        String sql = "SELECT id, remitente_username, contenido, fecha_envio " +
+                     "FROM logs_mensajes " +
+                     "WHERE grupo_nombre = ? " +
+                     "  AND (fecha_envio < ? OR (fecha_envio = ? AND id < ?)) " +
+                     "ORDER BY fecha_envio DESC, id DESC LIMIT ?";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            stmt.setString(1, grupoId);
+            stmt.setTimestamp(2, antesDeFecha);
+            stmt.setTimestamp(3, antesDeFecha);
+            stmt.setLong(4, antesDeId);
+            stmt.setInt(5, limite);
+            return leerPagina(stmt);
+        }
+    }
+    
+    private static int asignarSentido(PreparedStatement stmt, int i, String remitente, String destinatario,
+                                      Timestamp antesDeFecha, long antesDeId, int limite) throws SQLException {
+        stmt.setString(i++, remitente);
+        stmt.setString(i++, destinatario);
+        stmt.setTimestamp(i++, antesDeFecha);
+        stmt.setTimestamp(i++, antesDeFecha);
+        stmt.setLong(i++, antesDeId);
+        stmt.setInt(i++, limite);
+        return i;
+    }
+    
+    private static List<MensajeConversacion> leerPagina(PreparedStatement stmt) throws SQLException {
+        List<MensajeConversacion> mensajes = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                mensajes.add(new MensajeConversacion(rs.getLong("id"), rs.getString("remitente_username"),
+                    rs.getString("contenido"), rs.getTimestamp("fecha_envio")));
+            }
+        }
+        return mensajes;
+    }
+    
     /**
      * Clase interna para representar un mensaje de conversación
      */
     public static class MensajeConversacion {
+        private final long id;
         private final String remitente;
         private final String contenido;
         private final Timestamp fechaEnvio;
         
         public MensajeConversacion(String remitente, String contenido, Timestamp fechaEnvio) {
+            this(0, remitente, contenido, fechaEnvio);
+        }
+        
+        public MensajeConversacion(long id, String remitente, String contenido, Timestamp fechaEnvio) {
+            this.id = id;
             this.remitente = remitente;
             this.contenido = contenido;
             this.fechaEnvio = fechaEnvio;
         }
         
+        public long getId() {
+            return id;
+        }
+        
         public String getRemitente() {
             return remitente;
         }
@@ -1,5 +1,7 @@
 package com.chat.cliente.negocio;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -7,17 +9,25 @@ import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 
+import com.chat.common.dto.AudioEntranteDTO;
+import com.chat.common.dto.NotificacionServidorDTO;
 import com.chat.common.dto.RequestDTO;
 import com.chat.common.dto.ResponseDTO;
+import com.chat.common.models.Invitacion;
 import com.chat.common.models.MensajeEntranteDTO;
+import com.chat.common.network.CompresionRed;
+import com.chat.common.network.EntradaComprimida;
 import com.chat.common.network.ProtocoloMensaje;
+import com.chat.common.network.SalidaComprimida;
+import com.chat.common.patterns.BusEventos;
 import com.chat.common.patterns.EventoChat;
-import com.chat.common.patterns.GestorEventos;
+import com.chat.common.utils.FechaHoraUtil;
 
 /**
  * Cliente de red para comunicación con el servidor
- * Usa el patrón Observer para notificar eventos
+ * Publica las notificaciones como eventos tipados en el BusEventos
  * El hilo de escucha maneja TODAS las lecturas del socket
  */
 public class ClienteRed {
@@ -25,18 +35,23 @@ public class ClienteRed {
     private Socket socket;
     private ObjectOutputStream salida;
     private ObjectInputStream entrada;
+    // Compresión negociada con el servidor (-Dred.compresion=false para desactivarla)
+    private boolean compresion = Boolean.parseBoolean(System.getProperty("red.compresion", "true"));
+    private SalidaComprimida salidaComprimida;
+    private EntradaComprimida entradaComprimida;
     private String host;
     private int puerto;
     private boolean conectado;
     private Thread hiloEscucha;
-    private final GestorEventos gestorEventos;
+    private final BusEventos bus;
     private final BlockingQueue<ResponseDTO> colaRespuestas;
+    private volatile Consumer<ResponseDTO> oyenteNotificaciones;
     
     public ClienteRed(String host, int puerto) {
         this.host = host;
         this.puerto = puerto;
         this.conectado = false;
-        this.gestorEventos = GestorEventos.obtenerInstancia();
+        this.bus = BusEventos.obtenerInstancia();
         this.colaRespuestas = new LinkedBlockingQueue<>();
     }
     
@@ -45,10 +60,22 @@ public class ClienteRed {
      */
     public void conectar() throws IOException {
         socket = new Socket(host, puerto);
-        salida = new ObjectOutputStream(socket.getOutputStream());
-        entrada = new ObjectInputStream(socket.getInputStream());
+        if (compresion && CompresionRed.solicitar(socket.getInputStream(), socket.getOutputStream())) {
+            salidaComprimida = new SalidaComprimida(
+                new BufferedOutputStream(socket.getOutputStream(), 16 * 1024), CompresionRed.NIVEL_POR_DEFECTO);
+            entradaComprimida = new EntradaComprimida(new BufferedInputStream(socket.getInputStream(), 16 * 1024));
+            salida = new ObjectOutputStream(salidaComprimida);
+            salida.flush();
+            entrada = new ObjectInputStream(entradaComprimida);
+        } else {
+            salidaComprimida = null;
+            entradaComprimida = null;
+            salida = new ObjectOutputStream(socket.getOutputStream());
+            entrada = new ObjectInputStream(socket.getInputStream());
+        }
         conectado = true;
-        System.out.println("Conectado al servidor: " + host + ":" + puerto);
+        System.out.println("Conectado al servidor: " + host + ":" + puerto +
+                         (salidaComprimida != null ? " (compresión)" : ""));
         
         // Iniciar hilo de escucha inmediatamente
         iniciarEscucha();
@@ -78,157 +105,13 @@ public class ClienteRed {
                             // Notificación asíncrona (mensaje entrante o actualización de usuarios)
                             ResponseDTO notificacion = (ResponseDTO) protocolo.getPayload();
                             
-                            String tipo = (String) notificacion.getDato("tipo");
-                            if ("MENSAJE_ENTRANTE".equals(tipo)) {
-                                String remitente = (String) notificacion.getDato("remitente");
-                                String contenido = (String) notificacion.getDato("contenido");
-                                
-                                // Crear DTO con los datos del mensaje
-                                MensajeEntranteDTO mensajeDTO = new MensajeEntranteDTO(remitente, contenido);
-                                
-                                // Publicar evento usando el patrón Observer
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.MENSAJE_RECIBIDO, 
-                                    mensajeDTO
-                                );
-                                
-                                System.out.println("Evento MENSAJE_RECIBIDO publicado: " + remitente);
-                            } else if ("MENSAJE_GRUPO".equals(tipo)) {
-                                // Mensaje grupal recibido
-                                Long canalId = ((Number) notificacion.getDato("canalId")).longValue();
-                                String remitente = (String) notificacion.getDato("remitente");
-                                String contenido = (String) notificacion.getDato("contenido");
-                                
-                                // Crear mapa con datos del mensaje grupal
-                                java.util.Map<String, Object> datosMensaje = new java.util.HashMap<>();
-                                datosMensaje.put("canalId", canalId);
-                                datosMensaje.put("remitente", remitente);
-                                datosMensaje.put("contenido", contenido);
-                                
-                                // Publicar evento
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.MENSAJE_GRUPO_RECIBIDO, 
-                                    datosMensaje
-                                );
-                                
-                                System.out.println("Evento MENSAJE_GRUPO_RECIBIDO publicado de: " + remitente + " en canal: " + canalId);
-                            } else if ("USUARIOS_ACTUALIZADOS".equals(tipo)) {
-                                // La lista de usuarios en línea ha cambiado
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.USUARIOS_ACTUALIZADOS,
-                                    null
-                                );
-                                
-                                System.out.println("Evento USUARIOS_ACTUALIZADOS publicado");
-                            } else if ("INVITACION_RECIBIDA".equals(tipo)) {
-                                // Invitación a grupo/canal recibida
-                                String usernameInvitador = (String) notificacion.getDato("usernameInvitador");
-                                String nombreCanal = (String) notificacion.getDato("nombreCanal");
-                                String descripcionCanal = (String) notificacion.getDato("descripcionCanal");
-                                byte[] fotoCanal = (byte[]) notificacion.getDato("fotoCanal");
-                                Long canalId = ((Number) notificacion.getDato("canalId")).longValue();
-                                
-                                // Crear mapa con datos de la invitación
-                                java.util.Map<String, Object> datosInvitacion = new java.util.HashMap<>();
-                                datosInvitacion.put("usernameInvitador", usernameInvitador);
-                                datosInvitacion.put("nombreCanal", nombreCanal);
-                                datosInvitacion.put("descripcionCanal", descripcionCanal);
-                                datosInvitacion.put("fotoCanal", fotoCanal);
-                                datosInvitacion.put("canalId", canalId);
-                                
-                                // Publicar evento
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.INVITACION_RECIBIDA,
-                                    datosInvitacion
-                                );
-                                
-                                System.out.println("Evento INVITACION_RECIBIDA publicado de: " + usernameInvitador);
-                            } else if ("AUDIO_ENTRANTE".equals(tipo)) {
-                                // Audio privado recibido
-                                String remitente = (String) notificacion.getDato("remitente");
-                                byte[] contenidoAudio = (byte[]) notificacion.getDato("contenidoAudio");
-                                String formato = (String) notificacion.getDato("formato");
-                                Long duracionSegundos = ((Number) notificacion.getDato("duracionSegundos")).longValue();
-                                
-                                // Crear DTO con los datos del audio
-                                com.chat.common.dto.AudioEntranteDTO audioDTO = 
-                                    new com.chat.common.dto.AudioEntranteDTO(
-                                        remitente, contenidoAudio, formato, duracionSegundos,
-                                        com.chat.common.utils.FechaHoraUtil.formatearHoraActual()
-                                    );
-                                
-                                // Publicar evento
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.AUDIO_RECIBIDO,
-                                    audioDTO
-                                );
-                                
-                                System.out.println("Evento AUDIO_RECIBIDO publicado de: " + remitente + 
-                                                 " (formato: " + formato + ", duración: " + duracionSegundos + "s)");
-                            } else if ("AUDIO_GRUPO".equals(tipo)) {
-                                // Audio grupal recibido
-                                Long canalId = ((Number) notificacion.getDato("canalId")).longValue();
-                                String remitente = (String) notificacion.getDato("remitente");
-                                byte[] contenidoAudio = (byte[]) notificacion.getDato("contenidoAudio");
-                                String formato = (String) notificacion.getDato("formato");
-                                Long duracionSegundos = ((Number) notificacion.getDato("duracionSegundos")).longValue();
-                                
-                                // Crear DTO con los datos del audio grupal
-                                com.chat.common.dto.AudioEntranteDTO audioDTO = 
-                                    new com.chat.common.dto.AudioEntranteDTO(
-                                        remitente, contenidoAudio, formato, duracionSegundos,
-                                        com.chat.common.utils.FechaHoraUtil.formatearHoraActual()
-                                    );
-                                audioDTO.setCanalId(canalId);
-                                
-                                // Publicar evento
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.AUDIO_GRUPO_RECIBIDO,
-                                    audioDTO
-                                );
-                                
-                                System.out.println("Evento AUDIO_GRUPO_RECIBIDO publicado de: " + remitente + 
-                                                 " en canal: " + canalId +
-                                                 " (formato: " + formato + ", duración: " + duracionSegundos + "s)");
-                            } else if ("NOTIFICACION_SERVIDOR".equals(tipo)) {
-                                // Notificación broadcast del servidor (usuarios)
-                                String mensaje = (String) notificacion.getDato("mensaje");
-                                String timestamp = (String) notificacion.getDato("timestamp");
-                                
-                                // Crear objeto con los datos
-                                java.util.Map<String, Object> datosNotificacion = new java.util.HashMap<>();
-                                datosNotificacion.put("mensaje", mensaje);
-                                datosNotificacion.put("timestamp", timestamp);
-                                
-                                // Publicar evento
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.NOTIFICACION_SERVIDOR,
-                                    datosNotificacion
-                                );
-                                
-                                System.out.println("Notificación del servidor recibida: " + mensaje);
-                            } else if ("NOTIFICACION_SERVIDOR_GRUPO".equals(tipo)) {
-                                // Notificación broadcast del servidor (grupos)
-                                Long canalId = ((Number) notificacion.getDato("canalId")).longValue();
-                                String nombreCanal = (String) notificacion.getDato("nombreCanal");
-                                String mensaje = (String) notificacion.getDato("mensaje");
-                                String timestamp = (String) notificacion.getDato("timestamp");
-                                
-                                // Crear objeto con los datos
-                                java.util.Map<String, Object> datosNotificacion = new java.util.HashMap<>();
-                                datosNotificacion.put("canalId", canalId);
-                                datosNotificacion.put("nombreCanal", nombreCanal);
-                                datosNotificacion.put("mensaje", mensaje);
-                                datosNotificacion.put("timestamp", timestamp);
-                                
-                                // Publicar evento
-                                gestorEventos.publicarEvento(
-                                    EventoChat.TipoEvento.NOTIFICACION_SERVIDOR_GRUPO,
-                                    datosNotificacion
-                                );
-                                
-                                System.out.println("Notificación del servidor (grupo) recibida para " + nombreCanal + ": " + mensaje);
+                            Consumer<ResponseDTO> oyente = oyenteNotificaciones;
+                            if (oyente != null) {
+                                oyente.accept(notificacion);
+                                continue;
                             }
+                            
+                            publicarNotificacion(notificacion);
                         }
                     }
                     
@@ -237,7 +120,7 @@ public class ClienteRed {
                     conectado = false;
                     
                     // Publicar evento de desconexión forzada
-                    gestorEventos.publicarEvento(
+                    bus.publicar(
                         EventoChat.TipoEvento.DESCONEXION_FORZADA,
                         "El servidor ha cerrado la conexión"
                     );
@@ -249,7 +132,7 @@ public class ClienteRed {
                         conectado = false;
                         
                         // Publicar evento de desconexión forzada
-                        gestorEventos.publicarEvento(
+                        bus.publicar(
                             EventoChat.TipoEvento.DESCONEXION_FORZADA,
                             "Conexión perdida con el servidor"
                         );
@@ -265,6 +148,83 @@ public class ClienteRed {
         System.out.println("Hilo de escucha iniciado");
     }
     
+    /**
+     * Convertir una notificación del servidor en su evento tipado y publicarlo en el bus.
+     * Solo encola: los observadores corren en el hilo del bus y no retrasan la lectura
+     * del siguiente objeto del socket.
+     */
+    private void publicarNotificacion(ResponseDTO notificacion) {
+        String tipo = (String) notificacion.getDato("tipo");
+        if (tipo == null) {
+            return;
+        }
+        switch (tipo) {
+            case "MENSAJE_ENTRANTE": {
+                MensajeEntranteDTO mensaje = new MensajeEntranteDTO(
+                    (String) notificacion.getDato("remitente"), (String) notificacion.getDato("contenido"));
+                bus.publicar(EventoChat.TipoEvento.MENSAJE_RECIBIDO, mensaje);
+                break;
+            }
+            case "MENSAJE_GRUPO": {
+                MensajeEntranteDTO mensaje = new MensajeEntranteDTO(
+                    (String) notificacion.getDato("remitente"), (String) notificacion.getDato("contenido"));
+                mensaje.setCanalId(((Number) notificacion.getDato("canalId")).longValue());
+                bus.publicar(EventoChat.TipoEvento.MENSAJE_GRUPO_RECIBIDO, mensaje);
+                break;
+            }
+            case "USUARIOS_ACTUALIZADOS":
+                // La lista de usuarios en línea ha cambiado (el bus agrupa las ráfagas)
+                bus.publicar(EventoChat.TipoEvento.USUARIOS_ACTUALIZADOS, null);
+                break;
+            case "INVITACION_RECIBIDA": {
+                Invitacion invitacion = new Invitacion();
+                invitacion.setUsernameInvitador((String) notificacion.getDato("usernameInvitador"));
+                invitacion.setNombreCanal((String) notificacion.getDato("nombreCanal"));
+                invitacion.setDescripcionCanal((String) notificacion.getDato("descripcionCanal"));
+                invitacion.setFotoCanal((byte[]) notificacion.getDato("fotoCanal"));
+                invitacion.setCanalId(((Number) notificacion.getDato("canalId")).longValue());
+                bus.publicar(EventoChat.TipoEvento.INVITACION_RECIBIDA, invitacion);
+                System.out.println("Invitación recibida de: " + invitacion.getUsernameInvitador());
+                break;
+            }
+            case "AUDIO_ENTRANTE":
+                bus.publicar(EventoChat.TipoEvento.AUDIO_RECIBIDO, audioEntrante(notificacion));
+                break;
+            case "AUDIO_GRUPO": {
+                AudioEntranteDTO audio = audioEntrante(notificacion);
+                audio.setCanalId(((Number) notificacion.getDato("canalId")).longValue());
+                bus.publicar(EventoChat.TipoEvento.AUDIO_GRUPO_RECIBIDO, audio);
+                break;
+            }
+            case "NOTIFICACION_SERVIDOR":
+                // Notificación broadcast del servidor (usuarios)
+                bus.publicar(EventoChat.TipoEvento.NOTIFICACION_SERVIDOR, new NotificacionServidorDTO(
+                    (String) notificacion.getDato("mensaje"), (String) notificacion.getDato("timestamp")));
+                break;
+            case "NOTIFICACION_SERVIDOR_GRUPO": {
+                // Notificación broadcast del servidor (grupos)
+                NotificacionServidorDTO aviso = new NotificacionServidorDTO(
+                    (String) notificacion.getDato("mensaje"), (String) notificacion.getDato("timestamp"));
+                aviso.setCanalId(((Number) notificacion.getDato("canalId")).longValue());
+                aviso.setNombreCanal((String) notificacion.getDato("nombreCanal"));
+                bus.publicar(EventoChat.TipoEvento.NOTIFICACION_SERVIDOR_GRUPO, aviso);
+                break;
+            }
+            default:
+                System.err.println("Notificación desconocida: " + tipo);
+                break;
+        }
+    }
+    
+    private static AudioEntranteDTO audioEntrante(ResponseDTO notificacion) {
+        return new AudioEntranteDTO(
+            (String) notificacion.getDato("remitente"),
+            (byte[]) notificacion.getDato("contenidoAudio"),
+            (String) notificacion.getDato("formato"),
+            ((Number) notificacion.getDato("duracionSegundos")).longValue(),
+            FechaHoraUtil.formatearHoraActual());
+    }
+    
     /**
      * Desconectar del servidor
      */
@@ -275,6 +235,9 @@ public class ClienteRed {
             if (salida != null) salida.close();
             if (socket != null && !socket.isClosed()) socket.close();
             System.out.println("Desconectado del servidor");
+            if (salidaComprimida != null) {
+                System.out.println("Compresión: " + getResumenCompresion());
+            }
         } catch (IOException e) {
             System.err.println("Error al desconectar: " + e.getMessage());
         }
@@ -300,6 +263,9 @@ public class ClienteRed {
         
         synchronized (salida) {
             salida.writeObject(protocolo);
+            if (salidaComprimida != null && CompresionRed.llevaAudio(protocolo)) {
+                salidaComprimida.enviarSiguienteSinComprimir();
+            }
             salida.flush();
         }
         
@@ -319,7 +285,42 @@ public class ClienteRed {
         }
     }
     
+    /**
+     * Recibir las notificaciones en este oyente en lugar de publicarlas en el BusEventos
+     * global (lo usan los clientes sin GUI, p. ej. el generador de carga con muchos
+     * clientes en la misma JVM). Se llama desde el hilo de escucha.
+     */
+    public void setOyenteNotificaciones(Consumer<ResponseDTO> oyenteNotificaciones) {
+        this.oyenteNotificaciones = oyenteNotificaciones;
+    }
+    
     public boolean isConectado() {
         return conectado;
     }
+    
+    /**
+     * Pedir (o no) compresión en la próxima conexión
+     */
+    public void setCompresion(boolean compresion) {
+        this.compresion = compresion;
+    }
+    
+    public boolean isCompresionActiva() {
+        return salidaComprimida != null;
+    }
+    
+    public SalidaComprimida getSalidaComprimida() {
+        return salidaComprimida;
+    }
+    
+    public EntradaComprimida getEntradaComprimida() {
+        return entradaComprimida;
+    }
+    
+    /**
+     * Bytes antes/después de comprimir en cada sentido y CPU gastada; null sin compresión
+     */
+    public String getResumenCompresion() {
+        return salidaComprimida != null ? CompresionRed.resumen(salidaComprimida, entradaComprimida) : null;
+    }
 }
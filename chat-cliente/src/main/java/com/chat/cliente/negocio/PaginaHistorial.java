@@ -0,0 +1,63 @@
+package com.chat.cliente.negocio;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import com.chat.cliente.datos.LogAudioDAO.AudioConversacion;
+import com.chat.cliente.datos.LogMensajeDAO.MensajeConversacion;
+
+/**
+ * Página del historial local de una conversación (mensajes y audios), del más antiguo
+ * al más reciente.
+ *
+ * Guarda también dónde continuar: la siguiente página se pide pasando esta a
+ * ServicioMensajeria y contiene lo anterior a ella. Mensajes y audios están en tablas
+ * distintas, así que cada uno lleva su propia posición (fecha, id).
+ *
+ * Los audios traen solo metadatos (getContenidoAudio() es null); el contenido se lee
+ * con ServicioMensajeria.cargarContenidoAudio al reproducirlo.
+ */
+public final class PaginaHistorial {
+    
+    /** Posición inicial: más reciente que cualquier registro */
+    static final Timestamp FIN = Timestamp.valueOf("9999-12-31 23:59:59");
+    
+    private final List<MensajeConversacion> mensajes;
+    private final List<AudioConversacion> audios;
+    private final boolean hayMas;
+    
+    final Timestamp fechaMensajes;
+    final long idMensajes;
+    final Timestamp fechaAudios;
+    final long idAudios;
+    
+    PaginaHistorial(List<MensajeConversacion> mensajes, List<AudioConversacion> audios, boolean hayMas,
+                    Timestamp fechaMensajes, long idMensajes, Timestamp fechaAudios, long idAudios) {
+        this.mensajes = mensajes;
+        this.audios = audios;
+        this.hayMas = hayMas;
+        this.fechaMensajes = fechaMensajes;
+        this.idMensajes = idMensajes;
+        this.fechaAudios = fechaAudios;
+        this.idAudios = idAudios;
+    }
+    
+    public List<MensajeConversacion> getMensajes() {
+        return mensajes;
+    }
+    
+    public List<AudioConversacion> getAudios() {
+        return audios;
+    }
+    
+    /**
+     * true si hay registros más antiguos que esta página
+     */
+    public boolean hayMas() {
+        return hayMas;
+    }
+    
+    public int getTamanio() {
+        return mensajes.size() + audios.size();
+    }
+}
@@ -284,6 +284,32 @@ public class ServicioCliente {
         }
     }
     
+    /**
+     * Obtener una página del historial guardado en el servidor.
+     * Indicar usernameDestino (privado) o canalId (grupo); sin cursor devuelve la página más reciente.
+     * La respuesta incluye "mensajes", "hayMas" y los cursores anterior/siguiente para continuar.
+     */
+    public ResponseDTO obtenerHistorial(String usernameDestino, Long canalId,
+                                        java.time.LocalDateTime cursorFecha, Long cursorId,
+                                        boolean anteriores, int limite) {
+        try {
+            RequestDTO request = new RequestDTO(RequestDTO.TipoRequest.OBTENER_MENSAJES);
+            request.setSessionToken(sessionToken);
+            request.setUsuarioId(usuarioId);
+            request.addDato("usernameDestino", usernameDestino);
+            request.addDato("canalId", canalId);
+            request.addDato("cursorFecha", cursorFecha);
+            request.addDato("cursorId", cursorId);
+            request.addDato("direccion", anteriores ? "ANTERIORES" : "POSTERIORES");
+            request.addDato("limite", limite);
+            
+            return clienteRed.enviarRequest(request);
+            
+        } catch (Exception e) {
+            return ResponseDTO.error("Error al obtener historial: " + e.getMessage());
+        }
+    }
+    
     /**
      * Obtener invitaciones pendientes
      */
@@ -2,9 +2,12 @@ package com.chat.cliente.negocio;
 
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import com.chat.cliente.datos.ColaEscrituraH2;
 import com.chat.cliente.datos.ConexionH2;
 import com.chat.cliente.datos.LogAudioDAO;
 import com.chat.cliente.datos.LogAudioDAO.AudioConversacion;
@@ -15,11 +18,18 @@ import com.chat.cliente.datos.LogMensajeDAO.MensajeConversacion;
  * Servicio de mensajería del cliente
  * Responsable de la persistencia local de mensajes en H2
  * Separa la lógica de datos de la capa de presentación
+ *
+ * Los métodos guardar*Async encolan en ColaEscrituraH2: se escriben en orden, en lotes
+ * de una transacción, y la fecha es la del momento en que se encolan.
  */
 public class ServicioMensajeria {
     
+    /** Registros (mensajes + audios) por página del historial */
+    public static final int TAMANIO_PAGINA = 50;
+    
     private final LogMensajeDAO logDAO;
     private final LogAudioDAO audioDAO;
+    private final ColaEscrituraH2 escrituras = ColaEscrituraH2.obtenerInstancia();
     
     public ServicioMensajeria() throws SQLException {
         this.logDAO = new LogMensajeDAO(ConexionH2.obtenerConexion());
@@ -47,15 +57,16 @@ public class ServicioMensajeria {
      * @return CompletableFuture que se completa cuando el mensaje se guarda
      */
     public CompletableFuture<Void> guardarMensajeAsync(String remitente, String destinatario, String contenido) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                guardarMensaje(remitente, destinatario, contenido);
-                System.out.println("✓ Mensaje guardado en H2: " + remitente + " → " + destinatario);
-            } catch (SQLException e) {
-                System.err.println("✗ Error al guardar mensaje en H2: " + e.getMessage());
-                throw new RuntimeException("Error al guardar mensaje", e);
-            }
-        });
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        return escrituras.encolar(conexion ->
+                new LogMensajeDAO(conexion).guardarLog(remitente, destinatario, contenido, timestamp))
+            .whenComplete((ok, ex) -> {
+                if (ex == null) {
+                    System.out.println("✓ Mensaje guardado en H2: " + remitente + " → " + destinatario);
+                } else {
+                    System.err.println("✗ Error al guardar mensaje en H2: " + ex.getMessage());
+                }
+            });
     }
     
     /**
@@ -106,15 +117,16 @@ public class ServicioMensajeria {
      * @return CompletableFuture que se completa cuando el mensaje se guarda
      */
     public CompletableFuture<Void> guardarMensajeGrupoAsync(String remitente, String grupoId, String contenido) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                guardarMensajeGrupo(remitente, grupoId, contenido);
-                System.out.println("✓ Mensaje grupal guardado en H2: " + remitente + " → " + grupoId);
-            } catch (SQLException e) {
-                System.err.println("✗ Error al guardar mensaje grupal en H2: " + e.getMessage());
-                throw new RuntimeException("Error al guardar mensaje grupal", e);
-            }
-        });
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        return escrituras.encolar(conexion ->
+                new LogMensajeDAO(conexion).guardarLogGrupo(remitente, grupoId, contenido, timestamp))
+            .whenComplete((ok, ex) -> {
+                if (ex == null) {
+                    System.out.println("✓ Mensaje grupal guardado en H2: " + remitente + " → " + grupoId);
+                } else {
+                    System.err.println("✗ Error al guardar mensaje grupal en H2: " + ex.getMessage());
+                }
+            });
     }
     
     /**
@@ -143,6 +155,129 @@ public class ServicioMensajeria {
         });
     }
     
+    // ============================================================
+    // HISTORIAL PAGINADO
+    // ============================================================
+    
+    /**
+     * Cargar una página del historial de una conversación privada (mensajes y audios)
+     * @param usuario1 Primer usuario de la conversación
+     * @param usuario2 Segundo usuario de la conversación
+     * @param anterior Última página cargada, o null para la más reciente
+     * @return Página con lo inmediatamente anterior a "anterior"
+     * @throws SQLException Si hay error en la base de datos
+     */
+    public PaginaHistorial cargarPaginaPrivada(String usuario1, String usuario2, PaginaHistorial anterior) throws SQLException {
+        Timestamp fechaMensajes = anterior != null ? anterior.fechaMensajes : PaginaHistorial.FIN;
+        long idMensajes = anterior != null ? anterior.idMensajes : Long.MAX_VALUE;
+        Timestamp fechaAudios = anterior != null ? anterior.fechaAudios : PaginaHistorial.FIN;
+        long idAudios = anterior != null ? anterior.idAudios : Long.MAX_VALUE;
+        
+        // Uno más de lo necesario para saber si quedan registros
+        List<MensajeConversacion> mensajes = logDAO.obtenerPaginaConversacion(
+            usuario1, usuario2, fechaMensajes, idMensajes, TAMANIO_PAGINA + 1);
+        List<AudioConversacion> audios = audioDAO.obtenerPaginaConversacion(
+            usuario1, usuario2, fechaAudios, idAudios, TAMANIO_PAGINA + 1);
+        return combinar(mensajes, audios, fechaMensajes, idMensajes, fechaAudios, idAudios);
+    }
+    
+    /**
+     * Cargar una página del historial de una conversación privada de forma asíncrona
+     */
+    public CompletableFuture<PaginaHistorial> cargarPaginaPrivadaAsync(String usuario1, String usuario2,
+                                                                      PaginaHistorial anterior) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return cargarPaginaPrivada(usuario1, usuario2, anterior);
+            } catch (SQLException e) {
+                System.err.println("✗ Error al cargar historial desde H2: " + e.getMessage());
+                throw new RuntimeException("Error al cargar historial", e);
+            }
+        });
+    }
+    
+    /**
+     * Cargar una página del historial de un grupo (mensajes y audios)
+     * @param grupoId Identificador del grupo (ej: "GRUPO_123")
+     * @param anterior Última página cargada, o null para la más reciente
+     * @return Página con lo inmediatamente anterior a "anterior"
+     * @throws SQLException Si hay error en la base de datos
+     */
+    public PaginaHistorial cargarPaginaGrupo(String grupoId, PaginaHistorial anterior) throws SQLException {
+        Timestamp fechaMensajes = anterior != null ? anterior.fechaMensajes : PaginaHistorial.FIN;
+        long idMensajes = anterior != null ? anterior.idMensajes : Long.MAX_VALUE;
+        Timestamp fechaAudios = anterior != null ? anterior.fechaAudios : PaginaHistorial.FIN;
+        long idAudios = anterior != null ? anterior.idAudios : Long.MAX_VALUE;
+        
+        List<MensajeConversacion> mensajes = logDAO.obtenerPaginaGrupo(
+            grupoId, fechaMensajes, idMensajes, TAMANIO_PAGINA + 1);
+        List<AudioConversacion> audios = audioDAO.obtenerPaginaGrupo(
+            grupoId, fechaAudios, idAudios, TAMANIO_PAGINA + 1);
+        return combinar(mensajes, audios, fechaMensajes, idMensajes, fechaAudios, idAudios);
+    }
+    
+    /**
+     * Cargar una página del historial de un grupo de forma asíncrona
+     */
+    public CompletableFuture<PaginaHistorial> cargarPaginaGrupoAsync(String grupoId, PaginaHistorial anterior) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return cargarPaginaGrupo(grupoId, anterior);
+            } catch (SQLException e) {
+                System.err.println("✗ Error al cargar historial de grupo desde H2: " + e.getMessage());
+                throw new RuntimeException("Error al cargar historial de grupo", e);
+            }
+        });
+    }
+    
+    /**
+     * Leer el contenido de un audio del historial (las páginas solo traen metadatos)
+     * @param id Id del audio en logs_audios
+     * @return Bytes del audio, o null si ya no existe
+     * @throws SQLException Si hay error en la base de datos
+     */
+    public byte[] cargarContenidoAudio(long id) throws SQLException {
+        return audioDAO.obtenerContenidoAudio(id);
+    }
+    
+    /**
+     * Tomar los TAMANIO_PAGINA registros más recientes entre mensajes y audios (ambas
+     * listas vienen del más reciente al más antiguo) y avanzar la posición de cada tabla
+     * solo hasta lo que se tomó
+     */
+    private PaginaHistorial combinar(List<MensajeConversacion> mensajes, List<AudioConversacion> audios,
+                                     Timestamp fechaMensajes, long idMensajes,
+                                     Timestamp fechaAudios, long idAudios) {
+        int m = 0;
+        int a = 0;
+        while (m + a < TAMANIO_PAGINA && (m < mensajes.size() || a < audios.size())) {
+            boolean tomarMensaje = a >= audios.size()
+                || (m < mensajes.size() && !mensajes.get(m).getFechaEnvio().before(audios.get(a).getFechaEnvio()));
+            if (tomarMensaje) {
+                m++;
+            } else {
+                a++;
+            }
+        }
+        
+        if (m > 0) {
+            fechaMensajes = mensajes.get(m - 1).getFechaEnvio();
+            idMensajes = mensajes.get(m - 1).getId();
+        }
+        if (a > 0) {
+            fechaAudios = audios.get(a - 1).getFechaEnvio();
+            idAudios = audios.get(a - 1).getId();
+        }
+        boolean hayMas = m < mensajes.size() || a < audios.size();
+        
+        List<MensajeConversacion> paginaMensajes = new ArrayList<>(mensajes.subList(0, m));
+        List<AudioConversacion> paginaAudios = new ArrayList<>(audios.subList(0, a));
+        Collections.reverse(paginaMensajes);
+        Collections.reverse(paginaAudios);
+        return new PaginaHistorial(paginaMensajes, paginaAudios, hayMas,
+            fechaMensajes, idMensajes, fechaAudios, idAudios);
+    }
+    
     /**
      * Limpiar mensajes antiguos (más de X días)
      * @param dias Número de días de antigüedad para eliminar
@@ -184,15 +319,17 @@ public class ServicioMensajeria {
     public CompletableFuture<Void> guardarAudioAsync(String remitente, String destinatario, 
                                                      byte[] contenidoAudio, String formato, 
                                                      long duracionSegundos) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                guardarAudio(remitente, destinatario, contenidoAudio, formato, duracionSegundos);
-                System.out.println("✓ Audio guardado en H2: " + remitente + " → " + destinatario);
-            } catch (SQLException e) {
-                System.err.println("✗ Error al guardar audio en H2: " + e.getMessage());
-                throw new RuntimeException("Error al guardar audio", e);
-            }
-        });
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        return escrituras.encolar(conexion ->
+                new LogAudioDAO(conexion).guardarLogAudio(remitente, destinatario, null, contenidoAudio,
+                                                          formato, duracionSegundos, timestamp))
+            .whenComplete((ok, ex) -> {
+                if (ex == null) {
+                    System.out.println("✓ Audio guardado en H2: " + remitente + " → " + destinatario);
+                } else {
+                    System.err.println("✗ Error al guardar audio en H2: " + ex.getMessage());
+                }
+            });
     }
     
     /**
@@ -223,15 +360,17 @@ public class ServicioMensajeria {
     public CompletableFuture<Void> guardarAudioGrupoAsync(String remitente, String grupoId, 
                                                           byte[] contenidoAudio, String formato, 
                                                           long duracionSegundos) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                guardarAudioGrupo(remitente, grupoId, contenidoAudio, formato, duracionSegundos);
-                System.out.println("✓ Audio grupal guardado en H2: " + remitente + " → " + grupoId);
-            } catch (SQLException e) {
-                System.err.println("✗ Error al guardar audio grupal en H2: " + e.getMessage());
-                throw new RuntimeException("Error al guardar audio grupal", e);
-            }
-        });
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        return escrituras.encolar(conexion ->
+                new LogAudioDAO(conexion).guardarLogAudio(remitente, null, grupoId, contenidoAudio,
+                                                          formato, duracionSegundos, timestamp))
+            .whenComplete((ok, ex) -> {
+                if (ex == null) {
+                    System.out.println("✓ Audio grupal guardado en H2: " + remitente + " → " + grupoId);
+                } else {
+                    System.err.println("✗ Error al guardar audio grupal en H2: " + ex.getMessage());
+                }
+            });
     }
     
     /**
@@ -11,7 +11,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.BorderFactory;
-import javax.swing.BoxLayout;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.DefaultListModel;
 import javax.swing.ImageIcon;
@@ -31,26 +30,30 @@ import javax.swing.border.EmptyBorder;
 import com.chat.cliente.datos.ConexionH2;
 import com.chat.cliente.negocio.ServicioCliente;
 import com.chat.cliente.negocio.ServicioMensajeria;
+import com.chat.cliente.presentacion.gui.components.VistaConversacion;
+import com.chat.cliente.presentacion.gui.helpers.CacheIconos;
+import com.chat.cliente.presentacion.gui.helpers.CoalescedorUI;
 import com.chat.cliente.presentacion.gui.helpers.ConversacionManager;
 import com.chat.cliente.presentacion.gui.helpers.InvitacionHandler;
 import com.chat.cliente.presentacion.gui.helpers.MensajeRenderer;
 import com.chat.cliente.presentacion.gui.helpers.NotificacionManager;
-import com.chat.cliente.presentacion.gui.helpers.UIHelper;
 import com.chat.cliente.presentacion.gui.utils.FontHelper;
+import com.chat.common.dto.AudioEntranteDTO;
+import com.chat.common.dto.NotificacionServidorDTO;
 import com.chat.common.dto.ResponseDTO;
 import com.chat.common.models.Canal;
+import com.chat.common.models.Invitacion;
 import com.chat.common.models.MensajeEntranteDTO;
 import com.chat.common.models.Usuario;
-import com.chat.common.patterns.EventoChat;
-import com.chat.common.patterns.GestorEventos;
-import com.chat.common.patterns.Observer;
+import com.chat.common.patterns.BusEventos;
+import com.chat.common.patterns.EventoChat.TipoEvento;
 import com.chat.common.utils.FechaHoraUtil;
 
 /**
  * Ventana principal del chat del cliente
- * Implementa Observer para recibir notificaciones de mensajes entrantes
+ * Se suscribe al BusEventos para recibir notificaciones de mensajes entrantes
  */
-public class ChatPrincipalFrame extends JFrame implements Observer {
+public class ChatPrincipalFrame extends JFrame {
     
     private final ServicioCliente servicioCliente;
     private final ServicioMensajeria servicioMensajeria;
@@ -67,7 +70,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
     private JLabel lblUsuariosOnline;
     
     // Panel derecho - Chat
-    private JPanel panelMensajes; // Panel contenedor de burbujas
+    private VistaConversacion panelMensajes; // Vista de la conversación abierta
     private JScrollPane scrollChat;
     private JTextField txtMensaje;
     private JButton btnEnviar;
@@ -75,18 +78,21 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
     private JLabel lblChatCon;
     
     private String usuarioSeleccionado;
-    private List<Usuario> usuariosConectados;
+    // Usuarios por username, para que el renderer no recorra la lista en cada fila
+    private volatile java.util.Map<String, Usuario> usuariosPorNombre;
     
     // Contador de mensajes no leídos por usuario/canal
     private java.util.Map<String, Integer> mensajesNoLeidos;
     
+    private final List<BusEventos.Suscripcion> suscripciones = new ArrayList<>();
+    
     /**
      * Constructor
      */
     public ChatPrincipalFrame(ServicioCliente servicioCliente, String username) {
         this.servicioCliente = servicioCliente;
         this.username = username;
-        this.usuariosConectados = new ArrayList<>();
+        this.usuariosPorNombre = new java.util.HashMap<>();
         this.mensajesNoLeidos = new java.util.HashMap<>();
         
         // Inicializar servicio de mensajería
@@ -107,151 +113,127 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
     }
     
     /**
-     * Suscribirse al GestorEventos para recibir notificaciones
+     * Suscribirse en el BusEventos a los eventos que muestra esta ventana. Los eventos
+     * llegan en el hilo del bus; cada manejador pasa al hilo de Swing.
      */
     private void suscribirseAEventos() {
-        GestorEventos.obtenerInstancia().agregarObservador(this);
+        BusEventos bus = BusEventos.obtenerInstancia();
+        suscripciones.add(bus.suscribir(TipoEvento.MENSAJE_RECIBIDO, MensajeEntranteDTO.class, this::alRecibirMensaje));
+        suscripciones.add(bus.suscribir(TipoEvento.MENSAJE_GRUPO_RECIBIDO, MensajeEntranteDTO.class, this::alRecibirMensajeGrupo));
+        suscripciones.add(bus.suscribir(TipoEvento.USUARIOS_ACTUALIZADOS, Void.class,
+            sinDatos -> SwingUtilities.invokeLater(this::cargarUsuariosConectados)));
+        suscripciones.add(bus.suscribir(TipoEvento.INVITACION_RECIBIDA, Invitacion.class, this::alRecibirInvitacion));
+        suscripciones.add(bus.suscribir(TipoEvento.AUDIO_RECIBIDO, AudioEntranteDTO.class,
+            audio -> SwingUtilities.invokeLater(() -> mostrarAudioRecibido(audio))));
+        suscripciones.add(bus.suscribir(TipoEvento.AUDIO_GRUPO_RECIBIDO, AudioEntranteDTO.class,
+            audio -> SwingUtilities.invokeLater(() -> mostrarAudioGrupo(audio))));
+        suscripciones.add(bus.suscribir(TipoEvento.NOTIFICACION_SERVIDOR, NotificacionServidorDTO.class,
+            aviso -> SwingUtilities.invokeLater(() -> mostrarNotificacionServidor(aviso.getMensaje(), aviso.getTimestamp()))));
+        suscripciones.add(bus.suscribir(TipoEvento.NOTIFICACION_SERVIDOR_GRUPO, NotificacionServidorDTO.class,
+            aviso -> SwingUtilities.invokeLater(() -> mostrarNotificacionServidorGrupo(
+                aviso.getCanalId(), aviso.getNombreCanal(), aviso.getMensaje(), aviso.getTimestamp()))));
+        suscripciones.add(bus.suscribir(TipoEvento.DESCONEXION_FORZADA, String.class, this::alDesconectarForzado));
         System.out.println("ChatPrincipalFrame suscrito a eventos");
     }
     
     /**
-     * Método del patrón Observer - se llama cuando ocurre un evento
+     * Cancelar todas las suscripciones (al cerrar la ventana)
      */
-    @Override
-    public void actualizar(EventoChat evento) {
-        if (evento.getTipo() == EventoChat.TipoEvento.MENSAJE_RECIBIDO) {
-            MensajeEntranteDTO mensaje = (MensajeEntranteDTO) evento.getDatos();
+    private void cancelarSuscripciones() {
+        for (BusEventos.Suscripcion suscripcion : suscripciones) {
+            suscripcion.cancelar();
+        }
+        suscripciones.clear();
+    }
+    
+    private void alRecibirMensaje(MensajeEntranteDTO mensaje) {
+        // Ejecutar en el hilo de Swing
+        SwingUtilities.invokeLater(() -> {
+            String remitente = mensaje.getRemitente();
             
-            // Ejecutar en el hilo de Swing
-            SwingUtilities.invokeLater(() -> {
-                String remitente = mensaje.getRemitente();
+            // Si el mensaje NO es del chat actualmente abierto
+            if (usuarioSeleccionado == null || !remitente.equals(usuarioSeleccionado)) {
+                // Reproducir notificación
+                NotificacionManager.reproducirNotificacion();
                 
-                // Si el mensaje NO es del chat actualmente abierto
-                if (usuarioSeleccionado == null || !remitente.equals(usuarioSeleccionado)) {
-                    // Reproducir notificación
-                    NotificacionManager.reproducirNotificacion();
-                    
-                    // Incrementar contador de mensajes no leídos
-                    mensajesNoLeidos.put(remitente, mensajesNoLeidos.getOrDefault(remitente, 0) + 1);
-                    
-                    // Actualizar lista visual
-                    listaUsuarios.repaint();
-                }
+                // Incrementar contador de mensajes no leídos
+                mensajesNoLeidos.put(remitente, mensajesNoLeidos.getOrDefault(remitente, 0) + 1);
                 
-                mostrarMensajeRecibido(remitente, mensaje.getContenido());
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.MENSAJE_GRUPO_RECIBIDO) {
-            // Mensaje grupal recibido
-            @SuppressWarnings("unchecked")
-            java.util.Map<String, Object> datosMensaje = (java.util.Map<String, Object>) evento.getDatos();
-            Long canalId = (Long) datosMensaje.get("canalId");
-            String remitente = (String) datosMensaje.get("remitente");
-            String contenido = (String) datosMensaje.get("contenido");
+                // Actualizar lista visual
+                listaUsuarios.repaint();
+            }
+            
+            mostrarMensajeRecibido(remitente, mensaje.getContenido());
+        });
+    }
+    
+    private void alRecibirMensajeGrupo(MensajeEntranteDTO mensaje) {
+        Long canalId = mensaje.getCanalId();
+        
+        // Ejecutar en el hilo de Swing
+        SwingUtilities.invokeLater(() -> {
+            String canalKey = "CANAL_" + canalId;
             
-            // Ejecutar en el hilo de Swing
-            SwingUtilities.invokeLater(() -> {
-                String canalKey = "CANAL_" + canalId;
+            // Si el mensaje NO es del canal actualmente abierto
+            if (usuarioSeleccionado == null || !canalKey.equals(usuarioSeleccionado)) {
+                // Reproducir notificación
+                NotificacionManager.reproducirNotificacion();
                 
-                // Si el mensaje NO es del canal actualmente abierto
-                if (usuarioSeleccionado == null || !canalKey.equals(usuarioSeleccionado)) {
-                    // Reproducir notificación
-                    NotificacionManager.reproducirNotificacion();
-                    
-                    // Incrementar contador de mensajes no leídos
-                    mensajesNoLeidos.put(canalKey, mensajesNoLeidos.getOrDefault(canalKey, 0) + 1);
-                    
-                    // Actualizar lista visual
-                    listaUsuarios.repaint();
-                }
+                // Incrementar contador de mensajes no leídos
+                mensajesNoLeidos.put(canalKey, mensajesNoLeidos.getOrDefault(canalKey, 0) + 1);
                 
-                mostrarMensajeGrupo(canalId, remitente, contenido);
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.USUARIOS_ACTUALIZADOS) {
-            // La lista de usuarios ha cambiado, recargar
-            SwingUtilities.invokeLater(() -> {
-                cargarUsuariosConectados();
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.INVITACION_RECIBIDA) {
-            // Invitación recibida, mostrar notificación
-            SwingUtilities.invokeLater(() -> {
-                JOptionPane.showMessageDialog(this,
-                    "¡Has recibido una nueva invitación a un grupo!\n\nHaz clic en 🔔 Invitaciones para verla.",
-                    "Nueva Invitación",
-                    JOptionPane.INFORMATION_MESSAGE);
-                // Recargar usuarios/grupos
-                cargarUsuariosConectados();
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.AUDIO_RECIBIDO) {
-            // Audio privado recibido
-            com.chat.common.dto.AudioEntranteDTO audioDTO = 
-                (com.chat.common.dto.AudioEntranteDTO) evento.getDatos();
+                // Actualizar lista visual
+                listaUsuarios.repaint();
+            }
+            
+            mostrarMensajeGrupo(canalId, mensaje.getRemitente(), mensaje.getContenido());
+        });
+    }
+    
+    private void alRecibirInvitacion(Invitacion invitacion) {
+        // Invitación recibida, mostrar notificación
+        SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(this,
+                "¡Has recibido una nueva invitación a un grupo!\n\nHaz clic en 🔔 Invitaciones para verla.",
+                "Nueva Invitación",
+                JOptionPane.INFORMATION_MESSAGE);
+            // Recargar usuarios/grupos
+            cargarUsuariosConectados();
+        });
+    }
+    
+    private void alDesconectarForzado(String mensaje) {
+        // El servidor ha cerrado la conexión, desconectar automáticamente
+        SwingUtilities.invokeLater(() -> {
+            // Dejar de recibir eventos
+            cancelarSuscripciones();
+            conversacionManager.liberarTodas();
             
-            SwingUtilities.invokeLater(() -> {
-                mostrarAudioRecibido(audioDTO);
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.AUDIO_GRUPO_RECIBIDO) {
-            // Audio grupal recibido
-            com.chat.common.dto.AudioEntranteDTO audioDTO = 
-                (com.chat.common.dto.AudioEntranteDTO) evento.getDatos();
+            // Cerrar conexión H2
+            ConexionH2.cerrarConexion();
             
-            SwingUtilities.invokeLater(() -> {
-                mostrarAudioGrupo(audioDTO);
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.NOTIFICACION_SERVIDOR) {
-            // Notificación broadcast del servidor
-            @SuppressWarnings("unchecked")
-            java.util.Map<String, Object> datos = (java.util.Map<String, Object>) evento.getDatos();
-            String mensaje = (String) datos.get("mensaje");
-            String timestamp = (String) datos.get("timestamp");
+            // Cerrar esta ventana
+            dispose();
             
-            SwingUtilities.invokeLater(() -> {
-                mostrarNotificacionServidor(mensaje, timestamp);
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.NOTIFICACION_SERVIDOR_GRUPO) {
-            // Notificación broadcast del servidor en grupo
-            @SuppressWarnings("unchecked")
-            java.util.Map<String, Object> datos = (java.util.Map<String, Object>) evento.getDatos();
-            Long canalId = (Long) datos.get("canalId");
-            String nombreCanal = (String) datos.get("nombreCanal");
-            String mensaje = (String) datos.get("mensaje");
-            String timestamp = (String) datos.get("timestamp");
+            // Mostrar mensaje y volver al login
+            JOptionPane.showMessageDialog(null,
+                mensaje != null ? mensaje : "El servidor ha cerrado la conexión.",
+                "Conexión Cerrada",
+                JOptionPane.WARNING_MESSAGE);
             
-            SwingUtilities.invokeLater(() -> {
-                mostrarNotificacionServidorGrupo(canalId, nombreCanal, mensaje, timestamp);
-            });
-        } else if (evento.getTipo() == EventoChat.TipoEvento.DESCONEXION_FORZADA) {
-            // El servidor ha cerrado la conexión, desconectar automáticamente
-            String mensaje = (String) evento.getDatos();
-            SwingUtilities.invokeLater(() -> {
-                // Remover observador del gestor de eventos
-                GestorEventos.obtenerInstancia().removerObservador(this);
-                
-                // Cerrar conexión H2
-                ConexionH2.cerrarConexion();
-                
-                // Cerrar esta ventana
-                dispose();
-                
-                // Mostrar mensaje y volver al login
-                JOptionPane.showMessageDialog(null,
-                    mensaje != null ? mensaje : "El servidor ha cerrado la conexión.",
-                    "Conexión Cerrada",
-                    JOptionPane.WARNING_MESSAGE);
+            // Abrir ventana de login
+            new LoginFrameRefactored(servicioCliente, new LoginFrameRefactored.LoginCallback() {
+                @Override
+                public void onLoginExitoso(String usuario, ResponseDTO response) {
+                    new ChatPrincipalFrame(servicioCliente, usuario).setVisible(true);
+                }
                 
-                // Abrir ventana de login
-                new LoginFrameRefactored(servicioCliente, new LoginFrameRefactored.LoginCallback() {
-                    @Override
-                    public void onLoginExitoso(String usuario, ResponseDTO response) {
-                        new ChatPrincipalFrame(servicioCliente, usuario).setVisible(true);
-                    }
-                    
-                    @Override
-                    public void onAbrirRegistro() {
-                        // No implementado - el usuario solo puede hacer login después de desconexión
-                    }
-                }).setVisible(true);
-            });
-        }
+                @Override
+                public void onAbrirRegistro() {
+                    // No implementado - el usuario solo puede hacer login después de desconexión
+                }
+            }).setVisible(true);
+        });
     }
     
     /**
@@ -261,9 +243,9 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         String timestamp = FechaHoraUtil.formatearHoraActual();
         
         // Obtener o crear conversación
-        JPanel conversacion = conversacionManager.obtenerConversacion(remitente);
+        VistaConversacion conversacion = conversacionManager.obtenerConversacion(remitente);
         if (conversacion == null) {
-            conversacion = conversacionManager.abrirChatPrivado(remitente);
+            conversacion = conversacionManager.cargarChatPrivado(remitente);
         }
         
         MensajeRenderer.agregarBurbujaMensaje(conversacion, remitente, contenido, timestamp, false);
@@ -273,13 +255,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         
         // Si estamos viendo el chat con este usuario, actualizar la vista
         if (remitente.equals(usuarioSeleccionado)) {
-            scrollChat.revalidate();
-            scrollChat.repaint();
-            SwingUtilities.invokeLater(() -> {
-                scrollChat.getVerticalScrollBar().setValue(
-                    scrollChat.getVerticalScrollBar().getMaximum()
-                );
-            });
+            CoalescedorUI.desplazarAlFinal(scrollChat);
         }
         
         System.out.println("Mensaje recibido de " + remitente + ": " + contenido);
@@ -293,7 +269,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         String identificadorGrupo = "GRUPO_" + canalId;
         
         // Obtener conversación (se creará si no existe al abrir el chat)
-        JPanel conversacion = conversacionManager.obtenerConversacion(identificadorGrupo);
+        VistaConversacion conversacion = conversacionManager.obtenerConversacion(identificadorGrupo);
         if (conversacion == null) {
             // Si no existe, crear panel básico sin cargar historial
             conversacion = crearPanelConversacion();
@@ -308,13 +284,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         
         // Si estamos viendo el chat de este grupo, actualizar la vista
         if (identificadorGrupo.equals(usuarioSeleccionado)) {
-            scrollChat.revalidate();
-            scrollChat.repaint();
-            SwingUtilities.invokeLater(() -> {
-                scrollChat.getVerticalScrollBar().setValue(
-                    scrollChat.getVerticalScrollBar().getMaximum()
-                );
-            });
+            CoalescedorUI.desplazarAlFinal(scrollChat);
         }
         
         System.out.println("Mensaje grupal recibido de " + remitente + " en canal " + canalId + ": " + contenido);
@@ -330,9 +300,9 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         String timestamp = audioDTO.getTimestamp();
         
         // Obtener o crear conversación
-        JPanel conversacion = conversacionManager.obtenerConversacion(remitente);
+        VistaConversacion conversacion = conversacionManager.obtenerConversacion(remitente);
         if (conversacion == null) {
-            conversacion = conversacionManager.abrirChatPrivado(remitente);
+            conversacion = conversacionManager.cargarChatPrivado(remitente);
         }
         
         // Agregar burbuja de audio
@@ -347,13 +317,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         
         // Si estamos viendo el chat de este usuario, actualizar la vista
         if (remitente.equals(usuarioSeleccionado)) {
-            scrollChat.revalidate();
-            scrollChat.repaint();
-            SwingUtilities.invokeLater(() -> {
-                scrollChat.getVerticalScrollBar().setValue(
-                    scrollChat.getVerticalScrollBar().getMaximum()
-                );
-            });
+            CoalescedorUI.desplazarAlFinal(scrollChat);
         }
         
         System.out.println("Audio recibido de " + remitente + " (duración: " + duracion + "s)");
@@ -380,7 +344,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         String identificadorGrupo = "GRUPO_" + canalId;
         
         // Obtener conversación del grupo
-        JPanel conversacion = conversacionManager.obtenerConversacion(identificadorGrupo);
+        VistaConversacion conversacion = conversacionManager.obtenerConversacion(identificadorGrupo);
         if (conversacion == null) {
             conversacion = crearPanelConversacion();
             // No lo agregamos al manager porque es temporal
@@ -393,13 +357,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         
         // Si estamos viendo el chat de este grupo, actualizar la vista
         if (identificadorGrupo.equals(usuarioSeleccionado)) {
-            scrollChat.revalidate();
-            scrollChat.repaint();
-            SwingUtilities.invokeLater(() -> {
-                scrollChat.getVerticalScrollBar().setValue(
-                    scrollChat.getVerticalScrollBar().getMaximum()
-                );
-            });
+            CoalescedorUI.desplazarAlFinal(scrollChat);
         }
         
         // También mostrar diálogo
@@ -423,7 +381,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         String identificadorGrupo = "GRUPO_" + canalId;
         
         // Obtener conversación
-        JPanel conversacion = conversacionManager.obtenerConversacion(identificadorGrupo);
+        VistaConversacion conversacion = conversacionManager.obtenerConversacion(identificadorGrupo);
         if (conversacion == null) {
             conversacion = crearPanelConversacion();
         }
@@ -443,13 +401,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         
         // Si estamos viendo el chat de este grupo, actualizar la vista
         if (identificadorGrupo.equals(usuarioSeleccionado)) {
-            scrollChat.revalidate();
-            scrollChat.repaint();
-            SwingUtilities.invokeLater(() -> {
-                scrollChat.getVerticalScrollBar().setValue(
-                    scrollChat.getVerticalScrollBar().getMaximum()
-                );
-            });
+            CoalescedorUI.desplazarAlFinal(scrollChat);
         }
         
         System.out.println("Audio grupal recibido de " + remitente + " en canal " + canalId + 
@@ -746,7 +698,12 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
                     @SuppressWarnings("unchecked")
                     List<Usuario> listaUsuarios = (List<Usuario>) responseUsuarios.getDato("usuarios");
                     usuarios.addAll(listaUsuarios);
-                    usuariosConectados = usuarios;
+                    
+                    java.util.Map<String, Usuario> porNombre = new java.util.HashMap<>();
+                    for (Usuario usuario : usuarios) {
+                        porNombre.put(usuario.getUsername(), usuario);
+                    }
+                    usuariosPorNombre = porNombre;
                 }
                 
                 if (responseGrupos.isExito()) {
@@ -754,7 +711,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
                     List<Canal> listaCanales = (List<Canal>) responseGrupos.getDato("grupos");
                     canales.addAll(listaCanales);
                 }
-                    
+                
                 SwingUtilities.invokeLater(() -> {
                     modeloListaUsuarios.clear();
                     int countOnline = 0;
@@ -879,20 +836,14 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
                         if (!usuarioSeleccionado.startsWith("GRUPO_")) {
                             // Mensaje privado: agregar inmediatamente
                             String timestamp = FechaHoraUtil.formatearHoraActual();
-                            JPanel conversacion = conversacionManager.obtenerConversacion(usuarioSeleccionado);
+                            VistaConversacion conversacion = conversacionManager.obtenerConversacion(usuarioSeleccionado);
                             MensajeRenderer.agregarBurbujaMensaje(conversacion, "Tú", mensajeFinal, timestamp, true);
                             
                             // Guardar en base de datos H2 (async)
                             servicioMensajeria.guardarMensajeAsync(username, usuarioSeleccionado, mensajeFinal);
                             
                             // Scroll al final
-                            scrollChat.revalidate();
-                            scrollChat.repaint();
-                            SwingUtilities.invokeLater(() -> {
-                                scrollChat.getVerticalScrollBar().setValue(
-                                    scrollChat.getVerticalScrollBar().getMaximum()
-                                );
-                            });
+                            CoalescedorUI.desplazarAlFinal(scrollChat);
                         }
                         // Para mensajes grupales, el servidor enviará la notificación
                         // y se mostrará mediante mostrarMensajeGrupo()
@@ -972,7 +923,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
                         // Solo agregar audio localmente si es chat privado
                         if (!esGrupo) {
                             String timestamp = com.chat.common.utils.FechaHoraUtil.formatearHoraActual();
-                            JPanel conversacion = conversacionManager.obtenerConversacion(usuarioSeleccionado);
+                            VistaConversacion conversacion = conversacionManager.obtenerConversacion(usuarioSeleccionado);
                             com.chat.cliente.presentacion.gui.helpers.MensajeRenderer.agregarBurbujaAudio(
                                 conversacion, "Tú", audioData, duracion, timestamp, true
                             );
@@ -982,22 +933,8 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
                                 username, usuarioSeleccionado, audioData, "wav", duracion
                             );
                             
-                            // Revalidar el panel de mensajes
-                            conversacion.revalidate();
-                            conversacion.repaint();
-                            
-                            // Forzar actualización del scroll
-                            scrollChat.revalidate();
-                            scrollChat.repaint();
-                            
-                            // Hacer scroll al final con un pequeño delay para asegurar que se renderizó
-                            javax.swing.Timer timer = new javax.swing.Timer(100, evt -> {
-                                scrollChat.getVerticalScrollBar().setValue(
-                                    scrollChat.getVerticalScrollBar().getMaximum()
-                                );
-                            });
-                            timer.setRepeats(false);
-                            timer.start();
+                            // Scroll al final después de agregar la burbuja
+                            CoalescedorUI.desplazarAlFinal(scrollChat);
                         }
                         // Para audios grupales, el servidor enviará la notificación
                     } else {
@@ -1102,7 +1039,8 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
         
         if (confirmacion == JOptionPane.YES_OPTION) {
             // Desuscribirse de eventos antes de cerrar
-            GestorEventos.obtenerInstancia().removerObservador(this);
+            cancelarSuscripciones();
+            conversacionManager.liberarTodas();
             
             // Hacer logout en el servidor (esto cerrará la conexión)
             ResponseDTO logoutResponse = servicioCliente.logout();
@@ -1163,14 +1101,10 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
     }
     
     /**
-     * Crear panel de conversación vacío
+     * Crear vista de conversación vacía
      */
-    private JPanel crearPanelConversacion() {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.setBackground(new Color(236, 240, 241));
-        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
-        return panel;
+    private VistaConversacion crearPanelConversacion() {
+        return new VistaConversacion();
     }
     
     /**
@@ -1178,6 +1112,10 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
      * Muestra todos los usuarios con su estado (En Línea / Desconectado) y foto de perfil
      */
     private class UsuarioListCellRenderer extends DefaultListCellRenderer {
+        
+        // Al terminar de decodificar una foto se repinta la lista
+        private final Runnable repintarLista = () -> listaUsuarios.repaint();
+        
         @Override
         public Component getListCellRendererComponent(JList<?> list, Object value,
                 int index, boolean isSelected, boolean cellHasFocus) {
@@ -1191,7 +1129,7 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
                 String canalKey = "CANAL_" + canal.getId();
                 
                 // Crear icono de foto del canal
-                ImageIcon fotoIcon = UIHelper.crearIconoFoto(canal.getFoto(), 32, 32);
+                ImageIcon fotoIcon = CacheIconos.obtenerInstancia().obtener(canal.getFoto(), 32, 32, repintarLista);
                 label.setIcon(fotoIcon);
                 label.setIconTextGap(10);
                 
@@ -1231,18 +1169,16 @@ public class ChatPrincipalFrame extends JFrame implements Observer {
                 enLinea = usuario.isEnLinea();
                 fotoBytes = usuario.getFoto();
             } else {
-                // Si es solo el username string, buscar en la lista de usuarios
-                for (Usuario u : usuariosConectados) {
-                    if (u.getUsername().equals(value.toString())) {
-                        enLinea = u.isEnLinea();
-                        fotoBytes = u.getFoto();
-                        break;
-                    }
+                // Si es solo el username string, buscar en el mapa de usuarios
+                Usuario u = usuariosPorNombre.get(value.toString());
+                if (u != null) {
+                    enLinea = u.isEnLinea();
+                    fotoBytes = u.getFoto();
                 }
             }
             
             // Crear icono de foto de perfil
-            ImageIcon fotoIcon = UIHelper.crearIconoFoto(fotoBytes, 32, 32);
+            ImageIcon fotoIcon = CacheIconos.obtenerInstancia().obtener(fotoBytes, 32, 32, repintarLista);
             label.setIcon(fotoIcon);
             label.setIconTextGap(10);
             
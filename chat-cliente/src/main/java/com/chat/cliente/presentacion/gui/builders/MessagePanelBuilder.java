@@ -12,12 +12,12 @@ import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
-import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 
+import com.chat.cliente.presentacion.gui.helpers.CoalescedorUI;
+
 /**
  * Builder para el panel de mensajes del chat.
  * 
@@ -327,9 +327,6 @@ public class MessagePanelBuilder {
      * Hace scroll al final del área de mensajes
      */
     public void scrollToBottom() {
-        SwingUtilities.invokeLater(() -> {
-            JScrollBar vertical = scrollChat.getVerticalScrollBar();
-            vertical.setValue(vertical.getMaximum());
-        });
+        CoalescedorUI.desplazarAlFinal(scrollChat);
     }
 }
@@ -5,14 +5,7 @@ import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineUnavailableException;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -22,14 +15,25 @@ import javax.swing.Timer;
 
 /**
  * Componente para reproducir audio
+ * Los bytes se leen de la FuenteAudio al pulsar play (en otro hilo) y suenan a través
+ * de ReproductorAudio, que comparte una única línea entre todas las burbujas
+ * Un clic en la barra de progreso salta a ese punto del audio
  */
 public class AudioPlayer extends JPanel {
     
-    private final byte[] audioData;
+    private static final long BYTES_POR_SEGUNDO = (long) (AudioRecorder.getAudioFormat().getFrameRate()
+        * AudioRecorder.getAudioFormat().getFrameSize());
+    
+    private final FuenteAudio fuente;
+    private byte[] audioData;
     private final long duracionSegundos;
-    private Clip clip;
+    /** Posición (bytes) desde la que seguir al pulsar play */
+    private long posicion = 0;
+    private ReproductorAudio.Reproduccion reproduccion;
     private Timer progressTimer;
     private boolean playing = false;
+    private boolean cargando = false;
+    private boolean descartado = false;
     
     private JButton btnPlay;
     private JProgressBar progressBar;
@@ -39,7 +43,14 @@ public class AudioPlayer extends JPanel {
      * Constructor
      */
     public AudioPlayer(byte[] audioData, long duracionSegundos) {
-        this.audioData = audioData;
+        this(FuenteAudio.de(audioData), duracionSegundos);
+    }
+    
+    /**
+     * Constructor con los bytes leídos bajo demanda
+     */
+    public AudioPlayer(FuenteAudio fuente, long duracionSegundos) {
+        this.fuente = fuente;
         this.duracionSegundos = duracionSegundos;
         initComponents();
     }
@@ -79,6 +90,13 @@ public class AudioPlayer extends JPanel {
         progressBar.setStringPainted(false);
         progressBar.setForeground(new Color(52, 152, 219));
         progressBar.setBackground(new Color(236, 240, 241));
+        progressBar.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        progressBar.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mousePressed(java.awt.event.MouseEvent evt) {
+                saltarA(evt.getX());
+            }
+        });
         add(progressBar);
         
         // Etiqueta de duración
@@ -100,73 +118,151 @@ public class AudioPlayer extends JPanel {
     }
     
     private void reproducir() {
-        try {
-            if (clip == null || !clip.isOpen()) {
-                // Crear clip de audio
-                AudioFormat format = AudioRecorder.getAudioFormat();
-                ByteArrayInputStream bais = new ByteArrayInputStream(audioData);
-                AudioInputStream audioInputStream = new AudioInputStream(bais, format, audioData.length / format.getFrameSize());
-                
-                clip = AudioSystem.getClip();
-                clip.open(audioInputStream);
-                
-                // Listener para cuando termine la reproducción
-                clip.addLineListener(event -> {
-                    if (event.getType() == javax.sound.sampled.LineEvent.Type.STOP) {
-                        if (clip.getMicrosecondPosition() >= clip.getMicrosecondLength()) {
-                            SwingUtilities.invokeLater(() -> {
-                                detener();
-                            });
-                        }
+        if (audioData == null) {
+            cargarYReproducir();
+            return;
+        }
+        if (posicion >= audioData.length) {
+            posicion = 0;
+        }
+        reproduccion = ReproductorAudio.obtenerInstancia().reproducir(audioData, posicion, this::alTerminar);
+        playing = true;
+        btnPlay.setText("⏸");
+        progressTimer.start();
+    }
+    
+    /**
+     * Leer el audio de la fuente fuera del hilo de Swing y reproducirlo al terminar
+     */
+    private void cargarYReproducir() {
+        if (cargando) {
+            return;
+        }
+        cargando = true;
+        btnPlay.setEnabled(false);
+        btnPlay.setText("…");
+        
+        Thread hilo = new Thread(() -> {
+            try {
+                byte[] datos = fuente.leer();
+                SwingUtilities.invokeLater(() -> {
+                    cargando = false;
+                    btnPlay.setEnabled(true);
+                    btnPlay.setText("▶");
+                    if (datos == null || descartado) {
+                        return;
                     }
+                    audioData = datos;
+                    // Un salto hecho antes de cargar se calculó sobre la duración estimada
+                    posicion = Math.min(posicion, datos.length);
+                    reproducir();
+                });
+            } catch (Exception e) {
+                System.err.println("Error al cargar audio: " + e.getMessage());
+                SwingUtilities.invokeLater(() -> {
+                    cargando = false;
+                    btnPlay.setEnabled(true);
+                    btnPlay.setText("▶");
                 });
             }
-            
-            clip.start();
-            playing = true;
-            btnPlay.setText("⏸");
-            progressTimer.start();
-            
-        } catch (LineUnavailableException | IOException e) {
-            System.err.println("Error al reproducir audio: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, "audio-carga");
+        hilo.setDaemon(true);
+        hilo.start();
     }
     
     private void pausar() {
-        if (clip != null && clip.isRunning()) {
-            clip.stop();
+        if (reproduccion != null) {
+            posicion = reproduccion.detener();
+            reproduccion = null;
+        }
+        playing = false;
+        btnPlay.setText("▶");
+        progressTimer.stop();
+        actualizarProgreso();
+    }
+    
+    /**
+     * Fin de la reproducción: llegó al final o empezó a sonar otro audio
+     */
+    private void alTerminar(ReproductorAudio.Reproduccion terminada, boolean completa) {
+        if (terminada != reproduccion) {
+            return;
+        }
+        if (completa) {
+            detener();
+        } else {
+            posicion = terminada.getPosicion();
+            reproduccion = null;
             playing = false;
             btnPlay.setText("▶");
             progressTimer.stop();
+            actualizarProgreso();
         }
     }
     
     private void detener() {
-        if (clip != null) {
-            clip.stop();
-            clip.setMicrosecondPosition(0);
-            playing = false;
-            btnPlay.setText("▶");
-            progressTimer.stop();
-            progressBar.setValue(0);
-            lblDuration.setText(formatearTiempo(duracionSegundos));
+        if (reproduccion != null) {
+            reproduccion.detener();
+            reproduccion = null;
+        }
+        playing = false;
+        posicion = 0;
+        btnPlay.setText("▶");
+        progressTimer.stop();
+        progressBar.setValue(0);
+        lblDuration.setText(formatearTiempo(duracionSegundos));
+        liberarAudio();
+    }
+    
+    /**
+     * Saltar a la posición del clic en la barra de progreso
+     */
+    private void saltarA(int x) {
+        long longitud = getLongitudBytes();
+        int ancho = progressBar.getWidth();
+        if (longitud <= 0 || ancho <= 0) {
+            return;
+        }
+        double fraccion = Math.max(0, Math.min(1, (double) x / ancho));
+        posicion = (long) (fraccion * longitud);
+        if (playing && reproduccion != null) {
+            reproduccion.detener();
+            reproducir();
+        } else {
+            actualizarProgreso();
         }
     }
     
     private void actualizarProgreso() {
-        if (clip != null && playing) {
-            long currentPos = clip.getMicrosecondPosition();
-            long totalLength = clip.getMicrosecondLength();
-            
-            if (totalLength > 0) {
-                int progress = (int) ((currentPos * 100) / totalLength);
-                progressBar.setValue(progress);
-                
-                long remainingSeconds = (totalLength - currentPos) / 1_000_000;
-                lblDuration.setText(formatearTiempo(remainingSeconds));
-            }
+        long longitud = getLongitudBytes();
+        if (longitud <= 0) {
+            return;
         }
+        long currentPos = reproduccion != null ? reproduccion.getPosicion() : posicion;
+        currentPos = Math.min(currentPos, longitud);
+        progressBar.setValue((int) (currentPos * 100 / longitud));
+        
+        long remainingSeconds = (longitud - currentPos) / BYTES_POR_SEGUNDO;
+        lblDuration.setText(formatearTiempo(remainingSeconds));
+    }
+    
+    /**
+     * Longitud del audio; si aún no se ha leído, la estimada por su duración
+     */
+    private long getLongitudBytes() {
+        return audioData != null ? audioData.length : duracionSegundos * BYTES_POR_SEGUNDO;
+    }
+    
+    /**
+     * Soltar los bytes del audio mientras la burbuja no se reproduce; se vuelven a
+     * leer de la fuente al pulsar play
+     */
+    private void liberarAudio() {
+        audioData = null;
+    }
+    
+    public boolean isPlaying() {
+        return playing || cargando;
     }
     
     private String formatearTiempo(long segundos) {
@@ -179,12 +275,14 @@ public class AudioPlayer extends JPanel {
      * Limpiar recursos
      */
     public void dispose() {
+        descartado = true;
         if (progressTimer != null) {
             progressTimer.stop();
         }
-        if (clip != null) {
-            clip.stop();
-            clip.close();
+        if (reproduccion != null) {
+            reproduccion.detener();
+            reproduccion = null;
         }
+        liberarAudio();
     }
 }
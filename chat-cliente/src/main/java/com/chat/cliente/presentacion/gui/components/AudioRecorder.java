@@ -6,13 +6,8 @@ import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 
-import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.DataLine;
 import javax.sound.sampled.LineUnavailableException;
@@ -31,6 +26,8 @@ import javax.swing.border.EmptyBorder;
 
 /**
  * Componente para grabar audio desde el micrófono
+ * El audio se graba en un BufferGrabacion, que calcula el volumen mientras graba y
+ * entrega el WAV final con una sola copia
  */
 public class AudioRecorder extends JDialog {
     
@@ -44,7 +41,7 @@ public class AudioRecorder extends JDialog {
     
     private TargetDataLine targetLine;
     private Thread recordingThread;
-    private ByteArrayOutputStream audioOutputStream;
+    private BufferGrabacion grabacion;
     private boolean recording = false;
     private long startTime;
     private long recordingDuration = 0;
@@ -165,7 +162,7 @@ public class AudioRecorder extends JDialog {
             targetLine.open(AUDIO_FORMAT);
             targetLine.start();
             
-            audioOutputStream = new ByteArrayOutputStream();
+            grabacion = new BufferGrabacion(AUDIO_FORMAT);
             recording = true;
             startTime = System.currentTimeMillis();
             
@@ -178,10 +175,8 @@ public class AudioRecorder extends JDialog {
             
             // Thread para grabar audio
             recordingThread = new Thread(() -> {
-                byte[] buffer = new byte[4096];
                 while (recording) {
-                    int bytesRead = targetLine.read(buffer, 0, buffer.length);
-                    audioOutputStream.write(buffer, 0, bytesRead);
+                    grabacion.leerDe(targetLine, 4096);
                 }
             });
             recordingThread.start();
@@ -215,11 +210,8 @@ public class AudioRecorder extends JDialog {
             e.printStackTrace();
         }
         
-        // Obtener audio grabado (PCM raw)
-        byte[] rawAudio = audioOutputStream.toByteArray();
-        
         // Verificar que hay audio con volumen suficiente
-        if (!tieneAudioValido(rawAudio)) {
+        if (!tieneAudioValido()) {
             JOptionPane.showMessageDialog(this,
                 "⚠️ No se detectó audio válido.\n\n" +
                 "Verifica que:\n" +
@@ -233,16 +225,11 @@ public class AudioRecorder extends JDialog {
             return;
         }
         
-        // Convertir PCM raw a WAV (con encabezado)
-        recordedAudio = convertirAWav(rawAudio);
+        // PCM con encabezado WAV
+        recordedAudio = grabacion.aWav();
+        grabacion = null;
         recordingDuration = (System.currentTimeMillis() - startTime) / 1000;
         
-        try {
-            audioOutputStream.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        
         System.out.println("✅ Audio grabado: " + recordedAudio.length + " bytes (" + recordingDuration + " segundos)");
         
         // Cerrar diálogo
@@ -314,66 +301,18 @@ public class AudioRecorder extends JDialog {
     
     /**
      * Verificar si el audio tiene volumen suficiente (no es solo silencio)
+     * El RMS se fue calculando durante la grabación
      */
-    private boolean tieneAudioValido(byte[] audioData) {
-        if (audioData == null || audioData.length < 1000) {
+    private boolean tieneAudioValido() {
+        if (grabacion == null || grabacion.getLongitud() < 1000) {
             return false;
         }
         
-        // Calcular RMS (Root Mean Square) para medir volumen
-        long sumSquares = 0;
-        int samples = audioData.length / 2; // 16-bit = 2 bytes por sample
-        
-        for (int i = 0; i < audioData.length - 1; i += 2) {
-            // Convertir 2 bytes a un sample de 16-bit (little endian)
-            int sample = (audioData[i] & 0xFF) | ((audioData[i + 1] & 0xFF) << 8);
-            
-            // Convertir a signed
-            if (sample > 32767) {
-                sample -= 65536;
-            }
-            
-            sumSquares += (long)sample * sample;
-        }
-        
-        double rms = Math.sqrt((double)sumSquares / samples);
+        double rms = grabacion.getRms();
         double threshold = 100.0; // Umbral mínimo de volumen
         
         System.out.println("📊 RMS del audio: " + String.format("%.2f", rms) + " (umbral: " + threshold + ")");
         
         return rms > threshold;
     }
-    
-    /**
-     * Convertir PCM raw a WAV (agregar encabezado WAV)
-     */
-    private byte[] convertirAWav(byte[] pcmData) {
-        try {
-            // Crear AudioInputStream desde PCM raw
-            ByteArrayInputStream bais = new ByteArrayInputStream(pcmData);
-            AudioInputStream audioInputStream = new AudioInputStream(
-                bais, 
-                AUDIO_FORMAT, 
-                pcmData.length / AUDIO_FORMAT.getFrameSize()
-            );
-            
-            // Convertir a WAV usando ByteArrayOutputStream
-            ByteArrayOutputStream wavOutput = new ByteArrayOutputStream();
-            AudioSystem.write(audioInputStream, AudioFileFormat.Type.WAVE, wavOutput);
-            
-            byte[] wavData = wavOutput.toByteArray();
-            System.out.println("🔄 Audio convertido: PCM " + pcmData.length + " bytes → WAV " + wavData.length + " bytes");
-            
-            audioInputStream.close();
-            wavOutput.close();
-            
-            return wavData;
-            
-        } catch (IOException e) {
-            System.err.println("❌ Error al convertir a WAV: " + e.getMessage());
-            e.printStackTrace();
-            // Si falla, devolver PCM raw
-            return pcmData;
-        }
-    }
 }
@@ -0,0 +1,122 @@
+package com.chat.cliente.presentacion.gui.components;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.TargetDataLine;
+
+/**
+ * Audio PCM de una grabación en curso
+ *
+ * La línea del micrófono escribe directamente en bloques de TAMANIO_BLOQUE, sin buffer
+ * intermedio ni un arreglo que se vaya copiando al crecer. Mientras se graba se acumula
+ * la suma de cuadrados de las muestras, así el volumen (RMS) está listo al terminar sin
+ * volver a recorrer el audio. Al final aWav() copia los bloques una sola vez en el
+ * arreglo definitivo, detrás del encabezado WAV escrito a mano.
+ *
+ * Supone PCM de 16 bits con signo little endian (el formato de AudioRecorder).
+ */
+final class BufferGrabacion {
+    
+    static final int TAMANIO_ENCABEZADO_WAV = 44;
+    /** 64 KB: unos 2 segundos de audio a 16 kHz, 16 bits, mono */
+    private static final int TAMANIO_BLOQUE = 64 * 1024;
+    
+    private final AudioFormat formato;
+    private final List<byte[]> bloques = new ArrayList<>();
+    private byte[] bloqueActual;
+    private int ocupado;
+    private int longitud = 0;
+    
+    private long sumaCuadrados = 0;
+    private long muestras = 0;
+    
+    BufferGrabacion(AudioFormat formato) {
+        this.formato = formato;
+    }
+    
+    /**
+     * Leer de la línea al final del audio (como mucho maximo bytes)
+     * @return Bytes leídos
+     */
+    int leerDe(TargetDataLine linea, int maximo) {
+        if (bloqueActual == null || ocupado == bloqueActual.length) {
+            bloqueActual = new byte[TAMANIO_BLOQUE];
+            bloques.add(bloqueActual);
+            ocupado = 0;
+        }
+        int pedir = Math.min(maximo, bloqueActual.length - ocupado);
+        pedir -= pedir % formato.getFrameSize();
+        int leidos = linea.read(bloqueActual, ocupado, pedir);
+        if (leidos > 0) {
+            acumularNivel(bloqueActual, ocupado, leidos);
+            ocupado += leidos;
+            longitud += leidos;
+        }
+        return leidos;
+    }
+    
+    private void acumularNivel(byte[] datos, int desde, int cantidad) {
+        int fin = desde + cantidad - 1;
+        for (int i = desde; i < fin; i += 2) {
+            int muestra = (short) ((datos[i] & 0xFF) | (datos[i + 1] << 8));
+            sumaCuadrados += (long) muestra * muestra;
+        }
+        muestras += cantidad / 2;
+    }
+    
+    /**
+     * Bytes PCM grabados
+     */
+    int getLongitud() {
+        return longitud;
+    }
+    
+    /**
+     * Volumen medio (RMS) de lo grabado hasta ahora
+     */
+    double getRms() {
+        return muestras == 0 ? 0 : Math.sqrt((double) sumaCuadrados / muestras);
+    }
+    
+    /**
+     * Audio completo en formato WAV (encabezado de 44 bytes + PCM)
+     */
+    byte[] aWav() {
+        byte[] wav = new byte[TAMANIO_ENCABEZADO_WAV + longitud];
+        escribirEncabezado(ByteBuffer.wrap(wav).order(ByteOrder.LITTLE_ENDIAN));
+        
+        int posicion = TAMANIO_ENCABEZADO_WAV;
+        int restante = longitud;
+        for (byte[] bloque : bloques) {
+            int cantidad = Math.min(bloque.length, restante);
+            System.arraycopy(bloque, 0, wav, posicion, cantidad);
+            posicion += cantidad;
+            restante -= cantidad;
+        }
+        return wav;
+    }
+    
+    private void escribirEncabezado(ByteBuffer encabezado) {
+        int canales = formato.getChannels();
+        int bits = formato.getSampleSizeInBits();
+        int tasa = (int) formato.getSampleRate();
+        int tamanioMarco = formato.getFrameSize();
+        
+        encabezado.put(new byte[] {'R', 'I', 'F', 'F'});
+        encabezado.putInt(TAMANIO_ENCABEZADO_WAV - 8 + longitud);
+        encabezado.put(new byte[] {'W', 'A', 'V', 'E', 'f', 'm', 't', ' '});
+        encabezado.putInt(16);                     // Tamaño del bloque fmt
+        encabezado.putShort((short) 1);            // PCM
+        encabezado.putShort((short) canales);
+        encabezado.putInt(tasa);
+        encabezado.putInt(tasa * tamanioMarco);    // Bytes por segundo
+        encabezado.putShort((short) tamanioMarco);
+        encabezado.putShort((short) bits);
+        encabezado.put(new byte[] {'d', 'a', 't', 'a'});
+        encabezado.putInt(longitud);
+    }
+}
@@ -43,12 +43,21 @@ public class BurbujaAudio extends JPanel {
      */
     public BurbujaAudio(String remitente, byte[] audioData, long duracionSegundos, 
                         String timestamp, boolean esMio) {
+        this(remitente, FuenteAudio.de(audioData), duracionSegundos, timestamp, esMio);
+    }
+    
+    /**
+     * Constructor de burbuja de audio cuyos bytes se leen al pulsar reproducir
+     * @param fuente Origen del audio (p. ej. el historial en H2)
+     */
+    public BurbujaAudio(String remitente, FuenteAudio fuente, long duracionSegundos, 
+                        String timestamp, boolean esMio) {
         
         // Configurar colores según origen
         this.colorBurbuja = esMio ? COLOR_BURBUJA_PROPIA : COLOR_BURBUJA_RECIBIDA;
         
         // Crear reproductor de audio
-        this.audioPlayer = new AudioPlayer(audioData, duracionSegundos);
+        this.audioPlayer = new AudioPlayer(fuente, duracionSegundos);
         
         configurarComponente(remitente, timestamp, esMio);
     }
@@ -114,6 +123,17 @@ public class BurbujaAudio extends JPanel {
         g2.dispose();
     }
     
+    /**
+     * Alto de toda burbuja de audio
+     */
+    public static int altoPreferido() {
+        return ALTURA_BURBUJA;
+    }
+    
+    public boolean isReproduciendo() {
+        return audioPlayer.isPlaying();
+    }
+    
     /**
      * Limpiar recursos cuando se destruye el componente
      */
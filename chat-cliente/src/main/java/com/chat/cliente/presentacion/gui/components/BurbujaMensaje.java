@@ -124,10 +124,15 @@ public class BurbujaMensaje extends JPanel {
      * Calcular tamaño del componente basado en el contenido
      */
     private Dimension calcularTamanio() {
-        int anchoTexto = ANCHO_MAXIMO - (PADDING_HORIZONTAL * 2);
+        return new Dimension(ANCHO_MAXIMO, altoPreferido(contenido));
+    }
+    
+    /**
+     * Alto que tendrá la burbuja de un contenido, sin construirla
+     */
+    public static int altoPreferido(String contenido) {
         int lineas = Math.max(1, (contenido.length() + CARACTERES_POR_LINEA - 1) / CARACTERES_POR_LINEA);
-        int altura = ALTURA_BASE + (lineas * ALTURA_POR_LINEA);
-        return new Dimension(ANCHO_MAXIMO, altura);
+        return ALTURA_BASE + (lineas * ALTURA_POR_LINEA);
     }
     
     /**
@@ -0,0 +1,76 @@
+package com.chat.cliente.presentacion.gui.components;
+
+/**
+ * Mensaje de una conversación tal como lo guarda la VistaConversacion: solo los datos,
+ * sin componentes Swing. La burbuja se construye cuando la fila entra en pantalla.
+ */
+public final class ElementoConversacion {
+    
+    private final String remitente;
+    private final String contenido;
+    private final FuenteAudio audio;
+    private final long duracionSegundos;
+    private final String timestamp;
+    private final boolean esMio;
+    
+    private ElementoConversacion(String remitente, String contenido, FuenteAudio audio,
+                                 long duracionSegundos, String timestamp, boolean esMio) {
+        this.remitente = remitente;
+        this.contenido = contenido;
+        this.audio = audio;
+        this.duracionSegundos = duracionSegundos;
+        this.timestamp = timestamp;
+        this.esMio = esMio;
+    }
+    
+    /**
+     * Mensaje de texto
+     */
+    public static ElementoConversacion texto(String remitente, String contenido, String timestamp, boolean esMio) {
+        return new ElementoConversacion(remitente, contenido, null, 0, timestamp, esMio);
+    }
+    
+    /**
+     * Mensaje de audio ya en memoria
+     */
+    public static ElementoConversacion audio(String remitente, byte[] audio, long duracionSegundos,
+                                             String timestamp, boolean esMio) {
+        return audio(remitente, FuenteAudio.de(audio), duracionSegundos, timestamp, esMio);
+    }
+    
+    /**
+     * Mensaje de audio cuyos bytes se leen al reproducirlo
+     */
+    public static ElementoConversacion audio(String remitente, FuenteAudio audio, long duracionSegundos,
+                                             String timestamp, boolean esMio) {
+        return new ElementoConversacion(remitente, null, audio, duracionSegundos, timestamp, esMio);
+    }
+    
+    public boolean esAudio() {
+        return audio != null;
+    }
+    
+    public String getRemitente() {
+        return remitente;
+    }
+    
+    public String getContenido() {
+        return contenido;
+    }
+    
+    public FuenteAudio getAudio() {
+        return audio;
+    }
+    
+    public long getDuracionSegundos() {
+        return duracionSegundos;
+    }
+    
+    public String getTimestamp() {
+        return timestamp;
+    }
+    
+    public boolean isEsMio() {
+        return esMio;
+    }
+}
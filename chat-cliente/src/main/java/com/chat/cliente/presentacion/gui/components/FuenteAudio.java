@@ -0,0 +1,22 @@
+package com.chat.cliente.presentacion.gui.components;
+
+/**
+ * Origen de los bytes de un audio del chat. AudioPlayer lo lee la primera vez que se
+ * pulsa reproducir, fuera del hilo de Swing: los audios del historial no se cargan en
+ * memoria hasta entonces.
+ */
+@FunctionalInterface
+public interface FuenteAudio {
+    
+    /**
+     * Leer el audio completo (puede bloquear, p. ej. consultando H2)
+     */
+    byte[] leer() throws Exception;
+    
+    /**
+     * Fuente de un audio que ya está en memoria (recién grabado o recibido)
+     */
+    static FuenteAudio de(byte[] audio) {
+        return () -> audio;
+    }
+}
@@ -0,0 +1,289 @@
+package com.chat.cliente.presentacion.gui.components;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.swing.SwingUtilities;
+
+/**
+ * Motor de reproducción de los audios del chat (Singleton)
+ *
+ * En lugar de un Clip por burbuja (que copia el audio entero en la línea y tarda en
+ * abrirse), todas las burbujas comparten una SourceDataLine con un buffer pequeño que
+ * un único hilo va llenando por bloques desde los bytes del audio. Así:
+ * - Un audio largo empieza a sonar en cuanto se escribe el primer bloque.
+ * - Solo hay una reproducción activa: empezar otra detiene la anterior.
+ * - Las burbujas en reposo no tienen líneas ni buffers de audio abiertos.
+ *
+ * La línea se reutiliza entre reproducciones y se cierra tras INACTIVIDAD_MS sin uso.
+ */
+public final class ReproductorAudio {
+    
+    /** Buffer de la línea (ms de audio): lo que tarda en notarse una pausa o un salto */
+    private static final int BUFFER_LINEA_MS = 100;
+    /** Tamaño de cada escritura en la línea (ms de audio) */
+    private static final int BLOQUE_MS = 20;
+    private static final long INACTIVIDAD_MS = 10_000;
+    private static final long ESPERA_FIN_MS = 10;
+    /** Encabezado RIFF/WAVE mínimo antes del primer bloque ("RIFF", tamaño, "WAVE") */
+    private static final int ENCABEZADO_RIFF = 12;
+    
+    private static ReproductorAudio instancia;
+    
+    private final AudioFormat formato = AudioRecorder.getAudioFormat();
+    private final int tamanioMarco = formato.getFrameSize();
+    private final int tamanioBloque;
+    
+    private volatile SourceDataLine linea;
+    private Reproduccion pendiente;
+    private Reproduccion actual;
+    
+    /**
+     * Aviso de fin de una reproducción, en el hilo de Swing. No se llama cuando la
+     * detiene su propia burbuja con Reproduccion.detener().
+     */
+    @FunctionalInterface
+    public interface Oyente {
+        /**
+         * @param reproduccion La reproducción que terminó
+         * @param completa true si llegó al final del audio, false si otra la sustituyó o falló
+         */
+        void alTerminar(Reproduccion reproduccion, boolean completa);
+    }
+    
+    /**
+     * Reproducción en curso o pendiente de empezar
+     */
+    public final class Reproduccion {
+        
+        private final byte[] datos;
+        private final long desde;
+        private final Oyente oyente;
+        
+        private volatile boolean cancelada = false;
+        private volatile boolean terminada = false;
+        private volatile long marcoInicial = -1;
+        private volatile long posicionEscrita;
+        private volatile long posicionFinal;
+        private boolean avisar = true;
+        
+        private Reproduccion(byte[] datos, long desde, Oyente oyente) {
+            this.datos = datos;
+            this.desde = desde;
+            this.oyente = oyente;
+            this.posicionEscrita = desde;
+            this.posicionFinal = desde;
+        }
+        
+        /**
+         * Posición (en bytes del audio) de lo que ya ha sonado
+         */
+        public long getPosicion() {
+            if (terminada) {
+                return posicionFinal;
+            }
+            SourceDataLine l = linea;
+            long inicio = marcoInicial;
+            if (l == null || inicio < 0) {
+                return desde;
+            }
+            long reproducido = desde + (l.getLongFramePosition() - inicio) * tamanioMarco;
+            return Math.max(desde, Math.min(reproducido, posicionEscrita));
+        }
+        
+        public long getLongitud() {
+            return datos.length;
+        }
+        
+        /**
+         * Cancelar la reproducción (el oyente no recibe aviso)
+         * @return Posición en la que se detuvo, para continuar desde ahí
+         */
+        public long detener() {
+            synchronized (ReproductorAudio.this) {
+                avisar = false;
+                cancelada = true;
+                if (pendiente == this) {
+                    pendiente = null;
+                }
+            }
+            return getPosicion();
+        }
+    }
+    
+    private ReproductorAudio() {
+        int bytesPorMs = (int) (formato.getFrameRate() * tamanioMarco / 1000);
+        tamanioBloque = Math.max(tamanioMarco, BLOQUE_MS * bytesPorMs / tamanioMarco * tamanioMarco);
+        
+        Thread hilo = new Thread(this::reproducirEnBucle, "audio-reproduccion");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    public static synchronized ReproductorAudio obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new ReproductorAudio();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Reproducir un audio (en el formato de AudioRecorder) a partir de una posición,
+     * deteniendo la reproducción que hubiera en curso
+     * @param datos Audio PCM, con o sin encabezado WAV
+     * @param desde Posición inicial en bytes (se ajusta al marco)
+     * @param oyente Aviso de fin
+     */
+    public synchronized Reproduccion reproducir(byte[] datos, long desde, Oyente oyente) {
+        // Los audios grabados llevan encabezado WAV: no se reproduce como muestras (se oiría un clic)
+        int inicioMuestras = inicioMuestras(datos);
+        long inicio = Math.max(inicioMuestras, Math.min(desde, datos.length));
+        inicio -= (inicio - inicioMuestras) % tamanioMarco;
+        Reproduccion reproduccion = new Reproduccion(datos, inicio, oyente);
+        
+        if (pendiente != null) {
+            pendiente.cancelada = true;
+            terminar(pendiente, false);
+        }
+        if (actual != null) {
+            actual.cancelada = true;
+        }
+        pendiente = reproduccion;
+        notifyAll();
+        return reproduccion;
+    }
+    
+    /**
+     * Posición del primer byte de muestras: el inicio del bloque "data" si el audio es
+     * un WAV, 0 si es PCM sin encabezado
+     */
+    private static int inicioMuestras(byte[] datos) {
+        if (datos.length < ENCABEZADO_RIFF || !etiqueta(datos, 0, "RIFF") || !etiqueta(datos, 8, "WAVE")) {
+            return 0;
+        }
+        int posicion = ENCABEZADO_RIFF;
+        while (posicion + 8 <= datos.length) {
+            int tamanio = (datos[posicion + 4] & 0xFF) | (datos[posicion + 5] & 0xFF) << 8
+                | (datos[posicion + 6] & 0xFF) << 16 | (datos[posicion + 7] & 0xFF) << 24;
+            if (etiqueta(datos, posicion, "data")) {
+                return posicion + 8;
+            }
+            if (tamanio < 0 || tamanio > datos.length) {
+                break;
+            }
+            // Los bloques RIFF ocupan un número par de bytes
+            posicion += 8 + tamanio + (tamanio & 1);
+        }
+        return 0;
+    }
+    
+    private static boolean etiqueta(byte[] datos, int posicion, String etiqueta) {
+        for (int i = 0; i < 4; i++) {
+            if (datos[posicion + i] != etiqueta.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void reproducirEnBucle() {
+        while (true) {
+            Reproduccion reproduccion;
+            try {
+                reproduccion = siguiente();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            reproducirEnLinea(reproduccion);
+        }
+    }
+    
+    /**
+     * Esperar la siguiente reproducción, cerrando la línea si pasa INACTIVIDAD_MS sin uso
+     */
+    private synchronized Reproduccion siguiente() throws InterruptedException {
+        if (pendiente == null && linea != null) {
+            wait(INACTIVIDAD_MS);
+            if (pendiente == null) {
+                linea.close();
+                linea = null;
+            }
+        }
+        while (pendiente == null) {
+            wait();
+        }
+        actual = pendiente;
+        pendiente = null;
+        return actual;
+    }
+    
+    private void reproducirEnLinea(Reproduccion reproduccion) {
+        if (reproduccion.cancelada) {
+            terminar(reproduccion, false);
+            return;
+        }
+        
+        SourceDataLine l;
+        try {
+            l = abrirLinea();
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            System.err.println("Error al reproducir audio: " + e.getMessage());
+            terminar(reproduccion, false);
+            return;
+        }
+        
+        byte[] datos = reproduccion.datos;
+        int posicion = (int) reproduccion.desde;
+        reproduccion.marcoInicial = l.getLongFramePosition();
+        l.start();
+        
+        while (!reproduccion.cancelada && posicion < datos.length) {
+            int escritos = l.write(datos, posicion, Math.min(tamanioBloque, datos.length - posicion));
+            posicion += escritos;
+            reproduccion.posicionEscrita = posicion;
+        }
+        
+        // Esperar a que suene lo que queda en el buffer (sin drain(), que no se puede cancelar)
+        while (!reproduccion.cancelada && reproduccion.getPosicion() < posicion) {
+            try {
+                Thread.sleep(ESPERA_FIN_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        
+        boolean completa = !reproduccion.cancelada;
+        reproduccion.posicionFinal = completa ? datos.length : reproduccion.getPosicion();
+        reproduccion.terminada = true;
+        l.stop();
+        l.flush();
+        terminar(reproduccion, completa);
+    }
+    
+    private SourceDataLine abrirLinea() throws LineUnavailableException {
+        if (linea == null) {
+            SourceDataLine nueva = AudioSystem.getSourceDataLine(formato);
+            int bytesPorMs = (int) (formato.getFrameRate() * tamanioMarco / 1000);
+            nueva.open(formato, Math.max(tamanioBloque * 2, BUFFER_LINEA_MS * bytesPorMs));
+            linea = nueva;
+        }
+        return linea;
+    }
+    
+    private void terminar(Reproduccion reproduccion, boolean completa) {
+        boolean avisar;
+        synchronized (this) {
+            reproduccion.terminada = true;
+            if (actual == reproduccion) {
+                actual = null;
+            }
+            avisar = reproduccion.avisar;
+        }
+        if (avisar && reproduccion.oyente != null) {
+            SwingUtilities.invokeLater(() -> reproduccion.oyente.alTerminar(reproduccion, completa));
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.chat.cliente.presentacion.gui.components;
+
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Área de mensajes de una conversación, virtualizada.
+ *
+ * Guarda los mensajes como ElementoConversacion y solo construye las burbujas de las
+ * filas visibles (más un margen arriba y abajo). El alto de cada fila se conoce sin
+ * construirla (BurbujaMensaje.altoPreferido / BurbujaAudio.altoPreferido), así que el
+ * alto total y la posición de cada fila salen de una suma acumulada. Al desplazarse se
+ * crean las filas que entran y se descartan las que salen; una conversación de miles de
+ * mensajes tiene en memoria unas decenas de componentes.
+ *
+ * Las filas de audio que se están reproduciendo no se descartan hasta que terminan.
+ * Al acercarse al principio se ejecuta alLlegarArriba, con el que ConversacionManager
+ * carga la página anterior del historial (agregarAlInicio).
+ * Solo se usa desde el hilo de Swing.
+ */
+public class VistaConversacion extends JPanel implements Scrollable {
+    
+    private static final Color COLOR_FONDO = Color.WHITE;
+    private static final int MARGEN_VERTICAL = 10;
+    /** Separación que añade el FlowLayout de cada fila arriba y abajo de la burbuja */
+    private static final int SEPARACION_FILA = 5;
+    /** Píxeles por encima y por debajo de lo visible que se mantienen construidos */
+    private static final int MARGEN_MATERIALIZADO = 400;
+    private static final int INCREMENTO_SCROLL = 16;
+    /** A esta distancia del principio se piden los mensajes anteriores */
+    private static final int UMBRAL_INICIO = 300;
+    
+    private final List<ElementoConversacion> elementos = new ArrayList<>();
+    /** finFila[i]: coordenada y donde termina la fila i, sin el margen superior */
+    private int[] finFila = new int[64];
+    private final Map<Integer, JComponent> filas = new HashMap<>();
+    private final ChangeListener alDesplazar = e -> {
+        materializar();
+        comprobarInicio();
+    };
+    private Runnable alLlegarArriba;
+    
+    public VistaConversacion() {
+        super(null);
+        setBackground(COLOR_FONDO);
+    }
+    
+    /**
+     * Agregar mensajes al final de la conversación
+     */
+    public void agregarTodos(List<ElementoConversacion> nuevos) {
+        for (ElementoConversacion elemento : nuevos) {
+            int indice = elementos.size();
+            if (indice == finFila.length) {
+                finFila = Arrays.copyOf(finFila, indice * 2);
+            }
+            int inicio = indice == 0 ? 0 : finFila[indice - 1];
+            finFila[indice] = inicio + altoFila(elemento);
+            elementos.add(elemento);
+        }
+        revalidate();
+        repaint();
+    }
+    
+    /**
+     * Agregar mensajes anteriores al principio de la conversación, sin mover lo que se
+     * está viendo (la posición del scroll se desplaza el alto agregado)
+     */
+    public void agregarAlInicio(List<ElementoConversacion> anteriores) {
+        if (anteriores.isEmpty()) {
+            return;
+        }
+        int agregados = anteriores.size();
+        elementos.addAll(0, anteriores);
+        
+        int[] nuevoFin = new int[Math.max(64, Integer.highestOneBit(elementos.size()) * 2)];
+        int y = 0;
+        for (int i = 0; i < elementos.size(); i++) {
+            y += altoFila(elementos.get(i));
+            nuevoFin[i] = y;
+        }
+        finFila = nuevoFin;
+        int altoAgregado = finFila[agregados - 1];
+        
+        // Las filas construidas conservan su burbuja; solo cambia su índice
+        Map<Integer, JComponent> desplazadas = new HashMap<>();
+        for (Map.Entry<Integer, JComponent> entrada : filas.entrySet()) {
+            desplazadas.put(entrada.getKey() + agregados, entrada.getValue());
+        }
+        filas.clear();
+        filas.putAll(desplazadas);
+        
+        revalidate();
+        if (getParent() instanceof JViewport) {
+            JViewport viewport = (JViewport) getParent();
+            Point posicion = viewport.getViewPosition();
+            // Layout síncrono para que la vista ya tenga el alto nuevo al mover la posición
+            viewport.getParent().validate();
+            viewport.setViewPosition(new Point(posicion.x, posicion.y + altoAgregado));
+        }
+        repaint();
+    }
+    
+    /**
+     * Acción a ejecutar (en el hilo de Swing) cuando el usuario se acerca al principio,
+     * p. ej. cargar la página anterior del historial. Puede llamarse varias veces.
+     */
+    public void setAlLlegarArriba(Runnable alLlegarArriba) {
+        this.alLlegarArriba = alLlegarArriba;
+    }
+    
+    /**
+     * true si lo visible está cerca del primer mensaje (o todo cabe en pantalla)
+     */
+    public boolean estaCercaDelInicio() {
+        return getVisibleRect().y <= UMBRAL_INICIO;
+    }
+    
+    private void comprobarInicio() {
+        if (alLlegarArriba != null && !elementos.isEmpty() && estaCercaDelInicio()) {
+            // Después de los cambios en curso (p. ej. el scroll al final tras la primera página)
+            SwingUtilities.invokeLater(alLlegarArriba);
+        }
+    }
+    
+    public int getCantidadMensajes() {
+        return elementos.size();
+    }
+    
+    /**
+     * Descartar mensajes y burbujas (detiene los audios en reproducción)
+     */
+    public void liberar() {
+        for (JComponent fila : filas.values()) {
+            descartar(fila);
+        }
+        filas.clear();
+        removeAll();
+        elementos.clear();
+        alLlegarArriba = null;
+        finFila = new int[64];
+        revalidate();
+        repaint();
+    }
+    
+    private static int altoFila(ElementoConversacion elemento) {
+        int altoBurbuja = elemento.esAudio()
+            ? BurbujaAudio.altoPreferido()
+            : BurbujaMensaje.altoPreferido(elemento.getContenido());
+        return altoBurbuja + 2 * SEPARACION_FILA;
+    }
+    
+    private int altoContenido() {
+        return elementos.isEmpty() ? 0 : finFila[elementos.size() - 1];
+    }
+    
+    @Override
+    public Dimension getPreferredSize() {
+        int ancho = getParent() instanceof JViewport ? getParent().getWidth() : 0;
+        return new Dimension(ancho, altoContenido() + 2 * MARGEN_VERTICAL);
+    }
+    
+    @Override
+    public void doLayout() {
+        materializar();
+    }
+    
+    /**
+     * Construir las filas que están en el rango visible y descartar las demás
+     */
+    private void materializar() {
+        Rectangle visible = getVisibleRect();
+        int desde = primeraFilaEn(visible.y - MARGEN_MATERIALIZADO - MARGEN_VERTICAL);
+        int limite = visible.y + visible.height + MARGEN_MATERIALIZADO - MARGEN_VERTICAL;
+        
+        int hasta = desde;
+        while (hasta < elementos.size() && inicioFila(hasta) < limite) {
+            hasta++;
+        }
+        
+        // Descartar lo que quedó fuera del rango
+        Iterator<Map.Entry<Integer, JComponent>> it = filas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, JComponent> entrada = it.next();
+            int indice = entrada.getKey();
+            if ((indice < desde || indice >= hasta) && !reproduciendo(entrada.getValue())) {
+                descartar(entrada.getValue());
+                remove(entrada.getValue());
+                it.remove();
+            }
+        }
+        
+        // Construir y colocar lo que está dentro
+        for (int i = desde; i < hasta; i++) {
+            if (!filas.containsKey(i)) {
+                JComponent fila = crearFila(elementos.get(i));
+                filas.put(i, fila);
+                add(fila);
+            }
+        }
+        for (Map.Entry<Integer, JComponent> entrada : filas.entrySet()) {
+            int indice = entrada.getKey();
+            entrada.getValue().setBounds(0, MARGEN_VERTICAL + inicioFila(indice), getWidth(),
+                finFila[indice] - inicioFila(indice));
+            entrada.getValue().validate();
+        }
+    }
+    
+    private int inicioFila(int indice) {
+        return indice == 0 ? 0 : finFila[indice - 1];
+    }
+    
+    /**
+     * Primera fila que termina por debajo de y (búsqueda binaria en la suma acumulada)
+     */
+    private int primeraFilaEn(int y) {
+        int bajo = 0;
+        int alto = elementos.size();
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (finFila[medio] <= y) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+    
+    /**
+     * Fila con la misma alineación que tenían las burbujas en el panel de conversación
+     */
+    private static JComponent crearFila(ElementoConversacion elemento) {
+        JPanel contenedor = new JPanel(new FlowLayout(
+            elemento.isEsMio() ? FlowLayout.RIGHT : FlowLayout.LEFT, 10, SEPARACION_FILA));
+        contenedor.setOpaque(false);
+        
+        if (elemento.esAudio()) {
+            contenedor.add(new BurbujaAudio(elemento.getRemitente(), elemento.getAudio(),
+                elemento.getDuracionSegundos(), elemento.getTimestamp(), elemento.isEsMio()));
+        } else {
+            contenedor.add(new BurbujaMensaje(elemento.getRemitente(), elemento.getContenido(),
+                elemento.getTimestamp(), elemento.isEsMio()));
+        }
+        return contenedor;
+    }
+    
+    private static boolean reproduciendo(JComponent fila) {
+        return fila.getComponentCount() > 0
+            && fila.getComponent(0) instanceof BurbujaAudio
+            && ((BurbujaAudio) fila.getComponent(0)).isReproduciendo();
+    }
+    
+    private static void descartar(JComponent fila) {
+        if (fila.getComponentCount() > 0 && fila.getComponent(0) instanceof BurbujaAudio) {
+            ((BurbujaAudio) fila.getComponent(0)).dispose();
+        }
+    }
+    
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport) {
+            ((JViewport) getParent()).addChangeListener(alDesplazar);
+        }
+    }
+    
+    @Override
+    public void removeNotify() {
+        Container padre = getParent();
+        if (padre instanceof JViewport) {
+            ((JViewport) padre).removeChangeListener(alDesplazar);
+        }
+        super.removeNotify();
+    }
+    
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+    
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientacion, int direccion) {
+        return INCREMENTO_SCROLL;
+    }
+    
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientacion, int direccion) {
+        return orientacion == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+    
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+    
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // Si los mensajes no llenan el área, la vista ocupa todo el alto (fondo blanco)
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+}
@@ -0,0 +1,128 @@
+package com.chat.cliente.presentacion.gui.helpers;
+
+import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+/**
+ * Caché de iconos de foto ya decodificados y recortados en círculo (Singleton)
+ *
+ * UIHelper.crearIconoFoto decodifica con ImageIO, escala y aplica la máscara en cada
+ * llamada, y los renderers de listas la llamaban en cada pintado de cada fila. Aquí el
+ * icono se guarda por huella de la foto (SHA-1) y tamaño:
+ * - Si está en caché se devuelve al momento.
+ * - Si no, se devuelve el avatar por defecto, la foto se decodifica en un hilo aparte
+ *   y al terminar se ejecuta el aviso (normalmente repaint() de la lista) en el hilo
+ *   de Swing.
+ *
+ * Se guardan como mucho MAX_ICONOS (LRU) y con SoftReference, así que el GC los puede
+ * liberar si falta memoria; se vuelven a decodificar cuando hagan falta. La huella de
+ * cada byte[] se calcula una vez (WeakHashMap por identidad del arreglo).
+ */
+public class CacheIconos {
+    
+    private static final int MAX_ICONOS = 512;
+    
+    private static CacheIconos instancia;
+    
+    private final Map<String, SoftReference<ImageIcon>> iconos = new LinkedHashMap<String, SoftReference<ImageIcon>>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SoftReference<ImageIcon>> mayor) {
+            return size() > MAX_ICONOS;
+        }
+    };
+    private final Map<byte[], String> huellas = new WeakHashMap<>();
+    private final Map<String, ImageIcon> avataresPorDefecto = new HashMap<>();
+    /** Decodificaciones en curso con los avisos que esperan su resultado */
+    private final Map<String, List<Runnable>> pendientes = new HashMap<>();
+    private final ExecutorService decodificador;
+    
+    private CacheIconos() {
+        decodificador = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "iconos-decodificacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    public static synchronized CacheIconos obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new CacheIconos();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Obtener el icono circular de una foto. Si aún no está decodificado se devuelve el
+     * avatar por defecto y, cuando esté listo, se ejecuta alCargar en el hilo de Swing.
+     */
+    public synchronized ImageIcon obtener(byte[] foto, int ancho, int alto, Runnable alCargar) {
+        if (foto == null || foto.length == 0) {
+            return avatarPorDefecto(ancho, alto);
+        }
+        
+        String clave = huella(foto) + "@" + ancho + "x" + alto;
+        SoftReference<ImageIcon> referencia = iconos.get(clave);
+        ImageIcon icono = referencia != null ? referencia.get() : null;
+        if (icono != null) {
+            return icono;
+        }
+        
+        List<Runnable> avisos = pendientes.get(clave);
+        if (avisos == null) {
+            avisos = new ArrayList<>();
+            pendientes.put(clave, avisos);
+            decodificador.execute(() -> decodificar(clave, foto, ancho, alto));
+        }
+        if (alCargar != null && !avisos.contains(alCargar)) {
+            avisos.add(alCargar);
+        }
+        return avatarPorDefecto(ancho, alto);
+    }
+    
+    private void decodificar(String clave, byte[] foto, int ancho, int alto) {
+        ImageIcon icono = UIHelper.crearIconoFoto(foto, ancho, alto);
+        List<Runnable> avisos;
+        synchronized (this) {
+            iconos.put(clave, new SoftReference<>(icono));
+            avisos = pendientes.remove(clave);
+        }
+        if (avisos != null && !avisos.isEmpty()) {
+            SwingUtilities.invokeLater(() -> avisos.forEach(Runnable::run));
+        }
+    }
+    
+    private ImageIcon avatarPorDefecto(int ancho, int alto) {
+        return avataresPorDefecto.computeIfAbsent(ancho + "x" + alto,
+            k -> UIHelper.crearIconoAvatarPorDefecto(ancho, alto));
+    }
+    
+    private String huella(byte[] foto) {
+        return huellas.computeIfAbsent(foto, CacheIconos::sha1);
+    }
+    
+    private static String sha1(byte[] datos) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-1").digest(datos);
+            StringBuilder hex = new StringBuilder(resumen.length * 2);
+            for (byte b : resumen) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Todas las JVM incluyen SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.chat.cliente.presentacion.gui.helpers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import com.chat.cliente.presentacion.gui.components.ElementoConversacion;
+import com.chat.cliente.presentacion.gui.components.VistaConversacion;
+
+/**
+ * Agrupa las inserciones de mensajes en las vistas de conversación y las aplica en
+ * una sola pasada de layout por tick (~16 ms, un frame a 60 Hz).
+ *
+ * Agregar 2000 mensajes con revalidate() y scroll uno a uno repite el layout y el
+ * scroll 2000 veces. Aquí los mensajes se encolan, y en el tick se agregan todos, se
+ * valida cada vista una vez y se hace scroll al final una vez por JScrollPane.
+ *
+ * Solo se usa desde el hilo de Swing (las llamadas desde otros hilos se reencolan en él).
+ */
+public final class CoalescedorUI {
+    
+    private static final int TICK_MS = 16;
+    
+    private static final Map<VistaConversacion, List<ElementoConversacion>> PENDIENTES = new LinkedHashMap<>();
+    private static final Set<JScrollPane> SCROLL_AL_FINAL = new LinkedHashSet<>();
+    private static final Timer TEMPORIZADOR = new Timer(TICK_MS, e -> aplicar());
+    
+    static {
+        TEMPORIZADOR.setRepeats(false);
+    }
+    
+    private CoalescedorUI() {
+    }
+    
+    /**
+     * Encolar un mensaje para agregarlo a la vista en el próximo tick
+     */
+    public static void agregar(VistaConversacion vista, ElementoConversacion elemento) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> agregar(vista, elemento));
+            return;
+        }
+        PENDIENTES.computeIfAbsent(vista, v -> new ArrayList<>()).add(elemento);
+        programar();
+    }
+    
+    /**
+     * Hacer scroll al final del JScrollPane en el próximo tick, después del layout
+     * (varias peticiones en el mismo tick producen un solo scroll)
+     */
+    public static void desplazarAlFinal(JScrollPane scroll) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> desplazarAlFinal(scroll));
+            return;
+        }
+        SCROLL_AL_FINAL.add(scroll);
+        programar();
+    }
+    
+    private static void programar() {
+        if (!TEMPORIZADOR.isRunning()) {
+            TEMPORIZADOR.start();
+        }
+    }
+    
+    /**
+     * Aplicar lo pendiente: agregar, validar cada vista una vez y hacer los scrolls
+     */
+    private static void aplicar() {
+        for (Map.Entry<VistaConversacion, List<ElementoConversacion>> entrada : PENDIENTES.entrySet()) {
+            // Marca la vista inválida; el layout se hace una vez, abajo o en la próxima validación de Swing
+            entrada.getKey().agregarTodos(entrada.getValue());
+        }
+        PENDIENTES.clear();
+        
+        for (JScrollPane scroll : SCROLL_AL_FINAL) {
+            // Layout síncrono para conocer el alto final antes de mover la barra
+            scroll.validate();
+            JScrollBar vertical = scroll.getVerticalScrollBar();
+            vertical.setValue(vertical.getMaximum());
+        }
+        SCROLL_AL_FINAL.clear();
+    }
+}
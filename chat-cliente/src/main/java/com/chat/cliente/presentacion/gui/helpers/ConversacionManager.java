@@ -1,32 +1,45 @@
 package com.chat.cliente.presentacion.gui.helpers;
 
-import java.awt.Color;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
-import javax.swing.BoxLayout;
-import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
 
 import com.chat.cliente.datos.LogAudioDAO.AudioConversacion;
 import com.chat.cliente.datos.LogMensajeDAO.MensajeConversacion;
+import com.chat.cliente.negocio.PaginaHistorial;
 import com.chat.cliente.negocio.ServicioMensajeria;
+import com.chat.cliente.presentacion.gui.components.ElementoConversacion;
+import com.chat.cliente.presentacion.gui.components.FuenteAudio;
+import com.chat.cliente.presentacion.gui.components.VistaConversacion;
 import com.chat.common.models.Canal;
 import com.chat.common.utils.FechaHoraUtil;
 
 /**
  * Gestiona el historial y carga de conversaciones del chat
+ *
+ * Solo se mantienen en memoria las últimas conversaciones abiertas (LRU por apertura,
+ * -Dchat.conversaciones.max, 8 por defecto). Las demás se liberan y, al volver a
+ * abrirlas, se recargan desde H2.
  */
 public class ConversacionManager {
     
-    private final Map<String, JPanel> historialConversaciones;
+    private static final int MAX_CONVERSACIONES = Math.max(1, Integer.getInteger("chat.conversaciones.max", 8));
+    
+    /** En orden de apertura: la primera es la que hace más tiempo que no se abre */
+    private final LinkedHashMap<String, VistaConversacion> historialConversaciones;
     private final ServicioMensajeria servicioMensajeria;
     private final String username;
     private final JScrollPane scrollChat;
     
     public ConversacionManager(ServicioMensajeria servicioMensajeria, String username, JScrollPane scrollChat) {
-        this.historialConversaciones = new HashMap<>();
+        this.historialConversaciones = new LinkedHashMap<>();
         this.servicioMensajeria = servicioMensajeria;
         this.username = username;
         this.scrollChat = scrollChat;
@@ -35,194 +48,229 @@ public class ConversacionManager {
     /**
      * Abrir chat con un usuario privado
      */
-    public JPanel abrirChatPrivado(String usuarioDestino) {
-        JPanel panelMensajes;
-        
-        // Verificar si ya existe historial en memoria
-        if (historialConversaciones.containsKey(usuarioDestino)) {
-            panelMensajes = historialConversaciones.get(usuarioDestino);
-        } else {
+    public VistaConversacion abrirChatPrivado(String usuarioDestino) {
+        VistaConversacion vista = cargarChatPrivado(usuarioDestino);
+        marcarAbierta(usuarioDestino, vista);
+        actualizarScroll(vista);
+        liberarAntiguas();
+        return vista;
+    }
+    
+    /**
+     * Obtener la conversación con un usuario, cargándola desde H2 si no está en memoria,
+     * sin mostrarla (p. ej. al recibir un mensaje de otro chat)
+     */
+    public VistaConversacion cargarChatPrivado(String usuarioDestino) {
+        VistaConversacion vista = historialConversaciones.get(usuarioDestino);
+        if (vista == null) {
             // Crear nueva conversación y cargar desde H2
-            panelMensajes = crearPanelConversacion();
-            historialConversaciones.put(usuarioDestino, panelMensajes);
-            cargarMensajesPrivadosDesdeH2(usuarioDestino, panelMensajes);
+            vista = new VistaConversacion();
+            historialConversaciones.put(usuarioDestino, vista);
+            cargarMensajesPrivadosDesdeH2(usuarioDestino, vista);
+            liberarAntiguas();
         }
-        
-        actualizarScroll(panelMensajes);
-        return panelMensajes;
+        return vista;
     }
     
     /**
      * Abrir chat grupal con un canal
      */
-    public JPanel abrirChatGrupo(Canal canal) {
+    public VistaConversacion abrirChatGrupo(Canal canal) {
         String identificadorGrupo = "GRUPO_" + canal.getId();
-        JPanel panelMensajes;
-        
-        // Verificar si ya existe historial en memoria
-        if (historialConversaciones.containsKey(identificadorGrupo)) {
-            panelMensajes = historialConversaciones.get(identificadorGrupo);
-        } else {
+        VistaConversacion vista = historialConversaciones.get(identificadorGrupo);
+        if (vista == null) {
             // Crear nueva conversación y cargar desde H2
-            panelMensajes = crearPanelConversacion();
-            historialConversaciones.put(identificadorGrupo, panelMensajes);
-            cargarMensajesGrupoDesdeH2(identificadorGrupo, panelMensajes);
+            vista = new VistaConversacion();
+            historialConversaciones.put(identificadorGrupo, vista);
+            cargarMensajesGrupoDesdeH2(identificadorGrupo, vista);
         }
-        
-        actualizarScroll(panelMensajes);
-        return panelMensajes;
+        marcarAbierta(identificadorGrupo, vista);
+        actualizarScroll(vista);
+        liberarAntiguas();
+        return vista;
     }
     
     /**
-     * Obtener panel de conversación por identificador (usuario o grupo)
+     * Obtener conversación por identificador (usuario o grupo); null si no está en memoria
      */
-    public JPanel obtenerConversacion(String identificador) {
+    public VistaConversacion obtenerConversacion(String identificador) {
         return historialConversaciones.get(identificador);
     }
     
     /**
-     * Crear un panel vacío para conversación
+     * Liberar todas las conversaciones (al cerrar la ventana)
      */
-    private JPanel crearPanelConversacion() {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.setBackground(Color.WHITE);
-        return panel;
+    public void liberarTodas() {
+        for (VistaConversacion vista : historialConversaciones.values()) {
+            vista.liberar();
+        }
+        historialConversaciones.clear();
     }
     
     /**
-     * Actualizar el scrollpane con el panel de conversación
+     * Mover la conversación al final del orden de apertura
      */
-    private void actualizarScroll(JPanel panelMensajes) {
-        scrollChat.setViewportView(panelMensajes);
-        scrollChat.revalidate();
-        scrollChat.repaint();
-        
-        // Scroll al final
-        SwingUtilities.invokeLater(() -> {
-            scrollChat.getVerticalScrollBar().setValue(
-                scrollChat.getVerticalScrollBar().getMaximum()
-            );
-        });
+    private void marcarAbierta(String identificador, VistaConversacion vista) {
+        historialConversaciones.remove(identificador);
+        historialConversaciones.put(identificador, vista);
     }
     
     /**
-     * Cargar mensajes privados desde H2
+     * Liberar las conversaciones abiertas hace más tiempo hasta quedar en el máximo.
+     * Nunca se liberan la que está en pantalla ni la última agregada.
      */
-    private void cargarMensajesPrivadosDesdeH2(String otroUsuario, JPanel panelConversacion) {
-        // Cargar mensajes de texto
-        servicioMensajeria.cargarHistorialAsync(username, otroUsuario)
-            .thenAccept(mensajes -> {
-                SwingUtilities.invokeLater(() -> {
-                    for (MensajeConversacion msg : mensajes) {
-                        String remitente = msg.getRemitente();
-                        String timestamp = FechaHoraUtil.formatearHoraDesdeTimestamp(msg.getFechaEnvio());
-                        
-                        boolean esMio = remitente.equals(username);
-                        String nombreMostrar = esMio ? "Tú" : remitente;
-                        
-                        MensajeRenderer.agregarBurbujaMensaje(panelConversacion, nombreMostrar, 
-                                            msg.getContenido(), timestamp, esMio);
-                    }
-                    
-                    actualizarScroll(panelConversacion);
-                    
-                    if (!mensajes.isEmpty()) {
-                        System.out.println("✓ Cargados " + mensajes.size() + " mensajes del historial con " + otroUsuario);
-                    }
-                });
-            })
-            .exceptionally(ex -> {
-                System.err.println("✗ Error al cargar historial: " + ex.getMessage());
-                return null;
-            });
+    private void liberarAntiguas() {
+        Iterator<Map.Entry<String, VistaConversacion>> it = historialConversaciones.entrySet().iterator();
+        int revisables = historialConversaciones.size() - 1;
+        while (historialConversaciones.size() > MAX_CONVERSACIONES && revisables-- > 0) {
+            Map.Entry<String, VistaConversacion> entrada = it.next();
+            VistaConversacion vista = entrada.getValue();
+            if (scrollChat.getViewport().getView() == vista) {
+                continue;
+            }
+            it.remove();
+            System.out.println("♻ Conversación " + entrada.getKey() + " liberada de memoria ("
+                + vista.getCantidadMensajes() + " mensajes)");
+            vista.liberar();
+        }
+    }
+    
+    /**
+     * Actualizar el scrollpane con la vista de conversación
+     */
+    private void actualizarScroll(VistaConversacion vista) {
+        if (scrollChat.getViewport().getView() != vista) {
+            scrollChat.setViewportView(vista);
+        }
         
-        // Cargar audios
-        servicioMensajeria.cargarAudiosAsync(username, otroUsuario)
-            .thenAccept(audios -> {
-                SwingUtilities.invokeLater(() -> {
-                    for (AudioConversacion audio : audios) {
-                        String remitente = audio.getRemitente();
-                        String timestamp = FechaHoraUtil.formatearHoraDesdeTimestamp(audio.getFechaEnvio());
-                        
-                        boolean esMio = remitente.equals(username);
-                        String nombreMostrar = esMio ? "Tú" : remitente;
-                        
-                        MensajeRenderer.agregarBurbujaAudio(panelConversacion, nombreMostrar,
-                                            audio.getContenidoAudio(), audio.getDuracionSegundos(), 
-                                            timestamp, esMio);
-                    }
-                    
-                    actualizarScroll(panelConversacion);
-                    
-                    if (!audios.isEmpty()) {
-                        System.out.println("✓ Cargados " + audios.size() + " audios del historial con " + otroUsuario);
-                    }
-                });
-            })
-            .exceptionally(ex -> {
-                System.err.println("✗ Error al cargar audios: " + ex.getMessage());
-                return null;
-            });
+        // Scroll al final una vez, después de agregar los mensajes pendientes
+        CoalescedorUI.desplazarAlFinal(scrollChat);
     }
     
     /**
-     * Cargar mensajes de grupo desde H2
+     * Cargar mensajes privados desde H2: la página más reciente y, al subir, las anteriores
      */
-    private void cargarMensajesGrupoDesdeH2(String grupoId, JPanel panelConversacion) {
-        // Cargar mensajes de texto
-        servicioMensajeria.cargarHistorialGrupoAsync(grupoId)
-            .thenAccept(mensajes -> {
-                SwingUtilities.invokeLater(() -> {
-                    for (MensajeConversacion msg : mensajes) {
-                        String remitente = msg.getRemitente();
-                        String timestamp = FechaHoraUtil.formatearHoraDesdeTimestamp(msg.getFechaEnvio());
-                        
-                        boolean esMio = remitente.equals(username);
-                        String nombreMostrar = esMio ? "Tú" : remitente;
-                        
-                        MensajeRenderer.agregarBurbujaMensaje(panelConversacion, nombreMostrar, 
-                                            msg.getContenido(), timestamp, esMio);
+    private void cargarMensajesPrivadosDesdeH2(String otroUsuario, VistaConversacion vista) {
+        new CargadorHistorial(otroUsuario, vista,
+            anterior -> servicioMensajeria.cargarPaginaPrivadaAsync(username, otroUsuario, anterior)).cargar();
+    }
+    
+    /**
+     * Cargar mensajes de grupo desde H2: la página más reciente y, al subir, las anteriores
+     */
+    private void cargarMensajesGrupoDesdeH2(String grupoId, VistaConversacion vista) {
+        new CargadorHistorial(grupoId, vista,
+            anterior -> servicioMensajeria.cargarPaginaGrupoAsync(grupoId, anterior)).cargar();
+    }
+    
+    /**
+     * Mensajes y audios de una página en un solo orden cronológico
+     */
+    private List<ElementoConversacion> aElementos(PaginaHistorial pagina) {
+        List<ElementoConversacion> elementos = new ArrayList<>(pagina.getTamanio());
+        int m = 0;
+        int a = 0;
+        List<MensajeConversacion> mensajes = pagina.getMensajes();
+        List<AudioConversacion> audios = pagina.getAudios();
+        while (m < mensajes.size() || a < audios.size()) {
+            boolean tomarMensaje = a >= audios.size()
+                || (m < mensajes.size() && !mensajes.get(m).getFechaEnvio().after(audios.get(a).getFechaEnvio()));
+            if (tomarMensaje) {
+                MensajeConversacion msg = mensajes.get(m++);
+                boolean esMio = msg.getRemitente().equals(username);
+                elementos.add(ElementoConversacion.texto(esMio ? "Tú" : msg.getRemitente(), msg.getContenido(),
+                    FechaHoraUtil.formatearHoraDesdeTimestamp(msg.getFechaEnvio()), esMio));
+            } else {
+                AudioConversacion audio = audios.get(a++);
+                boolean esMio = audio.getRemitente().equals(username);
+                long idAudio = audio.getId();
+                // Solo metadatos: los bytes se leen de H2 al pulsar reproducir
+                FuenteAudio fuente = () -> servicioMensajeria.cargarContenidoAudio(idAudio);
+                elementos.add(ElementoConversacion.audio(esMio ? "Tú" : audio.getRemitente(),
+                    fuente, audio.getDuracionSegundos(),
+                    FechaHoraUtil.formatearHoraDesdeTimestamp(audio.getFechaEnvio()), esMio));
+            }
+        }
+        return elementos;
+    }
+    
+    /**
+     * Carga paginada del historial de una conversación. La primera página (la más
+     * reciente) se agrega como los mensajes en vivo; las siguientes se piden cuando la
+     * vista llega arriba y se insertan al principio. Solo hay una carga en curso a la vez.
+     */
+    private class CargadorHistorial implements Runnable {
+        
+        private final String identificador;
+        private final VistaConversacion vista;
+        private final Function<PaginaHistorial, CompletableFuture<PaginaHistorial>> consulta;
+        private PaginaHistorial ultima;
+        private boolean cargando;
+        
+        CargadorHistorial(String identificador, VistaConversacion vista,
+                          Function<PaginaHistorial, CompletableFuture<PaginaHistorial>> consulta) {
+            this.identificador = identificador;
+            this.vista = vista;
+            this.consulta = consulta;
+        }
+        
+        /**
+         * Cargar la primera página
+         */
+        void cargar() {
+            cargando = true;
+            consulta.apply(null)
+                .thenAccept(pagina -> SwingUtilities.invokeLater(() -> {
+                    cargando = false;
+                    ultima = pagina;
+                    if (!vigente()) {
+                        return;
                     }
+                    for (ElementoConversacion elemento : aElementos(pagina)) {
+                        CoalescedorUI.agregar(vista, elemento);
+                    }
+                    actualizarScroll(vista);
+                    vista.setAlLlegarArriba(this);
                     
-                    actualizarScroll(panelConversacion);
-                    
-                    if (!mensajes.isEmpty()) {
-                        System.out.println("✓ Cargados " + mensajes.size() + " mensajes del historial del grupo " + grupoId);
+                    if (pagina.getTamanio() > 0) {
+                        System.out.println("✓ Cargados " + pagina.getTamanio() + " mensajes recientes de " + identificador);
                     }
+                }))
+                .exceptionally(ex -> {
+                    System.err.println("✗ Error al cargar historial de " + identificador + ": " + ex.getMessage());
+                    return null;
                 });
-            })
-            .exceptionally(ex -> {
-                System.err.println("✗ Error al cargar historial de grupo: " + ex.getMessage());
-                return null;
-            });
+        }
         
-        // Cargar audios
-        servicioMensajeria.cargarAudiosGrupoAsync(grupoId)
-            .thenAccept(audios -> {
-                SwingUtilities.invokeLater(() -> {
-                    for (AudioConversacion audio : audios) {
-                        String remitente = audio.getRemitente();
-                        String timestamp = FechaHoraUtil.formatearHoraDesdeTimestamp(audio.getFechaEnvio());
-                        
-                        boolean esMio = remitente.equals(username);
-                        String nombreMostrar = esMio ? "Tú" : remitente;
-                        
-                        MensajeRenderer.agregarBurbujaAudio(panelConversacion, nombreMostrar,
-                                            audio.getContenidoAudio(), audio.getDuracionSegundos(), 
-                                            timestamp, esMio);
-                    }
-                    
-                    actualizarScroll(panelConversacion);
-                    
-                    if (!audios.isEmpty()) {
-                        System.out.println("✓ Cargados " + audios.size() + " audios del historial del grupo " + grupoId);
+        /**
+         * Cargar la página anterior (la vista llegó arriba)
+         */
+        @Override
+        public void run() {
+            if (cargando || ultima == null || !ultima.hayMas() || !vigente() || !vista.estaCercaDelInicio()) {
+                return;
+            }
+            cargando = true;
+            consulta.apply(ultima)
+                .thenAccept(pagina -> SwingUtilities.invokeLater(() -> {
+                    cargando = false;
+                    ultima = pagina;
+                    if (vigente()) {
+                        vista.agregarAlInicio(aElementos(pagina));
                     }
+                }))
+                .exceptionally(ex -> {
+                    SwingUtilities.invokeLater(() -> cargando = false);
+                    System.err.println("✗ Error al cargar historial anterior de " + identificador + ": " + ex.getMessage());
+                    return null;
                 });
-            })
-            .exceptionally(ex -> {
-                System.err.println("✗ Error al cargar audios de grupo: " + ex.getMessage());
-                return null;
-            });
+        }
+        
+        /**
+         * La conversación sigue en memoria (no se liberó mientras se cargaba)
+         */
+        private boolean vigente() {
+            return historialConversaciones.get(identificador) == vista;
+        }
     }
 }
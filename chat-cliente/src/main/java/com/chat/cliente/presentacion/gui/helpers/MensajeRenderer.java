@@ -1,56 +1,31 @@
 package com.chat.cliente.presentacion.gui.helpers;
 
-import java.awt.Dimension;
-import java.awt.FlowLayout;
-
-import javax.swing.JPanel;
-
-import com.chat.cliente.presentacion.gui.components.BurbujaAudio;
-import com.chat.cliente.presentacion.gui.components.BurbujaMensaje;
+import com.chat.cliente.presentacion.gui.components.ElementoConversacion;
+import com.chat.cliente.presentacion.gui.components.VistaConversacion;
 
 /**
  * Helper para renderizar burbujas de mensajes en el chat
+ * Los mensajes se agregan a la vista en el próximo tick del CoalescedorUI, junto con
+ * los demás de ese tick; la vista construye la burbuja cuando la fila entra en pantalla
  */
 public class MensajeRenderer {
     
     /**
-     * Agregar una burbuja de mensaje al panel de conversación
+     * Agregar una burbuja de mensaje a la vista de conversación
      */
-    public static void agregarBurbujaMensaje(JPanel panelConversacion, String remitente, 
+    public static void agregarBurbujaMensaje(VistaConversacion vistaConversacion, String remitente,
                                             String contenido, String timestamp, boolean esMio) {
-        // Panel contenedor para alineación
-        JPanel contenedorMensaje = new JPanel();
-        contenedorMensaje.setLayout(new FlowLayout(esMio ? FlowLayout.RIGHT : FlowLayout.LEFT, 10, 5));
-        contenedorMensaje.setOpaque(false);
-        contenedorMensaje.setMaximumSize(new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE));
-        
-        // Panel de la burbuja
-        BurbujaMensaje burbuja = new BurbujaMensaje(remitente, contenido, timestamp, esMio);
-        contenedorMensaje.add(burbuja);
-        
-        panelConversacion.add(contenedorMensaje);
-        panelConversacion.revalidate();
-        panelConversacion.repaint();
+        CoalescedorUI.agregar(vistaConversacion,
+            ElementoConversacion.texto(remitente, contenido, timestamp, esMio));
     }
     
     /**
-     * Agregar una burbuja de audio al panel de conversación
+     * Agregar una burbuja de audio a la vista de conversación
      */
-    public static void agregarBurbujaAudio(JPanel panelConversacion, String remitente, 
-                                          byte[] audioData, long duracionSegundos, 
+    public static void agregarBurbujaAudio(VistaConversacion vistaConversacion, String remitente,
+                                          byte[] audioData, long duracionSegundos,
                                           String timestamp, boolean esMio) {
-        // Panel contenedor para alineación
-        JPanel contenedorMensaje = new JPanel();
-        contenedorMensaje.setLayout(new FlowLayout(esMio ? FlowLayout.RIGHT : FlowLayout.LEFT, 10, 5));
-        contenedorMensaje.setOpaque(false);
-        contenedorMensaje.setMaximumSize(new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE));
-        
-        // Panel de la burbuja de audio
-        BurbujaAudio burbuja = new BurbujaAudio(remitente, audioData, duracionSegundos, timestamp, esMio);
-        contenedorMensaje.add(burbuja);
-        
-        panelConversacion.add(contenedorMensaje);
-        panelConversacion.revalidate();
-        panelConversacion.repaint();
+        CoalescedorUI.agregar(vistaConversacion,
+            ElementoConversacion.audio(remitente, audioData, duracionSegundos, timestamp, esMio));
     }
 }
@@ -13,6 +13,7 @@ public class UIHelper {
     
     /**
      * Crear icono circular de foto
+     * Decodifica la imagen en cada llamada: los renderers deben usar CacheIconos
      */
     public static ImageIcon crearIconoFoto(byte[] fotoBytes, int width, int height) {
         if (fotoBytes == null || fotoBytes.length == 0) {
@@ -0,0 +1,66 @@
+package com.chat.common.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO para notificaciones broadcast del servidor
+ * Usado en eventos NOTIFICACION_SERVIDOR y NOTIFICACION_SERVIDOR_GRUPO
+ */
+public class NotificacionServidorDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private String mensaje;
+    private String timestamp;
+    private Long canalId;  // Null si es para todos los usuarios
+    private String nombreCanal;
+    
+    public NotificacionServidorDTO() {
+    }
+    
+    public NotificacionServidorDTO(String mensaje, String timestamp) {
+        this.mensaje = mensaje;
+        this.timestamp = timestamp;
+    }
+    
+    // Getters y Setters
+    public String getMensaje() {
+        return mensaje;
+    }
+    
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+    
+    public String getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    public Long getCanalId() {
+        return canalId;
+    }
+    
+    public void setCanalId(Long canalId) {
+        this.canalId = canalId;
+    }
+    
+    public String getNombreCanal() {
+        return nombreCanal;
+    }
+    
+    public void setNombreCanal(String nombreCanal) {
+        this.nombreCanal = nombreCanal;
+    }
+    
+    @Override
+    public String toString() {
+        return "NotificacionServidorDTO{" +
+                "mensaje='" + mensaje + '\'' +
+                ", timestamp='" + timestamp + '\'' +
+                ", canalId=" + canalId +
+                '}';
+    }
+}
@@ -40,12 +40,14 @@ public class RequestDTO implements Serializable {
         OBTENER_INVITACIONES_PENDIENTES,
         OBTENER_MENSAJES,
         OBTENER_LOGS,
+        BUSCAR_MENSAJES,
         // Informes
         INFORME_USUARIOS_REGISTRADOS,
         INFORME_CANALES_CON_USUARIOS,
         INFORME_USUARIOS_CONECTADOS,
         INFORME_MENSAJES_AUDIO,
-        INFORME_LOGS
+        INFORME_LOGS,
+        INFORME_METRICAS
     }
     
     public RequestDTO() {
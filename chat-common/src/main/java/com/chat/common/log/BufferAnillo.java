@@ -0,0 +1,83 @@
+package com.chat.common.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Buffer circular acotado sin bloqueos: varios productores, un solo consumidor.
+ *
+ * Cada casilla lleva un número de secuencia que indica si está libre para la vuelta
+ * actual (secuencia == posición) o ya tiene un elemento publicado (posición + 1).
+ * Los productores reservan una posición con un CAS sobre la cola y publican el
+ * elemento escribiendo la secuencia; el consumidor lee en orden y libera la casilla
+ * para la vuelta siguiente (posición + capacidad). Si el buffer está lleno, ofrecer()
+ * devuelve false en lugar de esperar.
+ */
+final class BufferAnillo<T> {
+    
+    private final Object[] elementos;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+    private final AtomicLong cola = new AtomicLong();
+    private long cabeza;
+    
+    BufferAnillo(int capacidadMinima) {
+        int capacidad = Integer.highestOneBit(Math.max(2, capacidadMinima - 1)) << 1;
+        this.elementos = new Object[capacidad];
+        this.secuencias = new AtomicLongArray(capacidad);
+        this.mascara = capacidad - 1;
+        for (int i = 0; i < capacidad; i++) {
+            secuencias.set(i, i);
+        }
+    }
+    
+    /**
+     * Publicar un elemento (cualquier hilo); false si el buffer está lleno
+     */
+    boolean ofrecer(T elemento) {
+        long posicion = cola.get();
+        while (true) {
+            int indice = (int) (posicion & mascara);
+            long diferencia = secuencias.get(indice) - posicion;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(posicion, posicion + 1)) {
+                    elementos[indice] = elemento;
+                    secuencias.set(indice, posicion + 1);
+                    return true;
+                }
+                posicion = cola.get();
+            } else if (diferencia < 0) {
+                return false;
+            } else {
+                posicion = cola.get();
+            }
+        }
+    }
+    
+    /**
+     * Siguiente elemento publicado, o null si no hay ninguno (solo el hilo consumidor)
+     */
+    @SuppressWarnings("unchecked")
+    T tomar() {
+        int indice = (int) (cabeza & mascara);
+        if (secuencias.get(indice) != cabeza + 1) {
+            return null;
+        }
+        T elemento = (T) elementos[indice];
+        elementos[indice] = null;
+        secuencias.set(indice, cabeza + elementos.length);
+        cabeza++;
+        return elemento;
+    }
+    
+    /**
+     * Elementos publicados o reservados pendientes de consumir (aproximado)
+     */
+    long pendientes() {
+        return Math.max(0, cola.get() - cabeza);
+    }
+    
+    int capacidad() {
+        return elementos.length;
+    }
+}
@@ -0,0 +1,253 @@
+package com.chat.common.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.LockSupport;
+
+import com.chat.common.metricas.Contador;
+
+/**
+ * Hilo de fondo que vacía el buffer de la bitácora: formatea cada evento y lo escribe
+ * en consola y/o en un archivo que rota al superar un tamaño (servidor.log, servidor.log.1,
+ * ... servidor.log.N). Cuando no hay eventos duerme unos milisegundos en lugar de
+ * esperar una señal, así que los productores nunca tienen que despertarlo.
+ */
+final class EscritorLog extends Thread {
+    
+    private static final long ESPERA_NANOS = 5_000_000L;
+    private static final int LOTE = 512;
+    private static final DateTimeFormatter FORMATO_FECHA =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    
+    private final BufferAnillo<EventoLog> buffer;
+    private final Contador descartados;
+    private final StringBuilder linea = new StringBuilder(256);
+    private volatile Destino destino;
+    private volatile boolean cerrando;
+    private Destino destinoAbierto;
+    private Writer archivo;
+    private long bytesArchivo;
+    private long descartadosInformados;
+    
+    EscritorLog(BufferAnillo<EventoLog> buffer, Contador descartados, Destino destino) {
+        super("log-escritor");
+        setDaemon(true);
+        this.buffer = buffer;
+        this.descartados = descartados;
+        this.destino = destino;
+    }
+    
+    void setDestino(Destino destino) {
+        this.destino = destino;
+    }
+    
+    /**
+     * Vaciar lo pendiente, cerrar el archivo y terminar el hilo
+     */
+    void cerrar() {
+        cerrando = true;
+        LockSupport.unpark(this);
+        try {
+            join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public void run() {
+        while (true) {
+            int escritos = drenar();
+            if (escritos == 0) {
+                vaciar();
+                if (cerrando) {
+                    break;
+                }
+                LockSupport.parkNanos(this, ESPERA_NANOS);
+            }
+        }
+        cerrarArchivo();
+    }
+    
+    private int drenar() {
+        Destino actual = destino;
+        if (actual != destinoAbierto) {
+            cerrarArchivo();
+            destinoAbierto = actual;
+        }
+        informarDescartados(actual);
+        
+        int escritos = 0;
+        EventoLog evento;
+        while (escritos < LOTE && (evento = buffer.tomar()) != null) {
+            escribir(actual, formatear(evento), evento.nivel);
+            escritos++;
+        }
+        return escritos;
+    }
+    
+    private void informarDescartados(Destino actual) {
+        long total = descartados.getValor();
+        if (total > descartadosInformados) {
+            linea.setLength(0);
+            linea.append(FORMATO_FECHA.format(Instant.now())).append(" WARN  [log] eventos.descartados cantidad=")
+                .append(total - descartadosInformados).append(" capacidad=").append(buffer.capacidad());
+            escribir(actual, linea.toString(), NivelLog.WARN);
+            descartadosInformados = total;
+        }
+    }
+    
+    /**
+     * fecha NIVEL [categoria] evento clave=valor ... (hilo)
+     */
+    private String formatear(EventoLog evento) {
+        linea.setLength(0);
+        linea.append(FORMATO_FECHA.format(Instant.ofEpochMilli(evento.instante))).append(' ');
+        linea.append(evento.nivel);
+        for (int i = evento.nivel.name().length(); i < 5; i++) {
+            linea.append(' ');
+        }
+        linea.append(" [").append(evento.categoria).append("] ").append(evento.evento);
+        
+        Object[] pares = evento.pares;
+        if (pares != null) {
+            for (int i = 0; i + 1 < pares.length; i += 2) {
+                linea.append(' ').append(pares[i]).append('=');
+                agregarValor(pares[i + 1]);
+            }
+            if (pares.length % 2 != 0) {
+                linea.append(' ');
+                agregarValor(pares[pares.length - 1]);
+            }
+        }
+        if (evento.muestreo > 1) {
+            linea.append(" muestreo=1/").append(evento.muestreo);
+        }
+        linea.append(" (").append(evento.hilo).append(')');
+        
+        if (evento.error != null) {
+            StringWriter traza = new StringWriter();
+            evento.error.printStackTrace(new PrintWriter(traza));
+            linea.append(System.lineSeparator()).append(traza.toString().trim());
+        }
+        return linea.toString();
+    }
+    
+    private void agregarValor(Object valor) {
+        String texto = String.valueOf(valor);
+        if (texto.isEmpty() || texto.indexOf(' ') >= 0 || texto.indexOf('=') >= 0) {
+            linea.append('"').append(texto.replace("\"", "\\\"")).append('"');
+        } else {
+            linea.append(texto);
+        }
+    }
+    
+    private void escribir(Destino actual, String texto, NivelLog nivel) {
+        if (actual.consola) {
+            if (nivel == NivelLog.ERROR) {
+                System.err.println(texto);
+            } else {
+                System.out.println(texto);
+            }
+        }
+        if (actual.archivo == null) {
+            return;
+        }
+        try {
+            if (archivo == null) {
+                abrirArchivo(actual);
+            }
+            String conSalto = texto + System.lineSeparator();
+            archivo.write(conSalto);
+            bytesArchivo += conSalto.length();
+            if (bytesArchivo >= actual.maxBytes) {
+                rotar(actual);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al escribir log en " + actual.archivo + ": " + e.getMessage());
+            cerrarArchivo();
+        }
+    }
+    
+    private void abrirArchivo(Destino actual) throws IOException {
+        Path padre = actual.archivo.toAbsolutePath().getParent();
+        if (padre != null) {
+            Files.createDirectories(padre);
+        }
+        archivo = new BufferedWriter(Files.newBufferedWriter(actual.archivo, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        bytesArchivo = Files.size(actual.archivo);
+    }
+    
+    /**
+     * servidor.log.(N-1) → servidor.log.N, ..., servidor.log → servidor.log.1
+     */
+    private void rotar(Destino actual) throws IOException {
+        cerrarArchivo();
+        String base = actual.archivo.toString();
+        Files.deleteIfExists(Path.of(base + "." + actual.respaldos));
+        for (int i = actual.respaldos - 1; i >= 1; i--) {
+            Path origen = Path.of(base + "." + i);
+            if (Files.exists(origen)) {
+                Files.move(origen, Path.of(base + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (actual.respaldos > 0) {
+            Files.move(actual.archivo, Path.of(base + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(actual.archivo);
+        }
+        abrirArchivo(actual);
+    }
+    
+    private void vaciar() {
+        if (archivo == null) {
+            return;
+        }
+        try {
+            archivo.flush();
+        } catch (IOException e) {
+            System.err.println("Error al vaciar log: " + e.getMessage());
+        }
+    }
+    
+    private void cerrarArchivo() {
+        if (archivo == null) {
+            return;
+        }
+        try {
+            archivo.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar log: " + e.getMessage());
+        }
+        archivo = null;
+    }
+    
+    /**
+     * Dónde se escribe: consola y/o archivo rotativo (archivo null = solo consola)
+     */
+    static final class Destino {
+        final boolean consola;
+        final Path archivo;
+        final long maxBytes;
+        final int respaldos;
+        
+        Destino(boolean consola, Path archivo, long maxBytes, int respaldos) {
+            this.consola = consola;
+            this.archivo = archivo;
+            this.maxBytes = Math.max(1024, maxBytes);
+            this.respaldos = Math.max(0, respaldos);
+        }
+    }
+}
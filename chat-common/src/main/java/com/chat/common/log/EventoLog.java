@@ -0,0 +1,28 @@
+package com.chat.common.log;
+
+/**
+ * Evento de la bitácora tal como lo deja el hilo que registra: texto fijo y pares
+ * clave/valor sin formatear. El texto final se arma en el hilo escritor.
+ */
+final class EventoLog {
+    
+    final long instante;
+    final NivelLog nivel;
+    final String categoria;
+    final String evento;
+    final Object[] pares;
+    final Throwable error;
+    final String hilo;
+    final int muestreo;
+    
+    EventoLog(NivelLog nivel, String categoria, String evento, Object[] pares, Throwable error, int muestreo) {
+        this.instante = System.currentTimeMillis();
+        this.nivel = nivel;
+        this.categoria = categoria;
+        this.evento = evento;
+        this.pares = pares;
+        this.error = error;
+        this.hilo = Thread.currentThread().getName();
+        this.muestreo = muestreo;
+    }
+}
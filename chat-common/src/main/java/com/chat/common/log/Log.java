@@ -0,0 +1,105 @@
+package com.chat.common.log;
+
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.RegistroMetricas;
+
+/**
+ * Bitácora asíncrona del proceso, organizada por categorías.
+ *
+ * Los hilos que registran no escriben nada: comprueban el nivel de la categoría, aplican
+ * el muestreo y dejan el evento en un buffer circular sin bloqueos. Un único hilo de fondo
+ * lo formatea y lo escribe en consola y/o en un archivo rotativo. Si el buffer está lleno
+ * el evento se descarta (contador "log.descartados"): quien registra nunca espera al disco.
+ *
+ * Claves de configuración (config.properties):
+ *   log.nivel                nivel general (DEBUG, INFO, WARN, ERROR; por defecto INFO)
+ *   log.nivel.<categoria>    nivel de una categoría concreta
+ *   log.muestreo.<categoria> registrar 1 de cada N eventos DEBUG/INFO de la categoría
+ *   log.archivo              archivo de salida; vacío = solo consola
+ *   log.archivo.max.mb       tamaño a partir del cual se rota (por defecto 10)
+ *   log.archivo.respaldos    archivos rotados que se conservan (por defecto 5)
+ *   log.consola              copiar también a la salida estándar (por defecto true)
+ *
+ * Hasta que se llama a configurar() se registra a nivel INFO solo en consola.
+ */
+public final class Log {
+    
+    private static final int CAPACIDAD_BUFFER = 16384;
+    
+    private static final ConcurrentHashMap<String, Registrador> REGISTRADORES = new ConcurrentHashMap<>();
+    private static final BufferAnillo<EventoLog> BUFFER = new BufferAnillo<>(CAPACIDAD_BUFFER);
+    private static final Contador DESCARTADOS = RegistroMetricas.obtenerInstancia().contador("log.descartados");
+    private static final EscritorLog ESCRITOR =
+        new EscritorLog(BUFFER, DESCARTADOS, new EscritorLog.Destino(true, null, Long.MAX_VALUE, 0));
+    private static volatile Properties propiedades = new Properties();
+    
+    static {
+        RegistroMetricas.obtenerInstancia().medidor("log.pendientes", BUFFER::pendientes);
+        ESCRITOR.start();
+    }
+    
+    private Log() {
+    }
+    
+    /**
+     * Obtener (o crear) el registrador de una categoría; conviene guardarlo en un campo estático
+     */
+    public static Registrador categoria(String nombre) {
+        return REGISTRADORES.computeIfAbsent(nombre, n -> {
+            Registrador registrador = new Registrador(n);
+            registrador.configurar(propiedades, nivelGeneral(propiedades));
+            return registrador;
+        });
+    }
+    
+    /**
+     * Aplicar la configuración a las categorías existentes y al destino de escritura
+     */
+    public static synchronized void configurar(Properties config) {
+        propiedades = config;
+        NivelLog general = nivelGeneral(config);
+        REGISTRADORES.values().forEach(registrador -> registrador.configurar(config, general));
+        
+        String archivo = config.getProperty("log.archivo", "").trim();
+        long maxMb = leerLong(config, "log.archivo.max.mb", 10);
+        int respaldos = (int) leerLong(config, "log.archivo.respaldos", 5);
+        boolean consola = Boolean.parseBoolean(config.getProperty("log.consola", "true").trim());
+        ESCRITOR.setDestino(new EscritorLog.Destino(consola,
+            archivo.isEmpty() ? null : Path.of(archivo), maxMb * 1024 * 1024, respaldos));
+        
+        System.out.println("Log: nivel " + general + (archivo.isEmpty() ? ", solo consola" : ", archivo " + archivo));
+    }
+    
+    /**
+     * Escribir lo pendiente y cerrar el archivo (al detener el proceso)
+     */
+    public static void cerrar() {
+        ESCRITOR.cerrar();
+    }
+    
+    static void publicar(EventoLog evento) {
+        if (!BUFFER.ofrecer(evento)) {
+            DESCARTADOS.incrementar();
+        }
+    }
+    
+    private static NivelLog nivelGeneral(Properties config) {
+        return NivelLog.desde(config.getProperty("log.nivel"), NivelLog.INFO);
+    }
+    
+    private static long leerLong(Properties config, String clave, long porDefecto) {
+        String valor = config.getProperty(clave);
+        if (valor != null) {
+            try {
+                return Long.parseLong(valor.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Valor inválido para " + clave + ": " + valor);
+            }
+        }
+        return porDefecto;
+    }
+}
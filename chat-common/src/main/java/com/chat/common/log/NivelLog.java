@@ -0,0 +1,28 @@
+package com.chat.common.log;
+
+import java.util.Locale;
+
+/**
+ * Niveles de la bitácora, de menor a mayor gravedad
+ */
+public enum NivelLog {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR;
+    
+    /**
+     * Nivel a partir de su nombre ("info", "WARN"...); el valor por defecto si no es válido
+     */
+    public static NivelLog desde(String nombre, NivelLog porDefecto) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Nivel de log inválido: " + nombre + ", se usa " + porDefecto);
+            return porDefecto;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.chat.common.log;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registrador de una categoría de la bitácora ("mensajes", "reparto", ...).
+ *
+ * El nivel se comprueba antes de crear nada: si está deshabilitado, la llamada solo
+ * cuesta una comparación. Los eventos llevan un nombre fijo y pares clave/valor que se
+ * formatean en el hilo escritor, así que los valores deben ser inmutables (textos,
+ * números, ids). Para argumentos caros de calcular, preguntar antes con habilitado().
+ */
+public final class Registrador {
+    
+    private final String nombre;
+    private final AtomicLong vistos = new AtomicLong();
+    private volatile NivelLog nivel = NivelLog.INFO;
+    private volatile int muestreo = 1;
+    
+    Registrador(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    /**
+     * Leer nivel y muestreo de la categoría (log.nivel.<categoria>, log.muestreo.<categoria>)
+     */
+    void configurar(Properties propiedades, NivelLog nivelGeneral) {
+        this.nivel = NivelLog.desde(propiedades.getProperty("log.nivel." + nombre), nivelGeneral);
+        int valor = 1;
+        String texto = propiedades.getProperty("log.muestreo." + nombre);
+        if (texto != null) {
+            try {
+                valor = Math.max(1, Integer.parseInt(texto.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Valor inválido para log.muestreo." + nombre + ": " + texto);
+            }
+        }
+        this.muestreo = valor;
+    }
+    
+    public boolean habilitado(NivelLog nivelEvento) {
+        return nivelEvento.compareTo(nivel) >= 0;
+    }
+    
+    public void debug(String evento, Object... pares) {
+        registrar(NivelLog.DEBUG, evento, null, pares);
+    }
+    
+    public void info(String evento, Object... pares) {
+        registrar(NivelLog.INFO, evento, null, pares);
+    }
+    
+    public void warn(String evento, Object... pares) {
+        registrar(NivelLog.WARN, evento, null, pares);
+    }
+    
+    public void error(String evento, Object... pares) {
+        registrar(NivelLog.ERROR, evento, null, pares);
+    }
+    
+    public void error(String evento, Throwable error, Object... pares) {
+        registrar(NivelLog.ERROR, evento, error, pares);
+    }
+    
+    /**
+     * Los eventos DEBUG/INFO se muestrean (1 de cada N); WARN y ERROR se registran siempre
+     */
+    private void registrar(NivelLog nivelEvento, String evento, Throwable error, Object[] pares) {
+        if (!habilitado(nivelEvento)) {
+            return;
+        }
+        int cadaN = muestreo;
+        if (cadaN > 1 && nivelEvento.compareTo(NivelLog.INFO) <= 0) {
+            if (vistos.getAndIncrement() % cadaN != 0) {
+                return;
+            }
+        } else {
+            cadaN = 1;
+        }
+        Log.publicar(new EventoLog(nivelEvento, nombre, evento, pares, error, cadaN));
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public NivelLog getNivel() {
+        return nivel;
+    }
+}
@@ -0,0 +1,149 @@
+package com.chat.common.metricas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Envoltorio de una Connection JDBC que mide cada ejecución de sentencia
+ * (execute, executeQuery, executeUpdate, executeBatch) en un histograma por
+ * tipo de operación: db.select, db.insert, db.update, db.delete o db.otra.
+ *
+ * Así se miden todas las llamadas de los DAO sin tocar cada método. El envoltorio
+ * es un Proxy dinámico: el resto de métodos pasan directo a la conexión real.
+ */
+public final class ConexionMedida {
+    
+    private static final Histograma SELECT = RegistroMetricas.obtenerInstancia().histograma("db.select");
+    private static final Histograma INSERT = RegistroMetricas.obtenerInstancia().histograma("db.insert");
+    private static final Histograma UPDATE = RegistroMetricas.obtenerInstancia().histograma("db.update");
+    private static final Histograma DELETE = RegistroMetricas.obtenerInstancia().histograma("db.delete");
+    private static final Histograma OTRA = RegistroMetricas.obtenerInstancia().histograma("db.otra");
+    
+    private ConexionMedida() {
+    }
+    
+    public static Connection envolver(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(ConexionMedida.class.getClassLoader(),
+            new Class<?>[] { Connection.class }, new ManejadorConexion(conexion));
+    }
+    
+    /**
+     * Histograma según la primera palabra de la sentencia SQL
+     */
+    static Histograma histogramaPara(String sql) {
+        if (sql == null) {
+            return OTRA;
+        }
+        String inicio = sql.trim();
+        inicio = inicio.substring(0, Math.min(6, inicio.length())).toUpperCase(Locale.ROOT);
+        switch (inicio) {
+            case "SELECT":
+                return SELECT;
+            case "INSERT":
+                return INSERT;
+            case "UPDATE":
+                return UPDATE;
+            case "DELETE":
+                return DELETE;
+            default:
+                return OTRA;
+        }
+    }
+    
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private static Object identidad(Object proxy, Method metodo, Object[] args) {
+        if ("equals".equals(metodo.getName())) {
+            return proxy == args[0];
+        }
+        return System.identityHashCode(proxy);
+    }
+    
+    private static boolean esIdentidad(Method metodo) {
+        return ("equals".equals(metodo.getName()) && metodo.getParameterCount() == 1)
+            || ("hashCode".equals(metodo.getName()) && metodo.getParameterCount() == 0);
+    }
+    
+    private static class ManejadorConexion implements InvocationHandler {
+        private final Connection conexion;
+        
+        ManejadorConexion(Connection conexion) {
+            this.conexion = conexion;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            if (esIdentidad(metodo)) {
+                return identidad(proxy, metodo, args);
+            }
+            Object resultado = invocar(conexion, metodo, args);
+            String nombre = metodo.getName();
+            
+            if (resultado instanceof CallableStatement) {
+                return envolverSentencia(resultado, CallableStatement.class, histogramaPara((String) args[0]));
+            }
+            if (resultado instanceof PreparedStatement && nombre.startsWith("prepare")) {
+                return envolverSentencia(resultado, PreparedStatement.class, histogramaPara((String) args[0]));
+            }
+            if (resultado instanceof Statement && "createStatement".equals(nombre)) {
+                return envolverSentencia(resultado, Statement.class, null);
+            }
+            return resultado;
+        }
+        
+        private static Object envolverSentencia(Object sentencia, Class<?> tipo, Histograma histograma) {
+            return Proxy.newProxyInstance(ConexionMedida.class.getClassLoader(),
+                new Class<?>[] { tipo }, new ManejadorSentencia(sentencia, histograma));
+        }
+    }
+    
+    /**
+     * Mide las ejecuciones; las sentencias preparadas ya conocen su histograma,
+     * las de createStatement() lo eligen con el SQL de cada execute(sql)
+     */
+    private static class ManejadorSentencia implements InvocationHandler {
+        private final Object sentencia;
+        private final Histograma histograma;
+        
+        ManejadorSentencia(Object sentencia, Histograma histograma) {
+            this.sentencia = sentencia;
+            this.histograma = histograma;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            if (esIdentidad(metodo)) {
+                return identidad(proxy, metodo, args);
+            }
+            if (!metodo.getName().startsWith("execute")) {
+                return invocar(sentencia, metodo, args);
+            }
+            
+            Histograma destino = histograma;
+            if (destino == null) {
+                destino = args != null && args.length > 0 && args[0] instanceof String
+                    ? histogramaPara((String) args[0])
+                    : OTRA;
+            }
+            long inicio = System.nanoTime();
+            try {
+                return invocar(sentencia, metodo, args);
+            } finally {
+                destino.registrarDesde(inicio);
+            }
+        }
+    }
+}
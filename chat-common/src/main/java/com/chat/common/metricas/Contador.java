@@ -0,0 +1,33 @@
+package com.chat.common.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monótono de eventos.
+ * Usa LongAdder: varios hilos pueden incrementarlo a la vez sin competir por la misma celda.
+ */
+public class Contador {
+    
+    private final String nombre;
+    private final LongAdder valor = new LongAdder();
+    
+    Contador(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public void incrementar() {
+        valor.increment();
+    }
+    
+    public void sumar(long cantidad) {
+        valor.add(cantidad);
+    }
+    
+    public long getValor() {
+        return valor.sum();
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+}
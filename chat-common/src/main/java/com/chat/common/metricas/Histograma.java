@@ -0,0 +1,152 @@
+package com.chat.common.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas logarítmicas, en microsegundos.
+ *
+ * Cada potencia de 2 se divide en 8 cubetas, así que el error relativo de un
+ * percentil es como mucho 12,5 % y registrar un valor es O(1) sin bloqueos:
+ * se calcula la cubeta con operaciones de bits y se incrementa su LongAdder.
+ * Los percentiles se calculan sobre una instantánea; restando dos instantáneas
+ * se obtienen los del intervalo entre ambas (p. ej. el último segundo).
+ */
+public class Histograma {
+    
+    private static final int BITS_SUBCUBETA = 3;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    /** Valores por encima de 2^40 µs (~12 días) van a la última cubeta */
+    private static final int EXPONENTE_MAXIMO = 40;
+    private static final int CUBETAS = SUBCUBETAS + (EXPONENTE_MAXIMO - BITS_SUBCUBETA + 1) * SUBCUBETAS;
+    
+    private final String nombre;
+    private final LongAdder[] cuentas = new LongAdder[CUBETAS];
+    private final LongAdder suma = new LongAdder();
+    
+    Histograma(String nombre) {
+        this.nombre = nombre;
+        for (int i = 0; i < CUBETAS; i++) {
+            cuentas[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Registrar una duración en microsegundos
+     */
+    public void registrar(long micros) {
+        long valor = Math.max(0, micros);
+        cuentas[indice(valor)].increment();
+        suma.add(valor);
+    }
+    
+    /**
+     * Registrar el tiempo transcurrido desde un System.nanoTime() anterior
+     */
+    public void registrarDesde(long inicioNanos) {
+        registrar((System.nanoTime() - inicioNanos) / 1000);
+    }
+    
+    public Instantanea instantanea() {
+        long[] copia = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cuentas[i].sum();
+        }
+        return new Instantanea(copia, suma.sum());
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > EXPONENTE_MAXIMO) {
+            return CUBETAS - 1;
+        }
+        int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return SUBCUBETAS + (exponente - BITS_SUBCUBETA) * SUBCUBETAS + subcubeta;
+    }
+    
+    /**
+     * Mayor valor que cae en la cubeta (se informa como valor del percentil)
+     */
+    static long limiteSuperior(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int exponente = (indice - SUBCUBETAS) / SUBCUBETAS + BITS_SUBCUBETA;
+        long base = SUBCUBETAS | (indice % SUBCUBETAS);
+        return ((base + 1) << (exponente - BITS_SUBCUBETA)) - 1;
+    }
+    
+    /**
+     * Copia inmutable de las cuentas de un histograma
+     */
+    public static class Instantanea {
+        private final long[] cuentas;
+        private final long suma;
+        private final long total;
+        
+        Instantanea(long[] cuentas, long suma) {
+            this.cuentas = cuentas;
+            this.suma = suma;
+            long acumulado = 0;
+            for (long cuenta : cuentas) {
+                acumulado += cuenta;
+            }
+            this.total = acumulado;
+        }
+        
+        /**
+         * Cuentas registradas desde otra instantánea anterior del mismo histograma
+         */
+        public Instantanea menos(Instantanea anterior) {
+            if (anterior == null) {
+                return this;
+            }
+            long[] diferencia = new long[cuentas.length];
+            for (int i = 0; i < cuentas.length; i++) {
+                diferencia[i] = cuentas[i] - anterior.cuentas[i];
+            }
+            return new Instantanea(diferencia, suma - anterior.suma);
+        }
+        
+        /**
+         * Percentil en microsegundos (p entre 0 y 100); 0 si no hay registros
+         */
+        public long percentil(double p) {
+            if (total == 0) {
+                return 0;
+            }
+            long objetivo = Math.max(1, (long) Math.ceil(total * p / 100.0));
+            long acumulado = 0;
+            for (int i = 0; i < cuentas.length; i++) {
+                acumulado += cuentas[i];
+                if (acumulado >= objetivo) {
+                    return limiteSuperior(i);
+                }
+            }
+            return limiteSuperior(cuentas.length - 1);
+        }
+        
+        public long getMaximo() {
+            for (int i = cuentas.length - 1; i >= 0; i--) {
+                if (cuentas[i] > 0) {
+                    return limiteSuperior(i);
+                }
+            }
+            return 0;
+        }
+        
+        public double getMedia() {
+            return total == 0 ? 0.0 : (double) suma / total;
+        }
+        
+        public long getTotal() {
+            return total;
+        }
+    }
+}
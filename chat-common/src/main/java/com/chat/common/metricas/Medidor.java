@@ -0,0 +1,10 @@
+package com.chat.common.metricas;
+
+/**
+ * Valor instantáneo que se lee en el momento de consultarlo
+ * (p. ej. tamaño de una cola o conexiones disponibles)
+ */
+@FunctionalInterface
+public interface Medidor {
+    long leer();
+}
@@ -0,0 +1,120 @@
+package com.chat.common.metricas;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro central de métricas del proceso (Singleton): contadores, medidores e histogramas
+ * identificados por nombre ("request.LOGIN", "pool.espera", ...).
+ *
+ * Obtener una métrica por nombre busca en un ConcurrentHashMap; en los caminos calientes
+ * conviene guardar la referencia en un campo y solo llamar a incrementar()/registrar().
+ */
+public class RegistroMetricas {
+    
+    private static RegistroMetricas instancia;
+    
+    private final long inicio = System.currentTimeMillis();
+    private final ConcurrentHashMap<String, Contador> contadores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Medidor> medidores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histograma> histogramas = new ConcurrentHashMap<>();
+    
+    private RegistroMetricas() {
+    }
+    
+    public static synchronized RegistroMetricas obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new RegistroMetricas();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Obtener (o crear) un contador
+     */
+    public Contador contador(String nombre) {
+        return contadores.computeIfAbsent(nombre, Contador::new);
+    }
+    
+    /**
+     * Obtener (o crear) un histograma de latencias
+     */
+    public Histograma histograma(String nombre) {
+        return histogramas.computeIfAbsent(nombre, Histograma::new);
+    }
+    
+    /**
+     * Registrar un medidor (reemplaza el anterior con el mismo nombre)
+     */
+    public void medidor(String nombre, Medidor medidor) {
+        medidores.put(nombre, medidor);
+    }
+    
+    /**
+     * Valores actuales de los contadores, ordenados por nombre
+     */
+    public Map<String, Long> leerContadores() {
+        Map<String, Long> valores = new TreeMap<>();
+        contadores.forEach((nombre, contador) -> valores.put(nombre, contador.getValor()));
+        return valores;
+    }
+    
+    /**
+     * Valores actuales de los medidores, ordenados por nombre
+     */
+    public Map<String, Long> leerMedidores() {
+        Map<String, Long> valores = new TreeMap<>();
+        medidores.forEach((nombre, medidor) -> {
+            try {
+                valores.put(nombre, medidor.leer());
+            } catch (RuntimeException e) {
+                System.err.println("Error al leer medidor " + nombre + ": " + e.getMessage());
+            }
+        });
+        return valores;
+    }
+    
+    /**
+     * Instantáneas de todos los histogramas, ordenadas por nombre
+     */
+    public Map<String, Histograma.Instantanea> leerHistogramas() {
+        Map<String, Histograma.Instantanea> valores = new TreeMap<>();
+        histogramas.forEach((nombre, histograma) -> valores.put(nombre, histograma.instantanea()));
+        return valores;
+    }
+    
+    /**
+     * Resumen serializable de todas las métricas (para enviarlo en un ResponseDTO):
+     * contadores y medidores por nombre, y por cada histograma total, media, p50, p99,
+     * p999 y máximo en microsegundos, acumulados desde el arranque
+     */
+    public HashMap<String, Object> resumen() {
+        HashMap<String, HashMap<String, Object>> latencias = new HashMap<>();
+        leerHistogramas().forEach((nombre, instantanea) -> {
+            HashMap<String, Object> valores = new HashMap<>();
+            valores.put("total", instantanea.getTotal());
+            valores.put("media", instantanea.getMedia());
+            valores.put("p50", instantanea.percentil(50));
+            valores.put("p99", instantanea.percentil(99));
+            valores.put("p999", instantanea.percentil(99.9));
+            valores.put("maximo", instantanea.getMaximo());
+            latencias.put(nombre, valores);
+        });
+        
+        HashMap<String, Object> resumen = new HashMap<>();
+        resumen.put("contadores", new HashMap<>(leerContadores()));
+        resumen.put("medidores", new HashMap<>(leerMedidores()));
+        resumen.put("histogramas", latencias);
+        resumen.put("tiempoActivoMs", getTiempoActivo());
+        return resumen;
+    }
+    
+    /**
+     * Milisegundos desde que se creó el registro (≈ arranque del proceso)
+     */
+    public long getTiempoActivo() {
+        return System.currentTimeMillis() - inicio;
+    }
+}
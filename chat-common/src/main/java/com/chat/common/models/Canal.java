@@ -3,6 +3,7 @@ package com.chat.common.models;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,12 +19,12 @@ public class Canal implements Serializable {
     private Long creadorId;
     private boolean esPrivado;
     private LocalDateTime fechaCreacion;
-    private List<Long> miembrosIds;
+    private long[] miembrosIds; // Ordenado, para búsqueda binaria sin autoboxing
     private boolean activo;
     
     public Canal() {
         this.fechaCreacion = LocalDateTime.now();
-        this.miembrosIds = new ArrayList<>();
+        this.miembrosIds = new long[0];
         this.activo = true;
         this.esPrivado = false;
     }
@@ -34,7 +35,7 @@ public class Canal implements Serializable {
         this.descripcion = descripcion;
         this.creadorId = creadorId;
         this.esPrivado = esPrivado;
-        this.miembrosIds.add(creadorId);
+        agregarMiembro(creadorId);
     }
     
     // Getters y Setters
@@ -94,14 +95,44 @@ public class Canal implements Serializable {
         this.fechaCreacion = fechaCreacion;
     }
     
+    /**
+     * Copia de los IDs de miembros como lista (los cambios no afectan al canal)
+     */
     public List<Long> getMiembrosIds() {
-        return miembrosIds;
+        List<Long> lista = new ArrayList<>(miembrosIds.length);
+        for (long id : miembrosIds) {
+            lista.add(id);
+        }
+        return lista;
     }
     
     public void setMiembrosIds(List<Long> miembrosIds) {
+        long[] ids = new long[miembrosIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = miembrosIds.get(i);
+        }
+        setMiembrosIds(ids);
+    }
+    
+    /**
+     * Asignar miembros desde un arreglo primitivo (se ordena en el lugar)
+     */
+    public void setMiembrosIds(long[] miembrosIds) {
+        Arrays.sort(miembrosIds);
         this.miembrosIds = miembrosIds;
     }
     
+    public int getCantidadMiembros() {
+        return miembrosIds.length;
+    }
+    
+    /**
+     * Verificar si un usuario es miembro del canal
+     */
+    public boolean esMiembro(Long usuarioId) {
+        return usuarioId != null && Arrays.binarySearch(miembrosIds, usuarioId) >= 0;
+    }
+    
     public boolean isActivo() {
         return activo;
     }
@@ -111,13 +142,25 @@ public class Canal implements Serializable {
     }
     
     public void agregarMiembro(Long usuarioId) {
-        if (!miembrosIds.contains(usuarioId)) {
-            miembrosIds.add(usuarioId);
+        int posicion = Arrays.binarySearch(miembrosIds, usuarioId);
+        if (posicion < 0) {
+            int insercion = -posicion - 1;
+            long[] nuevos = new long[miembrosIds.length + 1];
+            System.arraycopy(miembrosIds, 0, nuevos, 0, insercion);
+            nuevos[insercion] = usuarioId;
+            System.arraycopy(miembrosIds, insercion, nuevos, insercion + 1, miembrosIds.length - insercion);
+            miembrosIds = nuevos;
         }
     }
     
     public void removerMiembro(Long usuarioId) {
-        miembrosIds.remove(usuarioId);
+        int posicion = Arrays.binarySearch(miembrosIds, usuarioId);
+        if (posicion >= 0) {
+            long[] nuevos = new long[miembrosIds.length - 1];
+            System.arraycopy(miembrosIds, 0, nuevos, 0, posicion);
+            System.arraycopy(miembrosIds, posicion + 1, nuevos, posicion, nuevos.length - posicion);
+            miembrosIds = nuevos;
+        }
     }
     
     @Override
@@ -126,7 +169,7 @@ public class Canal implements Serializable {
                 "id=" + id +
                 ", nombre='" + nombre + '\'' +
                 ", esPrivado=" + esPrivado +
-                ", miembros=" + miembrosIds.size() +
+                ", miembros=" + miembrosIds.length +
                 '}';
     }
 }
@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 /**
  * DTO para datos de mensajes entrantes
+ * Usado en eventos MENSAJE_RECIBIDO y MENSAJE_GRUPO_RECIBIDO
  */
 public class MensajeEntranteDTO implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -11,6 +12,7 @@ public class MensajeEntranteDTO implements Serializable {
     private String remitente;
     private String contenido;
     private long timestamp;
+    private Long canalId;  // Null si es mensaje privado
     
     public MensajeEntranteDTO() {
         this.timestamp = System.currentTimeMillis();
@@ -46,11 +48,20 @@ public class MensajeEntranteDTO implements Serializable {
         this.timestamp = timestamp;
     }
     
+    public Long getCanalId() {
+        return canalId;
+    }
+    
+    public void setCanalId(Long canalId) {
+        this.canalId = canalId;
+    }
+    
     @Override
     public String toString() {
         return "MensajeEntranteDTO{" +
                 "remitente='" + remitente + '\'' +
                 ", contenido='" + contenido + '\'' +
+                ", canalId=" + canalId +
                 '}';
     }
 }
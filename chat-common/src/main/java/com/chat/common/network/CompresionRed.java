@@ -0,0 +1,114 @@
+package com.chat.common.network;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.chat.common.dto.RequestDTO;
+import com.chat.common.dto.ResponseDTO;
+
+/**
+ * Negociación de la compresión de una conexión cliente-servidor.
+ *
+ * Antes de crear los Object streams el cliente envía un saludo de 4 bytes ("CHZ" + versión)
+ * y el servidor responde con un byte: ACEPTADA o RECHAZADA. Si se acepta, ambos extremos
+ * envuelven el socket en SalidaComprimida/EntradaComprimida. Un cliente que no negocia
+ * empieza directamente con la cabecera de ObjectOutputStream (0xACED), así que el
+ * servidor lo distingue por el primer byte y sigue sin compresión.
+ */
+public final class CompresionRed {
+    
+    public static final int VERSION = 1;
+    /** Nivel de Deflater por defecto: buena relación para texto sin mucho CPU */
+    public static final int NIVEL_POR_DEFECTO = 6;
+    
+    private static final byte[] SALUDO = { 'C', 'H', 'Z', VERSION };
+    private static final int ACEPTADA = 1;
+    private static final int RECHAZADA = 0;
+    
+    private CompresionRed() {
+    }
+    
+    /**
+     * Cliente: pedir compresión al servidor; true si la aceptó
+     */
+    public static boolean solicitar(InputStream entrada, OutputStream salida) throws IOException {
+        salida.write(SALUDO);
+        salida.flush();
+        int respuesta = entrada.read();
+        if (respuesta < 0) {
+            throw new EOFException("El servidor cerró la conexión durante la negociación");
+        }
+        if (respuesta != ACEPTADA && respuesta != RECHAZADA) {
+            throw new StreamCorruptedException(
+                "El servidor no admite la negociación de compresión (usar -Dred.compresion=false)");
+        }
+        return respuesta == ACEPTADA;
+    }
+    
+    /**
+     * Servidor: atender el saludo si el cliente lo envía. Si el primer byte no es el del
+     * saludo se devuelve al stream (cliente sin negociación) y la conexión va sin compresión.
+     */
+    public static boolean aceptar(PushbackInputStream entrada, OutputStream salida, boolean permitir) throws IOException {
+        int primero = entrada.read();
+        if (primero < 0) {
+            throw new EOFException("El cliente cerró la conexión antes de empezar");
+        }
+        if (primero != SALUDO[0]) {
+            entrada.unread(primero);
+            return false;
+        }
+        byte[] saludo = new byte[SALUDO.length];
+        saludo[0] = (byte) primero;
+        new DataInputStream(entrada).readFully(saludo, 1, saludo.length - 1);
+        if (!Arrays.equals(Arrays.copyOf(saludo, 3), Arrays.copyOf(SALUDO, 3))) {
+            throw new StreamCorruptedException("Saludo de compresión inválido");
+        }
+        boolean aceptada = permitir && saludo[3] == VERSION;
+        salida.write(aceptada ? ACEPTADA : RECHAZADA);
+        salida.flush();
+        return aceptada;
+    }
+    
+    /**
+     * Las tramas con audio van sin comprimir: el WAV apenas se reduce y Deflater
+     * gastaría CPU en cada byte
+     */
+    public static boolean llevaAudio(ProtocoloMensaje protocolo) {
+        Object payload = protocolo.getPayload();
+        Map<String, Object> datos = null;
+        if (payload instanceof ResponseDTO) {
+            datos = ((ResponseDTO) payload).getDatos();
+        } else if (payload instanceof RequestDTO) {
+            datos = ((RequestDTO) payload).getDatos();
+        }
+        return datos != null && datos.get("contenidoAudio") instanceof byte[];
+    }
+    
+    /**
+     * Resumen legible de una conexión comprimida: bytes antes/después en cada sentido y CPU
+     */
+    public static String resumen(SalidaComprimida salida, EntradaComprimida entrada) {
+        return String.format("enviado %s → %s (%.0f %%), recibido %s → %s (%.0f %%), CPU %.1f ms",
+            kilobytes(salida.getBytesOriginales()), kilobytes(salida.getBytesEnRed()),
+            porcentaje(salida.getBytesEnRed(), salida.getBytesOriginales()),
+            kilobytes(entrada.getBytesEnRed()), kilobytes(entrada.getBytesOriginales()),
+            porcentaje(entrada.getBytesEnRed(), entrada.getBytesOriginales()),
+            (salida.getNanosCpu() + entrada.getNanosCpu()) / 1_000_000.0);
+    }
+    
+    private static String kilobytes(long bytes) {
+        return String.format("%.1f KB", bytes / 1024.0);
+    }
+    
+    private static double porcentaje(long parte, long total) {
+        return total == 0 ? 100.0 : parte * 100.0 / total;
+    }
+}
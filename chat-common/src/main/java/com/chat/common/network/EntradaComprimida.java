@@ -0,0 +1,178 @@
+package com.chat.common.network;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
+
+/**
+ * Stream de entrada que lee las tramas de una SalidaComprimida y entrega los bytes
+ * originales. Cada trama DEFLATE se descomprime entera al llegar (el emisor la cerró
+ * con SYNC_FLUSH); las tramas CRUDAS se leen tal cual.
+ *
+ * Solo la usa el hilo que lee del ObjectInputStream; close() se puede llamar desde otro hilo.
+ */
+public class EntradaComprimida extends InputStream {
+    
+    private static final int CAPACIDAD_INICIAL = 8 * 1024;
+    private static final int CAPACIDAD_RETENIDA = 256 * 1024;
+    /** Límite de una trama: protege de una longitud corrupta */
+    private static final int TRAMA_MAXIMA = 64 * 1024 * 1024;
+    
+    private static final Contador ORIGINALES = RegistroMetricas.obtenerInstancia().contador("red.descompresion.originales");
+    private static final Contador EN_RED = RegistroMetricas.obtenerInstancia().contador("red.descompresion.recibidos");
+    private static final Histograma TIEMPO = RegistroMetricas.obtenerInstancia().histograma("red.descompresion.trama");
+    
+    private final DataInputStream origen;
+    private final Inflater inflater = new Inflater(true);
+    private byte[] trama = new byte[CAPACIDAD_INICIAL];
+    private byte[] datos = new byte[CAPACIDAD_INICIAL];
+    private int posicion;
+    private int limite;
+    private volatile boolean cerrado;
+    
+    private long bytesOriginales;
+    private long bytesEnRed;
+    private long nanosCpu;
+    
+    public EntradaComprimida(InputStream origen) {
+        this.origen = new DataInputStream(origen);
+    }
+    
+    @Override
+    public int read() throws IOException {
+        if (posicion == limite && !leerTrama()) {
+            return -1;
+        }
+        return datos[posicion++] & 0xFF;
+    }
+    
+    @Override
+    public int read(byte[] destino, int desde, int largo) throws IOException {
+        if (largo == 0) {
+            return 0;
+        }
+        if (posicion == limite && !leerTrama()) {
+            return -1;
+        }
+        int copiados = Math.min(largo, limite - posicion);
+        System.arraycopy(datos, posicion, destino, desde, copiados);
+        posicion += copiados;
+        return copiados;
+    }
+    
+    @Override
+    public int available() {
+        return limite - posicion;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        try {
+            origen.close();
+        } finally {
+            synchronized (this) {
+                inflater.end();
+            }
+        }
+    }
+    
+    /**
+     * Leer la siguiente trama no vacía; false si el stream terminó entre tramas
+     */
+    private boolean leerTrama() throws IOException {
+        do {
+            int tipo = origen.read();
+            if (tipo < 0) {
+                return false;
+            }
+            int largo = origen.readInt();
+            if (largo < 0 || largo > TRAMA_MAXIMA) {
+                throw new StreamCorruptedException("Longitud de trama inválida: " + largo);
+            }
+            bytesEnRed += 5 + largo;
+            EN_RED.sumar(5 + largo);
+            
+            if (tipo == SalidaComprimida.CRUDA) {
+                if (datos.length < largo || datos.length > CAPACIDAD_RETENIDA) {
+                    datos = new byte[Math.max(CAPACIDAD_INICIAL, largo)];
+                }
+                origen.readFully(datos, 0, largo);
+                limite = largo;
+            } else if (tipo == SalidaComprimida.DEFLATE) {
+                if (trama.length < largo || trama.length > CAPACIDAD_RETENIDA) {
+                    trama = new byte[Math.max(CAPACIDAD_INICIAL, largo)];
+                }
+                origen.readFully(trama, 0, largo);
+                long inicio = System.nanoTime();
+                limite = descomprimir(largo);
+                long nanos = System.nanoTime() - inicio;
+                nanosCpu += nanos;
+                TIEMPO.registrar(nanos / 1000);
+            } else {
+                throw new StreamCorruptedException("Tipo de trama desconocido: " + tipo);
+            }
+            posicion = 0;
+            bytesOriginales += limite;
+            ORIGINALES.sumar(limite);
+        } while (limite == 0);
+        return true;
+    }
+    
+    private synchronized int descomprimir(int largo) throws IOException {
+        if (cerrado) {
+            throw new IOException("Conexión cerrada");
+        }
+        if (datos.length > CAPACIDAD_RETENIDA) {
+            datos = new byte[CAPACIDAD_INICIAL];
+        }
+        inflater.setInput(trama, 0, largo);
+        int total = 0;
+        try {
+            while (true) {
+                if (total == datos.length) {
+                    datos = Arrays.copyOf(datos, datos.length * 2);
+                }
+                int leidos = inflater.inflate(datos, total, datos.length - total);
+                total += leidos;
+                if (leidos == 0 && inflater.needsInput()) {
+                    return total;
+                }
+                if (leidos == 0 && (inflater.finished() || inflater.needsDictionary())) {
+                    throw new StreamCorruptedException("Trama comprimida inválida");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Trama comprimida inválida: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Bytes entregados al ObjectInputStream (ya descomprimidos)
+     */
+    public long getBytesOriginales() {
+        return bytesOriginales;
+    }
+    
+    /**
+     * Bytes leídos del socket, con cabeceras de trama
+     */
+    public long getBytesEnRed() {
+        return bytesEnRed;
+    }
+    
+    public long getNanosCpu() {
+        return nanosCpu;
+    }
+}
@@ -0,0 +1,186 @@
+package com.chat.common.network;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
+
+/**
+ * Stream de salida que envía por tramas lo escrito entre dos flush().
+ *
+ * Cada trama es: tipo (1 byte: CRUDA o DEFLATE), longitud (int) y los bytes. Las tramas
+ * DEFLATE salen de un único Deflater por conexión con SYNC_FLUSH: el diccionario se
+ * conserva entre tramas (los nombres de clase y claves repetidas del ObjectOutputStream
+ * salen casi gratis) y cada trama se puede descomprimir entera al llegar.
+ *
+ * Quien escribe debe tener el mismo candado que el ObjectOutputStream; close() se puede
+ * llamar desde otro hilo.
+ */
+public class SalidaComprimida extends OutputStream {
+    
+    static final int CRUDA = 0;
+    static final int DEFLATE = 1;
+    
+    private static final int CAPACIDAD_INICIAL = 8 * 1024;
+    /** Tras una trama grande (audio) el buffer vuelve a este tamaño */
+    private static final int CAPACIDAD_RETENIDA = 256 * 1024;
+    
+    private static final Contador ORIGINALES = RegistroMetricas.obtenerInstancia().contador("red.compresion.originales");
+    private static final Contador EN_RED = RegistroMetricas.obtenerInstancia().contador("red.compresion.enviados");
+    private static final Histograma TIEMPO = RegistroMetricas.obtenerInstancia().histograma("red.compresion.trama");
+    
+    private final OutputStream destino;
+    private final Deflater deflater;
+    private byte[] pendiente = new byte[CAPACIDAD_INICIAL];
+    private int largoPendiente;
+    private byte[] comprimido = new byte[CAPACIDAD_INICIAL];
+    private final byte[] cabecera = new byte[5];
+    private boolean crudaSiguiente;
+    private volatile boolean cerrado;
+    
+    private long bytesOriginales;
+    private long bytesEnRed;
+    private long nanosCpu;
+    private long tramas;
+    private long tramasCrudas;
+    
+    public SalidaComprimida(OutputStream destino, int nivel) {
+        this.destino = destino;
+        this.deflater = new Deflater(nivel, true);
+    }
+    
+    /**
+     * La próxima trama (hasta el siguiente flush) se envía sin comprimir
+     */
+    public void enviarSiguienteSinComprimir() {
+        crudaSiguiente = true;
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        asegurarCapacidad(1);
+        pendiente[largoPendiente++] = (byte) b;
+    }
+    
+    @Override
+    public void write(byte[] datos, int desde, int largo) throws IOException {
+        asegurarCapacidad(largo);
+        System.arraycopy(datos, desde, pendiente, largoPendiente, largo);
+        largoPendiente += largo;
+    }
+    
+    /**
+     * Cerrar la trama actual y enviarla
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (cerrado) {
+            throw new IOException("Conexión cerrada");
+        }
+        if (largoPendiente > 0) {
+            if (crudaSiguiente) {
+                enviarTrama(CRUDA, pendiente, largoPendiente);
+                tramasCrudas++;
+            } else {
+                long inicio = System.nanoTime();
+                int largo = comprimir();
+                long nanos = System.nanoTime() - inicio;
+                nanosCpu += nanos;
+                TIEMPO.registrar(nanos / 1000);
+                enviarTrama(DEFLATE, comprimido, largo);
+            }
+            bytesOriginales += largoPendiente;
+            ORIGINALES.sumar(largoPendiente);
+            tramas++;
+            largoPendiente = 0;
+            if (pendiente.length > CAPACIDAD_RETENIDA) {
+                pendiente = new byte[CAPACIDAD_INICIAL];
+            }
+            if (comprimido.length > CAPACIDAD_RETENIDA) {
+                comprimido = new byte[CAPACIDAD_INICIAL];
+            }
+        }
+        crudaSiguiente = false;
+        destino.flush();
+    }
+    
+    /**
+     * Cerrar sin enviar lo pendiente (ObjectOutputStream.close() ya hizo flush). Se cierra
+     * primero el socket para liberar a un escritor bloqueado y luego se libera el Deflater.
+     */
+    @Override
+    public void close() throws IOException {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        try {
+            destino.close();
+        } finally {
+            synchronized (this) {
+                deflater.end();
+            }
+        }
+    }
+    
+    private int comprimir() {
+        deflater.setInput(pendiente, 0, largoPendiente);
+        int largo = 0;
+        while (true) {
+            largo += deflater.deflate(comprimido, largo, comprimido.length - largo, Deflater.SYNC_FLUSH);
+            if (largo < comprimido.length) {
+                return largo;
+            }
+            // Buffer lleno: puede quedar salida pendiente en el Deflater
+            comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+        }
+    }
+    
+    private void enviarTrama(int tipo, byte[] datos, int largo) throws IOException {
+        cabecera[0] = (byte) tipo;
+        cabecera[1] = (byte) (largo >>> 24);
+        cabecera[2] = (byte) (largo >>> 16);
+        cabecera[3] = (byte) (largo >>> 8);
+        cabecera[4] = (byte) largo;
+        destino.write(cabecera);
+        destino.write(datos, 0, largo);
+        bytesEnRed += cabecera.length + largo;
+        EN_RED.sumar(cabecera.length + largo);
+    }
+    
+    private void asegurarCapacidad(int adicional) {
+        if (largoPendiente + adicional > pendiente.length) {
+            pendiente = Arrays.copyOf(pendiente, Math.max(pendiente.length * 2, largoPendiente + adicional));
+        }
+    }
+    
+    /**
+     * Bytes escritos por el ObjectOutputStream (antes de comprimir)
+     */
+    public long getBytesOriginales() {
+        return bytesOriginales;
+    }
+    
+    /**
+     * Bytes enviados al socket, con cabeceras de trama
+     */
+    public long getBytesEnRed() {
+        return bytesEnRed;
+    }
+    
+    public long getNanosCpu() {
+        return nanosCpu;
+    }
+    
+    public long getTramas() {
+        return tramas;
+    }
+    
+    public long getTramasCrudas() {
+        return tramasCrudas;
+    }
+}
@@ -0,0 +1,153 @@
+package com.chat.common.patterns;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
+
+/**
+ * Bus de eventos del chat (Singleton) con suscriptores por tipo de evento y despacho
+ * asíncrono.
+ *
+ * publicar() solo valida los datos y encola el evento: el hilo que lo publica (p. ej. el
+ * que lee del socket) sigue leyendo aunque un suscriptor sea lento. Un único hilo de
+ * despacho entrega los eventos en el orden en que se publicaron. Los tipos coalescibles
+ * (USUARIOS_ACTUALIZADOS) no se encolan si ya hay uno pendiente: una ráfaga de cambios
+ * de presencia produce una sola recarga.
+ *
+ * Métricas: eventos.espera (de publicar a empezar el despacho), eventos.despacho (tiempo
+ * en los suscriptores), eventos.coalescidos y el medidor eventos.pendientes.
+ */
+public class BusEventos {
+    
+    /** Un suscriptor que tarda más que esto se informa por consola */
+    private static final long DESPACHO_LENTO_MS = 100;
+    
+    private static BusEventos instancia;
+    
+    private final Map<EventoChat.TipoEvento, List<Observer>> suscriptores = new EnumMap<>(EventoChat.TipoEvento.class);
+    private final Map<EventoChat.TipoEvento, AtomicBoolean> pendientes = new EnumMap<>(EventoChat.TipoEvento.class);
+    private final ThreadPoolExecutor despachador;
+    
+    private final Histograma espera = RegistroMetricas.obtenerInstancia().histograma("eventos.espera");
+    private final Histograma despacho = RegistroMetricas.obtenerInstancia().histograma("eventos.despacho");
+    private final Contador coalescidos = RegistroMetricas.obtenerInstancia().contador("eventos.coalescidos");
+    
+    private BusEventos() {
+        for (EventoChat.TipoEvento tipo : EventoChat.TipoEvento.values()) {
+            suscriptores.put(tipo, new CopyOnWriteArrayList<>());
+            if (tipo.isCoalescible()) {
+                pendientes.put(tipo, new AtomicBoolean());
+            }
+        }
+        despachador = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread hilo = new Thread(r, "eventos-despacho");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        RegistroMetricas.obtenerInstancia().medidor("eventos.pendientes", () -> despachador.getQueue().size());
+    }
+    
+    public static synchronized BusEventos obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new BusEventos();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Suscribirse a un tipo de evento recibiendo sus datos ya tipados
+     *
+     * @throws IllegalArgumentException si la clase no corresponde a los datos del tipo
+     */
+    public <T> Suscripcion suscribir(EventoChat.TipoEvento tipo, Class<T> clase, Consumer<? super T> oyente) {
+        if (!clase.isAssignableFrom(tipo.getTipoDatos())) {
+            throw new IllegalArgumentException(tipo + " publica " + tipo.getTipoDatos().getSimpleName()
+                + ", no " + clase.getSimpleName());
+        }
+        return suscribir(tipo, evento -> oyente.accept(clase.cast(evento.getDatos())));
+    }
+    
+    /**
+     * Suscribir un observador a un tipo de evento
+     */
+    public Suscripcion suscribir(EventoChat.TipoEvento tipo, Observer observer) {
+        List<Observer> lista = suscriptores.get(tipo);
+        lista.add(observer);
+        return () -> lista.remove(observer);
+    }
+    
+    /**
+     * Suscribir un observador a todos los tipos de evento
+     */
+    public Suscripcion suscribirTodos(Observer observer) {
+        for (List<Observer> lista : suscriptores.values()) {
+            lista.add(observer);
+        }
+        return () -> suscriptores.values().forEach(lista -> lista.remove(observer));
+    }
+    
+    /**
+     * Encolar un evento para despacharlo en el hilo del bus
+     *
+     * @throws IllegalArgumentException si los datos no son del tipo que declara el evento
+     */
+    public void publicar(EventoChat.TipoEvento tipo, Object datos) {
+        if (datos != null && !tipo.getTipoDatos().isInstance(datos)) {
+            throw new IllegalArgumentException(tipo + " espera " + tipo.getTipoDatos().getSimpleName()
+                + ", no " + datos.getClass().getSimpleName());
+        }
+        AtomicBoolean pendiente = pendientes.get(tipo);
+        if (pendiente != null && !pendiente.compareAndSet(false, true)) {
+            coalescidos.incrementar();
+            return;
+        }
+        EventoChat evento = new EventoChat(tipo, datos);
+        long publicado = System.nanoTime();
+        despachador.execute(() -> despachar(evento, publicado));
+    }
+    
+    private void despachar(EventoChat evento, long publicado) {
+        AtomicBoolean pendiente = pendientes.get(evento.getTipo());
+        if (pendiente != null) {
+            // Un cambio publicado desde aquí necesita otro despacho
+            pendiente.set(false);
+        }
+        espera.registrarDesde(publicado);
+        
+        long inicio = System.nanoTime();
+        for (Observer observer : suscriptores.get(evento.getTipo())) {
+            long inicioSuscriptor = System.nanoTime();
+            try {
+                observer.actualizar(evento);
+            } catch (RuntimeException e) {
+                System.err.println("Error al despachar " + evento.getTipo() + ": " + e.getMessage());
+            }
+            long milisegundos = (System.nanoTime() - inicioSuscriptor) / 1_000_000;
+            if (milisegundos > DESPACHO_LENTO_MS) {
+                System.err.println("Suscriptor lento de " + evento.getTipo() + ": " + milisegundos + " ms");
+            }
+        }
+        despacho.registrarDesde(inicio);
+    }
+    
+    public int contarSuscriptores(EventoChat.TipoEvento tipo) {
+        return suscriptores.get(tipo).size();
+    }
+    
+    /**
+     * Suscripción activa; cancelar() deja de recibir eventos
+     */
+    public interface Suscripcion {
+        void cancelar();
+    }
+}
@@ -0,0 +1,177 @@
+package com.chat.common.patterns;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Caché en memoria con tamaño máximo (expulsión LRU) y tiempo de vida por entrada.
+ * Lleva estadísticas de aciertos, fallos, expulsiones y expiraciones.
+ * Es thread-safe: todas las operaciones sobre el mapa se sincronizan sobre la instancia.
+ */
+public class CacheLRU<K, V> {
+    
+    private final String nombre;
+    private final int tamanoMaximo;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+    
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong expulsiones = new AtomicLong();
+    private final AtomicLong expiraciones = new AtomicLong();
+    
+    /**
+     * @param nombre Nombre descriptivo (para estadísticas)
+     * @param tamanoMaximo Máximo de entradas antes de expulsar la menos usada
+     * @param ttlMillis Tiempo de vida de cada entrada en milisegundos (0 = sin expiración)
+     */
+    public CacheLRU(String nombre, int tamanoMaximo, long ttlMillis) {
+        this.nombre = nombre;
+        this.tamanoMaximo = tamanoMaximo;
+        this.ttlMillis = ttlMillis;
+        // accessOrder = true: el orden de iteración va del menos al más recientemente usado
+        this.entradas = new LinkedHashMap<K, Entrada<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                if (size() > CacheLRU.this.tamanoMaximo) {
+                    expulsiones.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Obtener un valor, o null si no está o ya expiró
+     */
+    public synchronized V obtener(K clave) {
+        Entrada<V> entrada = entradas.get(clave);
+        
+        if (entrada == null) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        
+        if (entrada.expirada(ttlMillis)) {
+            entradas.remove(clave);
+            expiraciones.incrementAndGet();
+            fallos.incrementAndGet();
+            return null;
+        }
+        
+        aciertos.incrementAndGet();
+        return entrada.valor;
+    }
+    
+    /**
+     * Indicar si hay una entrada para la clave, sin alterar el orden LRU ni las estadísticas
+     * (puede incluir una entrada ya expirada que obtener() descartará)
+     */
+    public synchronized boolean contiene(K clave) {
+        return entradas.containsKey(clave);
+    }
+    
+    /**
+     * Guardar un valor (reemplaza el anterior y reinicia su tiempo de vida)
+     */
+    public synchronized void poner(K clave, V valor) {
+        if (clave == null || valor == null) {
+            return;
+        }
+        entradas.put(clave, new Entrada<>(valor));
+    }
+    
+    /**
+     * Eliminar una entrada
+     */
+    public synchronized void invalidar(K clave) {
+        if (clave != null) {
+            entradas.remove(clave);
+        }
+    }
+    
+    /**
+     * Eliminar todas las entradas cuyo valor cumpla la condición
+     */
+    public synchronized void invalidarSi(Predicate<V> condicion) {
+        Iterator<Entrada<V>> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            if (condicion.test(it.next().valor)) {
+                it.remove();
+            }
+        }
+    }
+    
+    /**
+     * Vaciar la caché (las estadísticas se conservan)
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+    }
+    
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+    
+    public int getTamanoMaximo() {
+        return tamanoMaximo;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public long getAciertos() {
+        return aciertos.get();
+    }
+    
+    public long getFallos() {
+        return fallos.get();
+    }
+    
+    public long getExpulsiones() {
+        return expulsiones.get();
+    }
+    
+    public long getExpiraciones() {
+        return expiraciones.get();
+    }
+    
+    /**
+     * Porcentaje de aciertos sobre el total de lecturas
+     */
+    public double getTasaAciertos() {
+        long total = aciertos.get() + fallos.get();
+        return total == 0 ? 0.0 : (aciertos.get() * 100.0) / total;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d entradas, aciertos=%d, fallos=%d (%.1f%%), expulsiones=%d, expiraciones=%d",
+            nombre, getTamano(), tamanoMaximo, getAciertos(), getFallos(), getTasaAciertos(),
+            getExpulsiones(), getExpiraciones());
+    }
+    
+    /**
+     * Valor almacenado junto con su instante de creación
+     */
+    private static class Entrada<V> {
+        private final V valor;
+        private final long creadaEn;
+        
+        Entrada(V valor) {
+            this.valor = valor;
+            this.creadaEn = System.currentTimeMillis();
+        }
+        
+        boolean expirada(long ttlMillis) {
+            return ttlMillis > 0 && System.currentTimeMillis() - creadaEn > ttlMillis;
+        }
+    }
+}
@@ -5,10 +5,17 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chat.common.metricas.ConexionMedida;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
 
 /**
  * Patrón Object Pool para gestionar conexiones de base de datos
  * Reutiliza conexiones en lugar de crear nuevas cada vez
+ * Las conexiones se entregan envueltas en ConexionMedida (latencia de cada sentencia) y
+ * se mide cuánto espera cada pedido de conexión (pool.espera)
  */
 public class ConexionPool {
     
@@ -18,6 +25,8 @@ public class ConexionPool {
     private final String password;
     private final int maxSize;
     private int currentSize;
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final Histograma espera;
     
     public ConexionPool(String url, String user, String password, int maxSize) {
         this.url = url;
@@ -27,6 +36,12 @@ public class ConexionPool {
         this.currentSize = 0;
         this.pool = new LinkedBlockingQueue<>(maxSize);
         
+        RegistroMetricas metricas = RegistroMetricas.obtenerInstancia();
+        this.espera = metricas.histograma("pool.espera");
+        metricas.medidor("pool.disponibles", pool::size);
+        metricas.medidor("pool.abiertas", () -> currentSize);
+        metricas.medidor("pool.esperando", esperando::get);
+        
         // Inicializar pool con conexiones mínimas
         inicializarPool(maxSize / 2);
     }
@@ -48,7 +63,7 @@ public class ConexionPool {
      * Crear una nueva conexión
      */
     private Connection crearNuevaConexion() throws SQLException {
-        Connection conn = DriverManager.getConnection(url, user, password);
+        Connection conn = ConexionMedida.envolver(DriverManager.getConnection(url, user, password));
         currentSize++;
         System.out.println("Nueva conexión creada. Total: " + currentSize);
         return conn;
@@ -58,6 +73,7 @@ public class ConexionPool {
      * Obtener conexión del pool
      */
     public Connection obtenerConexion() throws SQLException {
+        long inicio = System.nanoTime();
         Connection conn = pool.poll();
         
         if (conn == null) {
@@ -66,10 +82,13 @@ public class ConexionPool {
             } else {
                 try {
                     // Esperar por una conexión disponible
+                    esperando.incrementAndGet();
                     conn = pool.take();
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     throw new SQLException("Interrompido mientras esperaba conexión", e);
+                } finally {
+                    esperando.decrementAndGet();
                 }
             }
         }
@@ -80,6 +99,7 @@ public class ConexionPool {
             conn = crearNuevaConexion();
         }
         
+        espera.registrarDesde(inicio);
         return conn;
     }
     
@@ -1,5 +1,10 @@
 package com.chat.common.patterns;
 
+import com.chat.common.dto.AudioEntranteDTO;
+import com.chat.common.dto.NotificacionServidorDTO;
+import com.chat.common.models.Invitacion;
+import com.chat.common.models.MensajeEntranteDTO;
+
 /**
  * Evento del chat con información del tipo y datos asociados
  */
@@ -8,24 +13,52 @@ public class EventoChat {
     private final Object datos;
     private final long timestamp;
     
+    /**
+     * Cada tipo declara la clase de sus datos (el BusEventos la comprueba al publicar)
+     * y si es idempotente: varias publicaciones pendientes se pueden despachar como una
+     */
     public enum TipoEvento {
         USUARIO_CONECTADO,
         USUARIO_DESCONECTADO,
-        MENSAJE_RECIBIDO,
+        MENSAJE_RECIBIDO(MensajeEntranteDTO.class),
         MENSAJE_ENVIADO,
-        MENSAJE_GRUPO_RECIBIDO,
-        AUDIO_RECIBIDO,                  // Cuando se recibe un audio privado
-        AUDIO_GRUPO_RECIBIDO,            // Cuando se recibe un audio grupal
+        MENSAJE_GRUPO_RECIBIDO(MensajeEntranteDTO.class),
+        AUDIO_RECIBIDO(AudioEntranteDTO.class),                  // Cuando se recibe un audio privado
+        AUDIO_GRUPO_RECIBIDO(AudioEntranteDTO.class),            // Cuando se recibe un audio grupal
         CANAL_CREADO,
         SOLICITUD_CANAL,
         USUARIO_UNIDO_CANAL,
         USUARIO_SALIO_CANAL,
         BROADCAST_MENSAJE,
-        USUARIOS_ACTUALIZADOS,
-        INVITACION_RECIBIDA,
-        NOTIFICACION_SERVIDOR,           // Notificación broadcast del servidor a usuarios
-        NOTIFICACION_SERVIDOR_GRUPO,     // Notificación broadcast del servidor a grupos
-        DESCONEXION_FORZADA              // Cuando el servidor desconecta al cliente
+        USUARIOS_ACTUALIZADOS(Void.class, true),                 // Sin datos: solo hay que recargar la lista
+        INVITACION_RECIBIDA(Invitacion.class),
+        NOTIFICACION_SERVIDOR(NotificacionServidorDTO.class),    // Notificación broadcast del servidor a usuarios
+        NOTIFICACION_SERVIDOR_GRUPO(NotificacionServidorDTO.class), // Notificación broadcast del servidor a grupos
+        DESCONEXION_FORZADA(String.class);                       // Cuando el servidor desconecta al cliente
+        
+        private final Class<?> tipoDatos;
+        private final boolean coalescible;
+        
+        TipoEvento() {
+            this(Object.class, false);
+        }
+        
+        TipoEvento(Class<?> tipoDatos) {
+            this(tipoDatos, false);
+        }
+        
+        TipoEvento(Class<?> tipoDatos, boolean coalescible) {
+            this.tipoDatos = tipoDatos;
+            this.coalescible = coalescible;
+        }
+        
+        public Class<?> getTipoDatos() {
+            return tipoDatos;
+        }
+        
+        public boolean isCoalescible() {
+            return coalescible;
+        }
     }
     
     public EventoChat(TipoEvento tipo, Object datos) {
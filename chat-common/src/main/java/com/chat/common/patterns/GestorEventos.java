@@ -3,12 +3,18 @@ package com.chat.common.patterns;
 /**
  * Gestor de eventos del chat usando patrón Observer (Singleton)
  * Permite a los componentes suscribirse y publicar eventos
+ *
+ * Los eventos pasan por el BusEventos: publicarEvento() no espera a los observadores
+ * y estos reciben todos los tipos de evento en el hilo de despacho del bus. Para
+ * suscribirse solo a algunos tipos conviene usar BusEventos directamente.
  */
 public class GestorEventos extends Observable {
     
     private static GestorEventos instancia;
     
-    private GestorEventos() {}
+    private GestorEventos() {
+        BusEventos.obtenerInstancia().suscribirTodos(this::notificarObservadores);
+    }
     
     public static synchronized GestorEventos obtenerInstancia() {
         if (instancia == null) {
@@ -21,7 +27,6 @@ public class GestorEventos extends Observable {
      * Publicar un evento a todos los observadores
      */
     public void publicarEvento(EventoChat.TipoEvento tipo, Object datos) {
-        EventoChat evento = new EventoChat(tipo, datos);
-        notificarObservadores(evento);
+        BusEventos.obtenerInstancia().publicar(tipo, datos);
     }
 }
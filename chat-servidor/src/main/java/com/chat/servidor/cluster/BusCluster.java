@@ -0,0 +1,50 @@
+package com.chat.servidor.cluster;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Bus de mensajes entre los nodos del cluster.
+ *
+ * Implementaciones: BusTcp (malla TCP entre procesos) y BusEnProceso (varios nodos
+ * dentro de la misma JVM, para pruebas y benchmarks). Los mensajes de un nodo a otro
+ * llegan en el orden en que se enviaron; las entregas al oyente se hacen desde hilos
+ * del bus, nunca desde el hilo que llama a publicar()/enviar().
+ */
+public interface BusCluster {
+    
+    /**
+     * Unirse al cluster con el identificador de este nodo
+     */
+    void iniciar(String nodoId, Oyente oyente) throws IOException;
+    
+    /**
+     * Enviar un mensaje a todos los demás nodos conectados
+     */
+    void publicar(MensajeCluster mensaje);
+    
+    /**
+     * Enviar un mensaje a un nodo concreto; false si ese nodo no está conectado
+     */
+    boolean enviar(String nodoDestino, MensajeCluster mensaje);
+    
+    /**
+     * Identificadores de los nodos con los que hay enlace
+     */
+    Set<String> getNodosConectados();
+    
+    void detener();
+    
+    /**
+     * Receptor de los eventos del bus
+     */
+    interface Oyente {
+        void recibir(MensajeCluster mensaje);
+        
+        /** Se abrió el enlace con otro nodo (también al reconectarse) */
+        void nodoConectado(String nodoId);
+        
+        /** Se perdió el enlace con otro nodo */
+        void nodoDesconectado(String nodoId);
+    }
+}
@@ -0,0 +1,119 @@
+package com.chat.servidor.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bus dentro de la misma JVM: todos los nodos iniciados con el mismo nombre de red se
+ * ven entre sí. Sirve para probar el cluster (o medirlo en benchmarks) sin sockets.
+ *
+ * Igual que en la malla TCP, cada mensaje se serializa y se entrega una copia desde un
+ * hilo propio del nodo receptor, así que no se comparten objetos entre nodos y un dato
+ * no serializable falla aquí igual que fallaría en red.
+ */
+public class BusEnProceso implements BusCluster {
+    
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, BusEnProceso>> REDES = new ConcurrentHashMap<>();
+    
+    private final String red;
+    private String nodoId;
+    private Oyente oyente;
+    private ExecutorService entregas;
+    
+    public BusEnProceso(String red) {
+        this.red = red;
+    }
+    
+    @Override
+    public void iniciar(String nodoId, Oyente oyente) {
+        this.nodoId = nodoId;
+        this.oyente = oyente;
+        this.entregas = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "bus-" + nodoId);
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        
+        ConcurrentHashMap<String, BusEnProceso> nodos = REDES.computeIfAbsent(red, r -> new ConcurrentHashMap<>());
+        if (nodos.putIfAbsent(nodoId, this) != null) {
+            throw new IllegalStateException("Ya existe un nodo " + nodoId + " en la red " + red);
+        }
+        for (BusEnProceso otro : nodos.values()) {
+            if (otro != this) {
+                otro.entregas.execute(() -> otro.oyente.nodoConectado(nodoId));
+                entregas.execute(() -> oyente.nodoConectado(otro.nodoId));
+            }
+        }
+    }
+    
+    @Override
+    public void publicar(MensajeCluster mensaje) {
+        byte[] bytes = serializar(mensaje);
+        for (BusEnProceso otro : nodos().values()) {
+            if (otro != this) {
+                otro.entregar(bytes);
+            }
+        }
+    }
+    
+    @Override
+    public boolean enviar(String nodoDestino, MensajeCluster mensaje) {
+        BusEnProceso destino = nodos().get(nodoDestino);
+        if (destino == null || destino == this) {
+            return false;
+        }
+        destino.entregar(serializar(mensaje));
+        return true;
+    }
+    
+    @Override
+    public Set<String> getNodosConectados() {
+        Set<String> conectados = new TreeSet<>(nodos().keySet());
+        conectados.remove(nodoId);
+        return conectados;
+    }
+    
+    @Override
+    public void detener() {
+        ConcurrentHashMap<String, BusEnProceso> nodos = nodos();
+        if (!nodos.remove(nodoId, this)) {
+            return;
+        }
+        for (BusEnProceso otro : nodos.values()) {
+            otro.entregas.execute(() -> otro.oyente.nodoDesconectado(nodoId));
+        }
+        entregas.shutdown();
+    }
+    
+    private ConcurrentHashMap<String, BusEnProceso> nodos() {
+        return REDES.getOrDefault(red, new ConcurrentHashMap<>());
+    }
+    
+    private void entregar(byte[] bytes) {
+        entregas.execute(() -> {
+            try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                oyente.recibir((MensajeCluster) entrada.readObject());
+            } catch (IOException | ClassNotFoundException e) {
+                System.err.println("Error al leer mensaje del bus en " + nodoId + ": " + e.getMessage());
+            }
+        });
+    }
+    
+    private static byte[] serializar(MensajeCluster mensaje) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(mensaje);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Mensaje de cluster no serializable: " + mensaje, e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,348 @@
+package com.chat.servidor.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.RegistroMetricas;
+import com.chat.servidor.cluster.MensajeCluster.TipoMensaje;
+
+/**
+ * Bus en malla TCP: cada nodo escucha en cluster.puerto y abre una conexión saliente
+ * hacia cada uno de los demás. Por la conexión saliente solo se escribe y por las
+ * entrantes solo se lee, así que entre dos nodos hay dos sockets, uno por sentido.
+ *
+ * Basta con que cada nodo conozca una dirección del cluster (cluster.nodos): en el saludo
+ * inicial el nodo que acepta responde con las direcciones que conoce y aprende la de quien
+ * se conecta, de modo que la malla se completa sola. Las direcciones caídas se reintentan
+ * cada REINTENTO_SEGUNDOS. Cada enlace saliente tiene su cola y su hilo escritor: publicar()
+ * no espera a la red y, si un nodo no da abasto, sus mensajes se descartan al llenarse la cola.
+ */
+public class BusTcp implements BusCluster {
+    
+    private static final int TIMEOUT_CONEXION_MS = 2000;
+    private static final long REINTENTO_SEGUNDOS = 3;
+    private static final int CAPACIDAD_COLA = 10000;
+    
+    private static final Contador DESCARTADOS = RegistroMetricas.obtenerInstancia().contador("cluster.descartados");
+    
+    private final int puerto;
+    private final Set<String> direcciones = ConcurrentHashMap.newKeySet();
+    private final Set<String> direccionesPropias = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Enlace> salientes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> nodoPorDireccion = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Socket> entrantes = new ConcurrentHashMap<>();
+    private String nodoId;
+    private Oyente oyente;
+    private ServerSocket servidor;
+    private ScheduledExecutorService planificador;
+    private volatile boolean activo;
+    
+    /**
+     * @param puerto puerto de escucha del bus
+     * @param semillas direcciones "host:puerto" de otros nodos (puede incluir la propia)
+     */
+    public BusTcp(int puerto, Collection<String> semillas) {
+        this.puerto = puerto;
+        this.direcciones.addAll(semillas);
+    }
+    
+    @Override
+    public void iniciar(String nodoId, Oyente oyente) throws IOException {
+        this.nodoId = nodoId;
+        this.oyente = oyente;
+        this.servidor = new ServerSocket(puerto);
+        this.activo = true;
+        
+        Thread aceptador = new Thread(this::aceptarConexiones, "cluster-aceptar");
+        aceptador.setDaemon(true);
+        aceptador.start();
+        
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "cluster-conectar");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(this::conectarPendientes, 0, REINTENTO_SEGUNDOS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public void publicar(MensajeCluster mensaje) {
+        for (Enlace enlace : salientes.values()) {
+            enlace.encolar(mensaje);
+        }
+    }
+    
+    @Override
+    public boolean enviar(String nodoDestino, MensajeCluster mensaje) {
+        Enlace enlace = salientes.get(nodoDestino);
+        return enlace != null && enlace.encolar(mensaje);
+    }
+    
+    @Override
+    public Set<String> getNodosConectados() {
+        return new TreeSet<>(salientes.keySet());
+    }
+    
+    @Override
+    public void detener() {
+        activo = false;
+        if (planificador != null) {
+            planificador.shutdownNow();
+        }
+        cerrarSilencioso(servidor);
+        for (Enlace enlace : salientes.values()) {
+            enlace.cerrar();
+        }
+        for (Socket socket : entrantes.values()) {
+            cerrarSilencioso(socket);
+        }
+    }
+    
+    // ========== CONEXIONES SALIENTES ==========
+    
+    private void conectarPendientes() {
+        for (String direccion : direcciones) {
+            if (!activo) {
+                return;
+            }
+            String nodo = nodoPorDireccion.get(direccion);
+            if (direccionesPropias.contains(direccion) || (nodo != null && salientes.containsKey(nodo))) {
+                continue;
+            }
+            try {
+                conectar(direccion);
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                // El nodo aún no está levantado o se cayó: se reintenta en la próxima vuelta
+            }
+        }
+    }
+    
+    private void conectar(String direccion) throws IOException, ClassNotFoundException {
+        int separador = direccion.lastIndexOf(':');
+        String host = direccion.substring(0, separador);
+        int puertoRemoto = Integer.parseInt(direccion.substring(separador + 1).trim());
+        
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host.trim(), puertoRemoto), TIMEOUT_CONEXION_MS);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(TIMEOUT_CONEXION_MS);
+            
+            ObjectOutputStream salida = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            salida.writeObject(new MensajeCluster(TipoMensaje.HOLA, nodoId).addDato("puerto", puerto));
+            salida.flush();
+            ObjectInputStream entrada = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            MensajeCluster respuesta = (MensajeCluster) entrada.readObject();
+            String otroNodo = respuesta.getNodoOrigen();
+            
+            if (nodoId.equals(otroNodo)) {
+                direccionesPropias.add(direccion);
+                socket.close();
+                return;
+            }
+            nodoPorDireccion.put(direccion, otroNodo);
+            if (salientes.containsKey(otroNodo)) {
+                // El mismo nodo con otra dirección
+                socket.close();
+                return;
+            }
+            aprenderDirecciones(respuesta.getDato("nodos"));
+            
+            socket.setSoTimeout(0);
+            Enlace enlace = new Enlace(otroNodo, direccion, socket, salida);
+            salientes.put(otroNodo, enlace);
+            enlace.iniciar();
+            System.out.println("🔗 Cluster: enlace con " + otroNodo + " (" + direccion + ")");
+            oyente.nodoConectado(otroNodo);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            cerrarSilencioso(socket);
+            throw e;
+        }
+    }
+    
+    private void aprenderDirecciones(Object nodos) {
+        if (nodos instanceof Collection) {
+            for (Object direccion : (Collection<?>) nodos) {
+                direcciones.add(String.valueOf(direccion));
+            }
+        }
+    }
+    
+    // ========== CONEXIONES ENTRANTES ==========
+    
+    private void aceptarConexiones() {
+        while (activo) {
+            try {
+                Socket socket = servidor.accept();
+                Thread lector = new Thread(() -> atenderEntrante(socket), "cluster-entrada");
+                lector.setDaemon(true);
+                lector.start();
+            } catch (IOException e) {
+                if (activo) {
+                    System.err.println("Error al aceptar nodo del cluster: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Saludo (se responde con el id propio y las direcciones conocidas) y lectura de mensajes
+     */
+    private void atenderEntrante(Socket socket) {
+        String otroNodo = null;
+        try {
+            socket.setTcpNoDelay(true);
+            ObjectOutputStream salida = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            salida.flush();
+            ObjectInputStream entrada = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+            MensajeCluster hola = (MensajeCluster) entrada.readObject();
+            if (hola.getTipo() != TipoMensaje.HOLA) {
+                socket.close();
+                return;
+            }
+            
+            salida.writeObject(new MensajeCluster(TipoMensaje.HOLA, nodoId)
+                .addDato("nodos", new ArrayList<>(direcciones)));
+            salida.flush();
+            if (nodoId.equals(hola.getNodoOrigen())) {
+                socket.close();
+                return;
+            }
+            
+            otroNodo = hola.getNodoOrigen();
+            Object puertoRemoto = hola.getDato("puerto");
+            if (puertoRemoto != null) {
+                direcciones.add(socket.getInetAddress().getHostAddress() + ":" + puertoRemoto);
+                planificador.execute(this::conectarPendientes);
+            }
+            Socket anterior = entrantes.put(otroNodo, socket);
+            cerrarSilencioso(anterior);
+            Thread.currentThread().setName("cluster-entrada-" + otroNodo);
+            
+            while (activo) {
+                MensajeCluster mensaje = (MensajeCluster) entrada.readObject();
+                if (mensaje.getTipo() != TipoMensaje.HOLA) {
+                    oyente.recibir(mensaje);
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            // Fin de la conexión
+        } catch (RuntimeException e) {
+            System.err.println("Error al procesar mensaje del cluster: " + e.getMessage());
+        } finally {
+            cerrarSilencioso(socket);
+            // Si otra conexión del mismo nodo ya reemplazó a esta, el nodo sigue en el cluster
+            if (otroNodo != null && entrantes.remove(otroNodo, socket)) {
+                Enlace enlace = salientes.get(otroNodo);
+                if (enlace != null) {
+                    enlace.cerrar();
+                }
+                if (activo) {
+                    System.out.println("⚠️ Cluster: se perdió el nodo " + otroNodo);
+                    oyente.nodoDesconectado(otroNodo);
+                }
+            }
+        }
+    }
+    
+    private static void cerrarSilencioso(Closeable recurso) {
+        if (recurso == null) {
+            return;
+        }
+        try {
+            recurso.close();
+        } catch (IOException e) {
+            // Ignorar: se está cerrando
+        }
+    }
+    
+    /**
+     * Conexión saliente hacia un nodo, con su cola y su hilo escritor
+     */
+    private class Enlace implements Runnable {
+        private final String nodo;
+        private final String direccion;
+        private final Socket socket;
+        private final ObjectOutputStream salida;
+        private final LinkedBlockingQueue<MensajeCluster> cola = new LinkedBlockingQueue<>(CAPACIDAD_COLA);
+        private volatile boolean abierto = true;
+        private Thread escritor;
+        
+        Enlace(String nodo, String direccion, Socket socket, ObjectOutputStream salida) {
+            this.nodo = nodo;
+            this.direccion = direccion;
+            this.socket = socket;
+            this.salida = salida;
+        }
+        
+        void iniciar() {
+            escritor = new Thread(this, "cluster-salida-" + nodo);
+            escritor.setDaemon(true);
+            escritor.start();
+        }
+        
+        boolean encolar(MensajeCluster mensaje) {
+            if (!abierto) {
+                return false;
+            }
+            if (!cola.offer(mensaje)) {
+                DESCARTADOS.incrementar();
+                return false;
+            }
+            return true;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while (abierto) {
+                    MensajeCluster mensaje = cola.take();
+                    salida.writeObject(mensaje);
+                    // Sin reset() el stream guardaría una referencia a cada objeto enviado
+                    salida.reset();
+                    if (cola.isEmpty()) {
+                        salida.flush();
+                    }
+                }
+            } catch (IOException e) {
+                if (abierto) {
+                    System.err.println("Error al escribir al nodo " + nodo + ": " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                cerrar();
+            }
+        }
+        
+        void cerrar() {
+            if (!abierto) {
+                return;
+            }
+            abierto = false;
+            cerrarSilencioso(socket);
+            salientes.remove(nodo, this);
+            nodoPorDireccion.remove(direccion, nodo);
+            if (escritor != null) {
+                escritor.interrupt();
+            }
+        }
+    }
+}
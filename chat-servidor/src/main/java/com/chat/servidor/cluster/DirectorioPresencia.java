@@ -0,0 +1,84 @@
+package com.chat.servidor.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Directorio de presencia del cluster: en qué nodo está conectado cada usuario.
+ *
+ * Cada nodo publica por el bus las altas y bajas de sus propios usuarios y mantiene
+ * una réplica del directorio; al abrirse un enlace los nodos se envían la lista completa
+ * de sus usuarios, así que un nodo que se une (o vuelve) queda al día sin coordinador.
+ */
+public class DirectorioPresencia {
+    
+    private final ConcurrentHashMap<String, String> nodoPorUsername = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> nodoPorUsuarioId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> usernamePorId = new ConcurrentHashMap<>();
+    
+    /**
+     * Registrar que un usuario está conectado en un nodo
+     */
+    public void registrar(String nodoId, Long usuarioId, String username) {
+        nodoPorUsername.put(username, nodoId);
+        nodoPorUsuarioId.put(usuarioId, nodoId);
+        usernamePorId.put(usuarioId, username);
+    }
+    
+    /**
+     * Quitar a un usuario si sigue registrado en ese nodo (un alta más nueva en otro nodo se respeta)
+     */
+    public boolean quitar(String nodoId, Long usuarioId) {
+        if (!nodoPorUsuarioId.remove(usuarioId, nodoId)) {
+            return false;
+        }
+        String username = usernamePorId.remove(usuarioId);
+        if (username != null) {
+            nodoPorUsername.remove(username, nodoId);
+        }
+        return true;
+    }
+    
+    /**
+     * Quitar a todos los usuarios de un nodo; devuelve sus ids
+     */
+    public List<Long> quitarNodo(String nodoId) {
+        List<Long> quitados = new ArrayList<>();
+        for (Map.Entry<Long, String> entrada : nodoPorUsuarioId.entrySet()) {
+            if (nodoId.equals(entrada.getValue()) && quitar(nodoId, entrada.getKey())) {
+                quitados.add(entrada.getKey());
+            }
+        }
+        return quitados;
+    }
+    
+    /**
+     * Nodo donde está conectado el usuario (null si no está en línea en el cluster)
+     */
+    public String nodoDe(String username) {
+        return username == null ? null : nodoPorUsername.get(username);
+    }
+    
+    /**
+     * Nodos distintos del indicado donde hay al menos uno de los usuarios
+     */
+    public Set<String> nodosCon(Collection<Long> usuarioIds, String excluir) {
+        Set<String> nodos = new HashSet<>();
+        for (Long usuarioId : usuarioIds) {
+            String nodo = nodoPorUsuarioId.get(usuarioId);
+            if (nodo != null && !nodo.equals(excluir)) {
+                nodos.add(nodo);
+            }
+        }
+        return nodos;
+    }
+    
+    public int getCantidad() {
+        return nodoPorUsuarioId.size();
+    }
+}
@@ -0,0 +1,61 @@
+package com.chat.servidor.cluster;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Mensaje entre nodos del cluster: tipo, nodo que lo origina y datos por clave
+ * (mismo estilo que RequestDTO/ResponseDTO)
+ */
+public class MensajeCluster implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final TipoMensaje tipo;
+    private final String nodoOrigen;
+    private final HashMap<String, Object> datos;
+    
+    public enum TipoMensaje {
+        HOLA,
+        PRESENCIA_CONECTADO,
+        PRESENCIA_DESCONECTADO,
+        PRESENCIA_SINCRONIZAR,
+        MENSAJE_PRIVADO,
+        MENSAJE_CANAL,
+        AUDIO_PRIVADO,
+        AUDIO_CANAL,
+        INVITACION,
+        INVALIDAR_USUARIO,
+        INVALIDAR_CANAL
+    }
+    
+    public MensajeCluster(TipoMensaje tipo, String nodoOrigen) {
+        this.tipo = tipo;
+        this.nodoOrigen = nodoOrigen;
+        this.datos = new HashMap<>();
+    }
+    
+    public MensajeCluster addDato(String clave, Object valor) {
+        datos.put(clave, valor);
+        return this;
+    }
+    
+    public Object getDato(String clave) {
+        return datos.get(clave);
+    }
+    
+    public TipoMensaje getTipo() {
+        return tipo;
+    }
+    
+    public String getNodoOrigen() {
+        return nodoOrigen;
+    }
+    
+    @Override
+    public String toString() {
+        return "MensajeCluster{" +
+                "tipo=" + tipo +
+                ", nodoOrigen='" + nodoOrigen + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,418 @@
+package com.chat.servidor.cluster;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.chat.common.log.Log;
+import com.chat.common.log.Registrador;
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.RegistroMetricas;
+import com.chat.common.models.Canal;
+import com.chat.common.models.Usuario;
+import com.chat.common.utils.ConfiguracionManager;
+import com.chat.servidor.cluster.MensajeCluster.TipoMensaje;
+import com.chat.servidor.datos.CacheDatos;
+import com.chat.servidor.negocio.GestorPresencia;
+import com.chat.servidor.presentacion.ServidorChat;
+
+/**
+ * Nodo de un cluster de servidores de chat.
+ *
+ * Cada nodo atiende a sus clientes como siempre y usa el bus para lo que no puede resolver
+ * localmente: publica las altas y bajas de sus usuarios en el directorio de presencia,
+ * reenvía mensajes, audios e invitaciones privadas al nodo donde está el destinatario y
+ * reparte los mensajes de canal solo a los nodos que tienen algún miembro conectado.
+ * Lo que llega por el bus se entrega solo a los clientes locales, así que no hay bucles.
+ * También reenvía las invalidaciones de CacheDatos, para que ningún nodo siga sirviendo
+ * un usuario o canal modificado en otro; al (re)conectarse con un nodo vacía la caché,
+ * por si se perdió alguna mientras no había enlace.
+ *
+ * El hilo del bus solo decodifica y actualiza el directorio y la caché: todo lo que escribe
+ * a clientes (entregas y avisos de presencia) pasa a un hilo de entregas por nodo de origen,
+ * que conserva el orden de ese nodo. Así un cliente lento no frena la presencia ni las
+ * invalidaciones que llegan detrás; si la cola de un nodo se llena, se descarta la entrega.
+ *
+ * Los broadcasts del administrador y los contadores de ContadoresServidor son de cada nodo.
+ *
+ * Configuración (config.properties o -D): cluster.habilitado, cluster.nodo.id,
+ * cluster.bus (tcp | memoria), cluster.puerto, cluster.nodos (host:puerto,...) y
+ * cluster.red (nombre de la red del bus en memoria).
+ */
+public class NodoCluster implements BusCluster.Oyente, GestorPresencia.OyentePresencia,
+                                    CacheDatos.OyenteInvalidacion {
+    
+    private static final Registrador LOG = Log.categoria("cluster");
+    
+    /** Entregas pendientes por nodo de origen antes de empezar a descartar */
+    private static final int COLA_ENTREGAS = 10_000;
+    
+    /** Segundos sin trabajo tras los que termina el hilo de entregas de un nodo */
+    private static final long HILO_ENTREGAS_INACTIVO_SEG = 60;
+    
+    private final String nodoId;
+    private final BusCluster bus;
+    private final ServidorChat servidor;
+    private final DirectorioPresencia directorio = new DirectorioPresencia();
+    private final Contador enviados = RegistroMetricas.obtenerInstancia().contador("cluster.enviados");
+    private final Contador recibidos = RegistroMetricas.obtenerInstancia().contador("cluster.recibidos");
+    private final Contador descartados = RegistroMetricas.obtenerInstancia().contador("cluster.descartados");
+    private final Map<String, ThreadPoolExecutor> entregas = new ConcurrentHashMap<>();
+    
+    public NodoCluster(String nodoId, BusCluster bus, ServidorChat servidor) {
+        this.nodoId = nodoId;
+        this.bus = bus;
+        this.servidor = servidor;
+    }
+    
+    /**
+     * Crear el nodo según la configuración; null si el modo cluster está deshabilitado
+     */
+    public static NodoCluster desdeConfiguracion(ConfiguracionManager config, ServidorChat servidor, int puertoChat) {
+        if (!estaHabilitado(config)) {
+            return null;
+        }
+        String nodoId = propiedad(config, "cluster.nodo.id", "");
+        if (nodoId.isEmpty()) {
+            nodoId = nombreHost() + ":" + puertoChat;
+        }
+        
+        BusCluster bus;
+        String tipoBus = propiedad(config, "cluster.bus", "tcp");
+        if ("memoria".equalsIgnoreCase(tipoBus)) {
+            bus = new BusEnProceso(propiedad(config, "cluster.red", "chat"));
+        } else {
+            int puertoBus = Integer.parseInt(propiedad(config, "cluster.puerto", "5100"));
+            List<String> semillas = Arrays.stream(propiedad(config, "cluster.nodos", "").split(","))
+                .map(String::trim)
+                .filter(direccion -> !direccion.isEmpty())
+                .collect(Collectors.toList());
+            bus = new BusTcp(puertoBus, semillas);
+        }
+        return new NodoCluster(nodoId, bus, servidor);
+    }
+    
+    public static boolean estaHabilitado(ConfiguracionManager config) {
+        return Boolean.parseBoolean(propiedad(config, "cluster.habilitado", "false"));
+    }
+    
+    /**
+     * Propiedad del cluster: -Dclave tiene prioridad sobre config.properties (varios nodos con el mismo JAR)
+     */
+    private static String propiedad(ConfiguracionManager config, String clave, String valorPorDefecto) {
+        return System.getProperty(clave, config.getPropiedad(clave, valorPorDefecto)).trim();
+    }
+    
+    private static String nombreHost() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "nodo";
+        }
+    }
+    
+    public void iniciar() throws IOException {
+        RegistroMetricas.obtenerInstancia().medidor("cluster.nodos", () -> bus.getNodosConectados().size());
+        RegistroMetricas.obtenerInstancia().medidor("cluster.directorio", directorio::getCantidad);
+        RegistroMetricas.obtenerInstancia().medidor("cluster.entregas.pendientes", this::getEntregasPendientes);
+        GestorPresencia.obtenerInstancia().setOyente(this);
+        CacheDatos.obtenerInstancia().setOyente(this);
+        bus.iniciar(nodoId, this);
+        System.out.println("🌐 Cluster: nodo " + nodoId + " iniciado (" + bus.getClass().getSimpleName() + ")");
+    }
+    
+    public void detener() {
+        GestorPresencia.obtenerInstancia().setOyente(null);
+        CacheDatos.obtenerInstancia().setOyente(null);
+        bus.detener();
+        for (ThreadPoolExecutor ejecutor : entregas.values()) {
+            ejecutor.shutdownNow();
+        }
+        entregas.clear();
+    }
+    
+    // ========== SALIDA: REENVÍO A OTROS NODOS ==========
+    
+    /**
+     * Reenviar un mensaje privado al nodo del destinatario; false si no está en línea en el cluster
+     */
+    public boolean enviarMensajePrivado(String remitente, String destinatario, String contenido) {
+        return enviarANodoDe(destinatario, new MensajeCluster(TipoMensaje.MENSAJE_PRIVADO, nodoId)
+            .addDato("remitente", remitente)
+            .addDato("destinatario", destinatario)
+            .addDato("contenido", contenido));
+    }
+    
+    public boolean enviarAudioPrivado(String remitente, String destinatario, byte[] contenidoAudio,
+                                      String formato, Long duracionSegundos) {
+        return enviarANodoDe(destinatario, new MensajeCluster(TipoMensaje.AUDIO_PRIVADO, nodoId)
+            .addDato("remitente", remitente)
+            .addDato("destinatario", destinatario)
+            .addDato("contenidoAudio", contenidoAudio)
+            .addDato("formato", formato)
+            .addDato("duracionSegundos", duracionSegundos));
+    }
+    
+    public boolean enviarInvitacion(String invitador, String invitado, String nombreCanal,
+                                    String descripcionCanal, byte[] fotoCanal, Long canalId) {
+        return enviarANodoDe(invitado, new MensajeCluster(TipoMensaje.INVITACION, nodoId)
+            .addDato("invitador", invitador)
+            .addDato("invitado", invitado)
+            .addDato("nombreCanal", nombreCanal)
+            .addDato("descripcionCanal", descripcionCanal)
+            .addDato("fotoCanal", fotoCanal)
+            .addDato("canalId", canalId));
+    }
+    
+    /**
+     * Enviar un mensaje de canal a los nodos con miembros conectados; devuelve cuántos nodos
+     */
+    public int publicarMensajeCanal(Canal canal, String remitente, String contenido) {
+        return enviarANodosDelCanal(canal, new MensajeCluster(TipoMensaje.MENSAJE_CANAL, nodoId)
+            .addDato("canalId", canal.getId())
+            .addDato("remitente", remitente)
+            .addDato("contenido", contenido));
+    }
+    
+    public int publicarAudioCanal(Canal canal, String remitente, byte[] contenidoAudio,
+                                  String formato, Long duracionSegundos) {
+        return enviarANodosDelCanal(canal, new MensajeCluster(TipoMensaje.AUDIO_CANAL, nodoId)
+            .addDato("canalId", canal.getId())
+            .addDato("remitente", remitente)
+            .addDato("contenidoAudio", contenidoAudio)
+            .addDato("formato", formato)
+            .addDato("duracionSegundos", duracionSegundos));
+    }
+    
+    private boolean enviarANodoDe(String username, MensajeCluster mensaje) {
+        String nodo = directorio.nodoDe(username);
+        if (nodo == null || nodo.equals(nodoId)) {
+            return false;
+        }
+        boolean enviado = bus.enviar(nodo, mensaje);
+        if (enviado) {
+            enviados.incrementar();
+        }
+        return enviado;
+    }
+    
+    private int enviarANodosDelCanal(Canal canal, MensajeCluster mensaje) {
+        Set<String> nodos = directorio.nodosCon(canal.getMiembrosIds(), nodoId);
+        int alcanzados = 0;
+        for (String nodo : nodos) {
+            if (bus.enviar(nodo, mensaje)) {
+                alcanzados++;
+            }
+        }
+        enviados.sumar(alcanzados);
+        return alcanzados;
+    }
+    
+    // ========== PRESENCIA LOCAL ==========
+    
+    @Override
+    public void conectado(Usuario usuario) {
+        directorio.registrar(nodoId, usuario.getId(), usuario.getUsername());
+        bus.publicar(new MensajeCluster(TipoMensaje.PRESENCIA_CONECTADO, nodoId).addDato("usuario", usuario));
+    }
+    
+    @Override
+    public void desconectado(Usuario usuario) {
+        directorio.quitar(nodoId, usuario.getId());
+        bus.publicar(new MensajeCluster(TipoMensaje.PRESENCIA_DESCONECTADO, nodoId)
+            .addDato("usuarioId", usuario.getId()));
+    }
+    
+    // ========== CACHÉ LOCAL ==========
+    
+    @Override
+    public void usuarioInvalidado(Long usuarioId) {
+        bus.publicar(new MensajeCluster(TipoMensaje.INVALIDAR_USUARIO, nodoId).addDato("usuarioId", usuarioId));
+    }
+    
+    @Override
+    public void canalInvalidado(Long canalId) {
+        bus.publicar(new MensajeCluster(TipoMensaje.INVALIDAR_CANAL, nodoId).addDato("canalId", canalId));
+    }
+    
+    // ========== ENTRADA: EVENTOS DEL BUS ==========
+    
+    @Override
+    public void nodoConectado(String otroNodo) {
+        // Mientras no hubo enlace se pudieron perder invalidaciones de ese nodo
+        CacheDatos.obtenerInstancia().limpiar();
+        
+        // Enviar la lista completa de usuarios locales al nodo que se une (o vuelve)
+        ArrayList<Usuario> locales = new ArrayList<>(GestorPresencia.obtenerInstancia().obtenerUsuariosLocales());
+        bus.enviar(otroNodo, new MensajeCluster(TipoMensaje.PRESENCIA_SINCRONIZAR, nodoId).addDato("usuarios", locales));
+        LOG.info("nodo.conectado", "nodo", otroNodo, "usuariosLocales", locales.size());
+    }
+    
+    @Override
+    public void nodoDesconectado(String otroNodo) {
+        List<Long> quitados = directorio.quitarNodo(otroNodo);
+        for (Long usuarioId : quitados) {
+            GestorPresencia.obtenerInstancia().marcarDesconectadoRemoto(usuarioId, true);
+        }
+        LOG.warn("nodo.desconectado", "nodo", otroNodo, "usuarios", quitados.size());
+        if (!quitados.isEmpty()) {
+            entregar(otroNodo, servidor::notificarActualizacionUsuarios);
+        }
+    }
+    
+    @Override
+    public void recibir(MensajeCluster mensaje) {
+        recibidos.incrementar();
+        String origen = mensaje.getNodoOrigen();
+        switch (mensaje.getTipo()) {
+            case PRESENCIA_CONECTADO:
+                registrarRemoto(origen, (Usuario) mensaje.getDato("usuario"));
+                entregar(origen, servidor::notificarActualizacionUsuarios);
+                break;
+            
+            case PRESENCIA_DESCONECTADO:
+                Long usuarioId = (Long) mensaje.getDato("usuarioId");
+                if (directorio.quitar(origen, usuarioId)) {
+                    GestorPresencia.obtenerInstancia().marcarDesconectadoRemoto(usuarioId, false);
+                    entregar(origen, servidor::notificarActualizacionUsuarios);
+                }
+                break;
+            
+            case PRESENCIA_SINCRONIZAR:
+                sincronizar(origen, (List<?>) mensaje.getDato("usuarios"));
+                break;
+            
+            case MENSAJE_PRIVADO:
+                entregar(origen, () -> servidor.entregarMensajeLocal(
+                    (String) mensaje.getDato("remitente"),
+                    (String) mensaje.getDato("destinatario"),
+                    (String) mensaje.getDato("contenido")));
+                break;
+            
+            case AUDIO_PRIVADO:
+                entregar(origen, () -> servidor.entregarAudioLocal(
+                    (String) mensaje.getDato("remitente"),
+                    (String) mensaje.getDato("destinatario"),
+                    (byte[]) mensaje.getDato("contenidoAudio"),
+                    (String) mensaje.getDato("formato"),
+                    (Long) mensaje.getDato("duracionSegundos")));
+                break;
+            
+            case MENSAJE_CANAL:
+                entregar(origen, () -> servidor.repartirMensajeCanalRemoto(
+                    (Long) mensaje.getDato("canalId"),
+                    (String) mensaje.getDato("remitente"),
+                    (String) mensaje.getDato("contenido")));
+                break;
+            
+            case AUDIO_CANAL:
+                entregar(origen, () -> servidor.repartirAudioCanalRemoto(
+                    (Long) mensaje.getDato("canalId"),
+                    (String) mensaje.getDato("remitente"),
+                    (byte[]) mensaje.getDato("contenidoAudio"),
+                    (String) mensaje.getDato("formato"),
+                    (Long) mensaje.getDato("duracionSegundos")));
+                break;
+            
+            case INVITACION:
+                entregar(origen, () -> servidor.entregarInvitacionLocal(
+                    (String) mensaje.getDato("invitador"),
+                    (String) mensaje.getDato("invitado"),
+                    (String) mensaje.getDato("nombreCanal"),
+                    (String) mensaje.getDato("descripcionCanal"),
+                    (byte[]) mensaje.getDato("fotoCanal"),
+                    (Long) mensaje.getDato("canalId")));
+                break;
+            
+            case INVALIDAR_USUARIO:
+                CacheDatos.obtenerInstancia().invalidarUsuarioRemoto((Long) mensaje.getDato("usuarioId"));
+                break;
+            
+            case INVALIDAR_CANAL:
+                Long canalId = (Long) mensaje.getDato("canalId");
+                CacheDatos.obtenerInstancia().invalidarCanalRemoto(canalId);
+                entregar(origen, () -> servidor.actualizarMembresiasCanal(canalId));
+                break;
+            
+            default:
+                LOG.warn("mensaje.desconocido", "tipo", mensaje.getTipo(), "nodo", origen);
+        }
+    }
+    
+    private void registrarRemoto(String origen, Usuario usuario) {
+        directorio.registrar(origen, usuario.getId(), usuario.getUsername());
+        GestorPresencia.obtenerInstancia().marcarConectadoRemoto(usuario);
+    }
+    
+    /**
+     * Reemplazar los usuarios conocidos de un nodo por su lista completa
+     */
+    private void sincronizar(String origen, List<?> usuarios) {
+        for (Long usuarioId : directorio.quitarNodo(origen)) {
+            GestorPresencia.obtenerInstancia().marcarDesconectadoRemoto(usuarioId, false);
+        }
+        if (usuarios != null) {
+            for (Object usuario : usuarios) {
+                registrarRemoto(origen, (Usuario) usuario);
+            }
+        }
+        LOG.info("nodo.sincronizado", "nodo", origen, "usuarios", usuarios != null ? usuarios.size() : 0);
+        entregar(origen, servidor::notificarActualizacionUsuarios);
+    }
+    
+    /**
+     * Encolar trabajo que escribe a clientes en el hilo de entregas del nodo de origen
+     */
+    private void entregar(String origen, Runnable entrega) {
+        ThreadPoolExecutor ejecutor = entregas.computeIfAbsent(origen, this::crearEjecutorEntregas);
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    entrega.run();
+                } catch (RuntimeException e) {
+                    LOG.error("entrega.error", e, "nodo", origen);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            descartados.incrementar();
+            LOG.warn("entrega.descartada", "nodo", origen, "pendientes", ejecutor.getQueue().size());
+        }
+    }
+    
+    private ThreadPoolExecutor crearEjecutorEntregas(String origen) {
+        ThreadPoolExecutor ejecutor = new ThreadPoolExecutor(1, 1, HILO_ENTREGAS_INACTIVO_SEG, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(COLA_ENTREGAS), r -> {
+                Thread hilo = new Thread(r, "cluster-entregas-" + origen);
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        ejecutor.allowCoreThreadTimeOut(true);
+        return ejecutor;
+    }
+    
+    private int getEntregasPendientes() {
+        int pendientes = 0;
+        for (ThreadPoolExecutor ejecutor : entregas.values()) {
+            pendientes += ejecutor.getQueue().size();
+        }
+        return pendientes;
+    }
+    
+    public String getNodoId() {
+        return nodoId;
+    }
+    
+    public Set<String> getNodosConectados() {
+        return bus.getNodosConectados();
+    }
+}
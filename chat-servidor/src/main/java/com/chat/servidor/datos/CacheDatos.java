@@ -0,0 +1,217 @@
+package com.chat.servidor.datos;
+
+import com.chat.common.models.Canal;
+import com.chat.common.models.Usuario;
+import com.chat.common.patterns.CacheLRU;
+import com.chat.common.utils.ConfiguracionManager;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de lectura (read-through) para usuarios y canales del servidor (Singleton)
+ * UsuarioDAO y CanalDAO la consultan antes de ir a MySQL; los servicios que modifican
+ * usuarios o canales (p. ej. al agregar un miembro) la invalidan.
+ * Los objetos cacheados se comparten entre hilos: quien los obtenga no debe modificarlos.
+ *
+ * Los usuarios se guardan una sola vez, por ID; por username solo se guarda su ID, así
+ * que invalidar un usuario es quitar una entrada y ambas cachés quedan acotadas.
+ * Quien lee de la BD toma antes getGeneracion() y la pasa al guardar: si entre la lectura
+ * y el guardado hubo una invalidación, el valor leído puede ser viejo y no se cachea.
+ *
+ * El estado en línea de un usuario cacheado no se mantiene al día: la fuente de verdad
+ * es GestorPresencia, y los cambios de presencia no invalidan la caché.
+ *
+ * En modo cluster cada nodo tiene su propia caché: las invalidaciones hechas aquí se
+ * avisan al oyente (NodoCluster), que las reenvía a los demás nodos.
+ */
+public class CacheDatos {
+    
+    private static CacheDatos instancia;
+    
+    private final CacheLRU<String, Long> idsPorUsername;
+    private final CacheLRU<Long, Usuario> usuariosPorId;
+    private final CacheLRU<Long, Canal> canalesPorId;
+    /** Se incrementa en cada invalidación (antes de quitar la entrada) */
+    private final AtomicLong generacion = new AtomicLong();
+    private volatile boolean habilitada;
+    private volatile OyenteInvalidacion oyente;
+    
+    /**
+     * Recibe las invalidaciones hechas en este servidor
+     */
+    public interface OyenteInvalidacion {
+        void usuarioInvalidado(Long usuarioId);
+        
+        void canalInvalidado(Long canalId);
+    }
+    
+    private CacheDatos() {
+        ConfiguracionManager config = ConexionDB.getConfig();
+        
+        this.habilitada = config.getPropiedadBoolean("cache.habilitada", true);
+        long ttlMillis = config.getPropiedadLong("cache.ttl.segundos", 300) * 1000;
+        int maxUsuarios = config.getPropiedadInt("cache.usuarios.max", 1000);
+        int maxCanales = config.getPropiedadInt("cache.canales.max", 500);
+        
+        this.idsPorUsername = new CacheLRU<>("usuarios(username)", maxUsuarios, ttlMillis);
+        this.usuariosPorId = new CacheLRU<>("usuarios(id)", maxUsuarios, ttlMillis);
+        this.canalesPorId = new CacheLRU<>("canales(id)", maxCanales, ttlMillis);
+        
+        System.out.println("Caché de datos " + (habilitada ? "habilitada" : "deshabilitada") +
+                         " (usuarios: " + maxUsuarios + ", canales: " + maxCanales +
+                         ", TTL: " + (ttlMillis / 1000) + "s)");
+    }
+    
+    public static synchronized CacheDatos obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new CacheDatos();
+        }
+        return instancia;
+    }
+    
+    public void setOyente(OyenteInvalidacion oyente) {
+        this.oyente = oyente;
+    }
+    
+    /**
+     * Generación actual: tomarla antes de leer de la BD y pasarla a guardarUsuario/guardarCanal
+     */
+    public long getGeneracion() {
+        return generacion.get();
+    }
+    
+    // ==================== USUARIOS ====================
+    
+    public Usuario obtenerUsuarioPorUsername(String username) {
+        if (!habilitada) {
+            return null;
+        }
+        Long id = idsPorUsername.obtener(username);
+        Usuario usuario = id != null ? usuariosPorId.obtener(id) : null;
+        return usuario != null && usuario.getUsername().equals(username) ? usuario : null;
+    }
+    
+    public Usuario obtenerUsuarioPorId(Long id) {
+        return habilitada ? usuariosPorId.obtener(id) : null;
+    }
+    
+    /**
+     * Guardar un usuario leído de la BD; generacionLeida es getGeneracion() tomada antes de leer
+     */
+    public void guardarUsuario(Usuario usuario, long generacionLeida) {
+        if (!habilitada || usuario == null || usuario.getId() == null || generacion.get() != generacionLeida) {
+            return;
+        }
+        usuariosPorId.poner(usuario.getId(), usuario);
+        if (usuario.getUsername() != null) {
+            idsPorUsername.poner(usuario.getUsername(), usuario.getId());
+        }
+        // Una invalidación que llegó durante el poner pudo no ver la entrada nueva
+        if (generacion.get() != generacionLeida) {
+            usuariosPorId.invalidar(usuario.getId());
+        }
+    }
+    
+    /**
+     * Invalidar un usuario por ID (también su entrada por username)
+     */
+    public void invalidarUsuario(Long usuarioId) {
+        if (usuarioId == null) {
+            return;
+        }
+        invalidarUsuarioRemoto(usuarioId);
+        OyenteInvalidacion actual = oyente;
+        if (actual != null) {
+            actual.usuarioInvalidado(usuarioId);
+        }
+    }
+    
+    /**
+     * Invalidar un usuario que se modificó en otro nodo del cluster (no se vuelve a avisar)
+     */
+    public void invalidarUsuarioRemoto(Long usuarioId) {
+        generacion.incrementAndGet();
+        // La entrada por username queda huérfana: sin el usuario por ID no resuelve nada
+        usuariosPorId.invalidar(usuarioId);
+    }
+    
+    // ==================== CANALES ====================
+    
+    public Canal obtenerCanal(Long canalId) {
+        return habilitada ? canalesPorId.obtener(canalId) : null;
+    }
+    
+    /**
+     * Guardar un canal leído de la BD; generacionLeida es getGeneracion() tomada antes de leer
+     */
+    public void guardarCanal(Canal canal, long generacionLeida) {
+        if (!habilitada || canal == null || generacion.get() != generacionLeida) {
+            return;
+        }
+        canalesPorId.poner(canal.getId(), canal);
+        if (generacion.get() != generacionLeida) {
+            canalesPorId.invalidar(canal.getId());
+        }
+    }
+    
+    public void invalidarCanal(Long canalId) {
+        if (canalId == null) {
+            return;
+        }
+        invalidarCanalRemoto(canalId);
+        OyenteInvalidacion actual = oyente;
+        if (actual != null) {
+            actual.canalInvalidado(canalId);
+        }
+    }
+    
+    /**
+     * Invalidar un canal que se modificó en otro nodo del cluster (no se vuelve a avisar)
+     */
+    public void invalidarCanalRemoto(Long canalId) {
+        generacion.incrementAndGet();
+        canalesPorId.invalidar(canalId);
+    }
+    
+    // ==================== ADMINISTRACIÓN ====================
+    
+    /**
+     * Habilitar o deshabilitar la caché en caliente (al deshabilitar se vacía)
+     */
+    public void setHabilitada(boolean habilitada) {
+        this.habilitada = habilitada;
+        if (!habilitada) {
+            limpiar();
+        }
+        System.out.println("Caché de datos " + (habilitada ? "habilitada" : "deshabilitada"));
+    }
+    
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+    
+    public void limpiar() {
+        generacion.incrementAndGet();
+        idsPorUsername.limpiar();
+        usuariosPorId.limpiar();
+        canalesPorId.limpiar();
+    }
+    
+    /**
+     * Resumen de estadísticas de las cachés
+     */
+    public String obtenerEstadisticas() {
+        return idsPorUsername + "\n" + usuariosPorId + "\n" + canalesPorId;
+    }
+    
+    public CacheLRU<String, Long> getIdsPorUsername() {
+        return idsPorUsername;
+    }
+    
+    public CacheLRU<Long, Usuario> getUsuariosPorId() {
+        return usuariosPorId;
+    }
+    
+    public CacheLRU<Long, Canal> getCanalesPorId() {
+        return canalesPorId;
+    }
+}
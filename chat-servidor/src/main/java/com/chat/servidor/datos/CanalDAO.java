@@ -8,7 +8,11 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.chat.common.models.Canal;
@@ -18,6 +22,9 @@ import com.chat.common.models.Canal;
  */
 public class CanalDAO {
     
+    /** Máximo de IDs por cláusula IN al cargar miembros en bloque */
+    private static final int TAMANO_BLOQUE_IN = 500;
+    
     private final Connection conexion;
     
     public CanalDAO(Connection conexion) {
@@ -59,6 +66,13 @@ public class CanalDAO {
      * Buscar canal por ID
      */
     public Optional<Canal> buscarPorId(Long id) throws SQLException {
+        CacheDatos cache = CacheDatos.obtenerInstancia();
+        Canal cacheado = cache.obtenerCanal(id);
+        if (cacheado != null) {
+            return Optional.of(cacheado);
+        }
+        long generacion = cache.getGeneracion();
+        
         String sql = "SELECT * FROM canales WHERE id = ?";
         
         try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
@@ -66,8 +80,9 @@ public class CanalDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Canal canal = mapearCanal(rs);
-                    cargarMiembros(canal);
+                    Canal canal = mapearCanal(rs, true);
+                    cargarMiembros(Collections.singletonList(canal));
+                    cache.guardarCanal(canal, generacion);
                     return Optional.of(canal);
                 }
             }
@@ -77,67 +92,73 @@ public class CanalDAO {
     }
     
     /**
-     * Obtener todos los canales activos
+     * Obtener todos los canales activos (sin foto)
      */
     public List<Canal> obtenerCanalesActivos() throws SQLException {
-        String sql = "SELECT * FROM canales WHERE activo = true";
-        List<Canal> canales = new ArrayList<>();
-        
-        try (PreparedStatement stmt = conexion.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Canal canal = mapearCanal(rs);
-                cargarMiembros(canal);
-                canales.add(canal);
-            }
-        }
-        
-        return canales;
+        return obtenerCanalesActivos(false);
     }
     
     /**
-     * Obtener canales públicos
+     * Obtener todos los canales activos
+     * @param incluirFoto true para leer también la columna foto
+     */
+    public List<Canal> obtenerCanalesActivos(boolean incluirFoto) throws SQLException {
+        String sql = "SELECT " + columnas("", incluirFoto) + " FROM canales WHERE activo = true";
+        return consultarCanales(sql, null, incluirFoto);
+    }
+    
+    /**
+     * Obtener canales públicos (sin foto)
      */
     public List<Canal> obtenerCanalesPublicos() throws SQLException {
-        String sql = "SELECT * FROM canales WHERE activo = true AND es_privado = false";
-        List<Canal> canales = new ArrayList<>();
-        
-        try (PreparedStatement stmt = conexion.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            while (rs.next()) {
-                Canal canal = mapearCanal(rs);
-                cargarMiembros(canal);
-                canales.add(canal);
-            }
-        }
-        
-        return canales;
+        return obtenerCanalesPublicos(false);
     }
     
     /**
-     * Obtener canales de un usuario
+     * Obtener canales públicos
+     * @param incluirFoto true para leer también la columna foto
+     */
+    public List<Canal> obtenerCanalesPublicos(boolean incluirFoto) throws SQLException {
+        String sql = "SELECT " + columnas("", incluirFoto) + " FROM canales WHERE activo = true AND es_privado = false";
+        return consultarCanales(sql, null, incluirFoto);
+    }
+    
+    /**
+     * Obtener canales de un usuario (sin foto)
      */
     public List<Canal> obtenerCanalesDeUsuario(Long usuarioId) throws SQLException {
-        String sql = "SELECT c.* FROM canales c " +
+        return obtenerCanalesDeUsuario(usuarioId, false);
+    }
+    
+    /**
+     * Obtener canales de un usuario
+     * @param incluirFoto true para leer también la columna foto
+     */
+    public List<Canal> obtenerCanalesDeUsuario(Long usuarioId, boolean incluirFoto) throws SQLException {
+        String sql = "SELECT " + columnas("c.", incluirFoto) + " FROM canales c " +
                      "INNER JOIN canal_miembros cm ON c.id = cm.canal_id " +
                      "WHERE cm.usuario_id = ? AND c.activo = true";
-        List<Canal> canales = new ArrayList<>();
+        return consultarCanales(sql, usuarioId, incluirFoto);
+    }
+    
+    /**
+     * Contar canales
+     * @param soloActivos true para contar solo los canales activos
+     */
+    public int contarCanales(boolean soloActivos) throws SQLException {
+        String sql = soloActivos
+            ? "SELECT COUNT(*) FROM canales WHERE activo = TRUE"
+            : "SELECT COUNT(*) FROM canales";
         
-        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
-            stmt.setLong(1, usuarioId);
+        try (PreparedStatement stmt = conexion.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Canal canal = mapearCanal(rs);
-                    cargarMiembros(canal);
-                    canales.add(canal);
-                }
+            if (rs.next()) {
+                return rs.getInt(1);
             }
         }
         
-        return canales;
+        return 0;
     }
     
     /**
@@ -175,34 +196,107 @@ public class CanalDAO {
     }
     
     /**
-     * Cargar los miembros de un canal
+     * Ejecutar una consulta de canales y cargar sus miembros en bloque
      */
-    private void cargarMiembros(Canal canal) throws SQLException {
-        String sql = "SELECT usuario_id FROM canal_miembros WHERE canal_id = ?";
-        List<Long> miembros = new ArrayList<>();
+    private List<Canal> consultarCanales(String sql, Long parametro, boolean incluirFoto) throws SQLException {
+        List<Canal> canales = new ArrayList<>();
         
         try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
-            stmt.setLong(1, canal.getId());
+            if (parametro != null) {
+                stmt.setLong(1, parametro);
+            }
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    miembros.add(rs.getLong("usuario_id"));
+                    canales.add(mapearCanal(rs, incluirFoto));
+                }
+            }
+        }
+        
+        cargarMiembros(canales);
+        return canales;
+    }
+    
+    /**
+     * Cargar los miembros de varios canales con una consulta por bloque de IDs
+     * (en lugar de una consulta por canal). Las filas llegan ordenadas por canal
+     * y se agrupan directamente en arreglos primitivos.
+     */
+    private void cargarMiembros(List<Canal> canales) throws SQLException {
+        if (canales.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, long[]> miembrosPorCanal = new HashMap<>(canales.size() * 2);
+        
+        for (int desde = 0; desde < canales.size(); desde += TAMANO_BLOQUE_IN) {
+            List<Canal> bloque = canales.subList(desde, Math.min(desde + TAMANO_BLOQUE_IN, canales.size()));
+            
+            StringBuilder sql = new StringBuilder(
+                "SELECT canal_id, usuario_id FROM canal_miembros WHERE canal_id IN (");
+            for (int i = 0; i < bloque.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(") ORDER BY canal_id, usuario_id");
+            
+            try (PreparedStatement stmt = conexion.prepareStatement(sql.toString())) {
+                for (int i = 0; i < bloque.size(); i++) {
+                    stmt.setLong(i + 1, bloque.get(i).getId());
+                }
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    long canalActual = -1;
+                    long[] buffer = new long[16];
+                    int cantidad = 0;
+                    
+                    while (rs.next()) {
+                        long canalId = rs.getLong(1);
+                        if (canalId != canalActual) {
+                            if (cantidad > 0) {
+                                miembrosPorCanal.put(canalActual, Arrays.copyOf(buffer, cantidad));
+                            }
+                            canalActual = canalId;
+                            cantidad = 0;
+                        }
+                        if (cantidad == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, cantidad * 2);
+                        }
+                        buffer[cantidad++] = rs.getLong(2);
+                    }
+                    if (cantidad > 0) {
+                        miembrosPorCanal.put(canalActual, Arrays.copyOf(buffer, cantidad));
+                    }
                 }
             }
         }
         
-        canal.setMiembrosIds(miembros);
+        for (Canal canal : canales) {
+            long[] miembros = miembrosPorCanal.get(canal.getId());
+            canal.setMiembrosIds(miembros != null ? miembros : new long[0]);
+        }
+    }
+    
+    /**
+     * Lista de columnas de canales, con o sin foto
+     */
+    private String columnas(String alias, boolean incluirFoto) {
+        String columnas = alias + "id, " + alias + "nombre, " + alias + "descripcion, " +
+                          alias + "creador_id, " + alias + "es_privado, " +
+                          alias + "fecha_creacion, " + alias + "activo";
+        return incluirFoto ? columnas + ", " + alias + "foto" : columnas;
     }
     
     /**
      * Mapear ResultSet a objeto Canal
      */
-    private Canal mapearCanal(ResultSet rs) throws SQLException {
+    private Canal mapearCanal(ResultSet rs, boolean incluirFoto) throws SQLException {
         Canal canal = new Canal();
         canal.setId(rs.getLong("id"));
         canal.setNombre(rs.getString("nombre"));
         canal.setDescripcion(rs.getString("descripcion"));
-        canal.setFoto(rs.getBytes("foto"));
+        if (incluirFoto) {
+            canal.setFoto(rs.getBytes("foto"));
+        }
         canal.setCreadorId(rs.getLong("creador_id"));
         canal.setEsPrivado(rs.getBoolean("es_privado"));
         canal.setActivo(rs.getBoolean("activo"));
@@ -2,12 +2,20 @@ package com.chat.servidor.datos;
 
 import com.chat.common.patterns.ConexionPool;
 import com.chat.common.utils.ConfiguracionManager;
+import java.io.File;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 /**
- * Gestor de conexiones a la base de datos MySQL con Object Pool
+ * Gestor de conexiones a la base de datos con Object Pool.
+ *
+ * db.perfil en config.properties elige la persistencia: "mysql" (por defecto, jdbc.*),
+ * "h2" (archivo local en h2.ruta) o "h2-memoria" (también con -Ddb.perfil=...). Los perfiles H2 usan el modo de
+ * compatibilidad MySQL, así los mismos DAO funcionan sin un servidor MySQL, y crean el
+ * esquema desde database/init_mysql.sql al iniciar.
  */
 public class ConexionDB {
     
@@ -17,6 +25,23 @@ public class ConexionDB {
     private static String USER;
     private static String PASSWORD;
     private static Connection conexion = null;
+    private static String perfil;
+    
+    /** Opciones de H2 para aceptar el SQL de los DAO escrito para MySQL */
+    private static final String OPCIONES_H2 = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+    // Varios procesos (nodos de un cluster en la misma máquina) pueden abrir el mismo archivo
+    private static final String OPCIONES_H2_ARCHIVO = ";AUTO_SERVER=TRUE";
+    
+    /**
+     * Índices agregados a init_mysql.sql después de la creación de las tablas:
+     * {tabla, índice, columnas}. CREATE TABLE IF NOT EXISTS no los agrega a una base ya
+     * creada, así que se crean aquí si faltan.
+     */
+    private static final String[][] INDICES_POSTERIORES = {
+        {"logs_mensajes", "idx_privado_keyset", "remitente_username, destinatario_username, timestamp, id"},
+        {"logs_mensajes", "idx_canal_keyset", "canal_id, timestamp, id"},
+        {"usuarios", "idx_fecha_registro", "fecha_registro"}
+    };
     
     /**
      * Inicializar pool de conexiones
@@ -26,21 +51,35 @@ public class ConexionDB {
             // Cargar configuración
             config = new ConfiguracionManager("config.properties");
             
-            URL = config.getPropiedad("jdbc.url", "jdbc:mysql://localhost:3306/chat_universitario");
-            USER = config.getPropiedad("jdbc.username", "root");
-            PASSWORD = config.getPropiedad("jdbc.password", "root");
+            perfil = leerPerfil();
+            String driver;
+            
+            if (esH2()) {
+                URL = "h2-memoria".equals(perfil)
+                    ? "jdbc:h2:mem:chat_universitario;DB_CLOSE_DELAY=-1" + OPCIONES_H2
+                    : "jdbc:h2:file:" + new File(config.getPropiedad("h2.ruta", "datos/servidor/chat_universitario")).getAbsolutePath()
+                        + OPCIONES_H2 + OPCIONES_H2_ARCHIVO;
+                USER = config.getPropiedad("h2.username", "sa");
+                PASSWORD = config.getPropiedad("h2.password", "");
+                driver = "org.h2.Driver";
+            } else {
+                URL = config.getPropiedad("jdbc.url", "jdbc:mysql://localhost:3306/chat_universitario");
+                USER = config.getPropiedad("jdbc.username", "root");
+                PASSWORD = config.getPropiedad("jdbc.password", "root");
+                driver = config.getPropiedad("jdbc.driver", "com.mysql.cj.jdbc.Driver");
+            }
             
             int poolMin = config.getPropiedadInt("jdbc.pool.min", 5);
             int poolMax = config.getPropiedadInt("jdbc.pool.max", 20);
             
             try {
-                Class.forName(config.getPropiedad("jdbc.driver", "com.mysql.cj.jdbc.Driver"));
+                Class.forName(driver);
             } catch (ClassNotFoundException e) {
-                throw new SQLException("Driver MySQL no encontrado", e);
+                throw new SQLException("Driver JDBC no encontrado: " + driver, e);
             }
             
             pool = new ConexionPool(URL, USER, PASSWORD, poolMax);
-            System.out.println("Pool de conexiones inicializado (max: " + poolMax + ")");
+            System.out.println("Pool de conexiones inicializado (perfil: " + perfil + ", max: " + poolMax + ")");
         }
     }
     
@@ -63,6 +102,37 @@ public class ConexionDB {
         }
     }
     
+    /**
+     * Preparar una consulta de solo lectura que entrega las filas a medida que se leen,
+     * sin materializar el resultado completo en memoria.
+     * En MySQL se usa fetchSize = Integer.MIN_VALUE (streaming fila a fila); en otros
+     * drivers se usa exportar.fetch.size. Mientras el ResultSet esté abierto la conexión
+     * no admite otras consultas, por lo que conviene usar una conexión dedicada.
+     */
+    public static PreparedStatement prepararConsultaStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        String motor = conn.getMetaData().getDatabaseProductName();
+        if ("MySQL".equalsIgnoreCase(motor)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            stmt.setFetchSize(getConfig().getPropiedadInt("exportar.fetch.size", 1000));
+        }
+        return stmt;
+    }
+    
+    /**
+     * Cancelar una consulta en streaming que se abandona antes de leerla entera.
+     * Llamar antes de cerrar el ResultSet: en MySQL cerrarlo lee y descarta todas las
+     * filas que quedan, así que abortar una exportación grande tardaría lo mismo que terminarla.
+     */
+    public static void cancelarConsulta(Statement stmt) {
+        try {
+            stmt.cancel();
+        } catch (SQLException e) {
+            System.err.println("⚠️ No se pudo cancelar la consulta: " + e.getMessage());
+        }
+    }
+    
     /**
      * Cerrar pool de conexiones
      */
@@ -83,12 +153,46 @@ public class ConexionDB {
         return config;
     }
     
+    /**
+     * Perfil de persistencia activo ("mysql", "h2" o "h2-memoria")
+     */
+    public static String getPerfil() {
+        if (perfil == null) {
+            perfil = leerPerfil();
+        }
+        return perfil;
+    }
+    
+    /**
+     * db.perfil de config.properties; -Ddb.perfil=... lo sobrescribe sin reempaquetar el JAR
+     */
+    private static String leerPerfil() {
+        String valor = System.getProperty("db.perfil", getConfig().getPropiedad("db.perfil", "mysql"));
+        return valor.trim().toLowerCase();
+    }
+    
+    /**
+     * Indica si el perfil activo es H2 (archivo o memoria)
+     */
+    public static boolean esH2() {
+        return getPerfil().startsWith("h2");
+    }
+    
     /**
      * Inicializar base de datos y tablas
      */
     public static void inicializarBaseDatos() throws SQLException {
         Connection conn = obtenerConexion();
         
+        if (esH2()) {
+            try {
+                EsquemaH2.aplicar(conn, getConfig().getPropiedad("h2.esquema", "database/init_mysql.sql"));
+            } finally {
+                liberarConexion(conn);
+            }
+            return;
+        }
+        
         try (Statement stmt = conn.createStatement()) {
             // Tabla de usuarios
             String crearTablaUsuarios = 
@@ -147,7 +251,45 @@ public class ConexionDB {
             stmt.execute(crearTablaGrupoMiembros);
             stmt.execute(crearTablaMensajes);
             
+            aplicarIndicesFaltantes(conn);
+            
             System.out.println("Base de datos inicializada correctamente");
         }
     }
+    
+    /**
+     * Crear los índices de INDICES_POSTERIORES que falten (idempotente: MySQL no
+     * admite CREATE INDEX IF NOT EXISTS, se consulta information_schema)
+     */
+    private static void aplicarIndicesFaltantes(Connection conn) throws SQLException {
+        String sqlTabla = "SELECT COUNT(*) FROM information_schema.tables " +
+                         "WHERE table_schema = DATABASE() AND table_name = ?";
+        String sqlIndice = "SELECT COUNT(*) FROM information_schema.statistics " +
+                          "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?";
+        
+        try (PreparedStatement existeTabla = conn.prepareStatement(sqlTabla);
+             PreparedStatement existeIndice = conn.prepareStatement(sqlIndice);
+             Statement stmt = conn.createStatement()) {
+            for (String[] indice : INDICES_POSTERIORES) {
+                // Tablas que aún no existen se crean con el índice desde init_mysql.sql
+                if (!existe(existeTabla, indice[0])) {
+                    continue;
+                }
+                if (existe(existeIndice, indice[0], indice[1])) {
+                    continue;
+                }
+                stmt.execute("CREATE INDEX " + indice[1] + " ON " + indice[0] + " (" + indice[2] + ")");
+                System.out.println("✓ Índice " + indice[1] + " creado en " + indice[0]);
+            }
+        }
+    }
+    
+    private static boolean existe(PreparedStatement stmt, String... parametros) throws SQLException {
+        for (int i = 0; i < parametros.length; i++) {
+            stmt.setString(i + 1, parametros[i]);
+        }
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() && rs.getLong(1) > 0;
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package com.chat.servidor.datos;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parámetros de una página de resultados para los informes del servidor:
+ * columna de orden, sentido, filtro de texto y cursor (valor de orden, id) de la
+ * última fila de la página anterior.
+ *
+ * Con cursor la página se resuelve por keyset (WHERE (orden, id) > cursor), sin
+ * importar qué tan profundo esté. Sin cursor se usa el desplazamiento, que solo
+ * debería ser distinto de 0 cuando se salta a una página cuya anterior no se cargó.
+ */
+public class ConsultaPagina {
+    
+    private final String orden;
+    private final boolean ascendente;
+    private final String filtro;
+    private final Object cursorValor;
+    private final Long cursorId;
+    private final int desplazamiento;
+    private final int limite;
+    
+    /**
+     * @param orden Clave lógica de la columna de orden (la traduce a SQL cada consulta)
+     * @param ascendente Sentido del orden
+     * @param filtro Texto a buscar (null o vacío = sin filtro)
+     * @param cursorValor Valor de orden de la última fila de la página anterior (null = sin cursor)
+     * @param cursorId ID de la última fila de la página anterior
+     * @param desplazamiento Filas a saltar cuando no hay cursor
+     * @param limite Máximo de filas de la página
+     */
+    public ConsultaPagina(String orden, boolean ascendente, String filtro,
+                          Object cursorValor, Long cursorId, int desplazamiento, int limite) {
+        this.orden = orden;
+        this.ascendente = ascendente;
+        this.filtro = filtro != null ? filtro.trim() : "";
+        this.cursorValor = cursorValor;
+        this.cursorId = cursorId;
+        this.desplazamiento = desplazamiento;
+        this.limite = limite;
+    }
+    
+    /**
+     * Traducir la clave de orden a su expresión SQL.
+     * Solo se aceptan las claves de la lista blanca de cada consulta.
+     */
+    public String expresionOrden(Map<String, String> permitidas, String porDefecto) {
+        String expresion = permitidas.get(orden != null ? orden : porDefecto);
+        if (expresion == null) {
+            throw new IllegalArgumentException("Columna de orden no permitida: " + orden);
+        }
+        return expresion;
+    }
+    
+    public boolean tieneCursor() {
+        return cursorValor != null && cursorId != null;
+    }
+    
+    public boolean tieneFiltro() {
+        return !filtro.isEmpty();
+    }
+    
+    /**
+     * Condición keyset sobre (expresión, id); vacía si no hay cursor
+     */
+    public String condicionCursor(String expresion, String columnaId) {
+        if (!tieneCursor()) {
+            return "";
+        }
+        String comparador = ascendente ? ">" : "<";
+        return "(" + expresion + " " + comparador + " ? OR (" + expresion + " = ? AND " +
+               columnaId + " " + comparador + " ?))";
+    }
+    
+    public String clausulaOrden(String expresion, String columnaId) {
+        String sentido = ascendente ? " ASC" : " DESC";
+        return " ORDER BY " + expresion + sentido + ", " + columnaId + sentido;
+    }
+    
+    public String clausulaLimite() {
+        return usaDesplazamiento() ? " LIMIT ? OFFSET ?" : " LIMIT ?";
+    }
+    
+    /**
+     * Unir condiciones no vacías en una cláusula WHERE
+     */
+    public static String clausulaWhere(List<String> condiciones) {
+        StringBuilder where = new StringBuilder();
+        for (String condicion : condiciones) {
+            if (condicion == null || condicion.isEmpty()) {
+                continue;
+            }
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append(condicion);
+        }
+        return where.toString();
+    }
+    
+    public int asignarCursor(PreparedStatement stmt, int indice) throws SQLException {
+        if (tieneCursor()) {
+            Object valor = cursorValor instanceof LocalDateTime
+                ? Timestamp.valueOf((LocalDateTime) cursorValor)
+                : cursorValor;
+            stmt.setObject(indice++, valor);
+            stmt.setObject(indice++, valor);
+            stmt.setLong(indice++, cursorId);
+        }
+        return indice;
+    }
+    
+    public int asignarLimite(PreparedStatement stmt, int indice) throws SQLException {
+        stmt.setInt(indice++, limite);
+        if (usaDesplazamiento()) {
+            stmt.setInt(indice++, desplazamiento);
+        }
+        return indice;
+    }
+    
+    /**
+     * Patrón LIKE del filtro con los comodines escapados
+     */
+    public String getPatronFiltro() {
+        String escapado = filtro.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escapado + "%";
+    }
+    
+    private boolean usaDesplazamiento() {
+        return !tieneCursor() && desplazamiento > 0;
+    }
+    
+    public String getOrden() {
+        return orden;
+    }
+    
+    public boolean isAscendente() {
+        return ascendente;
+    }
+    
+    public String getFiltro() {
+        return filtro;
+    }
+    
+    public int getLimite() {
+        return limite;
+    }
+}
@@ -0,0 +1,162 @@
+package com.chat.servidor.datos;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parámetros de una búsqueda de texto completo sobre los logs de mensajes:
+ * palabras a buscar, filtros opcionales (remitente, canal, rango de fechas),
+ * ámbito del usuario que busca y página solicitada.
+ *
+ * Las palabras se normalizan (minúsculas, sin tildes) y se buscan como prefijo;
+ * todas deben aparecer en el mensaje (contenido o transcripción).
+ */
+public class CriterioBusqueda {
+    
+    /** Longitud mínima de palabra indexada (igual a innodb_ft_min_token_size por defecto) */
+    public static final int LONGITUD_MINIMA_TERMINO = 3;
+    
+    /** Una palabra: secuencia de letras o dígitos */
+    public static final Pattern PATRON_PALABRA = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    
+    private final String texto;
+    private final List<String> terminos;
+    private final String remitente;
+    private final Long canalId;
+    private final LocalDateTime desde;
+    private final LocalDateTime hasta;
+    private final String participante;
+    private final Long participanteId;
+    private final int desplazamiento;
+    private final int limite;
+    
+    /**
+     * @param texto Palabras a buscar
+     * @param remitente Username del remitente (null = cualquiera)
+     * @param canalId ID del canal (null = cualquiera)
+     * @param desde Fecha mínima inclusive (null = sin límite)
+     * @param hasta Fecha máxima exclusiva (null = sin límite)
+     * @param participante Username que busca: solo ve sus privados y sus canales (null = sin restricción)
+     * @param participanteId ID del usuario que busca
+     * @param desplazamiento Resultados a saltar
+     * @param limite Máximo de resultados de la página
+     */
+    public CriterioBusqueda(String texto, String remitente, Long canalId, LocalDateTime desde, LocalDateTime hasta,
+                            String participante, Long participanteId, int desplazamiento, int limite) {
+        this.texto = texto != null ? texto.trim() : "";
+        this.terminos = tokenizar(this.texto);
+        this.remitente = remitente != null && !remitente.trim().isEmpty() ? remitente.trim() : null;
+        this.canalId = canalId;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.participante = participante;
+        this.participanteId = participanteId;
+        this.desplazamiento = Math.max(0, desplazamiento);
+        this.limite = limite;
+    }
+    
+    /**
+     * Dividir un texto en palabras normalizadas sin repetir,
+     * descartando las más cortas que LONGITUD_MINIMA_TERMINO
+     */
+    public static List<String> tokenizar(String texto) {
+        Set<String> terminos = new LinkedHashSet<>();
+        if (texto == null) {
+            return new ArrayList<>(terminos);
+        }
+        Matcher matcher = PATRON_PALABRA.matcher(normalizar(texto));
+        while (matcher.find()) {
+            if (matcher.end() - matcher.start() >= LONGITUD_MINIMA_TERMINO) {
+                terminos.add(matcher.group());
+            }
+        }
+        return new ArrayList<>(terminos);
+    }
+    
+    /**
+     * Minúsculas y sin tildes (á → a, ñ → n), para comparar como lo hace la collation de MySQL
+     */
+    public static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Expresión para MATCH ... AGAINST (... IN BOOLEAN MODE): todas las palabras, como prefijo.
+     * Solo contiene letras y dígitos, así que el texto del usuario no puede inyectar operadores.
+     */
+    public String expresionBooleana() {
+        StringBuilder expresion = new StringBuilder();
+        for (String termino : terminos) {
+            if (expresion.length() > 0) {
+                expresion.append(' ');
+            }
+            expresion.append('+').append(termino).append('*');
+        }
+        return expresion.toString();
+    }
+    
+    public boolean tieneTerminos() {
+        return !terminos.isEmpty();
+    }
+    
+    public boolean tieneAmbito() {
+        return participante != null;
+    }
+    
+    /**
+     * Clave de caché: incluye todo lo que cambia el resultado, incluido el ámbito
+     */
+    public String clave() {
+        return String.join(" ", terminos) + "|" + remitente + "|" + canalId + "|" + desde + "|" + hasta +
+               "|" + participante + "|" + desplazamiento + "|" + limite;
+    }
+    
+    public String getTexto() {
+        return texto;
+    }
+    
+    public List<String> getTerminos() {
+        return terminos;
+    }
+    
+    public String getRemitente() {
+        return remitente;
+    }
+    
+    public Long getCanalId() {
+        return canalId;
+    }
+    
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+    
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+    
+    public String getParticipante() {
+        return participante;
+    }
+    
+    public Long getParticipanteId() {
+        return participanteId;
+    }
+    
+    public int getDesplazamiento() {
+        return desplazamiento;
+    }
+    
+    public int getLimite() {
+        return limite;
+    }
+}
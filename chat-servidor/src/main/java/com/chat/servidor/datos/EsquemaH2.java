@@ -0,0 +1,169 @@
+package com.chat.servidor.datos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Crea el esquema del servidor en H2 (modo MySQL) a partir de database/init_mysql.sql,
+ * para que el script de MySQL siga siendo la única definición de las tablas.
+ *
+ * H2 acepta casi todo el DDL de MySQL en modo compatibilidad; lo que no acepta se adapta:
+ * - Se omiten CREATE DATABASE y USE.
+ * - Los INDEX / KEY / UNIQUE KEY dentro de CREATE TABLE pasan a CREATE INDEX aparte, con
+ *   el nombre de la tabla como prefijo (en H2 los nombres de índice son únicos por esquema).
+ * - Los índices FULLTEXT se omiten: la búsqueda usa el índice en memoria (busqueda.motor=auto).
+ */
+public class EsquemaH2 {
+    
+    private static final String RECURSO_SCRIPT = "database/init_mysql.sql";
+    
+    private static final Pattern CREAR_TABLA = Pattern.compile(
+        "^CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(\\w+)\\s*\\(", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INDICE = Pattern.compile(
+        "^(UNIQUE\\s+|FULLTEXT\\s+)?(?:INDEX|KEY)\\s+(\\w+)\\s*\\((.*)\\)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    
+    private EsquemaH2() {
+    }
+    
+    /**
+     * Ejecutar el script sobre la conexión (idempotente: todo usa IF NOT EXISTS)
+     * @param rutaScript Ruta en disco del script; si no existe se usa el copiado en el classpath
+     */
+    public static void aplicar(Connection conn, String rutaScript) throws SQLException {
+        String script = leerScript(rutaScript);
+        int tablas = 0;
+        try (Statement stmt = conn.createStatement()) {
+            for (String sentencia : dividirSentencias(script)) {
+                for (String traducida : traducir(sentencia)) {
+                    stmt.execute(traducida);
+                }
+                if (CREAR_TABLA.matcher(sentencia).find()) {
+                    tablas++;
+                }
+            }
+        }
+        System.out.println("Esquema H2 creado desde init_mysql.sql (" + tablas + " tablas)");
+    }
+    
+    private static String leerScript(String rutaScript) throws SQLException {
+        try {
+            Path ruta = Paths.get(rutaScript);
+            if (Files.isRegularFile(ruta)) {
+                return new String(Files.readAllBytes(ruta), StandardCharsets.UTF_8);
+            }
+            try (InputStream input = EsquemaH2.class.getClassLoader().getResourceAsStream(RECURSO_SCRIPT)) {
+                if (input == null) {
+                    throw new SQLException("No se encuentra el script de esquema: " + rutaScript);
+                }
+                return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Error al leer el script de esquema: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Separar el script en sentencias, quitando comentarios "--" y "#"
+     */
+    static List<String> dividirSentencias(String script) {
+        StringBuilder limpio = new StringBuilder();
+        for (String linea : script.split("\\r?\\n")) {
+            String recortada = linea.trim();
+            if (recortada.startsWith("#")) {
+                continue;
+            }
+            int comentario = linea.indexOf("--");
+            limpio.append(comentario >= 0 ? linea.substring(0, comentario) : linea).append('\n');
+        }
+        
+        List<String> sentencias = new ArrayList<>();
+        for (String sentencia : limpio.toString().split(";")) {
+            if (!sentencia.trim().isEmpty()) {
+                sentencias.add(sentencia.trim());
+            }
+        }
+        return sentencias;
+    }
+    
+    /**
+     * Sentencias H2 equivalentes a una sentencia del script de MySQL
+     */
+    static List<String> traducir(String sentencia) {
+        List<String> resultado = new ArrayList<>();
+        String inicio = sentencia.toUpperCase(Locale.ROOT);
+        if (inicio.startsWith("CREATE DATABASE") || inicio.startsWith("USE ")) {
+            return resultado;
+        }
+        
+        Matcher tabla = CREAR_TABLA.matcher(sentencia);
+        if (!tabla.find()) {
+            resultado.add(sentencia);
+            return resultado;
+        }
+        String nombreTabla = tabla.group(1);
+        int apertura = tabla.end() - 1;
+        int cierre = sentencia.lastIndexOf(')');
+        
+        List<String> columnas = new ArrayList<>();
+        List<String> indices = new ArrayList<>();
+        for (String elemento : dividirElementos(sentencia.substring(apertura + 1, cierre))) {
+            Matcher indice = INDICE.matcher(elemento);
+            if (!indice.matches()) {
+                columnas.add(elemento);
+                continue;
+            }
+            String modificador = indice.group(1) == null ? "" : indice.group(1).trim().toUpperCase(Locale.ROOT);
+            if ("FULLTEXT".equals(modificador)) {
+                continue;
+            }
+            indices.add("CREATE " + ("UNIQUE".equals(modificador) ? "UNIQUE " : "") + "INDEX IF NOT EXISTS "
+                + nombreTabla + "_" + indice.group(2) + " ON " + nombreTabla + " (" + indice.group(3).trim() + ")");
+        }
+        
+        resultado.add(sentencia.substring(0, apertura + 1) + "\n    " + String.join(",\n    ", columnas) + "\n"
+            + sentencia.substring(cierre));
+        resultado.addAll(indices);
+        return resultado;
+    }
+    
+    /**
+     * Separar el cuerpo de CREATE TABLE por las comas de primer nivel
+     */
+    private static List<String> dividirElementos(String cuerpo) {
+        List<String> elementos = new ArrayList<>();
+        int profundidad = 0;
+        int inicio = 0;
+        for (int i = 0; i < cuerpo.length(); i++) {
+            char c = cuerpo.charAt(i);
+            if (c == '(') {
+                profundidad++;
+            } else if (c == ')') {
+                profundidad--;
+            } else if (c == ',' && profundidad == 0) {
+                agregarElemento(elementos, cuerpo.substring(inicio, i));
+                inicio = i + 1;
+            }
+        }
+        agregarElemento(elementos, cuerpo.substring(inicio));
+        return elementos;
+    }
+    
+    private static void agregarElemento(List<String> elementos, String elemento) {
+        String recortado = elemento.trim();
+        if (!recortado.isEmpty()) {
+            elementos.add(recortado);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.chat.servidor.datos;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -7,7 +8,10 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO para gestionar logs de mensajes (texto y audio) con transcripciones
@@ -15,6 +19,31 @@ import java.util.List;
  */
 public class LogMensajeDAO {
     
+    /** Columnas del historial paginado (excluye contenido_audio para no transferir blobs) */
+    private static final String COLUMNAS_HISTORIAL =
+        "id, tipo_mensaje, tipo_conversacion, remitente_username, destinatario_username, " +
+        "canal_nombre, contenido_texto, transcripcion_audio, duracion_segundos, formato_audio, timestamp";
+    
+    /** Columnas por las que se puede ordenar la página de informes (clave lógica → SQL) */
+    private static final Map<String, String> ORDENES_LOGS = new HashMap<>();
+    
+    /** Filtro de texto de la página de informes (5 parámetros LIKE) */
+    private static final String CONDICION_FILTRO_LOGS =
+        "(remitente_username LIKE ? OR destinatario_username LIKE ? OR canal_nombre LIKE ? " +
+        "OR contenido_texto LIKE ? OR transcripcion_audio LIKE ?)";
+    
+    /** Coincidencia de texto completo sobre el índice FULLTEXT idx_contenido */
+    private static final String EXPRESION_MATCH =
+        "MATCH(contenido_texto, transcripcion_audio) AGAINST (? IN BOOLEAN MODE)";
+    
+    static {
+        ORDENES_LOGS.put("id", "id");
+        ORDENES_LOGS.put("tipo", "tipo_mensaje");
+        ORDENES_LOGS.put("conversacion", "tipo_conversacion");
+        ORDENES_LOGS.put("remitente", "remitente_username");
+        ORDENES_LOGS.put("fecha", "timestamp");
+    }
+    
     private final Connection conexion;
     
     /**
@@ -290,6 +319,374 @@ public class LogMensajeDAO {
         return logs;
     }
     
+    /**
+     * Obtener una página del historial privado entre dos usuarios usando un cursor
+     * (timestamp, id). Sin cursor se devuelve la página más reciente.
+     * Cada sentido de la conversación se resuelve por separado sobre el índice
+     * idx_privado_keyset y luego se combinan, para no recorrer la conversación completa.
+     * @param haciaAtras true para mensajes anteriores al cursor, false para posteriores
+     * @return Mensajes en orden cronológico ascendente (sin el contenido binario del audio)
+     */
+    public List<LogMensaje> obtenerHistorialPrivado(String usuario1, String usuario2,
+                                                    LocalDateTime cursorFecha, Long cursorId,
+                                                    boolean haciaAtras, int limite) throws SQLException {
+        String subconsulta = "(SELECT " + COLUMNAS_HISTORIAL + " FROM logs_mensajes " +
+                            "WHERE remitente_username = ? AND destinatario_username = ?" +
+                            condicionCursor(cursorFecha, haciaAtras) +
+                            ordenCursor(haciaAtras) + " LIMIT ?)";
+        String sql = "SELECT * FROM (" + subconsulta + " UNION ALL " + subconsulta + ") historial" +
+                    ordenCursor(haciaAtras) + " LIMIT ?";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            int indice = 1;
+            indice = asignarParametrosPrivado(stmt, indice, usuario1, usuario2, cursorFecha, cursorId, limite);
+            indice = asignarParametrosPrivado(stmt, indice, usuario2, usuario1, cursorFecha, cursorId, limite);
+            stmt.setInt(indice, limite);
+            
+            return leerHistorial(stmt, haciaAtras);
+        }
+    }
+    
+    /**
+     * Obtener una página del historial de un canal usando un cursor (timestamp, id).
+     * Sin cursor se devuelve la página más reciente.
+     * @param haciaAtras true para mensajes anteriores al cursor, false para posteriores
+     * @return Mensajes en orden cronológico ascendente (sin el contenido binario del audio)
+     */
+    public List<LogMensaje> obtenerHistorialCanal(Long canalId, LocalDateTime cursorFecha, Long cursorId,
+                                                  boolean haciaAtras, int limite) throws SQLException {
+        String sql = "SELECT " + COLUMNAS_HISTORIAL + " FROM logs_mensajes WHERE canal_id = ?" +
+                    condicionCursor(cursorFecha, haciaAtras) +
+                    ordenCursor(haciaAtras) + " LIMIT ?";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            int indice = 1;
+            stmt.setLong(indice++, canalId);
+            indice = asignarCursor(stmt, indice, cursorFecha, cursorId);
+            stmt.setInt(indice, limite);
+            
+            return leerHistorial(stmt, haciaAtras);
+        }
+    }
+    
+    /**
+     * Obtener una página de logs para los informes, con orden y filtro resueltos en SQL
+     * @return Página sin el contenido binario del audio, con el cursor de su última fila
+     */
+    public Pagina<LogMensaje> obtenerPaginaLogs(ConsultaPagina consulta) throws SQLException {
+        String orden = consulta.expresionOrden(ORDENES_LOGS, "fecha");
+        List<String> condiciones = new ArrayList<>();
+        condiciones.add(consulta.tieneFiltro() ? CONDICION_FILTRO_LOGS : "");
+        condiciones.add(consulta.condicionCursor(orden, "id"));
+        
+        String sql = "SELECT " + COLUMNAS_HISTORIAL + ", direccion_ip_remitente, " +
+                    orden + " AS " + Pagina.COLUMNA_VALOR_ORDEN + " FROM logs_mensajes" +
+                    ConsultaPagina.clausulaWhere(condiciones) +
+                    consulta.clausulaOrden(orden, "id") + consulta.clausulaLimite();
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            int indice = 1;
+            if (consulta.tieneFiltro()) {
+                indice = asignarFiltroLogs(stmt, indice, consulta.getPatronFiltro());
+            }
+            indice = consulta.asignarCursor(stmt, indice);
+            consulta.asignarLimite(stmt, indice);
+            
+            return Pagina.leer(stmt, rs -> {
+                LogMensaje log = mapearHistorial(rs);
+                log.direccionIP = rs.getString("direccion_ip_remitente");
+                return log;
+            });
+        }
+    }
+    
+    /**
+     * Contar los logs que cumplen un filtro de texto (sin filtro cuenta todos)
+     */
+    public int contarLogs(String filtro) throws SQLException {
+        ConsultaPagina consulta = new ConsultaPagina(null, true, filtro, null, null, 0, 0);
+        String sql = "SELECT COUNT(*) FROM logs_mensajes" +
+                    (consulta.tieneFiltro() ? " WHERE " + CONDICION_FILTRO_LOGS : "");
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            if (consulta.tieneFiltro()) {
+                asignarFiltroLogs(stmt, 1, consulta.getPatronFiltro());
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * Recorrer todos los logs en orden cronológico sin cargarlos en memoria
+     * (usar una conexión dedicada: queda ocupada hasta terminar el recorrido)
+     * @param procesador Recibe cada log a medida que se lee
+     * @return Cantidad de logs recorridos
+     */
+    public long recorrerLogs(ProcesadorFilas<LogMensaje> procesador) throws SQLException, IOException {
+        String sql = "SELECT " + COLUMNAS_HISTORIAL + ", direccion_ip_remitente " +
+                    "FROM logs_mensajes ORDER BY timestamp, id";
+        long total = 0;
+        
+        try (PreparedStatement stmt = ConexionDB.prepararConsultaStreaming(conexion, sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            try {
+                while (rs.next()) {
+                    LogMensaje log = mapearHistorial(rs);
+                    log.direccionIP = rs.getString("direccion_ip_remitente");
+                    procesador.procesar(log);
+                    total++;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Cancelación o error al escribir: no leer el resto antes de cerrar
+                ConexionDB.cancelarConsulta(stmt);
+                throw e;
+            }
+        }
+        
+        return total;
+    }
+    
+    /**
+     * Buscar logs por texto completo (MATCH ... AGAINST sobre idx_contenido),
+     * ordenados por relevancia
+     * @param criterio Palabras, filtros, ámbito y página
+     * @return Logs de la página con su relevancia
+     * @throws SQLException Si hay error en la base de datos (p. ej. falta el índice FULLTEXT)
+     */
+    public List<LogMensaje> buscarLogs(CriterioBusqueda criterio) throws SQLException {
+        String sql = "SELECT " + COLUMNAS_HISTORIAL + ", canal_id, " + EXPRESION_MATCH + " AS relevancia " +
+                    "FROM logs_mensajes" + ConsultaPagina.clausulaWhere(condicionesBusqueda(criterio)) +
+                    " ORDER BY relevancia DESC, id DESC LIMIT ? OFFSET ?";
+        List<LogMensaje> logs = new ArrayList<>();
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            stmt.setString(1, criterio.expresionBooleana());
+            int indice = asignarBusqueda(stmt, 2, criterio);
+            stmt.setInt(indice++, criterio.getLimite());
+            stmt.setInt(indice, criterio.getDesplazamiento());
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    LogMensaje log = mapearHistorial(rs);
+                    log.canalId = rs.getObject("canal_id", Long.class);
+                    log.relevancia = rs.getDouble("relevancia");
+                    logs.add(log);
+                }
+            }
+        }
+        
+        return logs;
+    }
+    
+    /**
+     * Contar todos los resultados de una búsqueda de texto completo
+     */
+    public int contarBusqueda(CriterioBusqueda criterio) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM logs_mensajes" +
+                    ConsultaPagina.clausulaWhere(condicionesBusqueda(criterio));
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            asignarBusqueda(stmt, 1, criterio);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Obtener logs por ID conservando el orden de la lista (sin contenido_audio)
+     */
+    public List<LogMensaje> obtenerLogsPorIds(List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT " + COLUMNAS_HISTORIAL + ", canal_id FROM logs_mensajes WHERE id IN (" + marcadores + ")";
+        Map<Long, LogMensaje> porId = new HashMap<>();
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    LogMensaje log = mapearHistorial(rs);
+                    log.canalId = rs.getObject("canal_id", Long.class);
+                    porId.put(log.id, log);
+                }
+            }
+        }
+        
+        List<LogMensaje> logs = new ArrayList<>();
+        for (Long id : ids) {
+            LogMensaje log = porId.get(id);
+            if (log != null) {
+                logs.add(log);
+            }
+        }
+        return logs;
+    }
+    
+    /**
+     * Recorrer en orden de ID los logs posteriores a uno dado, con streaming,
+     * para alimentar un índice de búsqueda en memoria
+     * @param despuesDeId ID a partir del cual leer (exclusivo; 0 = desde el principio)
+     * @param procesador Recibe cada log con su texto, remitente, destinatario, canal y fecha
+     * @return Cantidad de logs recorridos
+     */
+    public long recorrerLogsDesde(long despuesDeId, ProcesadorFilas<LogMensaje> procesador)
+            throws SQLException, IOException {
+        String sql = "SELECT " + COLUMNAS_HISTORIAL + ", canal_id FROM logs_mensajes WHERE id > ? ORDER BY id";
+        long total = 0;
+        
+        try (PreparedStatement stmt = ConexionDB.prepararConsultaStreaming(conexion, sql)) {
+            stmt.setLong(1, despuesDeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    LogMensaje log = mapearHistorial(rs);
+                    log.canalId = rs.getObject("canal_id", Long.class);
+                    procesador.procesar(log);
+                    total++;
+                }
+            } catch (IOException | RuntimeException e) {
+                ConexionDB.cancelarConsulta(stmt);
+                throw e;
+            }
+        }
+        
+        return total;
+    }
+    
+    /**
+     * Condiciones de búsqueda: texto completo, filtros opcionales y ámbito del usuario
+     * (sus mensajes privados y los canales de los que es miembro)
+     */
+    private List<String> condicionesBusqueda(CriterioBusqueda criterio) {
+        List<String> condiciones = new ArrayList<>();
+        condiciones.add(EXPRESION_MATCH);
+        condiciones.add(criterio.getRemitente() != null ? "remitente_username = ?" : "");
+        condiciones.add(criterio.getCanalId() != null ? "canal_id = ?" : "");
+        condiciones.add(criterio.getDesde() != null ? "timestamp >= ?" : "");
+        condiciones.add(criterio.getHasta() != null ? "timestamp < ?" : "");
+        condiciones.add(criterio.tieneAmbito()
+            ? "(remitente_username = ? OR destinatario_username = ? OR " +
+              "canal_id IN (SELECT canal_id FROM canal_miembros WHERE usuario_id = ?))"
+            : "");
+        return condiciones;
+    }
+    
+    private int asignarBusqueda(PreparedStatement stmt, int indice, CriterioBusqueda criterio) throws SQLException {
+        stmt.setString(indice++, criterio.expresionBooleana());
+        if (criterio.getRemitente() != null) {
+            stmt.setString(indice++, criterio.getRemitente());
+        }
+        if (criterio.getCanalId() != null) {
+            stmt.setLong(indice++, criterio.getCanalId());
+        }
+        if (criterio.getDesde() != null) {
+            stmt.setTimestamp(indice++, Timestamp.valueOf(criterio.getDesde()));
+        }
+        if (criterio.getHasta() != null) {
+            stmt.setTimestamp(indice++, Timestamp.valueOf(criterio.getHasta()));
+        }
+        if (criterio.tieneAmbito()) {
+            stmt.setString(indice++, criterio.getParticipante());
+            stmt.setString(indice++, criterio.getParticipante());
+            stmt.setLong(indice++, criterio.getParticipanteId());
+        }
+        return indice;
+    }
+    
+    private int asignarFiltroLogs(PreparedStatement stmt, int indice, String patron) throws SQLException {
+        for (int i = 0; i < 5; i++) {
+            stmt.setString(indice++, patron);
+        }
+        return indice;
+    }
+    
+    private String condicionCursor(LocalDateTime cursorFecha, boolean haciaAtras) {
+        if (cursorFecha == null) {
+            return "";
+        }
+        String comparador = haciaAtras ? "<" : ">";
+        return " AND (timestamp " + comparador + " ? OR (timestamp = ? AND id " + comparador + " ?))";
+    }
+    
+    private String ordenCursor(boolean haciaAtras) {
+        return haciaAtras ? " ORDER BY timestamp DESC, id DESC" : " ORDER BY timestamp ASC, id ASC";
+    }
+    
+    private int asignarParametrosPrivado(PreparedStatement stmt, int indice, String remitente,
+                                         String destinatario, LocalDateTime cursorFecha,
+                                         Long cursorId, int limite) throws SQLException {
+        stmt.setString(indice++, remitente);
+        stmt.setString(indice++, destinatario);
+        indice = asignarCursor(stmt, indice, cursorFecha, cursorId);
+        stmt.setInt(indice++, limite);
+        return indice;
+    }
+    
+    private int asignarCursor(PreparedStatement stmt, int indice,
+                              LocalDateTime cursorFecha, Long cursorId) throws SQLException {
+        if (cursorFecha != null) {
+            // Sin id no se sabe qué filas de ese mismo timestamp ya se entregaron
+            if (cursorId == null) {
+                throw new IllegalArgumentException("El cursor del historial necesita fecha e id");
+            }
+            Timestamp fecha = Timestamp.valueOf(cursorFecha);
+            stmt.setTimestamp(indice++, fecha);
+            stmt.setTimestamp(indice++, fecha);
+            stmt.setLong(indice++, cursorId);
+        }
+        return indice;
+    }
+    
+    private List<LogMensaje> leerHistorial(PreparedStatement stmt, boolean haciaAtras) throws SQLException {
+        List<LogMensaje> logs = new ArrayList<>();
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                logs.add(mapearHistorial(rs));
+            }
+        }
+        
+        // Las páginas hacia atrás se leen de la más nueva a la más vieja
+        if (haciaAtras) {
+            Collections.reverse(logs);
+        }
+        return logs;
+    }
+    
+    /**
+     * Mapear una fila con las columnas de COLUMNAS_HISTORIAL
+     */
+    private LogMensaje mapearHistorial(ResultSet rs) throws SQLException {
+        LogMensaje log = new LogMensaje();
+        log.id = rs.getLong("id");
+        log.tipoMensaje = rs.getString("tipo_mensaje");
+        log.tipoConversacion = rs.getString("tipo_conversacion");
+        log.remitenteUsername = rs.getString("remitente_username");
+        log.destinatarioUsername = rs.getString("destinatario_username");
+        log.grupoNombre = rs.getString("canal_nombre");
+        log.contenidoTexto = rs.getString("contenido_texto");
+        log.transcripcionAudio = rs.getString("transcripcion_audio");
+        
+        Object duracion = rs.getObject("duracion_segundos");
+        log.duracionSegundos = duracion != null ? rs.getLong("duracion_segundos") : 0;
+        
+        log.formatoAudio = rs.getString("formato_audio");
+        log.timestamp = rs.getTimestamp("timestamp").toLocalDateTime();
+        return log;
+    }
+    
     /**
      * Clase interna para representar un log de mensaje
      */
@@ -306,6 +703,8 @@ public class LogMensajeDAO {
         public String formatoAudio;
         public LocalDateTime timestamp;
         public String direccionIP;
+        public Long canalId;
+        public double relevancia; // Solo en resultados de búsqueda
         
         @Override
         public String toString() {
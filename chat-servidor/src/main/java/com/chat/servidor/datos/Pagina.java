@@ -0,0 +1,67 @@
+package com.chat.servidor.datos;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Una página de resultados junto con el cursor (valor de orden, id) de su última fila,
+ * que es el punto de partida de la página siguiente.
+ */
+public class Pagina<T> {
+    
+    /** Alias de la columna con el valor de orden en las consultas paginadas */
+    public static final String COLUMNA_VALOR_ORDEN = "valor_orden";
+    
+    private final List<T> filas;
+    private final Object cursorValor;
+    private final Long cursorId;
+    
+    public Pagina(List<T> filas, Object cursorValor, Long cursorId) {
+        this.filas = filas;
+        this.cursorValor = cursorValor;
+        this.cursorId = cursorId;
+    }
+    
+    /**
+     * Ejecutar una consulta paginada y mapear sus filas.
+     * La consulta debe seleccionar la columna "id" y la expresión de orden como "valor_orden".
+     */
+    public static <T> Pagina<T> leer(PreparedStatement stmt, MapeadorFila<T> mapeador) throws SQLException {
+        List<T> filas = new ArrayList<>();
+        Object cursorValor = null;
+        Long cursorId = null;
+        
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                filas.add(mapeador.mapear(rs));
+                cursorValor = rs.getObject(COLUMNA_VALOR_ORDEN);
+                cursorId = rs.getLong("id");
+            }
+        }
+        
+        return new Pagina<>(filas, cursorValor, cursorId);
+    }
+    
+    public List<T> getFilas() {
+        return filas;
+    }
+    
+    public Object getCursorValor() {
+        return cursorValor;
+    }
+    
+    public Long getCursorId() {
+        return cursorId;
+    }
+    
+    /**
+     * Convierte la fila actual de un ResultSet en un objeto
+     */
+    @FunctionalInterface
+    public interface MapeadorFila<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+}
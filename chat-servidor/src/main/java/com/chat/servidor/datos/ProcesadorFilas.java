@@ -0,0 +1,13 @@
+package com.chat.servidor.datos;
+
+import java.io.IOException;
+
+/**
+ * Recibe una a una las filas de una consulta recorrida en streaming
+ * (p. ej. para escribirlas directamente en un archivo de exportación)
+ */
+@FunctionalInterface
+public interface ProcesadorFilas<T> {
+    
+    void procesar(T fila) throws IOException;
+}
@@ -56,6 +56,14 @@ public class UsuarioDAO {
      * Buscar usuario por username
      */
     public Optional<Usuario> buscarPorUsername(String username) throws SQLException {
+        CacheDatos cache = CacheDatos.obtenerInstancia();
+        Usuario cacheado = cache.obtenerUsuarioPorUsername(username);
+        if (cacheado != null) {
+            return Optional.of(cacheado);
+        }
+        // Tomada antes de leer: si hay una invalidación en medio, lo leído no se cachea
+        long generacion = cache.getGeneracion();
+        
         String sql = "SELECT * FROM usuarios WHERE username = ?";
         
         try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
@@ -63,7 +71,9 @@ public class UsuarioDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapearUsuario(rs));
+                    Usuario usuario = mapearUsuario(rs);
+                    cache.guardarUsuario(usuario, generacion);
+                    return Optional.of(usuario);
                 }
             }
         }
@@ -75,6 +85,13 @@ public class UsuarioDAO {
      * Buscar usuario por ID
      */
     public Optional<Usuario> buscarPorId(Long id) throws SQLException {
+        CacheDatos cache = CacheDatos.obtenerInstancia();
+        Usuario cacheado = cache.obtenerUsuarioPorId(id);
+        if (cacheado != null) {
+            return Optional.of(cacheado);
+        }
+        long generacion = cache.getGeneracion();
+        
         String sql = "SELECT * FROM usuarios WHERE id = ?";
         
         try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
@@ -82,7 +99,9 @@ public class UsuarioDAO {
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapearUsuario(rs));
+                    Usuario usuario = mapearUsuario(rs);
+                    cache.guardarUsuario(usuario, generacion);
+                    return Optional.of(usuario);
                 }
             }
         }
@@ -126,6 +145,23 @@ public class UsuarioDAO {
         return usuarios;
     }
     
+    /**
+     * Contar usuarios registrados
+     */
+    public int contarUsuarios() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM usuarios";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        }
+        
+        return 0;
+    }
+    
     /**
      * Actualizar estado en línea del usuario
      */
@@ -140,6 +176,54 @@ public class UsuarioDAO {
         }
     }
     
+    /**
+     * Aplicar en una sola transacción un lote de cambios de estado en línea
+     * @return Cantidad de cambios aplicados
+     */
+    public int actualizarEstadosEnLinea(List<CambioEstado> cambios) throws SQLException {
+        if (cambios.isEmpty()) {
+            return 0;
+        }
+        
+        String sql = "UPDATE usuarios SET en_linea = ?, ultima_conexion = ? WHERE id = ?";
+        boolean autoCommitOriginal = conexion.getAutoCommit();
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            conexion.setAutoCommit(false);
+            
+            for (CambioEstado cambio : cambios) {
+                stmt.setBoolean(1, cambio.enLinea);
+                stmt.setTimestamp(2, Timestamp.valueOf(cambio.fecha));
+                stmt.setLong(3, cambio.usuarioId);
+                stmt.addBatch();
+            }
+            
+            stmt.executeBatch();
+            conexion.commit();
+            
+        } catch (SQLException e) {
+            conexion.rollback();
+            throw e;
+        } finally {
+            conexion.setAutoCommit(autoCommitOriginal);
+        }
+        
+        return cambios.size();
+    }
+    
+    /**
+     * Marcar como desconectados a todos los usuarios que quedaron en línea
+     * (por ejemplo, tras una caída del servidor)
+     * @return Cantidad de usuarios corregidos
+     */
+    public int reiniciarEstadosEnLinea() throws SQLException {
+        String sql = "UPDATE usuarios SET en_linea = false WHERE en_linea = true";
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            return stmt.executeUpdate();
+        }
+    }
+    
     /**
      * Mapear ResultSet a objeto Usuario
      */
@@ -164,4 +248,19 @@ public class UsuarioDAO {
         
         return usuario;
     }
+    
+    /**
+     * Cambio de estado en línea pendiente de persistir
+     */
+    public static class CambioEstado {
+        public final Long usuarioId;
+        public final boolean enLinea;
+        public final LocalDateTime fecha;
+        
+        public CambioEstado(Long usuarioId, boolean enLinea, LocalDateTime fecha) {
+            this.usuarioId = usuarioId;
+            this.enLinea = enLinea;
+            this.fecha = fecha;
+        }
+    }
 }
@@ -0,0 +1,169 @@
+package com.chat.servidor.negocio;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chat.servidor.datos.CanalDAO;
+import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.datos.LogMensajeDAO;
+import com.chat.servidor.datos.UsuarioDAO;
+
+/**
+ * Contadores de estadísticas mantenidos en memoria (Singleton)
+ * Se siembran con COUNT(*) al arrancar, se incrementan en cada registro, creación de canal,
+ * log de mensaje y transcripción, y se reconcilian periódicamente contra la BD.
+ * Así los informes se leen en O(1) sin recorrer tablas grandes.
+ * En modo cluster cada nodo solo incrementa lo suyo: los totales del cluster se
+ * recuperan en cada reconciliación.
+ */
+public class ContadoresServidor {
+    
+    private static ContadoresServidor instancia;
+    
+    private final AtomicInteger totalUsuarios = new AtomicInteger();
+    private final AtomicInteger totalCanales = new AtomicInteger();
+    private final AtomicInteger canalesActivos = new AtomicInteger();
+    private final AtomicInteger mensajesTexto = new AtomicInteger();
+    private final AtomicInteger mensajesAudio = new AtomicInteger();
+    private final AtomicInteger transcripcionesExitosas = new AtomicInteger();
+    private volatile boolean sembrado;
+    private ScheduledExecutorService planificador;
+    
+    private ContadoresServidor() {
+    }
+    
+    public static synchronized ContadoresServidor obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new ContadoresServidor();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Sembrar los contadores desde la BD y programar la reconciliación periódica
+     */
+    public synchronized void iniciar() {
+        if (planificador != null) {
+            return;
+        }
+        
+        reconciliar();
+        
+        long intervalo = ConexionDB.getConfig().getPropiedadLong("estadisticas.reconciliar.minutos", 10);
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "estadisticas-reconciliar");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(this::reconciliar, intervalo, intervalo, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Recalcular todos los contadores con COUNT(*) sobre la BD
+     * (corrige cualquier deriva, p. ej. filas insertadas o borradas fuera del servidor)
+     */
+    public void reconciliar() {
+        Connection conn = null;
+        try {
+            conn = ConexionDB.obtenerConexion();
+            UsuarioDAO usuarioDAO = new UsuarioDAO(conn);
+            CanalDAO canalDAO = new CanalDAO(conn);
+            LogMensajeDAO logDAO = new LogMensajeDAO(conn);
+            
+            totalUsuarios.set(usuarioDAO.contarUsuarios());
+            totalCanales.set(canalDAO.contarCanales(false));
+            canalesActivos.set(canalDAO.contarCanales(true));
+            mensajesTexto.set(logDAO.contarMensajesPorTipo("TEXTO"));
+            mensajesAudio.set(logDAO.contarMensajesPorTipo("AUDIO"));
+            transcripcionesExitosas.set(logDAO.contarTranscripcionesExitosas());
+            sembrado = true;
+            
+            System.out.println("Contadores de estadísticas reconciliados: " + totalUsuarios.get() + " usuarios, " +
+                             totalCanales.get() + " canales, " + (mensajesTexto.get() + mensajesAudio.get()) + " mensajes");
+        } catch (SQLException e) {
+            System.err.println("Error al reconciliar contadores de estadísticas: " + e.getMessage());
+        } finally {
+            ConexionDB.liberarConexion(conn);
+        }
+    }
+    
+    public synchronized void detener() {
+        if (planificador != null) {
+            planificador.shutdown();
+            planificador = null;
+        }
+    }
+    
+    // ==================== EVENTOS ====================
+    
+    public void registrarUsuario() {
+        totalUsuarios.incrementAndGet();
+    }
+    
+    public void registrarCanal(boolean activo) {
+        totalCanales.incrementAndGet();
+        if (activo) {
+            canalesActivos.incrementAndGet();
+        }
+    }
+    
+    public void registrarMensajeTexto() {
+        mensajesTexto.incrementAndGet();
+    }
+    
+    /**
+     * Registrar un mensaje de audio ya transcrito
+     */
+    public void registrarMensajeAudio(String transcripcion) {
+        mensajesAudio.incrementAndGet();
+        if (esTranscripcionExitosa(transcripcion)) {
+            transcripcionesExitosas.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Mismo criterio que LogMensajeDAO.contarTranscripcionesExitosas:
+     * no nula y sin marcadores del tipo "[...]"
+     */
+    static boolean esTranscripcionExitosa(String transcripcion) {
+        if (transcripcion == null) {
+            return false;
+        }
+        int apertura = transcripcion.indexOf('[');
+        return apertura < 0 || transcripcion.indexOf(']', apertura + 1) < 0;
+    }
+    
+    // ==================== LECTURA ====================
+    
+    public boolean isSembrado() {
+        return sembrado;
+    }
+    
+    public int getTotalUsuarios() {
+        return totalUsuarios.get();
+    }
+    
+    public int getTotalCanales() {
+        return totalCanales.get();
+    }
+    
+    public int getCanalesActivos() {
+        return canalesActivos.get();
+    }
+    
+    public int getMensajesTexto() {
+        return mensajesTexto.get();
+    }
+    
+    public int getMensajesAudio() {
+        return mensajesAudio.get();
+    }
+    
+    public int getTranscripcionesExitosas() {
+        return transcripcionesExitosas.get();
+    }
+}
@@ -0,0 +1,263 @@
+package com.chat.servidor.negocio;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.chat.common.models.Usuario;
+import com.chat.servidor.cluster.NodoCluster;
+import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.datos.UsuarioDAO;
+import com.chat.servidor.datos.UsuarioDAO.CambioEstado;
+
+/**
+ * Presencia de usuarios en memoria (Singleton)
+ * La memoria del servidor es la fuente de verdad de quién está en línea; las columnas
+ * en_linea / ultima_conexion se persisten en lotes periódicos, conservando solo el
+ * último cambio de cada usuario dentro del intervalo.
+ *
+ * En modo cluster también guarda los usuarios conectados en otros nodos (remotos): cuentan
+ * como en línea, pero sus cambios los persiste el nodo donde están conectados.
+ */
+public class GestorPresencia {
+    
+    private static GestorPresencia instancia;
+    
+    private final ConcurrentHashMap<Long, Usuario> conectados;
+    private final ConcurrentHashMap<Long, Usuario> remotos;
+    private final ConcurrentHashMap<Long, CambioEstado> pendientes;
+    private ScheduledExecutorService planificador;
+    private volatile OyentePresencia oyente;
+    
+    /**
+     * Recibe las altas y bajas de los usuarios conectados a este servidor
+     */
+    public interface OyentePresencia {
+        void conectado(Usuario usuario);
+        
+        void desconectado(Usuario usuario);
+    }
+    
+    private GestorPresencia() {
+        this.conectados = new ConcurrentHashMap<>();
+        this.remotos = new ConcurrentHashMap<>();
+        this.pendientes = new ConcurrentHashMap<>();
+    }
+    
+    public static synchronized GestorPresencia obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new GestorPresencia();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Reconciliar estados obsoletos y arrancar el volcado periódico
+     */
+    public synchronized void iniciar() {
+        if (planificador != null) {
+            return;
+        }
+        
+        // Al arrancar no hay nadie conectado: corregir marcas que quedaron de una ejecución anterior.
+        // En cluster no: las marcas pueden ser de usuarios conectados a otros nodos
+        if (NodoCluster.estaHabilitado(ConexionDB.getConfig())) {
+            System.out.println("Presencia: modo cluster, no se reinician las marcas en_linea");
+        } else {
+            reiniciarEstadosEnLinea();
+        }
+        
+        long intervalo = ConexionDB.getConfig().getPropiedadLong("presencia.flush.segundos", 5);
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "presencia-flush");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(this::volcarCambios, intervalo, intervalo, TimeUnit.SECONDS);
+        System.out.println("Presencia en memoria activa (volcado cada " + intervalo + "s)");
+    }
+    
+    private void reiniciarEstadosEnLinea() {
+        Connection conn = null;
+        try {
+            conn = ConexionDB.obtenerConexion();
+            int corregidos = new UsuarioDAO(conn).reiniciarEstadosEnLinea();
+            System.out.println("Presencia reconciliada: " + corregidos + " usuarios marcados como desconectados");
+        } catch (SQLException e) {
+            System.err.println("Error al reconciliar presencia: " + e.getMessage());
+        } finally {
+            ConexionDB.liberarConexion(conn);
+        }
+    }
+    
+    public void setOyente(OyentePresencia oyente) {
+        this.oyente = oyente;
+    }
+    
+    /**
+     * Registrar que un usuario inició sesión
+     */
+    public void marcarConectado(Usuario usuario) {
+        LocalDateTime ahora = LocalDateTime.now();
+        
+        // Copia propia: el objeto recibido puede estar compartido con la caché de datos
+        Usuario enLinea = new Usuario();
+        enLinea.setId(usuario.getId());
+        enLinea.setUsername(usuario.getUsername());
+        enLinea.setEmail(usuario.getEmail());
+        enLinea.setFoto(usuario.getFoto());
+        enLinea.setDireccionIP(usuario.getDireccionIP());
+        enLinea.setFechaRegistro(usuario.getFechaRegistro());
+        enLinea.setUltimaConexion(ahora);
+        enLinea.setEnLinea(true);
+        
+        conectados.put(usuario.getId(), enLinea);
+        pendientes.put(usuario.getId(), new CambioEstado(usuario.getId(), true, ahora));
+        
+        OyentePresencia actual = oyente;
+        if (actual != null) {
+            actual.conectado(enLinea);
+        }
+    }
+    
+    /**
+     * Registrar que un usuario cerró sesión o se desconectó
+     */
+    public void marcarDesconectado(Long usuarioId) {
+        if (usuarioId == null) {
+            return;
+        }
+        Usuario anterior = conectados.remove(usuarioId);
+        pendientes.put(usuarioId, new CambioEstado(usuarioId, false, LocalDateTime.now()));
+        
+        OyentePresencia actual = oyente;
+        if (anterior != null && actual != null) {
+            actual.desconectado(anterior);
+        }
+    }
+    
+    /**
+     * Registrar un usuario conectado en otro nodo del cluster
+     */
+    public void marcarConectadoRemoto(Usuario usuario) {
+        remotos.put(usuario.getId(), usuario);
+    }
+    
+    /**
+     * Quitar un usuario de otro nodo; si ese nodo se cayó, persistir aquí la desconexión
+     */
+    public void marcarDesconectadoRemoto(Long usuarioId, boolean persistir) {
+        if (remotos.remove(usuarioId) != null && persistir && !conectados.containsKey(usuarioId)) {
+            pendientes.put(usuarioId, new CambioEstado(usuarioId, false, LocalDateTime.now()));
+        }
+    }
+    
+    public boolean estaConectado(Long usuarioId) {
+        return usuarioId != null && (conectados.containsKey(usuarioId) || remotos.containsKey(usuarioId));
+    }
+    
+    /**
+     * IDs de los usuarios en línea (en este servidor y, en cluster, en los demás nodos)
+     */
+    public Set<Long> obtenerIdsEnLinea() {
+        Set<Long> ids = new HashSet<>(conectados.keySet());
+        ids.addAll(remotos.keySet());
+        return ids;
+    }
+    
+    /**
+     * Usuarios en línea (en este servidor y, en cluster, en los demás nodos), ordenados por username
+     */
+    public List<Usuario> obtenerUsuariosEnLinea() {
+        List<Usuario> usuarios = new ArrayList<>(conectados.values());
+        for (Usuario remoto : remotos.values()) {
+            if (!conectados.containsKey(remoto.getId())) {
+                usuarios.add(remoto);
+            }
+        }
+        usuarios.sort(Comparator.comparing(Usuario::getUsername));
+        return usuarios;
+    }
+    
+    /**
+     * Usuarios conectados a este servidor
+     */
+    public List<Usuario> obtenerUsuariosLocales() {
+        return new ArrayList<>(conectados.values());
+    }
+    
+    public int getCantidadConectados() {
+        return conectados.size() + remotos.size();
+    }
+    
+    /**
+     * Cambios de estado a la espera del próximo volcado a la BD
+     */
+    public int getCambiosPendientes() {
+        return pendientes.size();
+    }
+    
+    /**
+     * Sobrescribir el estado en línea de usuarios leídos de la BD con el estado en memoria
+     * (la BD puede ir hasta un intervalo de volcado por detrás)
+     */
+    public void aplicarEstado(List<Usuario> usuarios) {
+        for (Usuario usuario : usuarios) {
+            usuario.setEnLinea(estaConectado(usuario.getId()));
+        }
+    }
+    
+    /**
+     * Persistir en un lote los cambios de presencia acumulados
+     */
+    public synchronized void volcarCambios() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        
+        List<CambioEstado> lote = new ArrayList<>(pendientes.size());
+        for (Long usuarioId : pendientes.keySet()) {
+            CambioEstado cambio = pendientes.remove(usuarioId);
+            if (cambio != null) {
+                lote.add(cambio);
+            }
+        }
+        
+        Connection conn = null;
+        try {
+            conn = ConexionDB.obtenerConexion();
+            new UsuarioDAO(conn).actualizarEstadosEnLinea(lote);
+        } catch (SQLException e) {
+            System.err.println("Error al volcar presencia (" + lote.size() + " cambios): " + e.getMessage());
+            // Reencolar sin pisar cambios más nuevos que hayan llegado mientras tanto
+            for (CambioEstado cambio : lote) {
+                pendientes.putIfAbsent(cambio.usuarioId, cambio);
+            }
+        } finally {
+            ConexionDB.liberarConexion(conn);
+        }
+    }
+    
+    /**
+     * Detener el volcado periódico marcando a todos como desconectados
+     */
+    public synchronized void detener() {
+        if (planificador != null) {
+            planificador.shutdown();
+            planificador = null;
+        }
+        for (Long usuarioId : new ArrayList<>(conectados.keySet())) {
+            marcarDesconectado(usuarioId);
+        }
+        volcarCambios();
+    }
+}
@@ -0,0 +1,241 @@
+package com.chat.servidor.negocio;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+
+import com.chat.servidor.datos.CriterioBusqueda;
+import com.chat.servidor.datos.LogMensajeDAO.LogMensaje;
+
+/**
+ * Índice invertido en memoria sobre los logs de mensajes, para buscar texto
+ * cuando la BD no tiene índice FULLTEXT (p. ej. H2).
+ *
+ * Por cada palabra normalizada guarda la lista de IDs de log que la contienen y
+ * cuántas veces; por cada log, solo los datos necesarios para filtrar (remitente,
+ * destinatario, canal y fecha). El texto no se guarda: se lee de la BD para la página.
+ * Los logs se agregan en orden creciente de ID, así que cada lista queda ordenada.
+ */
+public class IndiceInvertido {
+    
+    private final TreeMap<String, Apariciones> terminos = new TreeMap<>();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final Map<String, String> nombres = new HashMap<>();
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private volatile long ultimoId;
+    
+    /**
+     * Indexar un log (debe tener un ID mayor que el último indexado)
+     */
+    public void agregar(LogMensaje log) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        contarPalabras(log.contenidoTexto, frecuencias);
+        contarPalabras(log.transcripcionAudio, frecuencias);
+        
+        cerrojo.writeLock().lock();
+        try {
+            if (log.id <= ultimoId) {
+                return;
+            }
+            ultimoId = log.id;
+            if (frecuencias.isEmpty()) {
+                return;
+            }
+            documentos.put(log.id, new Documento(compartido(log.remitenteUsername),
+                compartido(log.destinatarioUsername), log.canalId, log.timestamp));
+            for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+                terminos.computeIfAbsent(entrada.getKey(), t -> new Apariciones())
+                    .agregar(log.id, entrada.getValue());
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Buscar los logs que contienen todas las palabras (como prefijo) y cumplen los filtros,
+     * ordenados por relevancia (frecuencia ponderada por rareza de la palabra) y luego por ID descendente
+     * @param criterio Palabras, filtros y ámbito
+     * @param canalesPermitidos Canales del usuario que busca (solo si el criterio tiene ámbito)
+     * @return Todos los aciertos (la paginación la hace quien llama)
+     */
+    public List<Acierto> buscar(CriterioBusqueda criterio, Set<Long> canalesPermitidos) {
+        cerrojo.readLock().lock();
+        try {
+            Map<Long, Double> puntajes = null;
+            for (String termino : criterio.getTerminos()) {
+                Map<Long, Double> delTermino = puntuarPrefijo(termino);
+                if (puntajes == null) {
+                    puntajes = delTermino;
+                } else {
+                    Iterator<Map.Entry<Long, Double>> it = puntajes.entrySet().iterator();
+                    while (it.hasNext()) {
+                        Map.Entry<Long, Double> entrada = it.next();
+                        Double puntaje = delTermino.get(entrada.getKey());
+                        if (puntaje == null) {
+                            it.remove();
+                        } else {
+                            entrada.setValue(entrada.getValue() + puntaje);
+                        }
+                    }
+                }
+                if (puntajes.isEmpty()) {
+                    break;
+                }
+            }
+            
+            List<Acierto> aciertos = new ArrayList<>();
+            if (puntajes == null) {
+                return aciertos;
+            }
+            for (Map.Entry<Long, Double> entrada : puntajes.entrySet()) {
+                if (cumpleFiltros(documentos.get(entrada.getKey()), criterio, canalesPermitidos)) {
+                    aciertos.add(new Acierto(entrada.getKey(), entrada.getValue()));
+                }
+            }
+            aciertos.sort((a, b) -> a.relevancia != b.relevancia
+                ? Double.compare(b.relevancia, a.relevancia)
+                : Long.compare(b.id, a.id));
+            return aciertos;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+    
+    public long getUltimoId() {
+        return ultimoId;
+    }
+    
+    public int getDocumentos() {
+        cerrojo.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+    
+    public int getTerminos() {
+        cerrojo.readLock().lock();
+        try {
+            return terminos.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Sumar el puntaje de todas las palabras indexadas que empiezan por el término
+     */
+    private Map<Long, Double> puntuarPrefijo(String termino) {
+        Map<Long, Double> puntajes = new HashMap<>();
+        int total = documentos.size();
+        for (Apariciones apariciones : terminos.subMap(termino, true, termino + Character.MAX_VALUE, false).values()) {
+            double rareza = Math.log(1.0 + (double) total / apariciones.cantidad);
+            for (int i = 0; i < apariciones.cantidad; i++) {
+                puntajes.merge(apariciones.ids[i], apariciones.frecuencias[i] * rareza, Double::sum);
+            }
+        }
+        return puntajes;
+    }
+    
+    private boolean cumpleFiltros(Documento doc, CriterioBusqueda criterio, Set<Long> canalesPermitidos) {
+        if (doc == null) {
+            return false;
+        }
+        if (criterio.getRemitente() != null && !criterio.getRemitente().equalsIgnoreCase(doc.remitente)) {
+            return false;
+        }
+        if (criterio.getCanalId() != null && !criterio.getCanalId().equals(doc.canalId)) {
+            return false;
+        }
+        if (criterio.getDesde() != null && doc.fecha.isBefore(criterio.getDesde())) {
+            return false;
+        }
+        if (criterio.getHasta() != null && !doc.fecha.isBefore(criterio.getHasta())) {
+            return false;
+        }
+        if (criterio.tieneAmbito()) {
+            return criterio.getParticipante().equalsIgnoreCase(doc.remitente)
+                || criterio.getParticipante().equalsIgnoreCase(doc.destinatario)
+                || (doc.canalId != null && canalesPermitidos.contains(doc.canalId));
+        }
+        return true;
+    }
+    
+    private static void contarPalabras(String texto, Map<String, Integer> frecuencias) {
+        if (texto == null || texto.isEmpty()) {
+            return;
+        }
+        Matcher matcher = CriterioBusqueda.PATRON_PALABRA.matcher(CriterioBusqueda.normalizar(texto));
+        while (matcher.find()) {
+            if (matcher.end() - matcher.start() >= CriterioBusqueda.LONGITUD_MINIMA_TERMINO) {
+                frecuencias.merge(matcher.group(), 1, Integer::sum);
+            }
+        }
+    }
+    
+    /**
+     * Reutilizar la misma instancia de String para los usernames repetidos
+     */
+    private String compartido(String valor) {
+        return valor == null ? null : nombres.computeIfAbsent(valor, v -> v);
+    }
+    
+    /**
+     * Log que coincide con la búsqueda y su relevancia
+     */
+    public static class Acierto {
+        public final long id;
+        public final double relevancia;
+        
+        Acierto(long id, double relevancia) {
+            this.id = id;
+            this.relevancia = relevancia;
+        }
+    }
+    
+    /**
+     * Datos de un log necesarios para filtrar
+     */
+    private static class Documento {
+        private final String remitente;
+        private final String destinatario;
+        private final Long canalId;
+        private final LocalDateTime fecha;
+        
+        Documento(String remitente, String destinatario, Long canalId, LocalDateTime fecha) {
+            this.remitente = remitente;
+            this.destinatario = destinatario;
+            this.canalId = canalId;
+            this.fecha = fecha;
+        }
+    }
+    
+    /**
+     * Lista de IDs de log (crecientes) con la frecuencia de la palabra en cada uno
+     */
+    private static class Apariciones {
+        private long[] ids = new long[4];
+        private int[] frecuencias = new int[4];
+        private int cantidad;
+        
+        void agregar(long id, int frecuencia) {
+            if (cantidad == ids.length) {
+                ids = Arrays.copyOf(ids, cantidad * 2);
+                frecuencias = Arrays.copyOf(frecuencias, cantidad * 2);
+            }
+            ids[cantidad] = id;
+            frecuencias[cantidad] = frecuencia;
+            cantidad++;
+        }
+    }
+}
@@ -50,7 +50,9 @@ public class ServicioAutenticacion {
         nuevoUsuario.setDireccionIP(direccionIP);
         nuevoUsuario.setFoto(foto);
         
-        return usuarioDAO.crear(nuevoUsuario);
+        Usuario creado = usuarioDAO.crear(nuevoUsuario);
+        ContadoresServidor.obtenerInstancia().registrarUsuario();
+        return creado;
     }
     
     /**
@@ -72,8 +74,8 @@ public class ServicioAutenticacion {
             throw new IllegalArgumentException("Usuario o contraseña incorrectos");
         }
         
-        // Actualizar estado en línea
-        usuarioDAO.actualizarEstadoEnLinea(usuario.getId(), true);
+        // Actualizar estado en línea (en memoria; se persiste en el próximo volcado)
+        GestorPresencia.obtenerInstancia().marcarConectado(usuario);
         
         // Crear token de sesión
         String token = generarToken();
@@ -88,7 +90,7 @@ public class ServicioAutenticacion {
     public void logout(String token) throws SQLException {
         Long usuarioId = sesionesActivas.remove(token);
         if (usuarioId != null) {
-            usuarioDAO.actualizarEstadoEnLinea(usuarioId, false);
+            GestorPresencia.obtenerInstancia().marcarDesconectado(usuarioId);
         }
     }
     
@@ -0,0 +1,347 @@
+package com.chat.servidor.negocio;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+import com.chat.common.models.Canal;
+import com.chat.common.patterns.CacheLRU;
+import com.chat.common.utils.ConfiguracionManager;
+import com.chat.servidor.datos.CanalDAO;
+import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.datos.CriterioBusqueda;
+import com.chat.servidor.datos.LogMensajeDAO;
+import com.chat.servidor.datos.LogMensajeDAO.LogMensaje;
+
+/**
+ * Búsqueda de texto completo en los logs de mensajes y transcripciones (Singleton)
+ *
+ * En MySQL usa MATCH ... AGAINST sobre el índice FULLTEXT idx_contenido. Si la BD no
+ * es MySQL (H2) o no tiene ese índice, usa un índice invertido en memoria que se
+ * construye en la primera búsqueda y se pone al día leyendo los logs nuevos en cada una.
+ * Los resultados se guardan un tiempo corto en caché para las consultas repetidas
+ * (p. ej. al volver a una página ya vista).
+ *
+ * Los clientes buscan con su usuario como participante (sus privados y sus canales);
+ * InformesFrame busca sin participante, en todas las conversaciones.
+ */
+public class ServicioBusqueda {
+    
+    /** Marcas alrededor de cada palabra encontrada en el fragmento */
+    public static final String MARCA_INICIO = "«";
+    public static final String MARCA_FIN = "»";
+    
+    private static final int LONGITUD_FRAGMENTO = 160;
+    private static final int CONTEXTO_PREVIO = 50;
+    
+    /** Error de MySQL "Can't find FULLTEXT index matching the column list" */
+    private static final int ERROR_SIN_INDICE_FULLTEXT = 1191;
+    
+    public enum Motor {
+        FULLTEXT,
+        INDICE
+    }
+    
+    private static ServicioBusqueda instancia;
+    
+    private final CacheLRU<String, ResultadoBusqueda> cache;
+    private final IndiceInvertido indice = new IndiceInvertido();
+    private final String motorConfigurado;
+    private volatile Motor motor;
+    
+    private ServicioBusqueda() {
+        ConfiguracionManager config = ConexionDB.getConfig();
+        this.motorConfigurado = config.getPropiedad("busqueda.motor", "auto").trim().toLowerCase();
+        this.cache = new CacheLRU<>("busquedas", config.getPropiedadInt("busqueda.cache.max", 200),
+                                    config.getPropiedadLong("busqueda.cache.ttl.segundos", 30) * 1000);
+    }
+    
+    public static synchronized ServicioBusqueda obtenerInstancia() {
+        if (instancia == null) {
+            instancia = new ServicioBusqueda();
+        }
+        return instancia;
+    }
+    
+    /**
+     * Buscar logs que contengan todas las palabras del criterio
+     * @param criterio Palabras, filtros, ámbito y página
+     * @return Página de coincidencias con fragmentos resaltados y el total
+     * @throws IllegalArgumentException Si el texto no tiene ninguna palabra buscable
+     * @throws SQLException Si hay error en la base de datos
+     */
+    public ResultadoBusqueda buscar(CriterioBusqueda criterio) throws SQLException {
+        if (!criterio.tieneTerminos()) {
+            throw new IllegalArgumentException("La búsqueda debe tener al menos una palabra de " +
+                                               CriterioBusqueda.LONGITUD_MINIMA_TERMINO + " o más letras");
+        }
+        
+        ResultadoBusqueda enCache = cache.obtener(criterio.clave());
+        if (enCache != null) {
+            return enCache;
+        }
+        
+        Connection conn = null;
+        try {
+            conn = ConexionDB.obtenerConexion();
+            ResultadoBusqueda resultado = resolverMotor(conn) == Motor.FULLTEXT
+                ? buscarFullText(conn, criterio)
+                : buscarEnIndice(conn, criterio);
+            cache.poner(criterio.clave(), resultado);
+            return resultado;
+        } finally {
+            ConexionDB.liberarConexion(conn);
+        }
+    }
+    
+    /**
+     * Vaciar la caché de resultados
+     */
+    public void limpiarCache() {
+        cache.limpiar();
+    }
+    
+    public CacheLRU<String, ResultadoBusqueda> getCache() {
+        return cache;
+    }
+    
+    public IndiceInvertido getIndice() {
+        return indice;
+    }
+    
+    private ResultadoBusqueda buscarFullText(Connection conn, CriterioBusqueda criterio) throws SQLException {
+        LogMensajeDAO logDAO = new LogMensajeDAO(conn);
+        try {
+            List<LogMensaje> logs = logDAO.buscarLogs(criterio);
+            int total = logs.size() < criterio.getLimite() && (!logs.isEmpty() || criterio.getDesplazamiento() == 0)
+                ? criterio.getDesplazamiento() + logs.size()
+                : logDAO.contarBusqueda(criterio);
+            return armarResultado(logs, total, criterio, Motor.FULLTEXT);
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ERROR_SIN_INDICE_FULLTEXT) {
+                throw e;
+            }
+            System.err.println("logs_mensajes no tiene índice FULLTEXT, se usará el índice en memoria");
+            motor = Motor.INDICE;
+            return buscarEnIndice(conn, criterio);
+        }
+    }
+    
+    private ResultadoBusqueda buscarEnIndice(Connection conn, CriterioBusqueda criterio) throws SQLException {
+        actualizarIndice(conn);
+        
+        Set<Long> canales = new HashSet<>();
+        if (criterio.tieneAmbito()) {
+            for (Canal canal : new CanalDAO(conn).obtenerCanalesDeUsuario(criterio.getParticipanteId(), false)) {
+                canales.add(canal.getId());
+            }
+        }
+        
+        List<IndiceInvertido.Acierto> aciertos = indice.buscar(criterio, canales);
+        int desde = Math.min(criterio.getDesplazamiento(), aciertos.size());
+        int hasta = Math.min(desde + criterio.getLimite(), aciertos.size());
+        List<IndiceInvertido.Acierto> pagina = aciertos.subList(desde, hasta);
+        
+        List<Long> ids = new ArrayList<>();
+        for (IndiceInvertido.Acierto acierto : pagina) {
+            ids.add(acierto.id);
+        }
+        List<LogMensaje> logs = new LogMensajeDAO(conn).obtenerLogsPorIds(ids);
+        for (LogMensaje log : logs) {
+            for (IndiceInvertido.Acierto acierto : pagina) {
+                if (acierto.id == log.id) {
+                    log.relevancia = acierto.relevancia;
+                    break;
+                }
+            }
+        }
+        
+        return armarResultado(logs, aciertos.size(), criterio, Motor.INDICE);
+    }
+    
+    /**
+     * Indexar los logs nuevos desde la última búsqueda (todos, la primera vez)
+     */
+    private synchronized void actualizarIndice(Connection conn) throws SQLException {
+        long inicio = System.currentTimeMillis();
+        boolean primeraVez = indice.getUltimoId() == 0;
+        try {
+            long nuevos = new LogMensajeDAO(conn).recorrerLogsDesde(indice.getUltimoId(), indice::agregar);
+            if (primeraVez) {
+                System.out.println("Índice de búsqueda en memoria construido: " + nuevos + " logs, " +
+                                 indice.getTerminos() + " palabras en " + (System.currentTimeMillis() - inicio) + " ms");
+            }
+        } catch (IOException e) {
+            throw new SQLException("Error al indexar logs: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Elegir el motor: el configurado en busqueda.motor, o según el producto de la BD (auto)
+     */
+    private Motor resolverMotor(Connection conn) throws SQLException {
+        if (motor == null) {
+            if ("fulltext".equals(motorConfigurado)) {
+                motor = Motor.FULLTEXT;
+            } else if ("indice".equals(motorConfigurado)) {
+                motor = Motor.INDICE;
+            } else {
+                DatabaseMetaData metadatos = conn.getMetaData();
+                motor = "MySQL".equalsIgnoreCase(metadatos.getDatabaseProductName()) ? Motor.FULLTEXT : Motor.INDICE;
+            }
+            System.out.println("Motor de búsqueda de mensajes: " + motor);
+        }
+        return motor;
+    }
+    
+    private ResultadoBusqueda armarResultado(List<LogMensaje> logs, int total, CriterioBusqueda criterio, Motor usado) {
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        for (LogMensaje log : logs) {
+            coincidencias.add(new Coincidencia(log, criterio.getTerminos()));
+        }
+        return new ResultadoBusqueda(coincidencias, total, usado);
+    }
+    
+    /**
+     * Extraer un fragmento del texto alrededor de la primera palabra encontrada,
+     * con cada palabra que empiece por un término entre MARCA_INICIO y MARCA_FIN
+     * @return El fragmento, o null si ninguna palabra del texto coincide
+     */
+    public static String resaltar(String texto, List<String> terminos) {
+        if (texto == null || texto.isEmpty()) {
+            return null;
+        }
+        
+        // Normalizar carácter a carácter para que las posiciones coincidan con el original
+        StringBuilder normalizado = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            String c = CriterioBusqueda.normalizar(String.valueOf(texto.charAt(i)));
+            normalizado.append(c.isEmpty() ? texto.charAt(i) : c.charAt(0));
+        }
+        
+        List<int[]> marcas = new ArrayList<>();
+        Matcher matcher = CriterioBusqueda.PATRON_PALABRA.matcher(normalizado);
+        while (matcher.find()) {
+            for (String termino : terminos) {
+                if (matcher.group().startsWith(termino)) {
+                    marcas.add(new int[] { matcher.start(), matcher.end() });
+                    break;
+                }
+            }
+        }
+        if (marcas.isEmpty()) {
+            return null;
+        }
+        
+        int[] primera = marcas.get(0);
+        int inicio = Math.max(0, primera[0] - CONTEXTO_PREVIO);
+        if (inicio > 0) {
+            int espacio = texto.indexOf(' ', inicio);
+            inicio = espacio >= 0 && espacio < primera[0] ? espacio + 1 : primera[0];
+        }
+        int fin = Math.min(texto.length(), Math.max(inicio + LONGITUD_FRAGMENTO, primera[1]));
+        if (fin < texto.length()) {
+            int espacio = texto.lastIndexOf(' ', fin);
+            fin = espacio > primera[1] ? espacio : fin;
+        }
+        
+        StringBuilder fragmento = new StringBuilder();
+        if (inicio > 0) {
+            fragmento.append("…");
+        }
+        int posicion = inicio;
+        for (int[] marca : marcas) {
+            if (marca[0] < inicio || marca[1] > fin) {
+                continue;
+            }
+            fragmento.append(texto, posicion, marca[0])
+                     .append(MARCA_INICIO).append(texto, marca[0], marca[1]).append(MARCA_FIN);
+            posicion = marca[1];
+        }
+        fragmento.append(texto, posicion, fin);
+        if (fin < texto.length()) {
+            fragmento.append("…");
+        }
+        return fragmento.toString();
+    }
+    
+    /**
+     * Página de resultados de una búsqueda
+     */
+    public static class ResultadoBusqueda {
+        private final List<Coincidencia> coincidencias;
+        private final int total;
+        private final Motor motor;
+        
+        public ResultadoBusqueda(List<Coincidencia> coincidencias, int total, Motor motor) {
+            this.coincidencias = coincidencias;
+            this.total = total;
+            this.motor = motor;
+        }
+        
+        public List<Coincidencia> getCoincidencias() {
+            return coincidencias;
+        }
+        
+        public int getTotal() {
+            return total;
+        }
+        
+        public Motor getMotor() {
+            return motor;
+        }
+    }
+    
+    /**
+     * Un log encontrado, con el fragmento resaltado del campo donde apareció
+     */
+    public static class Coincidencia {
+        public final Long id;
+        public final String tipoMensaje;
+        public final String tipoConversacion;
+        public final String remitente;
+        public final String destinatario;
+        public final Long canalId;
+        public final String canalNombre;
+        public final LocalDateTime fecha;
+        public final String campo; // "contenido" o "transcripcion"
+        public final String fragmento;
+        public final double relevancia;
+        
+        Coincidencia(LogMensaje log, List<String> terminos) {
+            this.id = log.id;
+            this.tipoMensaje = log.tipoMensaje;
+            this.tipoConversacion = log.tipoConversacion;
+            this.remitente = log.remitenteUsername;
+            this.destinatario = log.destinatarioUsername;
+            this.canalId = log.canalId;
+            this.canalNombre = log.grupoNombre;
+            this.fecha = log.timestamp;
+            this.relevancia = log.relevancia;
+            
+            String enContenido = resaltar(log.contenidoTexto, terminos);
+            String enTranscripcion = enContenido == null ? resaltar(log.transcripcionAudio, terminos) : null;
+            if (enContenido != null || enTranscripcion == null) {
+                this.campo = "contenido";
+                this.fragmento = enContenido != null ? enContenido : recortar(log.contenidoTexto);
+            } else {
+                this.campo = "transcripcion";
+                this.fragmento = enTranscripcion;
+            }
+        }
+        
+        private static String recortar(String texto) {
+            if (texto == null || texto.length() <= LONGITUD_FRAGMENTO) {
+                return texto;
+            }
+            return texto.substring(0, LONGITUD_FRAGMENTO) + "…";
+        }
+    }
+}
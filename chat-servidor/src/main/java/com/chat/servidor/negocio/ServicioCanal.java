@@ -7,6 +7,7 @@ import java.util.Optional;
 
 import com.chat.common.models.Canal;
 import com.chat.common.models.SolicitudCanal;
+import com.chat.servidor.datos.CacheDatos;
 import com.chat.servidor.datos.CanalDAO;
 import com.chat.servidor.datos.SolicitudCanalDAO;
 
@@ -28,7 +29,9 @@ public class ServicioCanal {
      */
     public Canal crearCanal(String nombre, String descripcion, Long creadorId, boolean esPrivado) throws SQLException {
         Canal nuevoCanal = new Canal(nombre, descripcion, creadorId, esPrivado);
-        return canalDAO.crear(nuevoCanal);
+        Canal creado = canalDAO.crear(nuevoCanal);
+        ContadoresServidor.obtenerInstancia().registrarCanal(creado.isActivo());
+        return creado;
     }
     
     /**
@@ -94,6 +97,7 @@ public class ServicioCanal {
         
         // Agregar usuario al canal
         canalDAO.agregarMiembro(solicitud.getCanalId(), solicitud.getUsuarioId());
+        CacheDatos.obtenerInstancia().invalidarCanal(solicitud.getCanalId());
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.chat.servidor.negocio;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -7,9 +8,17 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 
 import com.chat.common.models.Usuario;
+import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.datos.ConsultaPagina;
+import com.chat.servidor.datos.Pagina;
+import com.chat.servidor.datos.ProcesadorFilas;
 import com.chat.servidor.datos.UsuarioDAO;
 
 /**
@@ -18,6 +27,53 @@ import com.chat.servidor.datos.UsuarioDAO;
  */
 public class ServicioEstadisticas {
     
+    /** Columnas por las que se pueden ordenar las páginas de usuarios (clave lógica → SQL) */
+    private static final Map<String, String> ORDENES_USUARIOS = new HashMap<>();
+    
+    /** Columnas por las que se pueden ordenar las páginas de audios (clave lógica → SQL) */
+    private static final Map<String, String> ORDENES_AUDIOS = new HashMap<>();
+    
+    private static final String COLUMNAS_USUARIO_REPORTE =
+        "id, username, email, fecha_registro, ultima_conexion, en_linea, direccion_ip";
+    
+    private static final String COLUMNAS_AUDIO_REPORTE =
+        "a.id, u1.username AS remitente, COALESCE(u2.username, c.nombre, 'Desconocido') AS destinatario, " +
+        "a.formato, a.duracion_segundos, a.tamano_bytes / 1024 AS tamano_kb, a.fecha_envio";
+    
+    private static final String FROM_AUDIOS =
+        "FROM archivos_audio a " +
+        "LEFT JOIN usuarios u1 ON a.remitente_id = u1.id " +
+        "LEFT JOIN usuarios u2 ON a.destinatario_id = u2.id " +
+        "LEFT JOIN canales c ON a.canal_id = c.id";
+    
+    private static final String SQL_CANALES_REPORTE =
+        "SELECT c.id, c.nombre, c.es_privado, u.username AS creador, " +
+        "c.fecha_creacion, " +
+        "(SELECT COUNT(*) FROM canal_miembros WHERE canal_id = c.id) AS total_miembros " +
+        "FROM canales c " +
+        "LEFT JOIN usuarios u ON c.creador_id = u.id " +
+        "WHERE c.activo = TRUE " +
+        "ORDER BY c.fecha_creacion DESC";
+    
+    /** Filtro de texto de las páginas de audios (3 parámetros LIKE) */
+    private static final String CONDICION_FILTRO_AUDIOS =
+        "(u1.username LIKE ? OR u2.username LIKE ? OR c.nombre LIKE ?)";
+    
+    static {
+        ORDENES_USUARIOS.put("id", "id");
+        ORDENES_USUARIOS.put("username", "username");
+        ORDENES_USUARIOS.put("email", "email");
+        ORDENES_USUARIOS.put("fecha_registro", "fecha_registro");
+        // Columna nullable: se ordena por su valor o por la fecha de registro
+        ORDENES_USUARIOS.put("ultima_conexion", "COALESCE(ultima_conexion, fecha_registro)");
+        
+        ORDENES_AUDIOS.put("id", "a.id");
+        ORDENES_AUDIOS.put("formato", "a.formato");
+        ORDENES_AUDIOS.put("duracion", "COALESCE(a.duracion_segundos, 0)");
+        ORDENES_AUDIOS.put("tamano", "a.tamano_bytes");
+        ORDENES_AUDIOS.put("fecha", "a.fecha_envio");
+    }
+    
     private final Connection conexion;
     private final UsuarioDAO usuarioDAO;
     
@@ -32,7 +88,7 @@ public class ServicioEstadisticas {
      * @return Lista de conexiones ordenadas por fecha descendente
      */
     public List<ConexionUsuario> obtenerHistorialConexiones(int limite) throws SQLException {
-        String sql = "SELECT username, ultima_conexion, en_linea, direccion_ip " +
+        String sql = "SELECT id, username, ultima_conexion, direccion_ip " +
                     "FROM usuarios " +
                     "WHERE ultima_conexion IS NOT NULL " +
                     "ORDER BY ultima_conexion DESC " +
@@ -48,7 +104,7 @@ public class ServicioEstadisticas {
                     ConexionUsuario conexionUsuario = new ConexionUsuario();
                     conexionUsuario.username = rs.getString("username");
                     conexionUsuario.ultimaConexion = rs.getTimestamp("ultima_conexion").toLocalDateTime();
-                    conexionUsuario.enLinea = rs.getBoolean("en_linea");
+                    conexionUsuario.enLinea = GestorPresencia.obtenerInstancia().estaConectado(rs.getLong("id"));
                     conexionUsuario.direccionIp = rs.getString("direccion_ip");
                     conexiones.add(conexionUsuario);
                 }
@@ -63,143 +119,250 @@ public class ServicioEstadisticas {
      * @return Objeto con todas las métricas del servidor
      */
     public EstadisticasGenerales obtenerEstadisticasGenerales() throws SQLException {
-        EstadisticasGenerales stats = new EstadisticasGenerales();
-        
-        // Total usuarios registrados
-        try (PreparedStatement stmt = conexion.prepareStatement("SELECT COUNT(*) FROM usuarios");
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                stats.totalUsuarios = rs.getInt(1);
-            }
-        }
-        
-        // Usuarios en línea
-        try (PreparedStatement stmt = conexion.prepareStatement("SELECT COUNT(*) FROM usuarios WHERE en_linea = TRUE");
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                stats.usuariosEnLinea = rs.getInt(1);
-            }
-        }
-        
-        // Total canales activos
-        try (PreparedStatement stmt = conexion.prepareStatement("SELECT COUNT(*) FROM canales WHERE activo = TRUE");
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                stats.canalesActivos = rs.getInt(1);
-            }
+        ContadoresServidor contadores = ContadoresServidor.obtenerInstancia();
+        if (!contadores.isSembrado()) {
+            contadores.reconciliar();
         }
         
-        // Total canales (activos e inactivos)
-        try (PreparedStatement stmt = conexion.prepareStatement("SELECT COUNT(*) FROM canales");
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                stats.totalCanales = rs.getInt(1);
-            }
-        }
+        // Lectura O(1) de los contadores en memoria y de la presencia
+        EstadisticasGenerales stats = new EstadisticasGenerales();
+        stats.totalUsuarios = contadores.getTotalUsuarios();
+        stats.usuariosEnLinea = GestorPresencia.obtenerInstancia().getCantidadConectados();
+        stats.canalesActivos = contadores.getCanalesActivos();
+        stats.totalCanales = contadores.getTotalCanales();
         
         return stats;
     }
     
     /**
-     * Obtener todos los usuarios registrados con información de conexión
-     * @return Lista de usuarios para reportes
+     * Obtener canales con información de miembros para reportes
+     * @return Lista de canales con detalles
      */
-    public List<UsuarioReporte> obtenerUsuariosParaReporte() throws SQLException {
-        String sql = "SELECT id, username, email, fecha_registro, en_linea, direccion_ip " +
-                    "FROM usuarios ORDER BY fecha_registro DESC";
-        
-        List<UsuarioReporte> usuarios = new ArrayList<>();
+    public List<CanalReporte> obtenerCanalesParaReporte() throws SQLException {
+        List<CanalReporte> canales = new ArrayList<>();
         
-        try (PreparedStatement stmt = conexion.prepareStatement(sql);
+        try (PreparedStatement stmt = conexion.prepareStatement(SQL_CANALES_REPORTE);
              ResultSet rs = stmt.executeQuery()) {
             
             while (rs.next()) {
-                UsuarioReporte usuario = new UsuarioReporte();
-                usuario.id = rs.getLong("id");
-                usuario.username = rs.getString("username");
-                usuario.email = rs.getString("email");
-                usuario.fechaRegistro = rs.getTimestamp("fecha_registro").toLocalDateTime();
-                usuario.enLinea = rs.getBoolean("en_linea");
-                usuario.direccionIp = rs.getString("direccion_ip");
-                usuarios.add(usuario);
+                canales.add(mapearCanalReporte(rs));
             }
         }
         
-        return usuarios;
+        return canales;
     }
     
     /**
-     * Obtener canales con información de miembros para reportes
-     * @return Lista de canales con detalles
+     * Obtener una página de usuarios para reportes (orden y filtro resueltos en SQL)
+     * @param consulta Orden, filtro y cursor de la página
+     * @param soloEnLinea true para limitar a los usuarios conectados
+     * @return Página de usuarios con el cursor de su última fila
      */
-    public List<CanalReporte> obtenerCanalesParaReporte() throws SQLException {
-        String sql = "SELECT c.id, c.nombre, c.es_privado, u.username AS creador, " +
-                    "c.fecha_creacion, " +
-                    "(SELECT COUNT(*) FROM canal_miembros WHERE canal_id = c.id) AS total_miembros " +
-                    "FROM canales c " +
-                    "LEFT JOIN usuarios u ON c.creador_id = u.id " +
-                    "WHERE c.activo = TRUE " +
-                    "ORDER BY c.fecha_creacion DESC";
+    public Pagina<UsuarioReporte> obtenerPaginaUsuarios(ConsultaPagina consulta, boolean soloEnLinea) throws SQLException {
+        String orden = consulta.expresionOrden(ORDENES_USUARIOS, "fecha_registro");
+        List<String> condiciones = condicionesUsuarios(consulta, soloEnLinea);
+        condiciones.add(consulta.condicionCursor(orden, "id"));
         
-        List<CanalReporte> canales = new ArrayList<>();
+        String sql = "SELECT " + COLUMNAS_USUARIO_REPORTE + ", " +
+                    orden + " AS " + Pagina.COLUMNA_VALOR_ORDEN + " FROM usuarios" +
+                    ConsultaPagina.clausulaWhere(condiciones) +
+                    consulta.clausulaOrden(orden, "id") + consulta.clausulaLimite();
         
-        try (PreparedStatement stmt = conexion.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            int indice = asignarFiltro(stmt, 1, consulta, 3);
+            indice = consulta.asignarCursor(stmt, indice);
+            consulta.asignarLimite(stmt, indice);
             
-            while (rs.next()) {
-                CanalReporte canal = new CanalReporte();
-                canal.id = rs.getLong("id");
-                canal.nombre = rs.getString("nombre");
-                canal.esPrivado = rs.getBoolean("es_privado");
-                canal.creador = rs.getString("creador");
-                canal.fechaCreacion = rs.getTimestamp("fecha_creacion").toLocalDateTime();
-                canal.totalMiembros = rs.getInt("total_miembros");
-                canales.add(canal);
-            }
+            return Pagina.leer(stmt, this::mapearUsuarioReporte);
         }
+    }
+    
+    /**
+     * Contar usuarios que cumplen un filtro de texto
+     * @param soloEnLinea true para contar solo los usuarios conectados
+     */
+    public int contarUsuarios(String filtro, boolean soloEnLinea) throws SQLException {
+        ConsultaPagina consulta = new ConsultaPagina(null, true, filtro, null, null, 0, 0);
+        String sql = "SELECT COUNT(*) FROM usuarios" +
+                    ConsultaPagina.clausulaWhere(condicionesUsuarios(consulta, soloEnLinea));
         
-        return canales;
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            asignarFiltro(stmt, 1, consulta, 3);
+            return contar(stmt);
+        }
     }
     
     /**
-     * Obtener archivos de audio para reportes
-     * @param limite Número máximo de registros
-     * @return Lista de audios con información de remitente y destinatario
+     * Obtener una página de archivos de audio para reportes (orden y filtro resueltos en SQL)
+     * @param consulta Orden, filtro y cursor de la página
+     * @return Página de audios con el cursor de su última fila
      */
-    public List<AudioReporte> obtenerAudiosParaReporte(int limite) throws SQLException {
-        String sql = "SELECT a.id, u1.username AS remitente, " +
-                    "COALESCE(u2.username, c.nombre, 'Desconocido') AS destinatario, " +
-                    "a.formato, a.duracion_segundos, " +
-                    "LENGTH(a.contenido_audio) / 1024 AS tamano_kb, " +
-                    "a.fecha_envio " +
-                    "FROM archivos_audio a " +
-                    "LEFT JOIN usuarios u1 ON a.remitente_id = u1.id " +
-                    "LEFT JOIN usuarios u2 ON a.destinatario_id = u2.id " +
-                    "LEFT JOIN canales c ON a.canal_id = c.id " +
-                    "ORDER BY a.fecha_envio DESC " +
-                    "LIMIT ?";
+    public Pagina<AudioReporte> obtenerPaginaAudios(ConsultaPagina consulta) throws SQLException {
+        String orden = consulta.expresionOrden(ORDENES_AUDIOS, "fecha");
+        List<String> condiciones = new ArrayList<>();
+        condiciones.add(consulta.tieneFiltro() ? CONDICION_FILTRO_AUDIOS : "");
+        condiciones.add(consulta.condicionCursor(orden, "a.id"));
         
-        List<AudioReporte> audios = new ArrayList<>();
+        String sql = "SELECT " + COLUMNAS_AUDIO_REPORTE + ", " +
+                    orden + " AS " + Pagina.COLUMNA_VALOR_ORDEN + " " +
+                    FROM_AUDIOS +
+                    ConsultaPagina.clausulaWhere(condiciones) +
+                    consulta.clausulaOrden(orden, "a.id") + consulta.clausulaLimite();
         
         try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
-            stmt.setInt(1, limite);
+            int indice = asignarFiltro(stmt, 1, consulta, 3);
+            indice = consulta.asignarCursor(stmt, indice);
+            consulta.asignarLimite(stmt, indice);
             
-            try (ResultSet rs = stmt.executeQuery()) {
+            return Pagina.leer(stmt, this::mapearAudioReporte);
+        }
+    }
+    
+    /**
+     * Contar archivos de audio que cumplen un filtro de texto
+     */
+    public int contarAudios(String filtro) throws SQLException {
+        ConsultaPagina consulta = new ConsultaPagina(null, true, filtro, null, null, 0, 0);
+        String sql = "SELECT COUNT(*) " + (consulta.tieneFiltro()
+            ? FROM_AUDIOS + " WHERE " + CONDICION_FILTRO_AUDIOS
+            : "FROM archivos_audio");
+        
+        try (PreparedStatement stmt = conexion.prepareStatement(sql)) {
+            asignarFiltro(stmt, 1, consulta, 3);
+            return contar(stmt);
+        }
+    }
+    
+    /**
+     * Recorrer usuarios en streaming, sin cargarlos en memoria
+     * (usar una conexión dedicada: queda ocupada hasta terminar el recorrido)
+     * @param soloEnLinea true para recorrer solo los usuarios conectados
+     * @return Cantidad de usuarios recorridos
+     */
+    public long recorrerUsuarios(boolean soloEnLinea, ProcesadorFilas<UsuarioReporte> procesador)
+            throws SQLException, IOException {
+        String sql = "SELECT " + COLUMNAS_USUARIO_REPORTE + " FROM usuarios" +
+                    (soloEnLinea ? " WHERE " + condicionEnLinea() : "") + " ORDER BY id";
+        return recorrer(sql, this::mapearUsuarioReporte, procesador);
+    }
+    
+    /**
+     * Recorrer los canales activos en streaming
+     * @return Cantidad de canales recorridos
+     */
+    public long recorrerCanales(ProcesadorFilas<CanalReporte> procesador) throws SQLException, IOException {
+        return recorrer(SQL_CANALES_REPORTE, this::mapearCanalReporte, procesador);
+    }
+    
+    /**
+     * Recorrer todos los archivos de audio en streaming, en orden cronológico
+     * @return Cantidad de audios recorridos
+     */
+    public long recorrerAudios(ProcesadorFilas<AudioReporte> procesador) throws SQLException, IOException {
+        String sql = "SELECT " + COLUMNAS_AUDIO_REPORTE + " " + FROM_AUDIOS + " ORDER BY a.fecha_envio, a.id";
+        return recorrer(sql, this::mapearAudioReporte, procesador);
+    }
+    
+    private <T> long recorrer(String sql, Pagina.MapeadorFila<T> mapeador, ProcesadorFilas<T> procesador)
+            throws SQLException, IOException {
+        long total = 0;
+        
+        try (PreparedStatement stmt = ConexionDB.prepararConsultaStreaming(conexion, sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            try {
                 while (rs.next()) {
-                    AudioReporte audio = new AudioReporte();
-                    audio.id = rs.getLong("id");
-                    audio.remitente = rs.getString("remitente");
-                    audio.destinatario = rs.getString("destinatario");
-                    audio.formato = rs.getString("formato");
-                    audio.duracionSegundos = rs.getLong("duracion_segundos");
-                    audio.tamanoKb = rs.getDouble("tamano_kb");
-                    audio.fechaEnvio = rs.getTimestamp("fecha_envio").toLocalDateTime();
-                    audios.add(audio);
+                    procesador.procesar(mapeador.mapear(rs));
+                    total++;
                 }
+            } catch (IOException | RuntimeException e) {
+                // Cancelación o error al escribir: no leer el resto antes de cerrar
+                ConexionDB.cancelarConsulta(stmt);
+                throw e;
             }
         }
         
-        return audios;
+        return total;
+    }
+    
+    private UsuarioReporte mapearUsuarioReporte(ResultSet rs) throws SQLException {
+        UsuarioReporte usuario = new UsuarioReporte();
+        usuario.id = rs.getLong("id");
+        usuario.username = rs.getString("username");
+        usuario.email = rs.getString("email");
+        usuario.fechaRegistro = rs.getTimestamp("fecha_registro").toLocalDateTime();
+        Timestamp ultimaConexion = rs.getTimestamp("ultima_conexion");
+        usuario.ultimaConexion = ultimaConexion != null ? ultimaConexion.toLocalDateTime() : null;
+        // en_linea puede ir un intervalo de volcado por detrás: el estado real está en memoria
+        usuario.enLinea = GestorPresencia.obtenerInstancia().estaConectado(usuario.id);
+        usuario.direccionIp = rs.getString("direccion_ip");
+        return usuario;
+    }
+    
+    private CanalReporte mapearCanalReporte(ResultSet rs) throws SQLException {
+        CanalReporte canal = new CanalReporte();
+        canal.id = rs.getLong("id");
+        canal.nombre = rs.getString("nombre");
+        canal.esPrivado = rs.getBoolean("es_privado");
+        canal.creador = rs.getString("creador");
+        canal.fechaCreacion = rs.getTimestamp("fecha_creacion").toLocalDateTime();
+        canal.totalMiembros = rs.getInt("total_miembros");
+        return canal;
+    }
+    
+    private AudioReporte mapearAudioReporte(ResultSet rs) throws SQLException {
+        AudioReporte audio = new AudioReporte();
+        audio.id = rs.getLong("id");
+        audio.remitente = rs.getString("remitente");
+        audio.destinatario = rs.getString("destinatario");
+        audio.formato = rs.getString("formato");
+        audio.duracionSegundos = rs.getLong("duracion_segundos");
+        audio.tamanoKb = rs.getDouble("tamano_kb");
+        audio.fechaEnvio = rs.getTimestamp("fecha_envio").toLocalDateTime();
+        return audio;
+    }
+    
+    private List<String> condicionesUsuarios(ConsultaPagina consulta, boolean soloEnLinea) {
+        List<String> condiciones = new ArrayList<>();
+        condiciones.add(soloEnLinea ? condicionEnLinea() : "");
+        condiciones.add(consulta.tieneFiltro() ? "(username LIKE ? OR email LIKE ? OR direccion_ip LIKE ?)" : "");
+        return condiciones;
+    }
+    
+    /**
+     * Condición SQL de usuarios conectados según GestorPresencia (no la columna en_linea,
+     * que se persiste en lotes). Los IDs son Long, se escriben en la consulta sin riesgo.
+     */
+    private String condicionEnLinea() {
+        Set<Long> ids = GestorPresencia.obtenerInstancia().obtenerIdsEnLinea();
+        if (ids.isEmpty()) {
+            return "1 = 0";
+        }
+        StringJoiner lista = new StringJoiner(", ", "id IN (", ")");
+        for (Long id : ids) {
+            lista.add(id.toString());
+        }
+        return lista.toString();
+    }
+    
+    /**
+     * Asignar el patrón del filtro a sus parámetros LIKE (si hay filtro)
+     */
+    private int asignarFiltro(PreparedStatement stmt, int indice, ConsultaPagina consulta,
+                              int parametros) throws SQLException {
+        if (consulta.tieneFiltro()) {
+            String patron = consulta.getPatronFiltro();
+            for (int i = 0; i < parametros; i++) {
+                stmt.setString(indice++, patron);
+            }
+        }
+        return indice;
+    }
+    
+    private int contar(PreparedStatement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
     }
     
     /**
@@ -228,6 +391,7 @@ public class ServicioEstadisticas {
         public String username;
         public String email;
         public LocalDateTime fechaRegistro;
+        public LocalDateTime ultimaConexion;
         public boolean enLinea;
         public String direccionIp;
         
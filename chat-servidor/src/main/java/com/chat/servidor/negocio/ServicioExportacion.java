@@ -0,0 +1,376 @@
+package com.chat.servidor.negocio;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.datos.LogMensajeDAO;
+import com.chat.servidor.datos.ProcesadorFilas;
+
+/**
+ * Servicio de exportación de informes del servidor
+ *
+ * Cada sección se lee de la BD en streaming y se escribe fila a fila en un archivo con
+ * buffer, de modo que la memoria usada no depende de la cantidad de filas.
+ * - TXT: un único informe legible (resumen + secciones + logs del sistema)
+ * - CSV y JSONL: un archivo por sección, con valores sin formatear
+ *
+ * Usa una conexión propia del pool, ya que una consulta en streaming la ocupa hasta terminar.
+ */
+public class ServicioExportacion {
+    
+    /** Cada cuántas filas se informa el avance y se revisa la cancelación */
+    private static final int FILAS_POR_AVISO = 500;
+    
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    
+    private static final DateTimeFormatter FORMATO_FECHA_TXT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    
+    private static final String[] COLUMNAS_USUARIOS = {
+        "id", "username", "email", "fecha_registro", "ultima_conexion", "en_linea", "direccion_ip"
+    };
+    private static final String[] COLUMNAS_CANALES = {
+        "id", "nombre", "privado", "creador", "total_miembros", "fecha_creacion"
+    };
+    private static final String[] COLUMNAS_AUDIOS = {
+        "id", "remitente", "destinatario", "formato", "duracion_segundos", "tamano_kb", "fecha_envio"
+    };
+    private static final String[] COLUMNAS_LOGS = {
+        "id", "tipo_mensaje", "tipo_conversacion", "remitente", "destinatario", "canal",
+        "contenido_texto", "transcripcion_audio", "duracion_segundos", "formato_audio", "timestamp", "direccion_ip"
+    };
+    
+    /**
+     * Formatos de exportación disponibles
+     */
+    public enum Formato {
+        TXT("txt"),
+        CSV("csv"),
+        JSONL("jsonl");
+        
+        private final String extension;
+        
+        Formato(String extension) {
+            this.extension = extension;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+    }
+    
+    /**
+     * Recibe el avance de la exportación (se invoca desde el hilo que exporta)
+     */
+    public interface Progreso {
+        void avance(String seccion, long filasExportadas, long totalEstimado);
+        
+        boolean isCancelado();
+    }
+    
+    /**
+     * Estimar el total de filas a exportar (para dimensionar la barra de progreso)
+     * Usa los contadores en memoria y la presencia; los audios se cuentan en la BD.
+     */
+    public long estimarTotalFilas() throws SQLException {
+        ContadoresServidor contadores = ContadoresServidor.obtenerInstancia();
+        if (!contadores.isSembrado()) {
+            contadores.reconciliar();
+        }
+        
+        Connection conn = ConexionDB.obtenerConexion();
+        try {
+            return (long) contadores.getTotalUsuarios() + contadores.getCanalesActivos() +
+                   GestorPresencia.obtenerInstancia().getCantidadConectados() +
+                   new ServicioEstadisticas(conn).contarAudios(null) +
+                   contadores.getMensajesTexto() + contadores.getMensajesAudio();
+        } finally {
+            ConexionDB.liberarConexion(conn);
+        }
+    }
+    
+    /**
+     * Exportar el informe completo
+     * @param carpeta Carpeta destino
+     * @param prefijo Prefijo de los archivos (p. ej. informe_servidor_20250101_120000)
+     * @param formato Formato de salida
+     * @param resumen Texto inicial del informe (solo TXT)
+     * @param anexo Texto final del informe (solo TXT)
+     * @param progreso Destino del avance; si se cancela se borran los archivos parciales
+     * @return Archivos generados
+     * @throws CancellationException Si el progreso indicó cancelación
+     */
+    public List<File> exportar(File carpeta, String prefijo, Formato formato, String resumen,
+                               String anexo, Progreso progreso) throws SQLException, IOException {
+        long totalEstimado = estimarTotalFilas();
+        Exportacion exportacion = new Exportacion(carpeta, prefijo, formato, totalEstimado, progreso);
+        Connection conn = ConexionDB.obtenerConexion();
+        
+        try {
+            ServicioEstadisticas estadisticas = new ServicioEstadisticas(conn);
+            LogMensajeDAO logDAO = new LogMensajeDAO(conn);
+            
+            exportacion.abrirInforme(resumen);
+            
+            exportacion.seccion("usuarios", "USUARIOS REGISTRADOS", COLUMNAS_USUARIOS,
+                destino -> estadisticas.recorrerUsuarios(false, u -> destino.procesar(filaUsuario(u))));
+            exportacion.seccion("canales", "CANALES Y COMUNIDADES", COLUMNAS_CANALES,
+                destino -> estadisticas.recorrerCanales(c -> destino.procesar(new Object[] {
+                    c.id, c.nombre, c.esPrivado, c.creador, c.totalMiembros, c.fechaCreacion
+                })));
+            exportacion.seccion("usuarios_conectados", "USUARIOS CONECTADOS AHORA", COLUMNAS_USUARIOS,
+                destino -> estadisticas.recorrerUsuarios(true, u -> destino.procesar(filaUsuario(u))));
+            exportacion.seccion("audios", "HISTORIAL DE AUDIOS", COLUMNAS_AUDIOS,
+                destino -> estadisticas.recorrerAudios(a -> destino.procesar(new Object[] {
+                    a.id, a.remitente, a.destinatario, a.formato, a.duracionSegundos, a.tamanoKb, a.fechaEnvio
+                })));
+            exportacion.seccion("logs_mensajes", "LOGS DE MENSAJES Y TRANSCRIPCIONES", COLUMNAS_LOGS,
+                destino -> logDAO.recorrerLogs(log -> destino.procesar(new Object[] {
+                    log.id, log.tipoMensaje, log.tipoConversacion, log.remitenteUsername,
+                    log.destinatarioUsername, log.grupoNombre, log.contenidoTexto, log.transcripcionAudio,
+                    log.duracionSegundos, log.formatoAudio, log.timestamp, log.direccionIP
+                })));
+            
+            exportacion.cerrarInforme(anexo);
+            return exportacion.archivos;
+            
+        } catch (SQLException | IOException | RuntimeException e) {
+            exportacion.descartar();
+            throw e;
+        } finally {
+            ConexionDB.liberarConexion(conn);
+        }
+    }
+    
+    private static Object[] filaUsuario(ServicioEstadisticas.UsuarioReporte u) {
+        return new Object[] {
+            u.id, u.username, u.email, u.fechaRegistro, u.ultimaConexion, u.enLinea, u.direccionIp
+        };
+    }
+    
+    /**
+     * Origen de las filas de una sección
+     */
+    @FunctionalInterface
+    private interface FuenteSeccion {
+        long recorrer(ProcesadorFilas<Object[]> destino) throws SQLException, IOException;
+    }
+    
+    /**
+     * Estado de una exportación en curso: archivos abiertos, filas escritas y avance
+     */
+    private static class Exportacion {
+        private final File carpeta;
+        private final String prefijo;
+        private final Formato formato;
+        private final long totalEstimado;
+        private final Progreso progreso;
+        private final List<File> archivos = new ArrayList<>();
+        
+        private Writer informe;
+        private long filasExportadas;
+        
+        Exportacion(File carpeta, String prefijo, Formato formato, long totalEstimado, Progreso progreso) {
+            this.carpeta = carpeta;
+            this.prefijo = prefijo;
+            this.formato = formato;
+            this.totalEstimado = totalEstimado;
+            this.progreso = progreso;
+        }
+        
+        /**
+         * En TXT se abre el archivo único del informe y se escribe el resumen
+         */
+        void abrirInforme(String resumen) throws IOException {
+            if (formato == Formato.TXT) {
+                informe = abrir(new File(carpeta, prefijo + ".txt"));
+                if (resumen != null) {
+                    informe.write(resumen);
+                }
+            }
+        }
+        
+        void cerrarInforme(String anexo) throws IOException {
+            if (informe != null) {
+                if (anexo != null) {
+                    informe.write(anexo);
+                }
+                informe.close();
+                informe = null;
+            }
+        }
+        
+        /**
+         * Exportar una sección completa leyendo sus filas en streaming
+         */
+        void seccion(String nombre, String titulo, String[] columnas, FuenteSeccion fuente)
+                throws SQLException, IOException {
+            if (formato == Formato.TXT) {
+                escribirTituloTxt(titulo);
+                long total = fuente.recorrer(fila -> {
+                    escribirFilaTxt(columnas, fila);
+                    contar(nombre);
+                });
+                informe.write("Total: " + total + "\n");
+                return;
+            }
+            
+            try (Writer escritor = abrir(new File(carpeta, prefijo + "_" + nombre + "." + formato.getExtension()))) {
+                if (formato == Formato.CSV) {
+                    escritor.write(lineaCsv(columnas));
+                }
+                fuente.recorrer(fila -> {
+                    escritor.write(formato == Formato.CSV ? lineaCsv(fila) : lineaJson(columnas, fila));
+                    contar(nombre);
+                });
+            }
+            progreso.avance(nombre, filasExportadas, totalEstimado);
+        }
+        
+        private void contar(String seccion) {
+            filasExportadas++;
+            if (filasExportadas % FILAS_POR_AVISO == 0) {
+                progreso.avance(seccion, filasExportadas, totalEstimado);
+                if (progreso.isCancelado()) {
+                    throw new CancellationException("Exportación cancelada");
+                }
+            }
+        }
+        
+        private Writer abrir(File archivo) throws IOException {
+            archivos.add(archivo);
+            return new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(archivo), StandardCharsets.UTF_8), TAMANO_BUFFER);
+        }
+        
+        /**
+         * Cerrar lo que quede abierto y borrar los archivos parciales
+         */
+        void descartar() {
+            if (informe != null) {
+                try {
+                    informe.close();
+                } catch (IOException e) {
+                    // Se borra de todas formas
+                }
+            }
+            for (File archivo : archivos) {
+                if (archivo.exists() && !archivo.delete()) {
+                    System.err.println("No se pudo borrar el archivo parcial: " + archivo.getAbsolutePath());
+                }
+            }
+            archivos.clear();
+        }
+        
+        private void escribirTituloTxt(String titulo) throws IOException {
+            informe.write("\n\n╔═══════════════════════════════════════════════════════╗\n");
+            informe.write(String.format("║ %-53s ║%n", titulo));
+            informe.write("╚═══════════════════════════════════════════════════════╝\n\n");
+        }
+        
+        private void escribirFilaTxt(String[] columnas, Object[] fila) throws IOException {
+            StringBuilder linea = new StringBuilder("• ");
+            for (int i = 0; i < columnas.length; i++) {
+                if (i > 0) {
+                    linea.append(" | ");
+                }
+                Object valor = fila[i];
+                linea.append(columnas[i]).append(": ");
+                if (valor instanceof LocalDateTime) {
+                    linea.append(FORMATO_FECHA_TXT.format((LocalDateTime) valor));
+                } else {
+                    linea.append(valor != null ? valor : "N/A");
+                }
+            }
+            informe.write(linea.append('\n').toString());
+        }
+    }
+    
+    /**
+     * Línea CSV (RFC 4180): se citan los valores con separadores, comillas o saltos de línea
+     */
+    static String lineaCsv(Object[] valores) {
+        StringBuilder linea = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                linea.append(',');
+            }
+            if (valores[i] == null) {
+                continue;
+            }
+            String texto = valores[i].toString();
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 ||
+                texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                linea.append('"').append(texto.replace("\"", "\"\"")).append('"');
+            } else {
+                linea.append(texto);
+            }
+        }
+        return linea.append("\r\n").toString();
+    }
+    
+    /**
+     * Objeto JSON en una sola línea; números y booleanos sin comillas
+     */
+    static String lineaJson(String[] columnas, Object[] valores) {
+        StringBuilder linea = new StringBuilder("{");
+        for (int i = 0; i < columnas.length; i++) {
+            if (i > 0) {
+                linea.append(',');
+            }
+            linea.append('"').append(columnas[i]).append("\":");
+            Object valor = valores[i];
+            if (valor == null) {
+                linea.append("null");
+            } else if (valor instanceof Number || valor instanceof Boolean) {
+                linea.append(valor);
+            } else {
+                escaparJson(linea, valor.toString());
+            }
+        }
+        return linea.append("}\n").toString();
+    }
+    
+    private static void escaparJson(StringBuilder destino, String texto) {
+        destino.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    destino.append("\\\"");
+                    break;
+                case '\\':
+                    destino.append("\\\\");
+                    break;
+                case '\n':
+                    destino.append("\\n");
+                    break;
+                case '\r':
+                    destino.append("\\r");
+                    break;
+                case '\t':
+                    destino.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        destino.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        destino.append(c);
+                    }
+            }
+        }
+        destino.append('"');
+    }
+}
@@ -11,6 +11,7 @@ import com.chat.common.models.Grupo;
 import com.chat.common.models.Invitacion;
 import com.chat.common.models.Invitacion.EstadoInvitacion;
 import com.chat.common.models.Usuario;
+import com.chat.servidor.datos.CacheDatos;
 import com.chat.servidor.datos.CanalDAO;
 import com.chat.servidor.datos.GrupoDAO;
 import com.chat.servidor.datos.InvitacionDAO;
@@ -82,6 +83,7 @@ public class ServicioGrupo {
             Canal nuevoCanal = new Canal(nombre, descripcion, creadorId, false);
             nuevoCanal.setFoto(foto);
             Canal canalCreado = canalDAO.crear(nuevoCanal);
+            ContadoresServidor.obtenerInstancia().registrarCanal(canalCreado.isActivo());
             
             // Crear invitaciones para cada usuario
             for (String usernameInvitado : usuariosInvitados) {
@@ -121,6 +123,7 @@ public class ServicioGrupo {
             
             // Agregar usuario al canal
             canalDAO.agregarMiembro(canalId, usuarioId);
+            CacheDatos.obtenerInstancia().invalidarCanal(canalId);
             
             return ResponseDTO.exitoso("Invitación aceptada correctamente");
             
@@ -162,6 +165,14 @@ public class ServicioGrupo {
      * Obtener canales de un usuario
      */
     public List<Canal> obtenerCanalesDeUsuario(Long usuarioId) throws SQLException {
-        return canalDAO.obtenerCanalesDeUsuario(usuarioId);
+        // La lista de grupos del cliente muestra la foto de cada canal
+        return canalDAO.obtenerCanalesDeUsuario(usuarioId, true);
+    }
+    
+    /**
+     * Verificar si un usuario es miembro de un canal
+     */
+    public boolean esMiembroCanal(Long canalId, Long usuarioId) throws SQLException {
+        return canalDAO.esUsuarioMiembro(canalId, usuarioId);
     }
 }
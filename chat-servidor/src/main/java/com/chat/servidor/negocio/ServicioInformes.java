@@ -5,7 +5,6 @@ import com.chat.common.models.Canal;
 import com.chat.common.models.Mensaje;
 import com.chat.common.models.Usuario;
 import com.chat.servidor.datos.CanalDAO;
-import com.chat.servidor.datos.UsuarioDAO;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -17,12 +16,10 @@ import java.util.Map;
  */
 public class ServicioInformes {
     
-    private final UsuarioDAO usuarioDAO;
     private final CanalDAO canalDAO;
     private final ServicioMensajeria servicioMensajeria;
     
     public ServicioInformes(Connection conexion) {
-        this.usuarioDAO = new UsuarioDAO(conexion);
         this.canalDAO = new CanalDAO(conexion);
         this.servicioMensajeria = new ServicioMensajeria(conexion);
     }
@@ -34,7 +31,7 @@ public class ServicioInformes {
         Map<String, Object> informe = new HashMap<>();
         
         // Obtener todos los usuarios (simulado, necesitarías implementar este método en UsuarioDAO)
-        List<Usuario> usuariosOnline = usuarioDAO.obtenerUsuariosEnLinea();
+        List<Usuario> usuariosOnline = GestorPresencia.obtenerInstancia().obtenerUsuariosEnLinea();
         
         informe.put("totalUsuariosOnline", usuariosOnline.size());
         informe.put("usuarios", usuariosOnline);
@@ -60,7 +57,7 @@ public class ServicioInformes {
         int canalesPublicos = 0;
         
         for (Canal canal : canales) {
-            totalMiembros += canal.getMiembrosIds().size();
+            totalMiembros += canal.getCantidadMiembros();
             if (canal.isEsPrivado()) {
                 canalesPrivados++;
             } else {
@@ -82,7 +79,7 @@ public class ServicioInformes {
     public Map<String, Object> generarInformeUsuariosConectados() throws SQLException {
         Map<String, Object> informe = new HashMap<>();
         
-        List<Usuario> usuariosConectados = usuarioDAO.obtenerUsuariosEnLinea();
+        List<Usuario> usuariosConectados = GestorPresencia.obtenerInstancia().obtenerUsuariosEnLinea();
         
         informe.put("totalConectados", usuariosConectados.size());
         informe.put("usuariosConectados", usuariosConectados);
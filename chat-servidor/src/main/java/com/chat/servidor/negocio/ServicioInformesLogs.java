@@ -4,8 +4,10 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 
+import com.chat.servidor.datos.ConsultaPagina;
 import com.chat.servidor.datos.LogMensajeDAO;
 import com.chat.servidor.datos.LogMensajeDAO.LogMensaje;
+import com.chat.servidor.datos.Pagina;
 
 /**
  * Servicio de negocio para gestión de logs de mensajes
@@ -58,13 +60,42 @@ public class ServicioInformesLogs {
         return logDAO.obtenerTodosLosLogs(limite);
     }
     
+    /**
+     * Obtener una página de logs (orden y filtro resueltos en SQL)
+     * @param consulta Orden, filtro y cursor de la página
+     * @return Página de logs con el cursor de su última fila
+     * @throws SQLException Si hay error en la base de datos
+     */
+    public Pagina<LogMensaje> obtenerPaginaLogs(ConsultaPagina consulta) throws SQLException {
+        return logDAO.obtenerPaginaLogs(consulta);
+    }
+    
+    /**
+     * Contar logs para dimensionar la tabla de informes
+     * Sin filtro se usan los contadores en memoria en lugar de COUNT(*)
+     * @param filtro Texto a buscar (null o vacío = todos)
+     * @return Cantidad de logs
+     * @throws SQLException Si hay error en la base de datos
+     */
+    public int contarLogs(String filtro) throws SQLException {
+        if (filtro == null || filtro.trim().isEmpty()) {
+            EstadisticasLogs stats = obtenerEstadisticas();
+            return stats.getTotalMensajes();
+        }
+        return logDAO.contarLogs(filtro);
+    }
+    
     /**
      * Obtener estadísticas de logs
      * @return Objeto con estadísticas
      * @throws SQLException Si hay error en la base de datos
      */
     public EstadisticasLogs obtenerEstadisticas() throws SQLException {
-        return new EstadisticasLogs(logDAO);
+        ContadoresServidor contadores = ContadoresServidor.obtenerInstancia();
+        if (!contadores.isSembrado()) {
+            contadores.reconciliar();
+        }
+        return new EstadisticasLogs(contadores);
     }
     
     /**
@@ -76,10 +107,10 @@ public class ServicioInformesLogs {
         private final int totalTranscripcionesExitosas;
         private final int totalTranscripcionesFallidas;
         
-        EstadisticasLogs(LogMensajeDAO logDAO) throws SQLException {
-            this.totalMensajesTexto = logDAO.contarMensajesPorTipo("TEXTO");
-            this.totalMensajesAudio = logDAO.contarMensajesPorTipo("AUDIO");
-            this.totalTranscripcionesExitosas = logDAO.contarTranscripcionesExitosas();
+        EstadisticasLogs(ContadoresServidor contadores) {
+            this.totalMensajesTexto = contadores.getMensajesTexto();
+            this.totalMensajesAudio = contadores.getMensajesAudio();
+            this.totalTranscripcionesExitosas = contadores.getTranscripcionesExitosas();
             this.totalTranscripcionesFallidas = this.totalMensajesAudio - this.totalTranscripcionesExitosas;
         }
         
@@ -2,6 +2,7 @@ package com.chat.servidor.negocio;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,17 +28,23 @@ public class ServicioUsuario {
     }
     
     /**
-     * Obtener todos los usuarios en línea
+     * Obtener todos los usuarios en línea (desde la presencia en memoria)
      */
     public List<Usuario> obtenerUsuariosEnLinea() throws SQLException {
-        return usuarioDAO.obtenerUsuariosEnLinea();
+        return GestorPresencia.obtenerInstancia().obtenerUsuariosEnLinea();
     }
     
     /**
      * Obtener todos los usuarios (conectados y desconectados)
      */
     public List<Usuario> obtenerTodosLosUsuarios() throws SQLException {
-        return usuarioDAO.obtenerTodosLosUsuarios();
+        List<Usuario> usuarios = usuarioDAO.obtenerTodosLosUsuarios();
+        
+        // La columna en_linea puede ir por detrás de la memoria: reordenar con el estado real
+        GestorPresencia.obtenerInstancia().aplicarEstado(usuarios);
+        usuarios.sort(Comparator.comparing(Usuario::isEnLinea).reversed()
+                                .thenComparing(Usuario::getUsername));
+        return usuarios;
     }
     
     /**
@@ -51,6 +58,13 @@ public class ServicioUsuario {
      * Actualizar estado en línea del usuario
      */
     public void actualizarEstadoEnLinea(Long usuarioId, boolean enLinea) throws SQLException {
-        usuarioDAO.actualizarEstadoEnLinea(usuarioId, enLinea);
+        if (enLinea) {
+            Optional<Usuario> usuario = usuarioDAO.buscarPorId(usuarioId);
+            if (usuario.isPresent()) {
+                GestorPresencia.obtenerInstancia().marcarConectado(usuario.get());
+            }
+        } else {
+            GestorPresencia.obtenerInstancia().marcarDesconectado(usuarioId);
+        }
     }
 }
@@ -1,16 +1,39 @@
 package com.chat.servidor.presentacion;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.PushbackInputStream;
 import java.net.Socket;
 import java.sql.Connection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.chat.common.dto.RequestDTO;
+import com.chat.common.dto.RequestDTO.TipoRequest;
 import com.chat.common.dto.ResponseDTO;
+import com.chat.common.log.Log;
+import com.chat.common.log.Registrador;
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
+import com.chat.common.models.Canal;
+import com.chat.common.network.CompresionRed;
+import com.chat.common.network.EntradaComprimida;
 import com.chat.common.network.ProtocoloMensaje;
+import com.chat.common.network.SalidaComprimida;
+import com.chat.common.utils.ConfiguracionManager;
+import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.datos.CriterioBusqueda;
 import com.chat.servidor.datos.LogMensajeDAO;
+import com.chat.servidor.negocio.ContadoresServidor;
 import com.chat.servidor.negocio.ServicioAutenticacion;
+import com.chat.servidor.negocio.ServicioBusqueda;
+import com.chat.servidor.negocio.ServicioCanal;
 import com.chat.servidor.negocio.ServicioGrupo;
 import com.chat.servidor.negocio.ServicioUsuario;
 import com.chat.transcripcion.ServicioTranscripcion;
@@ -20,23 +43,50 @@ import com.chat.transcripcion.ServicioTranscripcion;
  */
 public class ManejadorCliente implements Runnable {
     
+    private static final int LIMITE_HISTORIAL_DEFECTO = 50;
+    private static final int LIMITE_HISTORIAL_MAXIMO = 200;
+    private static final int LIMITE_BUSQUEDA_DEFECTO = 20;
+    private static final int LIMITE_BUSQUEDA_MAXIMO = 100;
+    
+    // Métricas: latencia de cada tipo de request (request.<TIPO>), errores y mensajes recibidos
+    private static final Map<TipoRequest, Histograma> LATENCIA_REQUEST = new EnumMap<>(TipoRequest.class);
+    private static final Contador ERRORES_REQUEST = RegistroMetricas.obtenerInstancia().contador("request.errores");
+    private static final Contador MENSAJES_RECIBIDOS = RegistroMetricas.obtenerInstancia().contador("mensajes.recibidos");
+    
+    // Bitácora del camino de mensajes: nunca registra el contenido ni las transcripciones
+    private static final Registrador LOG = Log.categoria("mensajes");
+    
+    static {
+        for (TipoRequest tipo : TipoRequest.values()) {
+            LATENCIA_REQUEST.put(tipo, RegistroMetricas.obtenerInstancia().histograma("request." + tipo));
+        }
+    }
+    
     private final Socket socket;
-    private ObjectOutputStream salida;
+    private volatile ObjectOutputStream salida;
+    private final Object candadoSalida = new Object();
     private ObjectInputStream entrada;
+    // Solo si el cliente negoció compresión
+    private SalidaComprimida salidaComprimida;
+    private EntradaComprimida entradaComprimida;
     private final ServicioAutenticacion servicioAuth;
     private final ServicioUsuario servicioUsuario;
     private final ServicioGrupo servicioGrupo;
+    private final ServicioCanal servicioCanal;
     private final LogMensajeDAO logMensajeDAO;
     private Long usuarioId;
     private String username;
     private boolean autenticado;
     private String horaConexion;
+    // Canales del usuario (id -> nombre), para los broadcasts a canales sin consultar la BD
+    private final Map<Long, String> canales = new ConcurrentHashMap<>();
     
     public ManejadorCliente(Socket socket, Connection conexion) {
         this.socket = socket;
         this.servicioAuth = new ServicioAutenticacion(conexion);
         this.servicioUsuario = new ServicioUsuario(conexion);
         this.servicioGrupo = new ServicioGrupo(conexion);
+        this.servicioCanal = new ServicioCanal(conexion);
         this.logMensajeDAO = new LogMensajeDAO(conexion); // ✅ Inyección de dependencias
         this.autenticado = false;
         this.horaConexion = java.time.LocalTime.now().format(
@@ -46,11 +96,25 @@ public class ManejadorCliente implements Runnable {
     @Override
     public void run() {
         try {
-            // Inicializar streams
-            salida = new ObjectOutputStream(socket.getOutputStream());
-            entrada = new ObjectInputStream(socket.getInputStream());
+            // Inicializar streams (con compresión si el cliente la pide y está habilitada)
+            ConfiguracionManager config = ConexionDB.getConfig();
+            PushbackInputStream entradaSocket = new PushbackInputStream(socket.getInputStream());
+            boolean comprimir = CompresionRed.aceptar(entradaSocket, socket.getOutputStream(),
+                config.getPropiedadBoolean("red.compresion", true));
+            if (comprimir) {
+                int nivel = config.getPropiedadInt("red.compresion.nivel", CompresionRed.NIVEL_POR_DEFECTO);
+                salidaComprimida = new SalidaComprimida(new BufferedOutputStream(socket.getOutputStream(), 16 * 1024), nivel);
+                entradaComprimida = new EntradaComprimida(new BufferedInputStream(entradaSocket, 16 * 1024));
+                salida = new ObjectOutputStream(salidaComprimida);
+                // La cabecera del ObjectOutputStream queda en la trama hasta el primer flush
+                salida.flush();
+                entrada = new ObjectInputStream(entradaComprimida);
+            } else {
+                salida = new ObjectOutputStream(socket.getOutputStream());
+                entrada = new ObjectInputStream(entradaSocket);
+            }
             
-            System.out.println("Cliente conectado: " + socket.getInetAddress());
+            System.out.println("Cliente conectado: " + socket.getInetAddress() + (comprimir ? " (compresión)" : ""));
             
             // Procesar mensajes del cliente
             while (!socket.isClosed()) {
@@ -89,6 +153,27 @@ public class ManejadorCliente implements Runnable {
      * Procesar request del cliente
      */
     private ResponseDTO procesarRequest(RequestDTO request) {
+        long inicio = System.nanoTime();
+        ResponseDTO response = despacharRequest(request);
+        
+        TipoRequest tipo = request.getTipo();
+        if (tipo != null) {
+            LATENCIA_REQUEST.get(tipo).registrarDesde(inicio);
+            if (tipo == TipoRequest.ENVIAR_MENSAJE || tipo == TipoRequest.ENVIAR_MENSAJE_GRUPO ||
+                tipo == TipoRequest.ENVIAR_MENSAJE_AUDIO) {
+                MENSAJES_RECIBIDOS.incrementar();
+            }
+        }
+        if (!response.isExito()) {
+            ERRORES_REQUEST.incrementar();
+        }
+        return response;
+    }
+    
+    /**
+     * Derivar el request a su manejador
+     */
+    private ResponseDTO despacharRequest(RequestDTO request) {
         try {
             switch (request.getTipo()) {
                 case REGISTRO:
@@ -133,6 +218,15 @@ public class ManejadorCliente implements Runnable {
                 case ENVIAR_MENSAJE_AUDIO:
                     return manejarEnviarMensajeAudio(request);
                     
+                case OBTENER_MENSAJES:
+                    return manejarObtenerMensajes(request);
+                    
+                case BUSCAR_MENSAJES:
+                    return manejarBuscarMensajes(request);
+                    
+                case INFORME_METRICAS:
+                    return manejarInformeMetricas();
+                    
                 default:
                     return ResponseDTO.error("Tipo de request no soportado");
             }
@@ -173,8 +267,12 @@ public class ManejadorCliente implements Runnable {
             
             String token = servicioAuth.login(usernameParam, password);
             this.usuarioId = servicioAuth.obtenerUsuarioIdPorToken(token);
+            for (Canal canal : servicioCanal.obtenerCanalesDeUsuario(usuarioId)) {
+                agregarCanal(canal.getId(), canal.getNombre());
+            }
             this.username = usernameParam;
             this.autenticado = true;
+            ServidorChat.getInstance().registrarAutenticado(this);
             
             ResponseDTO response = ResponseDTO.exitoso("Login exitoso");
             response.addDato("token", token);
@@ -199,17 +297,16 @@ public class ManejadorCliente implements Runnable {
         try {
             String token = request.getSessionToken();
             
-            // Actualizar estado en línea del usuario a false
+            // Realizar logout en el sistema de autenticación (marca al usuario como desconectado)
+            servicioAuth.logout(token);
             if (usuarioId != null) {
-                servicioUsuario.actualizarEstadoEnLinea(usuarioId, false);
                 System.out.println("✓ Usuario " + username + " (ID: " + usuarioId + ") marcado como desconectado");
             }
             
-            // Realizar logout en el sistema de autenticación
-            servicioAuth.logout(token);
-            
             // Marcar como no autenticado
             this.autenticado = false;
+            ServidorChat.getInstance().quitarAutenticado(this);
+            canales.clear();
             
             // Notificar a todos los clientes que la lista de usuarios ha cambiado
             ServidorChat.getInstance().notificarActualizacionUsuarios();
@@ -312,12 +409,16 @@ public class ManejadorCliente implements Runnable {
             // Guardar log del mensaje de texto privado
             try {
                 String direccionIP = socket.getInetAddress().getHostAddress();
-                logMensajeDAO.guardarLogTextoPrivado(
+                boolean guardado = logMensajeDAO.guardarLogTextoPrivado(
                     username, usuarioId, usernameDestino, null, contenido, direccionIP
                 );
-                System.out.println("📝 Log guardado: " + username + " → " + usernameDestino + ": " + contenido);
+                if (guardado) {
+                    ContadoresServidor.obtenerInstancia().registrarMensajeTexto();
+                }
+                LOG.debug("privado.registrado", "remitente", username, "destinatario", usernameDestino,
+                    "caracteres", contenido != null ? contenido.length() : 0);
             } catch (Exception e) {
-                System.err.println("⚠️ Error al guardar log de mensaje: " + e.getMessage());
+                LOG.warn("privado.registro.error", "remitente", username, "error", e.getMessage());
             }
             
             return ResponseDTO.exitoso("Mensaje enviado correctamente");
@@ -348,12 +449,16 @@ public class ManejadorCliente implements Runnable {
                 String direccionIP = socket.getInetAddress().getHostAddress();
                 // Obtener nombre del canal (simplificado, puedes mejorarlo)
                 String nombreCanal = "Canal_" + canalId;
-                logMensajeDAO.guardarLogTextoGrupo(
+                boolean guardado = logMensajeDAO.guardarLogTextoGrupo(
                     remitente, usuarioId, nombreCanal, canalId, contenido, direccionIP
                 );
-                System.out.println("📝 Log guardado (grupo): " + remitente + " → " + nombreCanal + ": " + contenido);
+                if (guardado) {
+                    ContadoresServidor.obtenerInstancia().registrarMensajeTexto();
+                }
+                LOG.debug("grupo.registrado", "remitente", remitente, "canalId", canalId,
+                    "caracteres", contenido != null ? contenido.length() : 0);
             } catch (Exception e) {
-                System.err.println("⚠️ Error al guardar log de mensaje grupal: " + e.getMessage());
+                LOG.warn("grupo.registro.error", "remitente", remitente, "canalId", canalId, "error", e.getMessage());
             }
             
             return ResponseDTO.exitoso("Mensaje enviado al grupo");
@@ -363,6 +468,163 @@ public class ManejadorCliente implements Runnable {
         }
     }
     
+    /**
+     * Manejar obtención paginada del historial (privado o de canal).
+     * Datos: usernameDestino o canalId, cursorFecha + cursorId opcionales,
+     * direccion ("ANTERIORES" por defecto o "POSTERIORES") y limite.
+     */
+    private ResponseDTO manejarObtenerMensajes(RequestDTO request) {
+        try {
+            if (!autenticado) {
+                return ResponseDTO.error("Usuario no autenticado");
+            }
+            
+            String usernameDestino = (String) request.getDato("usernameDestino");
+            Long canalId = (Long) request.getDato("canalId");
+            java.time.LocalDateTime cursorFecha = (java.time.LocalDateTime) request.getDato("cursorFecha");
+            Long cursorId = (Long) request.getDato("cursorId");
+            boolean haciaAtras = !"POSTERIORES".equals(request.getDato("direccion"));
+            if ((cursorFecha == null) != (cursorId == null)) {
+                return ResponseDTO.error("El cursor debe incluir cursorFecha y cursorId");
+            }
+            
+            Integer limiteSolicitado = (Integer) request.getDato("limite");
+            int limite = limiteSolicitado != null ? limiteSolicitado : LIMITE_HISTORIAL_DEFECTO;
+            limite = Math.max(1, Math.min(limite, LIMITE_HISTORIAL_MAXIMO));
+            
+            // Se pide un registro extra para saber si quedan más páginas en esa dirección
+            java.util.List<LogMensajeDAO.LogMensaje> pagina;
+            if (canalId != null) {
+                if (!servicioGrupo.esMiembroCanal(canalId, usuarioId)) {
+                    return ResponseDTO.error("No eres miembro de este canal");
+                }
+                pagina = logMensajeDAO.obtenerHistorialCanal(canalId, cursorFecha, cursorId, haciaAtras, limite + 1);
+            } else if (usernameDestino != null) {
+                pagina = logMensajeDAO.obtenerHistorialPrivado(username, usernameDestino,
+                                                               cursorFecha, cursorId, haciaAtras, limite + 1);
+            } else {
+                return ResponseDTO.error("Debe indicar usernameDestino o canalId");
+            }
+            
+            boolean hayMas = pagina.size() > limite;
+            if (hayMas) {
+                // El registro sobrante es el más lejano al cursor
+                if (haciaAtras) {
+                    pagina = pagina.subList(1, pagina.size());
+                } else {
+                    pagina = pagina.subList(0, limite);
+                }
+            }
+            
+            java.util.ArrayList<java.util.HashMap<String, Object>> mensajes = new java.util.ArrayList<>();
+            for (LogMensajeDAO.LogMensaje log : pagina) {
+                java.util.HashMap<String, Object> mensaje = new java.util.HashMap<>();
+                mensaje.put("id", log.id);
+                mensaje.put("tipoMensaje", log.tipoMensaje);
+                mensaje.put("remitente", log.remitenteUsername);
+                mensaje.put("destinatario", log.destinatarioUsername);
+                mensaje.put("canalId", canalId);
+                mensaje.put("contenido", log.contenidoTexto);
+                mensaje.put("transcripcion", log.transcripcionAudio);
+                mensaje.put("duracionSegundos", log.duracionSegundos);
+                mensaje.put("formato", log.formatoAudio);
+                mensaje.put("fecha", log.timestamp);
+                mensajes.add(mensaje);
+            }
+            
+            ResponseDTO response = ResponseDTO.exitoso("Mensajes obtenidos");
+            response.addDato("mensajes", mensajes);
+            response.addDato("hayMas", hayMas);
+            if (!pagina.isEmpty()) {
+                // Cursores para pedir la página anterior (más vieja) y la siguiente (más nueva)
+                LogMensajeDAO.LogMensaje primero = pagina.get(0);
+                LogMensajeDAO.LogMensaje ultimo = pagina.get(pagina.size() - 1);
+                response.addDato("cursorAnteriorFecha", primero.timestamp);
+                response.addDato("cursorAnteriorId", primero.id);
+                response.addDato("cursorSiguienteFecha", ultimo.timestamp);
+                response.addDato("cursorSiguienteId", ultimo.id);
+            }
+            return response;
+            
+        } catch (Exception e) {
+            return ResponseDTO.error("Error al obtener mensajes: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Manejar búsqueda de texto completo en los mensajes y transcripciones del usuario
+     * (sus conversaciones privadas y los canales de los que es miembro).
+     * Datos: texto, y opcionales remitente, canalId, desde, hasta (LocalDateTime),
+     * pagina (desde 0) y limite.
+     */
+    private ResponseDTO manejarBuscarMensajes(RequestDTO request) {
+        try {
+            if (!autenticado) {
+                return ResponseDTO.error("Usuario no autenticado");
+            }
+            
+            Integer limiteSolicitado = (Integer) request.getDato("limite");
+            int limite = limiteSolicitado != null ? limiteSolicitado : LIMITE_BUSQUEDA_DEFECTO;
+            limite = Math.max(1, Math.min(limite, LIMITE_BUSQUEDA_MAXIMO));
+            Integer paginaSolicitada = (Integer) request.getDato("pagina");
+            int pagina = paginaSolicitada != null ? Math.max(0, paginaSolicitada) : 0;
+            
+            CriterioBusqueda criterio = new CriterioBusqueda(
+                (String) request.getDato("texto"),
+                (String) request.getDato("remitente"),
+                (Long) request.getDato("canalId"),
+                (java.time.LocalDateTime) request.getDato("desde"),
+                (java.time.LocalDateTime) request.getDato("hasta"),
+                username, usuarioId, pagina * limite, limite);
+            
+            ServicioBusqueda.ResultadoBusqueda resultado = ServicioBusqueda.obtenerInstancia().buscar(criterio);
+            
+            java.util.ArrayList<java.util.HashMap<String, Object>> resultados = new java.util.ArrayList<>();
+            for (ServicioBusqueda.Coincidencia coincidencia : resultado.getCoincidencias()) {
+                java.util.HashMap<String, Object> fila = new java.util.HashMap<>();
+                fila.put("id", coincidencia.id);
+                fila.put("tipoMensaje", coincidencia.tipoMensaje);
+                fila.put("tipoConversacion", coincidencia.tipoConversacion);
+                fila.put("remitente", coincidencia.remitente);
+                fila.put("destinatario", coincidencia.destinatario);
+                fila.put("canalId", coincidencia.canalId);
+                fila.put("canalNombre", coincidencia.canalNombre);
+                fila.put("fecha", coincidencia.fecha);
+                fila.put("campo", coincidencia.campo);
+                fila.put("fragmento", coincidencia.fragmento);
+                resultados.add(fila);
+            }
+            
+            ResponseDTO response = ResponseDTO.exitoso("Búsqueda completada");
+            response.addDato("resultados", resultados);
+            response.addDato("total", resultado.getTotal());
+            response.addDato("pagina", pagina);
+            response.addDato("hayMas", (pagina + 1) * limite < resultado.getTotal());
+            response.addDato("marcaInicio", ServicioBusqueda.MARCA_INICIO);
+            response.addDato("marcaFin", ServicioBusqueda.MARCA_FIN);
+            return response;
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseDTO.error(e.getMessage());
+        } catch (Exception e) {
+            return ResponseDTO.error("Error al buscar mensajes: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Manejar informe de métricas del servidor: contadores, medidores (clientes,
+     * pool, colas) y latencias por histograma (total, media, p50, p99, p999 y máximo en µs)
+     */
+    private ResponseDTO manejarInformeMetricas() {
+        if (!autenticado) {
+            return ResponseDTO.error("Usuario no autenticado");
+        }
+        
+        ResponseDTO response = ResponseDTO.exitoso("Métricas del servidor");
+        response.getDatos().putAll(RegistroMetricas.obtenerInstancia().resumen());
+        return response;
+    }
+    
     /**
      * Manejar envío de mensaje de audio (privado o grupal)
      */
@@ -425,13 +687,13 @@ public class ManejadorCliente implements Runnable {
                 // Intentar transcribir el audio
                 ServicioTranscripcion servicioTranscripcion = ServicioTranscripcion.obtenerInstancia();
                 if (servicioTranscripcion.estaInicializado()) {
-                    System.out.println("🎤 Transcribiendo audio de " + username + "...");
+                    LOG.debug("audio.transcribiendo", "remitente", username, "bytes", contenidoAudio.length);
                     transcripcion = servicioTranscripcion.transcribir(contenidoAudio);
                     if (transcripcion == null || transcripcion.isEmpty()) {
                         transcripcion = "[Sin audio detectado]";
                     }
                 } else {
-                    System.out.println("⚠️ Servicio de transcripción no inicializado");
+                    LOG.debug("audio.transcripcion.inactiva", "remitente", username);
                 }
                 
                 // Guardar log con transcripción
@@ -440,25 +702,30 @@ public class ManejadorCliente implements Runnable {
                 if (esGrupal) {
                     // Log de audio grupal
                     String nombreCanal = "Canal_" + canalId;
-                    logMensajeDAO.guardarLogAudioGrupo(
+                    boolean guardado = logMensajeDAO.guardarLogAudioGrupo(
                         username, usuarioId, nombreCanal, canalId,
                         contenidoAudio, transcripcion, duracionSegundos, formato, direccionIP
                     );
-                    System.out.println("🎵 Log audio guardado (grupo): " + username + 
-                                     " → " + nombreCanal + ": \"" + transcripcion + "\"");
+                    if (guardado) {
+                        ContadoresServidor.obtenerInstancia().registrarMensajeAudio(transcripcion);
+                    }
+                    LOG.debug("audio.grupo.registrado", "remitente", username, "canalId", canalId,
+                        "segundos", duracionSegundos, "caracteresTranscripcion", transcripcion.length());
                 } else {
                     // Log de audio privado
-                    logMensajeDAO.guardarLogAudioPrivado(
+                    boolean guardado = logMensajeDAO.guardarLogAudioPrivado(
                         username, usuarioId, usernameDestino, null,
                         contenidoAudio, transcripcion, duracionSegundos, formato, direccionIP
                     );
-                    System.out.println("🎵 Log audio guardado: " + username + 
-                                     " → " + usernameDestino + ": \"" + transcripcion + "\"");
+                    if (guardado) {
+                        ContadoresServidor.obtenerInstancia().registrarMensajeAudio(transcripcion);
+                    }
+                    LOG.debug("audio.privado.registrado", "remitente", username, "destinatario", usernameDestino,
+                        "segundos", duracionSegundos, "caracteresTranscripcion", transcripcion.length());
                 }
                 
             } catch (Exception e) {
-                System.err.println("❌ Error al transcribir/loggear audio: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error("audio.registro.error", e, "remitente", username);
             }
         }, "TranscripcionThread-" + username).start();
     }
@@ -491,6 +758,7 @@ public class ManejadorCliente implements Runnable {
             if (resultado.isExito()) {
                 // Notificar a los usuarios invitados
                 Long canalId = (Long) resultado.getDato("canalId");
+                agregarCanal(canalId, (String) resultado.getDato("nombre"));
                 for (String usernameInvitado : usuariosInvitados) {
                     ServidorChat.getInstance().enviarNotificacionInvitacion(
                         username,
@@ -523,6 +791,9 @@ public class ManejadorCliente implements Runnable {
             Long canalId = ((Number) request.getDato("canalId")).longValue();
             
             ResponseDTO resultado = servicioGrupo.aceptarInvitacion(invitacionId, canalId, usuarioId);
+            if (resultado.isExito()) {
+                ServidorChat.getInstance().actualizarMembresiasCanal(canalId);
+            }
             
             return resultado;
             
@@ -578,13 +849,55 @@ public class ManejadorCliente implements Runnable {
                 ProtocoloMensaje.TipoProtocolo.RESPONSE,
                 response
             );
-            salida.writeObject(protocolo);
-            salida.flush();
+            escribir(protocolo);
         } catch (IOException e) {
             System.err.println("Error al enviar response: " + e.getMessage());
         }
     }
     
+    /**
+     * Escribir en el socket del cliente. Escriben el hilo del propio cliente (responses) y
+     * los que le reparten mensajes (otros clientes, el bus del cluster, los escritores de
+     * broadcast): sin exclusión mutua los objetos se intercalan en el stream y el cliente
+     * lee bytes inválidos ("invalid type code").
+     */
+    private void escribir(ProtocoloMensaje... protocolos) throws IOException {
+        synchronized (candadoSalida) {
+            if (salida == null) {
+                throw new IOException("Conexión no inicializada");
+            }
+            boolean audio = false;
+            for (ProtocoloMensaje protocolo : protocolos) {
+                salida.writeObject(protocolo);
+                audio |= CompresionRed.llevaAudio(protocolo);
+            }
+            if (audio && salidaComprimida != null) {
+                salidaComprimida.enviarSiguienteSinComprimir();
+            }
+            // Sin reset() el stream conserva una referencia a todo lo enviado mientras dure la conexión
+            salida.reset();
+            salida.flush();
+        }
+    }
+    
+    /**
+     * Enviar varias notificaciones en un solo lote (una escritura y un flush); false si falló
+     */
+    public boolean enviarNotificaciones(List<ResponseDTO> notificaciones) {
+        ProtocoloMensaje[] protocolos = new ProtocoloMensaje[notificaciones.size()];
+        for (int i = 0; i < protocolos.length; i++) {
+            protocolos[i] = new ProtocoloMensaje(ProtocoloMensaje.TipoProtocolo.NOTIFICACION, notificaciones.get(i));
+        }
+        try {
+            escribir(protocolos);
+            return true;
+        } catch (IOException e) {
+            LOG.warn("entrega.error", "tipo", "LOTE", "destinatario", username, "notificaciones", protocolos.length,
+                "error", e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Enviar mensaje entrante al cliente (desde otro usuario)
      */
@@ -600,11 +913,10 @@ public class ManejadorCliente implements Runnable {
                 notification
             );
             
-            salida.writeObject(protocolo);
-            salida.flush();
+            escribir(protocolo);
             
         } catch (IOException e) {
-            System.err.println("Error al enviar mensaje a " + username + ": " + e.getMessage());
+            LOG.warn("entrega.error", "tipo", "MENSAJE_ENTRANTE", "destinatario", username, "error", e.getMessage());
         }
     }
     
@@ -624,11 +936,10 @@ public class ManejadorCliente implements Runnable {
                 notification
             );
             
-            salida.writeObject(protocolo);
-            salida.flush();
+            escribir(protocolo);
             
         } catch (IOException e) {
-            System.err.println("Error al enviar mensaje grupal a " + username + ": " + e.getMessage());
+            LOG.warn("entrega.error", "tipo", "MENSAJE_GRUPO", "destinatario", username, "error", e.getMessage());
         }
     }
     
@@ -659,11 +970,10 @@ public class ManejadorCliente implements Runnable {
                 notification
             );
             
-            salida.writeObject(protocolo);
-            salida.flush();
+            escribir(protocolo);
             
         } catch (IOException e) {
-            System.err.println("Error al enviar audio a " + username + ": " + e.getMessage());
+            LOG.warn("entrega.error", "tipo", "AUDIO", "destinatario", username, "error", e.getMessage());
         }
     }
     
@@ -686,11 +996,10 @@ public class ManejadorCliente implements Runnable {
                 notification
             );
             
-            salida.writeObject(protocolo);
-            salida.flush();
+            escribir(protocolo);
             
         } catch (IOException e) {
-            System.err.println("Error al enviar invitación a " + username + ": " + e.getMessage());
+            LOG.warn("entrega.error", "tipo", "INVITACION_RECIBIDA", "destinatario", username, "error", e.getMessage());
         }
     }
     
@@ -707,13 +1016,10 @@ public class ManejadorCliente implements Runnable {
                 notification
             );
             
-            salida.writeObject(protocolo);
-            salida.flush();
-            
-            System.out.println("Notificación de actualización de usuarios enviada a " + username);
+            escribir(protocolo);
             
         } catch (IOException e) {
-            System.err.println("Error al notificar actualización a " + username + ": " + e.getMessage());
+            LOG.warn("entrega.error", "tipo", "USUARIOS_ACTUALIZADOS", "destinatario", username, "error", e.getMessage());
         }
     }
     
@@ -735,6 +1041,17 @@ public class ManejadorCliente implements Runnable {
                 }
             }
             
+            // Dejar de recibir repartos antes de cerrar los streams
+            ServidorChat.getInstance().quitarCliente(this);
+            
+            if (salidaComprimida != null) {
+                LOG.info("compresion.conexion", "cliente", username != null ? username : getDireccionIP(),
+                    "enviados", salidaComprimida.getBytesOriginales(), "enviadosRed", salidaComprimida.getBytesEnRed(),
+                    "tramasSinComprimir", salidaComprimida.getTramasCrudas(),
+                    "recibidos", entradaComprimida.getBytesOriginales(), "recibidosRed", entradaComprimida.getBytesEnRed(),
+                    "cpuMs", (salidaComprimida.getNanosCpu() + entradaComprimida.getNanosCpu()) / 1_000_000);
+            }
+            
             if (entrada != null) entrada.close();
             if (salida != null) salida.close();
             if (socket != null && !socket.isClosed()) socket.close();
@@ -762,6 +1079,17 @@ public class ManejadorCliente implements Runnable {
         return autenticado;
     }
     
+    /**
+     * Registrar un canal del que el usuario es miembro
+     */
+    public void agregarCanal(Long canalId, String nombre) {
+        canales.put(canalId, nombre != null ? nombre : "");
+    }
+    
+    public Map<Long, String> getCanales() {
+        return canales;
+    }
+    
     public void setAutenticado(boolean autenticado) {
         this.autenticado = autenticado;
     }
@@ -795,21 +1123,18 @@ public class ManejadorCliente implements Runnable {
      */
     public void recibirNotificacionServidor(String mensaje) {
         try {
-            ResponseDTO notification = ResponseDTO.exitoso("Notificación del servidor");
-            notification.addDato("tipo", "NOTIFICACION_SERVIDOR");
-            notification.addDato("mensaje", mensaje);
-            notification.addDato("timestamp", com.chat.common.utils.FechaHoraUtil.formatearHoraActual());
+            ResponseDTO notification = notificacionServidor(mensaje,
+                com.chat.common.utils.FechaHoraUtil.formatearHoraActual());
             
             ProtocoloMensaje protocolo = new ProtocoloMensaje(
                 ProtocoloMensaje.TipoProtocolo.NOTIFICACION,
                 notification
             );
             
-            salida.writeObject(protocolo);
-            salida.flush();
+            escribir(protocolo);
             
         } catch (IOException e) {
-            System.err.println("Error al enviar notificación del servidor a " + username + ": " + e.getMessage());
+            LOG.warn("entrega.error", "tipo", "NOTIFICACION_SERVIDOR", "destinatario", username, "error", e.getMessage());
         }
     }
     
@@ -818,23 +1143,42 @@ public class ManejadorCliente implements Runnable {
      */
     public void recibirNotificacionServidorGrupo(Long canalId, String nombreCanal, String mensaje) {
         try {
-            ResponseDTO notification = ResponseDTO.exitoso("Notificación del servidor");
-            notification.addDato("tipo", "NOTIFICACION_SERVIDOR_GRUPO");
-            notification.addDato("canalId", canalId);
-            notification.addDato("nombreCanal", nombreCanal);
-            notification.addDato("mensaje", mensaje);
-            notification.addDato("timestamp", com.chat.common.utils.FechaHoraUtil.formatearHoraActual());
+            ResponseDTO notification = notificacionServidorGrupo(canalId, nombreCanal, mensaje,
+                com.chat.common.utils.FechaHoraUtil.formatearHoraActual());
             
             ProtocoloMensaje protocolo = new ProtocoloMensaje(
                 ProtocoloMensaje.TipoProtocolo.NOTIFICACION,
                 notification
             );
             
-            salida.writeObject(protocolo);
-            salida.flush();
+            escribir(protocolo);
             
         } catch (IOException e) {
-            System.err.println("Error al enviar notificación del servidor (grupo) a " + username + ": " + e.getMessage());
+            LOG.warn("entrega.error", "tipo", "NOTIFICACION_SERVIDOR_GRUPO", "destinatario", username, "error", e.getMessage());
         }
     }
+    
+    /**
+     * Notificación de broadcast del servidor al usuario (se puede compartir entre destinatarios)
+     */
+    static ResponseDTO notificacionServidor(String mensaje, String timestamp) {
+        ResponseDTO notification = ResponseDTO.exitoso("Notificación del servidor");
+        notification.addDato("tipo", "NOTIFICACION_SERVIDOR");
+        notification.addDato("mensaje", mensaje);
+        notification.addDato("timestamp", timestamp);
+        return notification;
+    }
+    
+    /**
+     * Notificación de broadcast del servidor en un canal (se puede compartir entre destinatarios)
+     */
+    static ResponseDTO notificacionServidorGrupo(Long canalId, String nombreCanal, String mensaje, String timestamp) {
+        ResponseDTO notification = ResponseDTO.exitoso("Notificación del servidor");
+        notification.addDato("tipo", "NOTIFICACION_SERVIDOR_GRUPO");
+        notification.addDato("canalId", canalId);
+        notification.addDato("nombreCanal", nombreCanal);
+        notification.addDato("mensaje", mensaje);
+        notification.addDato("timestamp", timestamp);
+        return notification;
+    }
 }
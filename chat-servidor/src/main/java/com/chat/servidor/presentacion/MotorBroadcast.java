@@ -0,0 +1,139 @@
+package com.chat.servidor.presentacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chat.common.dto.ResponseDTO;
+
+/**
+ * Motor de broadcast del servidor.
+ *
+ * Recibe el conjunto de destinatarios ya calculado, con todas las notificaciones de cada
+ * uno agrupadas en un lote (un usuario que está en 30 canales recibe un único lote de 30
+ * notificaciones y un solo flush), y escribe los lotes en paralelo con un grupo fijo de
+ * hilos escritores. Cada escritor toma el siguiente destinatario pendiente, así que un
+ * cliente lento solo retiene a un hilo y no a los destinatarios que le siguen.
+ *
+ * Quien llama espera como mucho esperaMillis: si un cliente bloqueado no deja terminar,
+ * el resultado cuenta como pendientes a los que aún no se entregó y las entregas siguen
+ * en segundo plano.
+ */
+class MotorBroadcast {
+    
+    private final int hilos;
+    private final long esperaMillis;
+    private final ExecutorService escritores;
+    
+    MotorBroadcast(int hilos, long esperaMillis) {
+        this.hilos = Math.max(1, hilos);
+        this.esperaMillis = esperaMillis;
+        AtomicInteger numero = new AtomicInteger();
+        this.escritores = Executors.newFixedThreadPool(this.hilos, r -> {
+            Thread hilo = new Thread(r, "broadcast-escritor-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    /**
+     * Escribir los lotes y esperar a que terminen todos (como mucho esperaMillis)
+     */
+    Resultado repartir(Map<ManejadorCliente, List<ResponseDTO>> lotes) {
+        long inicio = System.nanoTime();
+        List<Map.Entry<ManejadorCliente, List<ResponseDTO>>> pendientes = new ArrayList<>(lotes.entrySet());
+        AtomicInteger siguiente = new AtomicInteger();
+        AtomicInteger entregados = new AtomicInteger();
+        AtomicInteger notificaciones = new AtomicInteger();
+        AtomicInteger fallidos = new AtomicInteger();
+        
+        int tareas = Math.min(hilos, pendientes.size());
+        CountDownLatch terminadas = new CountDownLatch(tareas);
+        for (int t = 0; t < tareas; t++) {
+            escritores.execute(() -> {
+                try {
+                    int i;
+                    while ((i = siguiente.getAndIncrement()) < pendientes.size()) {
+                        Map.Entry<ManejadorCliente, List<ResponseDTO>> lote = pendientes.get(i);
+                        if (lote.getKey().enviarNotificaciones(lote.getValue())) {
+                            notificaciones.addAndGet(lote.getValue().size());
+                            entregados.incrementAndGet();
+                        } else {
+                            fallidos.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    terminadas.countDown();
+                }
+            });
+        }
+        
+        try {
+            terminadas.await(esperaMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int destinatarios = entregados.get();
+        int sinEntregar = fallidos.get();
+        return new Resultado(destinatarios, notificaciones.get(), sinEntregar,
+            Math.max(0, pendientes.size() - destinatarios - sinEntregar), System.nanoTime() - inicio);
+    }
+    
+    void detener() {
+        escritores.shutdownNow();
+    }
+    
+    int getHilos() {
+        return hilos;
+    }
+    
+    /**
+     * Resumen de un broadcast: destinatarios alcanzados, notificaciones escritas,
+     * destinatarios con error de escritura, destinatarios aún sin entregar al agotarse
+     * la espera y tiempo hasta completar la última entrega (o hasta agotar la espera)
+     */
+    static class Resultado {
+        private final int destinatarios;
+        private final int notificaciones;
+        private final int fallidos;
+        private final int pendientes;
+        private final long nanos;
+        
+        Resultado(int destinatarios, int notificaciones, int fallidos, int pendientes, long nanos) {
+            this.destinatarios = destinatarios;
+            this.notificaciones = notificaciones;
+            this.fallidos = fallidos;
+            this.pendientes = pendientes;
+            this.nanos = nanos;
+        }
+        
+        int getDestinatarios() {
+            return destinatarios;
+        }
+        
+        int getNotificaciones() {
+            return notificaciones;
+        }
+        
+        int getFallidos() {
+            return fallidos;
+        }
+        
+        int getPendientes() {
+            return pendientes;
+        }
+        
+        long getMicros() {
+            return nanos / 1000;
+        }
+        
+        double getMilisegundos() {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
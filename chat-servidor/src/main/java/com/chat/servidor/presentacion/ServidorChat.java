@@ -1,5 +1,6 @@
 package com.chat.servidor.presentacion;
 
+import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -10,14 +11,29 @@ import java.net.Socket;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
+import com.chat.common.dto.ResponseDTO;
+import com.chat.common.log.Log;
+import com.chat.common.log.Registrador;
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
 import com.chat.common.models.Canal;
+import com.chat.common.utils.FechaHoraUtil;
+import com.chat.servidor.cluster.NodoCluster;
+import com.chat.servidor.datos.CacheDatos;
 import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.negocio.ContadoresServidor;
+import com.chat.servidor.negocio.GestorPresencia;
 import com.chat.servidor.negocio.ServicioCanal;
 import com.chat.servidor.presentacion.gui.ServidorFrame;
 import com.chat.transcripcion.ServicioTranscripcion;
@@ -31,16 +47,31 @@ public class ServidorChat {
     private static final int PUERTO_DEFAULT = 5000;
     private static final String HOST_DEFAULT = "0.0.0.0";
     
+    // Bitácora del reparto: un evento DEBUG por entrega, sin contenido
+    private static final Registrador LOG = Log.categoria("reparto");
+    
     private static ServidorChat instancia;
     private ServerSocket serverSocket;
     private boolean ejecutando;
     private Connection conexionDB;
     private List<ManejadorCliente> clientesConectados;
+    // Índices de los clientes autenticados (se mantienen en login, logout y desconexión)
+    private final ConcurrentHashMap<String, ManejadorCliente> clientesPorUsername = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ManejadorCliente> clientesPorUsuarioId = new ConcurrentHashMap<>();
+    private MotorBroadcast motorBroadcast;
     private ServidorFrame gui;
     private ServicioCanal servicioCanal;
+    private NodoCluster nodoCluster;
     private int puerto;
     private String host;
     
+    // Métricas del reparto de mensajes a los clientes conectados
+    private final Histograma repartoPrivado = RegistroMetricas.obtenerInstancia().histograma("reparto.privado");
+    private final Histograma repartoCanal = RegistroMetricas.obtenerInstancia().histograma("reparto.canal");
+    private final Histograma repartoNotificacion = RegistroMetricas.obtenerInstancia().histograma("reparto.notificacion");
+    private final Histograma repartoBroadcast = RegistroMetricas.obtenerInstancia().histograma("reparto.broadcast");
+    private final Contador entregas = RegistroMetricas.obtenerInstancia().contador("mensajes.entregados");
+    
     public ServidorChat() {
         this.clientesConectados = new ArrayList<>();
         this.puerto = PUERTO_DEFAULT;
@@ -66,92 +97,210 @@ public class ServidorChat {
     }
     
     /**
-     * Enviar mensaje de un usuario a otro
+     * Registrar un cliente recién conectado
      */
-    public void enviarMensajeAUsuario(String remitenteUsername, String destinatarioUsername, String contenido) {
-        ManejadorCliente destinatario = null;
-        
-        // Buscar el manejador del destinatario
+    public void agregarCliente(ManejadorCliente manejador) {
         synchronized (clientesConectados) {
-            for (ManejadorCliente cliente : clientesConectados) {
-                if (cliente.isAutenticado() && destinatarioUsername.equals(cliente.getUsername())) {
-                    destinatario = cliente;
-                    break;
+            clientesConectados.add(manejador);
+        }
+    }
+    
+    /**
+     * Buscar el manejador de un usuario autenticado por su username (null si no está conectado)
+     */
+    public ManejadorCliente buscarClienteAutenticado(String username) {
+        ManejadorCliente cliente = username == null ? null : clientesPorUsername.get(username);
+        return cliente != null && cliente.isAutenticado() ? cliente : null;
+    }
+    
+    /**
+     * Clientes autenticados que son miembros del canal. Se recorre el lado más pequeño:
+     * los miembros del canal (buscándolos en el índice) o los usuarios en línea
+     * (comprobando la membresía con búsqueda binaria)
+     */
+    public List<ManejadorCliente> obtenerMiembrosConectados(Canal canal) {
+        List<ManejadorCliente> miembros = new ArrayList<>();
+        if (canal.getCantidadMiembros() <= clientesPorUsuarioId.size()) {
+            for (Long usuarioId : canal.getMiembrosIds()) {
+                ManejadorCliente cliente = clientesPorUsuarioId.get(usuarioId);
+                if (cliente != null && cliente.isAutenticado()) {
+                    miembros.add(cliente);
                 }
             }
-        }
-        
-        if (destinatario != null) {
-            destinatario.recibirMensaje(remitenteUsername, contenido);
-            System.out.println("Mensaje enviado de " + remitenteUsername + " a " + destinatarioUsername);
         } else {
-            System.err.println("Usuario destinatario no encontrado: " + destinatarioUsername);
+            for (ManejadorCliente cliente : clientesPorUsuarioId.values()) {
+                if (cliente.isAutenticado() && canal.esMiembro(cliente.getUsuarioId())) {
+                    miembros.add(cliente);
+                }
+            }
+        }
+        return miembros;
+    }
+    
+    /**
+     * Indexar un cliente que acaba de iniciar sesión (por username y por id de usuario)
+     */
+    public void registrarAutenticado(ManejadorCliente cliente) {
+        clientesPorUsername.put(cliente.getUsername(), cliente);
+        clientesPorUsuarioId.put(cliente.getUsuarioId(), cliente);
+    }
+    
+    /**
+     * Tras un cambio de membresía (en este nodo o en otro del cluster), agregar el canal
+     * a los miembros conectados aquí que aún no lo tengan
+     */
+    public void actualizarMembresiasCanal(Long canalId) {
+        Canal canal = buscarCanal(canalId);
+        if (canal == null) {
+            return;
+        }
+        for (ManejadorCliente cliente : obtenerMiembrosConectados(canal)) {
+            cliente.agregarCanal(canal.getId(), canal.getNombre());
+        }
+    }
+    
+    /**
+     * Quitar de los índices a un cliente que cerró sesión (si otra conexión del mismo
+     * usuario ya lo reemplazó, se conserva la nueva)
+     */
+    public void quitarAutenticado(ManejadorCliente cliente) {
+        if (cliente.getUsername() != null) {
+            clientesPorUsername.remove(cliente.getUsername(), cliente);
+        }
+        if (cliente.getUsuarioId() != null) {
+            clientesPorUsuarioId.remove(cliente.getUsuarioId(), cliente);
+        }
+    }
+    
+    /**
+     * Olvidar a un cliente desconectado: deja de recibir repartos y sale de la lista
+     */
+    public void quitarCliente(ManejadorCliente cliente) {
+        quitarAutenticado(cliente);
+        synchronized (clientesConectados) {
+            clientesConectados.remove(cliente);
+        }
+    }
+    
+    /**
+     * Enviar mensaje de un usuario a otro (en cluster, por el bus si está en otro nodo)
+     */
+    public void enviarMensajeAUsuario(String remitenteUsername, String destinatarioUsername, String contenido) {
+        if (entregarMensajeLocal(remitenteUsername, destinatarioUsername, contenido)) {
+            return;
+        }
+        if (nodoCluster != null && nodoCluster.enviarMensajePrivado(remitenteUsername, destinatarioUsername, contenido)) {
+            LOG.debug("privado.reenviado", "remitente", remitenteUsername, "destinatario", destinatarioUsername);
+            return;
+        }
+        LOG.info("privado.sin.destinatario", "remitente", remitenteUsername, "destinatario", destinatarioUsername);
+    }
+    
+    /**
+     * Entregar un mensaje privado si el destinatario está conectado a este servidor
+     */
+    public boolean entregarMensajeLocal(String remitenteUsername, String destinatarioUsername, String contenido) {
+        long inicio = System.nanoTime();
+        ManejadorCliente destinatario = buscarClienteAutenticado(destinatarioUsername);
+        if (destinatario == null) {
+            return false;
         }
+        destinatario.recibirMensaje(remitenteUsername, contenido);
+        entregas.incrementar();
+        repartoPrivado.registrarDesde(inicio);
+        LOG.debug("privado.entregado", "remitente", remitenteUsername, "destinatario", destinatarioUsername);
+        return true;
     }
     
     /**
      * Enviar mensaje a todos los miembros de un canal/grupo
      */
     public void enviarMensajeACanal(Long canalId, String remitenteUsername, String contenido) {
+        Canal canal = buscarCanal(canalId);
+        if (canal == null) {
+            return;
+        }
+        repartirMensajeCanal(canal, remitenteUsername, contenido);
+        if (nodoCluster != null) {
+            int nodos = nodoCluster.publicarMensajeCanal(canal, remitenteUsername, contenido);
+            LOG.debug("canal.reenviado", "canalId", canalId, "nodos", nodos);
+        }
+    }
+    
+    /**
+     * Repartir a los miembros locales un mensaje de canal llegado de otro nodo
+     */
+    public void repartirMensajeCanalRemoto(Long canalId, String remitenteUsername, String contenido) {
+        Canal canal = buscarCanal(canalId);
+        if (canal != null) {
+            repartirMensajeCanal(canal, remitenteUsername, contenido);
+        }
+    }
+    
+    private void repartirMensajeCanal(Canal canal, String remitenteUsername, String contenido) {
+        long inicio = System.nanoTime();
+        int mensajesEnviados = 0;
+        
+        // Enviar el mensaje a cada miembro conectado
+        for (ManejadorCliente cliente : obtenerMiembrosConectados(canal)) {
+            cliente.recibirMensajeGrupo(canal.getId(), remitenteUsername, contenido);
+            mensajesEnviados++;
+        }
+        
+        entregas.sumar(mensajesEnviados);
+        repartoCanal.registrarDesde(inicio);
+        LOG.debug("canal.entregado", "remitente", remitenteUsername, "canalId", canal.getId(),
+            "miembros", mensajesEnviados);
+    }
+    
+    /**
+     * Obtener el canal a través del servicio (respeta arquitectura 3-layer); null si no existe
+     */
+    private Canal buscarCanal(Long canalId) {
         try {
-            // Obtener el canal a través del servicio (respeta arquitectura 3-layer)
             Canal canal = servicioCanal.obtenerCanal(canalId).orElse(null);
-            
             if (canal == null) {
-                System.err.println("Canal no encontrado: " + canalId);
-                return;
+                LOG.warn("canal.no.encontrado", "canalId", canalId);
             }
-            
-            List<Long> miembrosIds = canal.getMiembrosIds();
-            int mensajesEnviados = 0;
-            
-            // Enviar el mensaje a cada miembro conectado
-            synchronized (clientesConectados) {
-                for (ManejadorCliente cliente : clientesConectados) {
-                    if (cliente.isAutenticado() && cliente.getUsuarioId() != null) {
-                        // Verificar si este cliente es miembro del canal
-                        if (miembrosIds.contains(cliente.getUsuarioId())) {
-                            cliente.recibirMensajeGrupo(canalId, remitenteUsername, contenido);
-                            mensajesEnviados++;
-                        }
-                    }
-                }
-            }
-            
-            System.out.println("Mensaje grupal enviado por " + remitenteUsername + 
-                             " al canal " + canal.getNombre() + 
-                             " (" + mensajesEnviados + " miembros en línea)");
-            
+            return canal;
         } catch (SQLException e) {
-            System.err.println("Error al enviar mensaje al canal: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("canal.error", e, "canalId", canalId);
+            return null;
         }
     }
     
     /**
-     * Enviar audio de un usuario a otro
+     * Enviar audio de un usuario a otro (en cluster, por el bus si está en otro nodo)
      */
     public void enviarAudioAUsuario(String remitenteUsername, String destinatarioUsername, 
                                     byte[] contenidoAudio, String formato, Long duracionSegundos) {
-        ManejadorCliente destinatario = null;
-        
-        // Buscar el manejador del destinatario
-        synchronized (clientesConectados) {
-            for (ManejadorCliente cliente : clientesConectados) {
-                if (cliente.isAutenticado() && destinatarioUsername.equals(cliente.getUsername())) {
-                    destinatario = cliente;
-                    break;
-                }
-            }
+        if (entregarAudioLocal(remitenteUsername, destinatarioUsername, contenidoAudio, formato, duracionSegundos)) {
+            return;
         }
-        
-        if (destinatario != null) {
-            destinatario.recibirAudio(remitenteUsername, contenidoAudio, formato, duracionSegundos, null);
-            System.out.println("Audio enviado de " + remitenteUsername + " a " + destinatarioUsername + 
-                             " (formato: " + formato + ", duración: " + duracionSegundos + "s)");
-        } else {
-            System.err.println("Usuario destinatario no encontrado: " + destinatarioUsername);
+        if (nodoCluster != null && nodoCluster.enviarAudioPrivado(
+                remitenteUsername, destinatarioUsername, contenidoAudio, formato, duracionSegundos)) {
+            LOG.debug("audio.privado.reenviado", "remitente", remitenteUsername, "destinatario", destinatarioUsername);
+            return;
+        }
+        LOG.info("audio.sin.destinatario", "remitente", remitenteUsername, "destinatario", destinatarioUsername);
+    }
+    
+    /**
+     * Entregar un audio privado si el destinatario está conectado a este servidor
+     */
+    public boolean entregarAudioLocal(String remitenteUsername, String destinatarioUsername, 
+                                      byte[] contenidoAudio, String formato, Long duracionSegundos) {
+        long inicio = System.nanoTime();
+        ManejadorCliente destinatario = buscarClienteAutenticado(destinatarioUsername);
+        if (destinatario == null) {
+            return false;
         }
+        destinatario.recibirAudio(remitenteUsername, contenidoAudio, formato, duracionSegundos, null);
+        entregas.incrementar();
+        repartoPrivado.registrarDesde(inicio);
+        LOG.debug("audio.privado.entregado", "remitente", remitenteUsername, "destinatario", destinatarioUsername,
+            "formato", formato, "segundos", duracionSegundos, "bytes", contenidoAudio.length);
+        return true;
     }
     
     /**
@@ -159,84 +308,95 @@ public class ServidorChat {
      */
     public void enviarAudioACanal(Long canalId, String remitenteUsername, 
                                   byte[] contenidoAudio, String formato, Long duracionSegundos) {
-        try {
-            // Obtener el canal a través del servicio (respeta arquitectura 3-layer)
-            Canal canal = servicioCanal.obtenerCanal(canalId).orElse(null);
-            
-            if (canal == null) {
-                System.err.println("Canal no encontrado: " + canalId);
-                return;
-            }
-            
-            List<Long> miembrosIds = canal.getMiembrosIds();
-            int audiosEnviados = 0;
-            
-            // Enviar el audio a cada miembro conectado
-            synchronized (clientesConectados) {
-                for (ManejadorCliente cliente : clientesConectados) {
-                    if (cliente.isAutenticado() && cliente.getUsuarioId() != null) {
-                        // Verificar si este cliente es miembro del canal
-                        if (miembrosIds.contains(cliente.getUsuarioId())) {
-                            cliente.recibirAudio(remitenteUsername, contenidoAudio, formato, duracionSegundos, canalId);
-                            audiosEnviados++;
-                        }
-                    }
-                }
-            }
-            
-            System.out.println("Audio grupal enviado por " + remitenteUsername + 
-                             " al canal " + canal.getNombre() + 
-                             " (" + audiosEnviados + " miembros en línea, formato: " + formato + 
-                             ", duración: " + duracionSegundos + "s)");
-            
-        } catch (SQLException e) {
-            System.err.println("Error al enviar audio al canal: " + e.getMessage());
-            e.printStackTrace();
+        Canal canal = buscarCanal(canalId);
+        if (canal == null) {
+            return;
+        }
+        repartirAudioCanal(canal, remitenteUsername, contenidoAudio, formato, duracionSegundos);
+        if (nodoCluster != null) {
+            int nodos = nodoCluster.publicarAudioCanal(canal, remitenteUsername, contenidoAudio, formato, duracionSegundos);
+            LOG.debug("audio.canal.reenviado", "canalId", canalId, "nodos", nodos);
         }
     }
     
+    /**
+     * Repartir a los miembros locales un audio de canal llegado de otro nodo
+     */
+    public void repartirAudioCanalRemoto(Long canalId, String remitenteUsername, 
+                                         byte[] contenidoAudio, String formato, Long duracionSegundos) {
+        Canal canal = buscarCanal(canalId);
+        if (canal != null) {
+            repartirAudioCanal(canal, remitenteUsername, contenidoAudio, formato, duracionSegundos);
+        }
+    }
+    
+    private void repartirAudioCanal(Canal canal, String remitenteUsername, 
+                                    byte[] contenidoAudio, String formato, Long duracionSegundos) {
+        long inicio = System.nanoTime();
+        int audiosEnviados = 0;
+        
+        // Enviar el audio a cada miembro conectado
+        for (ManejadorCliente cliente : obtenerMiembrosConectados(canal)) {
+            cliente.recibirAudio(remitenteUsername, contenidoAudio, formato, duracionSegundos, canal.getId());
+            audiosEnviados++;
+        }
+        
+        entregas.sumar(audiosEnviados);
+        repartoCanal.registrarDesde(inicio);
+        LOG.debug("audio.canal.entregado", "remitente", remitenteUsername, "canalId", canal.getId(),
+            "miembros", audiosEnviados, "formato", formato, "segundos", duracionSegundos);
+    }
+    
     /**
      * Notificar a todos los clientes conectados que la lista de usuarios ha cambiado
-     * Se llama cuando un usuario hace login o logout
+     * Se llama cuando un usuario hace login o logout (en cluster, también en otro nodo)
      */
     public void notificarActualizacionUsuarios() {
-        synchronized (clientesConectados) {
-            for (ManejadorCliente cliente : clientesConectados) {
-                if (cliente.isAutenticado()) {
-                    cliente.notificarActualizacionUsuarios();
-                }
+        long inicio = System.nanoTime();
+        int notificados = 0;
+        for (ManejadorCliente cliente : clientesPorUsuarioId.values()) {
+            if (cliente.isAutenticado()) {
+                cliente.notificarActualizacionUsuarios();
+                notificados++;
             }
         }
-        System.out.println("Notificación de actualización de usuarios enviada a " + 
-                           clientesConectados.stream().filter(ManejadorCliente::isAutenticado).count() + 
-                           " clientes");
+        repartoNotificacion.registrarDesde(inicio);
+        LOG.debug("usuarios.notificados", "clientes", notificados);
     }
     
     /**
-     * Enviar notificación de invitación a un usuario
+     * Enviar notificación de invitación a un usuario (en cluster, por el bus si está en otro nodo)
      */
     public void enviarNotificacionInvitacion(String usernameInvitador, String usernameInvitado, 
                                               String nombreCanal, String descripcionCanal, 
                                               byte[] fotoCanal, Long canalId) {
-        ManejadorCliente destinatario = null;
-        
-        // Buscar el manejador del destinatario
-        synchronized (clientesConectados) {
-            for (ManejadorCliente cliente : clientesConectados) {
-                if (cliente.isAutenticado() && usernameInvitado.equals(cliente.getUsername())) {
-                    destinatario = cliente;
-                    break;
-                }
-            }
+        if (entregarInvitacionLocal(usernameInvitador, usernameInvitado, nombreCanal, descripcionCanal, fotoCanal, canalId)) {
+            return;
         }
-        
-        if (destinatario != null) {
-            destinatario.recibirInvitacion(usernameInvitador, nombreCanal, descripcionCanal, fotoCanal, canalId);
-            System.out.println("Invitación enviada de " + usernameInvitador + " a " + usernameInvitado + 
-                             " para el canal: " + nombreCanal);
-        } else {
-            System.out.println("Usuario no conectado, invitación quedará pendiente: " + usernameInvitado);
+        if (nodoCluster != null && nodoCluster.enviarInvitacion(
+                usernameInvitador, usernameInvitado, nombreCanal, descripcionCanal, fotoCanal, canalId)) {
+            LOG.debug("invitacion.reenviada", "invitador", usernameInvitador, "invitado", usernameInvitado,
+                "canalId", canalId);
+            return;
         }
+        LOG.debug("invitacion.pendiente", "invitador", usernameInvitador, "invitado", usernameInvitado,
+            "canalId", canalId);
+    }
+    
+    /**
+     * Entregar una invitación si el invitado está conectado a este servidor
+     */
+    public boolean entregarInvitacionLocal(String usernameInvitador, String usernameInvitado, 
+                                           String nombreCanal, String descripcionCanal, 
+                                           byte[] fotoCanal, Long canalId) {
+        ManejadorCliente destinatario = buscarClienteAutenticado(usernameInvitado);
+        if (destinatario == null) {
+            return false;
+        }
+        destinatario.recibirInvitacion(usernameInvitador, nombreCanal, descripcionCanal, fotoCanal, canalId);
+        LOG.debug("invitacion.entregada", "invitador", usernameInvitador, "invitado", usernameInvitado,
+            "canalId", canalId);
+        return true;
     }
     
     /**
@@ -305,22 +465,52 @@ public class ServidorChat {
         }
     }
     
+    /**
+     * Registrar los medidores de estado del servidor (se leen al consultar las métricas)
+     */
+    private void registrarMedidores() {
+        RegistroMetricas metricas = RegistroMetricas.obtenerInstancia();
+        metricas.medidor("clientes.conectados", () -> {
+            synchronized (clientesConectados) {
+                return clientesConectados.size();
+            }
+        });
+        metricas.medidor("usuarios.en_linea", () -> GestorPresencia.obtenerInstancia().getCantidadConectados());
+        metricas.medidor("presencia.pendientes", () -> GestorPresencia.obtenerInstancia().getCambiosPendientes());
+        metricas.medidor("hilos.activos", Thread::activeCount);
+    }
+    
     /**
      * Iniciar el servidor
      */
     public void iniciar() {
         try {
             // Inicializar base de datos
+            Log.configurar(ConexionDB.getConfig().getPropiedades());
+            
             System.out.println("Inicializando base de datos...");
             ConexionDB.inicializarBaseDatos();
             conexionDB = ConexionDB.obtenerConexion();
             
+            // Presencia en memoria (reconcilia marcas en_linea de ejecuciones anteriores)
+            GestorPresencia.obtenerInstancia().iniciar();
+            
+            // Contadores de estadísticas en memoria (se siembran desde la BD)
+            ContadoresServidor.obtenerInstancia().iniciar();
+            
             // Inicializar servicios
             this.servicioCanal = new ServicioCanal(conexionDB);
+            registrarMedidores();
             
             // Inicializar servicio de transcripción de audio
             inicializarServicioTranscripcion();
             
+            // Modo cluster: unirse a los demás nodos por el bus (cluster.habilitado)
+            nodoCluster = NodoCluster.desdeConfiguracion(ConexionDB.getConfig(), this, puerto);
+            if (nodoCluster != null) {
+                nodoCluster.iniciar();
+            }
+            
             // Crear socket del servidor con host y puerto específicos
             InetAddress direccion;
             if (host.equals("0.0.0.0")) {
@@ -356,7 +546,7 @@ public class ServidorChat {
                     
                     // Crear manejador para el cliente
                     ManejadorCliente manejador = new ManejadorCliente(socketCliente, conexionDB);
-                    clientesConectados.add(manejador);
+                    agregarCliente(manejador);
                     
                     // Ejecutar en un nuevo thread
                     Thread threadCliente = new Thread(manejador);
@@ -393,73 +583,105 @@ public class ServidorChat {
      * Enviar mensaje broadcast a todos los usuarios conectados
      */
     public int enviarMensajeBroadcastUsuarios(String mensaje) {
-        int usuariosNotificados = 0;
-        
-        synchronized (clientesConectados) {
-            for (ManejadorCliente cliente : clientesConectados) {
-                if (cliente.isAutenticado()) {
-                    cliente.recibirNotificacionServidor(mensaje);
-                    usuariosNotificados++;
-                }
-            }
-        }
+        Map<ManejadorCliente, List<ResponseDTO>> lotes = new IdentityHashMap<>();
+        agregarLotesUsuarios(lotes, mensaje, FechaHoraUtil.formatearHoraActual());
         
-        System.out.println("Mensaje broadcast enviado a " + usuariosNotificados + " usuarios");
+        MotorBroadcast.Resultado resultado = repartirBroadcast("usuarios", lotes);
         if (gui != null) {
-            gui.agregarLog("Broadcast enviado a " + usuariosNotificados + " usuarios");
+            gui.agregarLog(String.format("Broadcast enviado a %d usuarios en %.1f ms",
+                resultado.getDestinatarios(), resultado.getMilisegundos()));
         }
-        
-        return usuariosNotificados;
+        return resultado.getDestinatarios();
     }
     
     /**
      * Enviar mensaje broadcast a todos los canales/grupos
      */
     public int enviarMensajeBroadcastCanales(String mensaje) {
-        try {
-            List<Canal> canales = servicioCanal.obtenerTodosLosCanales();
-            int canalesNotificados = 0;
-            
-            for (Canal canal : canales) {
-                List<Long> miembrosIds = canal.getMiembrosIds();
-                
-                // Enviar a cada miembro del canal
-                synchronized (clientesConectados) {
-                    for (ManejadorCliente cliente : clientesConectados) {
-                        if (cliente.isAutenticado() && cliente.getUsuarioId() != null) {
-                            if (miembrosIds.contains(cliente.getUsuarioId())) {
-                                cliente.recibirNotificacionServidorGrupo(canal.getId(), canal.getNombre(), mensaje);
-                            }
-                        }
-                    }
-                }
-                canalesNotificados++;
-            }
-            
-            System.out.println("Mensaje broadcast enviado a " + canalesNotificados + " canales");
-            if (gui != null) {
-                gui.agregarLog("Broadcast enviado a " + canalesNotificados + " canales/grupos");
-            }
-            
-            return canalesNotificados;
-            
-        } catch (Exception e) {
-            System.err.println("Error al enviar broadcast a canales: " + e.getMessage());
-            return 0;
+        Map<ManejadorCliente, List<ResponseDTO>> lotes = new IdentityHashMap<>();
+        int canales = agregarLotesCanales(lotes, mensaje, FechaHoraUtil.formatearHoraActual());
+        
+        MotorBroadcast.Resultado resultado = repartirBroadcast("canales", lotes);
+        if (gui != null) {
+            gui.agregarLog(String.format("Broadcast enviado a %d canales/grupos (%d usuarios) en %.1f ms",
+                canales, resultado.getDestinatarios(), resultado.getMilisegundos()));
         }
+        return canales;
     }
     
     /**
-     * Enviar mensaje broadcast global (usuarios + canales)
+     * Enviar mensaje broadcast global (usuarios + canales). Cada usuario recibe un único
+     * lote con la notificación general y la de cada uno de sus canales
      */
     public void enviarMensajeBroadcastGlobal(String mensaje) {
-        int usuarios = enviarMensajeBroadcastUsuarios(mensaje);
-        int canales = enviarMensajeBroadcastCanales(mensaje);
+        String hora = FechaHoraUtil.formatearHoraActual();
+        Map<ManejadorCliente, List<ResponseDTO>> lotes = new IdentityHashMap<>();
+        int usuarios = agregarLotesUsuarios(lotes, mensaje, hora);
+        int canales = agregarLotesCanales(lotes, mensaje, hora);
         
-        System.out.println("Broadcast global completado: " + usuarios + " usuarios, " + canales + " canales");
+        MotorBroadcast.Resultado resultado = repartirBroadcast("global", lotes);
         if (gui != null) {
-            gui.agregarLog("Broadcast global: " + usuarios + " usuarios, " + canales + " canales");
+            gui.agregarLog(String.format("Broadcast global: %d usuarios, %d canales, %d notificaciones en %.1f ms",
+                usuarios, canales, resultado.getNotificaciones(), resultado.getMilisegundos()));
+        }
+    }
+    
+    /**
+     * Una notificación general para cada usuario autenticado; devuelve cuántos usuarios
+     */
+    private int agregarLotesUsuarios(Map<ManejadorCliente, List<ResponseDTO>> lotes, String mensaje, String hora) {
+        ResponseDTO notificacion = ManejadorCliente.notificacionServidor(mensaje, hora);
+        int usuarios = 0;
+        for (ManejadorCliente cliente : clientesPorUsuarioId.values()) {
+            if (cliente.isAutenticado()) {
+                lotes.computeIfAbsent(cliente, c -> new ArrayList<>()).add(notificacion);
+                usuarios++;
+            }
         }
+        return usuarios;
+    }
+    
+    /**
+     * Una notificación por canal para cada miembro conectado, agrupadas por destinatario;
+     * devuelve a cuántos canales se notificó. Sale de los canales de cada cliente en
+     * memoria, sin consultar la BD: los canales sin miembros conectados no cuentan
+     */
+    private int agregarLotesCanales(Map<ManejadorCliente, List<ResponseDTO>> lotes, String mensaje, String hora) {
+        Map<Long, ResponseDTO> notificaciones = new HashMap<>();
+        for (ManejadorCliente cliente : clientesPorUsuarioId.values()) {
+            if (!cliente.isAutenticado()) {
+                continue;
+            }
+            for (Map.Entry<Long, String> canal : cliente.getCanales().entrySet()) {
+                ResponseDTO notificacion = notificaciones.computeIfAbsent(canal.getKey(),
+                    canalId -> ManejadorCliente.notificacionServidorGrupo(canalId, canal.getValue(), mensaje, hora));
+                lotes.computeIfAbsent(cliente, c -> new ArrayList<>()).add(notificacion);
+            }
+        }
+        return notificaciones.size();
+    }
+    
+    private MotorBroadcast.Resultado repartirBroadcast(String tipo, Map<ManejadorCliente, List<ResponseDTO>> lotes) {
+        MotorBroadcast.Resultado resultado = obtenerMotorBroadcast().repartir(lotes);
+        entregas.sumar(resultado.getNotificaciones());
+        repartoBroadcast.registrar(resultado.getMicros());
+        LOG.info("broadcast.completado", "tipo", tipo, "destinatarios", resultado.getDestinatarios(),
+            "notificaciones", resultado.getNotificaciones(), "fallidos", resultado.getFallidos(),
+            "pendientes", resultado.getPendientes(), "ms", String.format("%.1f", resultado.getMilisegundos()));
+        return resultado;
+    }
+    
+    /**
+     * Motor de broadcast con broadcast.hilos escritores (por defecto 2 por núcleo) que
+     * espera como mucho broadcast.espera.segundos a que terminen las entregas
+     */
+    private synchronized MotorBroadcast obtenerMotorBroadcast() {
+        if (motorBroadcast == null) {
+            int porDefecto = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+            motorBroadcast = new MotorBroadcast(ConexionDB.getConfig().getPropiedadInt("broadcast.hilos", porDefecto),
+                ConexionDB.getConfig().getPropiedadLong("broadcast.espera.segundos", 10) * 1000);
+        }
+        return motorBroadcast;
     }
     
     /**
@@ -473,9 +695,21 @@ public class ServidorChat {
                 serverSocket.close();
             }
             
+            GestorPresencia.obtenerInstancia().detener();
+            synchronized (this) {
+                if (motorBroadcast != null) {
+                    motorBroadcast.detener();
+                }
+            }
+            if (nodoCluster != null) {
+                nodoCluster.detener();
+            }
+            ContadoresServidor.obtenerInstancia().detener();
             ConexionDB.cerrarConexion();
             
+            System.out.println("Estadísticas de caché:\n" + CacheDatos.obtenerInstancia().obtenerEstadisticas());
             System.out.println("\nServidor detenido");
+            Log.cerrar();
             
         } catch (IOException e) {
             System.err.println("Error al detener servidor: " + e.getMessage());
@@ -504,6 +738,8 @@ public class ServidorChat {
             
             host = config.getProperty("server.host", HOST_DEFAULT);
             puerto = Integer.parseInt(config.getProperty("server.port", String.valueOf(PUERTO_DEFAULT)));
+            // -Dserver.port permite levantar varios nodos del cluster con el mismo JAR
+            puerto = Integer.getInteger("server.port", puerto);
             
             System.out.println("Configuración cargada:");
             System.out.println("  Host: " + host);
@@ -520,6 +756,24 @@ public class ServidorChat {
         // Crear instancia del servidor con la configuración
         ServidorChat servidor = new ServidorChat(host, puerto);
         
+        // Sin pantalla (servidores Linux, CI, pruebas de carga) se ejecuta sin GUI
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("Entorno sin pantalla: el servidor se ejecuta sin interfaz gráfica");
+        } else {
+            iniciarGUI(servidor);
+        }
+        
+        // Agregar shutdown hook para cerrar correctamente
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("\nCerrando servidor...");
+            servidor.detener();
+        }));
+        
+        // Iniciar servidor en hilo separado para no bloquear la GUI
+        new Thread(() -> servidor.iniciar()).start();
+    }
+    
+    private static void iniciarGUI(ServidorChat servidor) {
         // Configurar Look and Feel
         SwingUtilities.invokeLater(() -> {
             try {
@@ -533,14 +787,5 @@ public class ServidorChat {
             servidor.gui.setVisible(true);
             servidor.gui.agregarLog("Interfaz gráfica iniciada");
         });
-        
-        // Agregar shutdown hook para cerrar correctamente
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.out.println("\nCerrando servidor...");
-            servidor.detener();
-        }));
-        
-        // Iniciar servidor en hilo separado para no bloquear la GUI
-        new Thread(() -> servidor.iniciar()).start();
     }
 }
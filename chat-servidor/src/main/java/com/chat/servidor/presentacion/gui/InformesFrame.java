@@ -10,7 +10,12 @@ import java.awt.Font;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -23,14 +28,23 @@ import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 
 import com.chat.servidor.datos.ConexionDB;
+import com.chat.servidor.datos.ConsultaPagina;
+import com.chat.servidor.datos.CriterioBusqueda;
 import com.chat.servidor.datos.LogMensajeDAO.LogMensaje;
+import com.chat.servidor.datos.Pagina;
+import com.chat.servidor.negocio.ServicioBusqueda;
 import com.chat.servidor.negocio.ServicioInformesLogs;
 import com.chat.servidor.negocio.ServicioEstadisticas;
+import com.chat.servidor.negocio.ServicioExportacion;
 import com.chat.servidor.presentacion.gui.utils.FontHelper;
 
 /**
@@ -39,6 +53,10 @@ import com.chat.servidor.presentacion.gui.utils.FontHelper;
  */
 public class InformesFrame extends JFrame {
     
+    /** Filas por página y páginas en memoria de las tablas paginadas */
+    private static final int TAMANO_PAGINA = 100;
+    private static final int PAGINAS_EN_CACHE = 8;
+    
     private Connection conexion;
     private JTabbedPane tabbedPane;
     
@@ -46,24 +64,41 @@ public class InformesFrame extends JFrame {
     private ServicioInformesLogs servicioLogs;
     private ServicioEstadisticas servicioEstadisticas;
     
+    // Consultas de las tablas paginadas, en un solo hilo para no compartir la conexión entre hilos
+    private final ExecutorService ejecutorPaginas = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "informes-paginas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    
     // Tablas
     private JTable tablaUsuariosRegistrados;
-    private DefaultTableModel modeloUsuariosRegistrados;
+    private ModeloTablaPaginado<ServicioEstadisticas.UsuarioReporte> modeloUsuariosRegistrados;
     
     private JTable tablaCanalesUsuarios;
     private DefaultTableModel modeloCanalesUsuarios;
     
     private JTable tablaUsuariosConectados;
-    private DefaultTableModel modeloUsuariosConectados;
+    private ModeloTablaPaginado<ServicioEstadisticas.UsuarioReporte> modeloUsuariosConectados;
     
     private JTable tablaAudios;
-    private DefaultTableModel modeloAudios;
+    private ModeloTablaPaginado<ServicioEstadisticas.AudioReporte> modeloAudios;
     
     private JTable tablaLogsMensajes;
-    private DefaultTableModel modeloLogsMensajes;
+    private ModeloTablaPaginado<LogMensaje> modeloLogsMensajes;
     
     private JTextArea txtLogs;
     
+    // Búsqueda de mensajes (sin ámbito: todas las conversaciones)
+    private JTable tablaBusqueda;
+    private DefaultTableModel modeloBusqueda;
+    private JTextField txtBusqueda;
+    private JTextField txtBusquedaRemitente;
+    private JLabel lblResultadoBusqueda;
+    private JButton btnBusquedaAnterior;
+    private JButton btnBusquedaSiguiente;
+    private int paginaBusqueda = 0;
+    
     /**
      * Constructor
      */
@@ -110,6 +145,7 @@ public class InformesFrame extends JFrame {
         tabbedPane.addTab("🟢 Usuarios Conectados", crearPanelUsuariosConectados());
         tabbedPane.addTab("🎤 Audios", crearPanelAudios());
         tabbedPane.addTab(" Logs de Mensajes", crearPanelLogsMensajes());
+        tabbedPane.addTab("🔍 Búsqueda de Mensajes", crearPanelBusqueda());
         tabbedPane.addTab("� Logs del Sistema", crearPanelLogs());
         
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
@@ -150,22 +186,17 @@ public class InformesFrame extends JFrame {
         panel.setBackground(Color.WHITE);
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
         
-        // Título
-        JLabel lblTitulo = new JLabel("Usuarios Registrados en el Sistema");
-        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        lblTitulo.setForeground(new Color(52, 73, 94));
-        panel.add(lblTitulo, BorderLayout.NORTH);
-        
-        // Tabla
+        // Tabla paginada (orden y filtro en SQL)
         String[] columnas = {"ID", "Username", "Email", "Fecha Registro", "Estado", "IP Registro"};
-        modeloUsuariosRegistrados = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] ordenes = {"id", "username", "email", "fecha_registro", null, null};
+        modeloUsuariosRegistrados = crearModeloUsuarios(columnas, ordenes, "fecha_registro", false);
+        
+        // Título
+        panel.add(crearEncabezadoTabla("Usuarios Registrados en el Sistema", modeloUsuariosRegistrados),
+            BorderLayout.NORTH);
         
         tablaUsuariosRegistrados = crearTabla(modeloUsuariosRegistrados);
+        modeloUsuariosRegistrados.instalarEn(tablaUsuariosRegistrados);
         JScrollPane scrollPane = new JScrollPane(tablaUsuariosRegistrados);
         panel.add(scrollPane, BorderLayout.CENTER);
         
@@ -210,22 +241,17 @@ public class InformesFrame extends JFrame {
         panel.setBackground(Color.WHITE);
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
         
-        // Título
-        JLabel lblTitulo = new JLabel("Usuarios Actualmente Conectados");
-        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        lblTitulo.setForeground(new Color(52, 73, 94));
-        panel.add(lblTitulo, BorderLayout.NORTH);
-        
-        // Tabla
+        // Tabla paginada (orden y filtro en SQL)
         String[] columnas = {"ID", "Username", "Email", "Estado", "Última Conexión"};
-        modeloUsuariosConectados = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        String[] ordenes = {"id", "username", "email", null, "ultima_conexion"};
+        modeloUsuariosConectados = crearModeloUsuarios(columnas, ordenes, "ultima_conexion", true);
+        
+        // Título
+        panel.add(crearEncabezadoTabla("Usuarios Actualmente Conectados", modeloUsuariosConectados),
+            BorderLayout.NORTH);
         
         tablaUsuariosConectados = crearTabla(modeloUsuariosConectados);
+        modeloUsuariosConectados.instalarEn(tablaUsuariosConectados);
         JScrollPane scrollPane = new JScrollPane(tablaUsuariosConectados);
         panel.add(scrollPane, BorderLayout.CENTER);
         
@@ -240,16 +266,45 @@ public class InformesFrame extends JFrame {
         panel.setBackground(Color.WHITE);
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
         
+        // Tabla paginada (orden y filtro en SQL)
+        String[] columnas = {"ID", "Remitente", "Destinatario", "Formato", "Duración (seg)", "Tamaño (KB)", "Fecha Envío"};
+        String[] ordenes = {"id", null, null, "formato", "duracion", "tamano", "fecha"};
+        modeloAudios = new ModeloTablaPaginado<>(columnas, ordenes, "fecha", false,
+            TAMANO_PAGINA, PAGINAS_EN_CACHE, ejecutorPaginas,
+            new ModeloTablaPaginado.FuentePaginas<ServicioEstadisticas.AudioReporte>() {
+                @Override
+                public Pagina<ServicioEstadisticas.AudioReporte> cargar(ConsultaPagina consulta) throws SQLException {
+                    return servicioEstadisticas.obtenerPaginaAudios(consulta);
+                }
+                
+                @Override
+                public int contar(String filtro) throws SQLException {
+                    return servicioEstadisticas.contarAudios(filtro);
+                }
+                
+                @Override
+                public Object[] aFila(ServicioEstadisticas.AudioReporte audio) {
+                    return new Object[] {
+                        audio.id,
+                        audio.remitente,
+                        audio.destinatario,
+                        audio.getFormatoTexto(),
+                        audio.getDuracionTexto(),
+                        audio.getTamanoTexto(),
+                        new SimpleDateFormat("dd/MM/yyyy HH:mm:ss")
+                            .format(java.sql.Timestamp.valueOf(audio.fechaEnvio))
+                    };
+                }
+            });
+        
         // Título con descripción
         JPanel headerPanel = new JPanel();
         headerPanel.setLayout(new BoxLayout(headerPanel, BoxLayout.Y_AXIS));
         headerPanel.setBackground(Color.WHITE);
         
-        JLabel lblTitulo = new JLabel("Mensajes de Audio Enviados");
-        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        lblTitulo.setForeground(new Color(52, 73, 94));
-        lblTitulo.setAlignmentX(Component.LEFT_ALIGNMENT);
-        headerPanel.add(lblTitulo);
+        JPanel encabezado = crearEncabezadoTabla("Mensajes de Audio Enviados", modeloAudios);
+        encabezado.setAlignmentX(Component.LEFT_ALIGNMENT);
+        headerPanel.add(encabezado);
         
         JLabel lblDescripcion = new JLabel("Nota: El texto mostrado es el formato del audio, no transcripción de voz");
         lblDescripcion.setFont(new Font("Segoe UI", Font.ITALIC, 12));
@@ -260,16 +315,8 @@ public class InformesFrame extends JFrame {
         
         panel.add(headerPanel, BorderLayout.NORTH);
         
-        // Tabla
-        String[] columnas = {"ID", "Remitente", "Destinatario", "Formato", "Duración (seg)", "Tamaño (KB)", "Fecha Envío"};
-        modeloAudios = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
         tablaAudios = crearTabla(modeloAudios);
+        modeloAudios.instalarEn(tablaAudios);
         JScrollPane scrollPane = new JScrollPane(tablaAudios);
         panel.add(scrollPane, BorderLayout.CENTER);
         
@@ -284,26 +331,38 @@ public class InformesFrame extends JFrame {
         panel.setBackground(Color.WHITE);
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
         
-        // Título
-        JLabel lblTitulo = new JLabel("Logs de Mensajes de Texto y Audio con Transcripciones");
-        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        lblTitulo.setForeground(new Color(52, 73, 94));
-        panel.add(lblTitulo, BorderLayout.NORTH);
-        
-        // Tabla
+        // Tabla paginada (orden y filtro en SQL)
         String[] columnas = {
             "ID", "Tipo", "Conversación", "Remitente", "Destinatario/Canal", 
             "Contenido/Transcripción", "Fecha", "IP"
         };
+        String[] ordenes = {"id", "tipo", "conversacion", "remitente", null, null, "fecha", null};
         
-        modeloLogsMensajes = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        modeloLogsMensajes = new ModeloTablaPaginado<>(columnas, ordenes, "fecha", false,
+            TAMANO_PAGINA, PAGINAS_EN_CACHE, ejecutorPaginas,
+            new ModeloTablaPaginado.FuentePaginas<LogMensaje>() {
+                @Override
+                public Pagina<LogMensaje> cargar(ConsultaPagina consulta) throws SQLException {
+                    return servicioLogs.obtenerPaginaLogs(consulta);
+                }
+                
+                @Override
+                public int contar(String filtro) throws SQLException {
+                    return servicioLogs.contarLogs(filtro);
+                }
+                
+                @Override
+                public Object[] aFila(LogMensaje log) {
+                    return filaLogMensaje(log);
+                }
+            });
+        
+        // Título
+        panel.add(crearEncabezadoTabla("Logs de Mensajes de Texto y Audio con Transcripciones", modeloLogsMensajes),
+            BorderLayout.NORTH);
         
         tablaLogsMensajes = crearTabla(modeloLogsMensajes);
+        modeloLogsMensajes.instalarEn(tablaLogsMensajes);
         
         // Ajustar anchos de columnas
         tablaLogsMensajes.getColumnModel().getColumn(0).setPreferredWidth(50);  // ID
@@ -321,6 +380,137 @@ public class InformesFrame extends JFrame {
         return panel;
     }
     
+    /**
+     * Panel de búsqueda de texto completo en mensajes y transcripciones
+     * Usa ServicioBusqueda sin participante, así que abarca todas las conversaciones
+     */
+    private JPanel crearPanelBusqueda() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBackground(Color.WHITE);
+        panel.setBorder(new EmptyBorder(15, 15, 15, 15));
+        
+        // Título y campos de búsqueda
+        JPanel encabezado = new JPanel(new BorderLayout(10, 0));
+        encabezado.setBackground(Color.WHITE);
+        
+        JLabel lblTitulo = new JLabel("Búsqueda en Mensajes y Transcripciones");
+        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        lblTitulo.setForeground(new Color(52, 73, 94));
+        encabezado.add(lblTitulo, BorderLayout.WEST);
+        
+        JPanel panelCampos = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        panelCampos.setBackground(Color.WHITE);
+        panelCampos.add(new JLabel("Palabras:"));
+        txtBusqueda = new JTextField(20);
+        txtBusqueda.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        txtBusqueda.addActionListener(e -> buscarMensajes(0));
+        panelCampos.add(txtBusqueda);
+        panelCampos.add(new JLabel("Remitente:"));
+        txtBusquedaRemitente = new JTextField(10);
+        txtBusquedaRemitente.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        txtBusquedaRemitente.addActionListener(e -> buscarMensajes(0));
+        panelCampos.add(txtBusquedaRemitente);
+        JButton btnBuscar = new JButton("🔍 Buscar");
+        btnBuscar.addActionListener(e -> buscarMensajes(0));
+        panelCampos.add(btnBuscar);
+        encabezado.add(panelCampos, BorderLayout.EAST);
+        
+        panel.add(encabezado, BorderLayout.NORTH);
+        
+        // Tabla de coincidencias (el fragmento lleva las palabras entre « »)
+        String[] columnas = {"ID", "Tipo", "Conversación", "Remitente", "Destinatario/Canal", "Campo", "Fragmento", "Fecha"};
+        modeloBusqueda = new DefaultTableModel(columnas, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        tablaBusqueda = crearTabla(modeloBusqueda);
+        tablaBusqueda.getColumnModel().getColumn(0).setPreferredWidth(50);
+        tablaBusqueda.getColumnModel().getColumn(6).setPreferredWidth(400);
+        panel.add(new JScrollPane(tablaBusqueda), BorderLayout.CENTER);
+        
+        // Resultado y paginación
+        JPanel pie = new JPanel(new BorderLayout(10, 0));
+        pie.setBackground(Color.WHITE);
+        lblResultadoBusqueda = new JLabel("Escriba al menos una palabra de " +
+                                          CriterioBusqueda.LONGITUD_MINIMA_TERMINO + " o más letras");
+        lblResultadoBusqueda.setFont(new Font("Segoe UI", Font.ITALIC, 12));
+        lblResultadoBusqueda.setForeground(new Color(127, 140, 141));
+        pie.add(lblResultadoBusqueda, BorderLayout.WEST);
+        
+        JPanel panelPaginas = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        panelPaginas.setBackground(Color.WHITE);
+        btnBusquedaAnterior = new JButton("◀ Anterior");
+        btnBusquedaAnterior.setEnabled(false);
+        btnBusquedaAnterior.addActionListener(e -> buscarMensajes(paginaBusqueda - 1));
+        panelPaginas.add(btnBusquedaAnterior);
+        btnBusquedaSiguiente = new JButton("Siguiente ▶");
+        btnBusquedaSiguiente.setEnabled(false);
+        btnBusquedaSiguiente.addActionListener(e -> buscarMensajes(paginaBusqueda + 1));
+        panelPaginas.add(btnBusquedaSiguiente);
+        pie.add(panelPaginas, BorderLayout.EAST);
+        
+        panel.add(pie, BorderLayout.SOUTH);
+        
+        return panel;
+    }
+    
+    /**
+     * Buscar una página de coincidencias fuera del EDT y mostrarla al terminar
+     */
+    private void buscarMensajes(int pagina) {
+        String texto = txtBusqueda.getText().trim();
+        String remitente = txtBusquedaRemitente.getText().trim();
+        CriterioBusqueda criterio = new CriterioBusqueda(texto, remitente.isEmpty() ? null : remitente,
+            null, null, null, null, null, pagina * TAMANO_PAGINA, TAMANO_PAGINA);
+        if (!criterio.tieneTerminos()) {
+            lblResultadoBusqueda.setText("Escriba al menos una palabra de " +
+                                         CriterioBusqueda.LONGITUD_MINIMA_TERMINO + " o más letras");
+            return;
+        }
+        
+        btnBusquedaAnterior.setEnabled(false);
+        btnBusquedaSiguiente.setEnabled(false);
+        lblResultadoBusqueda.setText("Buscando...");
+        
+        ejecutorPaginas.execute(() -> {
+            ServicioBusqueda.ResultadoBusqueda resultado;
+            try {
+                resultado = ServicioBusqueda.obtenerInstancia().buscar(criterio);
+            } catch (SQLException e) {
+                SwingUtilities.invokeLater(() -> lblResultadoBusqueda.setText("Error al buscar: " + e.getMessage()));
+                return;
+            }
+            
+            SwingUtilities.invokeLater(() -> {
+                paginaBusqueda = pagina;
+                modeloBusqueda.setRowCount(0);
+                for (ServicioBusqueda.Coincidencia c : resultado.getCoincidencias()) {
+                    modeloBusqueda.addRow(new Object[] {
+                        c.id,
+                        c.tipoMensaje,
+                        c.tipoConversacion,
+                        c.remitente,
+                        c.canalNombre != null ? c.canalNombre : c.destinatario,
+                        c.campo,
+                        c.fragmento,
+                        c.fecha != null
+                            ? new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(java.sql.Timestamp.valueOf(c.fecha))
+                            : ""
+                    });
+                }
+                int desde = pagina * TAMANO_PAGINA;
+                lblResultadoBusqueda.setText(resultado.getTotal() == 0
+                    ? "Sin resultados"
+                    : "Resultados " + (desde + 1) + "-" + (desde + resultado.getCoincidencias().size()) +
+                      " de " + resultado.getTotal() + " (motor: " + resultado.getMotor() + ")");
+                btnBusquedaAnterior.setEnabled(pagina > 0);
+                btnBusquedaSiguiente.setEnabled(desde + resultado.getCoincidencias().size() < resultado.getTotal());
+            });
+        });
+    }
+    
     /**
      * Panel de logs
      */
@@ -361,7 +551,7 @@ public class InformesFrame extends JFrame {
         btnActualizar.addActionListener(e -> cargarDatos());
         panel.add(btnActualizar);
         
-        JButton btnExportar = crearBoton("📄 Exportar a TXT", new Color(46, 204, 113));
+        JButton btnExportar = crearBoton("📄 Exportar Informe", new Color(46, 204, 113));
         btnExportar.addActionListener(e -> exportarInforme());
         panel.add(btnExportar);
         
@@ -400,7 +590,7 @@ public class InformesFrame extends JFrame {
     /**
      * Crear tabla estilizada
      */
-    private JTable crearTabla(DefaultTableModel modelo) {
+    private JTable crearTabla(javax.swing.table.TableModel modelo) {
         JTable tabla = new JTable(modelo);
         tabla.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         tabla.setForeground(new Color(44, 62, 80)); // Color de texto oscuro para legibilidad
@@ -415,66 +605,130 @@ public class InformesFrame extends JFrame {
         return tabla;
     }
     
+    /**
+     * Título de una tabla paginada con su campo de filtro
+     * El filtro se aplica 300 ms después de la última tecla para no consultar por cada una
+     */
+    private JPanel crearEncabezadoTabla(String titulo, ModeloTablaPaginado<?> modelo) {
+        JPanel panel = new JPanel(new BorderLayout(10, 0));
+        panel.setBackground(Color.WHITE);
+        
+        JLabel lblTitulo = new JLabel(titulo);
+        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        lblTitulo.setForeground(new Color(52, 73, 94));
+        panel.add(lblTitulo, BorderLayout.WEST);
+        
+        JPanel panelFiltro = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        panelFiltro.setBackground(Color.WHITE);
+        JLabel lblFiltro = new JLabel("🔍 Filtrar:");
+        lblFiltro.setFont(FontHelper.getLabelFont(12));
+        panelFiltro.add(lblFiltro);
+        
+        JTextField txtFiltro = new JTextField(18);
+        txtFiltro.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        Timer temporizador = new Timer(300, e -> modelo.filtrar(txtFiltro.getText()));
+        temporizador.setRepeats(false);
+        txtFiltro.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                temporizador.restart();
+            }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                temporizador.restart();
+            }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                temporizador.restart();
+            }
+        });
+        panelFiltro.add(txtFiltro);
+        panel.add(panelFiltro, BorderLayout.EAST);
+        
+        return panel;
+    }
+    
+    /**
+     * Modelo paginado sobre la tabla de usuarios
+     * @param soloEnLinea true para la pestaña de usuarios conectados
+     */
+    private ModeloTablaPaginado<ServicioEstadisticas.UsuarioReporte> crearModeloUsuarios(
+            String[] columnas, String[] ordenes, String ordenInicial, boolean soloEnLinea) {
+        return new ModeloTablaPaginado<>(columnas, ordenes, ordenInicial, false,
+            TAMANO_PAGINA, PAGINAS_EN_CACHE, ejecutorPaginas,
+            new ModeloTablaPaginado.FuentePaginas<ServicioEstadisticas.UsuarioReporte>() {
+                @Override
+                public Pagina<ServicioEstadisticas.UsuarioReporte> cargar(ConsultaPagina consulta) throws SQLException {
+                    return servicioEstadisticas.obtenerPaginaUsuarios(consulta, soloEnLinea);
+                }
+                
+                @Override
+                public int contar(String filtro) throws SQLException {
+                    return servicioEstadisticas.contarUsuarios(filtro, soloEnLinea);
+                }
+                
+                @Override
+                public Object[] aFila(ServicioEstadisticas.UsuarioReporte usuario) {
+                    if (soloEnLinea) {
+                        return new Object[] {
+                            usuario.id,
+                            usuario.username,
+                            usuario.email,
+                            "🟢 Conectado",
+                            usuario.ultimaConexion != null
+                                ? new SimpleDateFormat("dd/MM/yyyy HH:mm:ss")
+                                    .format(java.sql.Timestamp.valueOf(usuario.ultimaConexion))
+                                : "N/A"
+                        };
+                    }
+                    return new Object[] {
+                        usuario.id,
+                        usuario.username,
+                        usuario.email,
+                        new SimpleDateFormat("dd/MM/yyyy HH:mm")
+                            .format(java.sql.Timestamp.valueOf(usuario.fechaRegistro)),
+                        usuario.getEstadoTexto(),
+                        usuario.direccionIp
+                    };
+                }
+            });
+    }
+    
     /**
      * Cargar todos los datos
      */
     private void cargarDatos() {
-        new Thread(() -> {
-            cargarUsuariosRegistrados();
-            cargarCanalesUsuarios();
-            cargarUsuariosConectados();
-            cargarAudios();
-            cargarLogsMensajes();
-            cargarLogs();
+        // Las tablas paginadas solo se recuentan: sus páginas se cargan al mostrarse
+        modeloUsuariosRegistrados.recargar();
+        modeloUsuariosConectados.recargar();
+        modeloAudios.recargar();
+        modeloLogsMensajes.recargar();
+        
+        // Mismo hilo que las páginas (comparten la conexión); los modelos se tocan en el EDT
+        ejecutorPaginas.execute(() -> {
+            List<Object[]> filasCanales = consultarCanalesUsuarios();
+            String textoLogs = generarTextoLogs();
             
             SwingUtilities.invokeLater(() -> {
+                modeloCanalesUsuarios.setRowCount(0);
+                for (Object[] fila : filasCanales) {
+                    modeloCanalesUsuarios.addRow(fila);
+                }
+                txtLogs.setText(textoLogs);
+                txtLogs.setCaretPosition(0);
+                
                 JOptionPane.showMessageDialog(this,
                     "Datos actualizados correctamente",
                     "Actualización Completa",
                     JOptionPane.INFORMATION_MESSAGE);
             });
-        }).start();
-    }
-    
-    /**
-     * Cargar usuarios registrados
-     * REFACTORIZADO: Usa ServicioEstadisticas (capa de negocio)
-     */
-    private void cargarUsuariosRegistrados() {
-        try {
-            modeloUsuariosRegistrados.setRowCount(0);
-            
-            // ✅ Usar servicio en lugar de SQL directo
-            List<ServicioEstadisticas.UsuarioReporte> usuarios = 
-                servicioEstadisticas.obtenerUsuariosParaReporte();
-            
-            for (ServicioEstadisticas.UsuarioReporte usuario : usuarios) {
-                Object[] fila = {
-                    usuario.id,
-                    usuario.username,
-                    usuario.email,
-                    new SimpleDateFormat("dd/MM/yyyy HH:mm")
-                        .format(java.sql.Timestamp.valueOf(usuario.fechaRegistro)),
-                    usuario.getEstadoTexto(),
-                    usuario.direccionIp
-                };
-                modeloUsuariosRegistrados.addRow(fila);
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error al cargar usuarios registrados: " + e.getMessage());
-            e.printStackTrace(); // Ver stack trace completo
-        }
+        });
     }
     
     /**
-     * Cargar canales con usuarios
+     * Consultar las filas de canales con usuarios (fuera del EDT)
      * REFACTORIZADO: Usa ServicioEstadisticas (capa de negocio)
      */
-    private void cargarCanalesUsuarios() {
+    private List<Object[]> consultarCanalesUsuarios() {
+        List<Object[]> filas = new ArrayList<>();
         try {
-            modeloCanalesUsuarios.setRowCount(0);
-            
             // ✅ Usar servicio en lugar de SQL directo
             List<ServicioEstadisticas.CanalReporte> canales = 
                 servicioEstadisticas.obtenerCanalesParaReporte();
@@ -489,137 +743,57 @@ public class InformesFrame extends JFrame {
                     new SimpleDateFormat("dd/MM/yyyy HH:mm")
                         .format(java.sql.Timestamp.valueOf(canal.fechaCreacion))
                 };
-                modeloCanalesUsuarios.addRow(fila);
+                filas.add(fila);
             }
             
         } catch (Exception e) {
             System.err.println("Error al cargar canales: " + e.getMessage());
             e.printStackTrace(); // Ver stack trace completo
         }
+        return filas;
     }
     
     /**
-     * Cargar usuarios conectados
-     * REFACTORIZADO: Usa ServicioUsuario (capa de negocio)
-     */
-    private void cargarUsuariosConectados() {
-        try {
-            modeloUsuariosConectados.setRowCount(0);
-            
-            // ✅ Usar servicio en lugar de SQL directo
-            List<ServicioEstadisticas.ConexionUsuario> usuarios = 
-                servicioEstadisticas.obtenerHistorialConexiones(Integer.MAX_VALUE);
-            
-            // Filtrar solo usuarios en línea
-            for (ServicioEstadisticas.ConexionUsuario usuario : usuarios) {
-                if (usuario.enLinea) {
-                    Object[] fila = {
-                        0L, // ID no disponible en ConexionUsuario
-                        usuario.username,
-                        "", // Email no disponible
-                        "🟢 Conectado",
-                        new SimpleDateFormat("dd/MM/yyyy HH:mm:ss")
-                            .format(java.sql.Timestamp.valueOf(usuario.ultimaConexion))
-                    };
-                    modeloUsuariosConectados.addRow(fila);
-                }
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error al cargar usuarios conectados: " + e.getMessage());
-            e.printStackTrace(); // Ver stack trace completo
-        }
-    }
-    
-    /**
-     * Cargar mensajes de audio
-     * REFACTORIZADO: Usa ServicioEstadisticas (capa de negocio)
+     * Fila de la tabla de logs de mensajes con transcripciones
      */
-    private void cargarAudios() {
-        try {
-            modeloAudios.setRowCount(0);
-            
-            // ✅ Usar servicio en lugar de SQL directo
-            List<ServicioEstadisticas.AudioReporte> audios = 
-                servicioEstadisticas.obtenerAudiosParaReporte(500);
-            
-            for (ServicioEstadisticas.AudioReporte audio : audios) {
-                Object[] fila = {
-                    audio.id,
-                    audio.remitente,
-                    audio.destinatario,
-                    audio.getFormatoTexto(),
-                    audio.getDuracionTexto(),
-                    audio.getTamanoTexto(),
-                    new SimpleDateFormat("dd/MM/yyyy HH:mm:ss")
-                        .format(java.sql.Timestamp.valueOf(audio.fechaEnvio))
-                };
-                modeloAudios.addRow(fila);
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error al cargar audios: " + e.getMessage());
-            e.printStackTrace(); // Ver stack trace completo
-        }
-    }
-    
-    /**
-     * Cargar logs de mensajes con transcripciones
-     * REFACTORIZADO: Usa ServicioInformesLogs (capa de negocio)
-     */
-    private void cargarLogsMensajes() {
-        try {
-            modeloLogsMensajes.setRowCount(0);
-            
-            // ✅ Usar capa de negocio en lugar de SQL directo
-            List<LogMensaje> logs = servicioLogs.obtenerTodosLosLogs(500);
-            
-            for (LogMensaje log : logs) {
-                String contenido = log.contenidoTexto != null 
-                    ? log.contenidoTexto 
-                    : (log.transcripcionAudio != null 
-                        ? log.transcripcionAudio 
-                        : "[Sin contenido]");
-                
-                // Limitar longitud del contenido para la tabla
-                if (contenido.length() > 100) {
-                    contenido = contenido.substring(0, 97) + "...";
-                }
-                
-                // Agregar indicador según tipo (usando símbolos compatibles)
-                String tipoIcon = log.tipoMensaje.equals("TEXTO") ? "TXT" : "AUD";
-                String conversacionIcon = log.tipoConversacion.equals("PRIVADO") ? "PVT" : "GRP";
-                
-                String destino = log.destinatarioUsername != null 
-                    ? log.destinatarioUsername
-                    : (log.grupoNombre != null ? log.grupoNombre : "N/A");
-                
-                Object[] fila = {
-                    log.id,
-                    tipoIcon,
-                    conversacionIcon,
-                    log.remitenteUsername,
-                    destino,
-                    contenido,
-                    new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(java.sql.Timestamp.valueOf(log.timestamp)),
-                    log.direccionIP
-                };
-                modeloLogsMensajes.addRow(fila);
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error al cargar logs de mensajes: " + e.getMessage());
-            e.printStackTrace();
+    private Object[] filaLogMensaje(LogMensaje log) {
+        String contenido = log.contenidoTexto != null 
+            ? log.contenidoTexto 
+            : (log.transcripcionAudio != null 
+                ? log.transcripcionAudio 
+                : "[Sin contenido]");
+        
+        // Limitar longitud del contenido para la tabla
+        if (contenido.length() > 100) {
+            contenido = contenido.substring(0, 97) + "...";
         }
+        
+        // Agregar indicador según tipo (usando símbolos compatibles)
+        String tipoIcon = log.tipoMensaje.equals("TEXTO") ? "TXT" : "AUD";
+        String conversacionIcon = log.tipoConversacion.equals("PRIVADO") ? "PVT" : "GRP";
+        
+        String destino = log.destinatarioUsername != null 
+            ? log.destinatarioUsername
+            : (log.grupoNombre != null ? log.grupoNombre : "N/A");
+        
+        return new Object[] {
+            log.id,
+            tipoIcon,
+            conversacionIcon,
+            log.remitenteUsername,
+            destino,
+            contenido,
+            new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(java.sql.Timestamp.valueOf(log.timestamp)),
+            log.direccionIP
+        };
     }
     
     /**
-     * Cargar logs del sistema
+     * Generar el texto de logs del sistema (fuera del EDT)
      * REFACTORIZADO: Usa ServicioInformesLogs (capa de negocio) para estadísticas
      */
-    private void cargarLogs() {
+    private String generarTextoLogs() {
         try {
-            txtLogs.setText("");
             StringBuilder logs = new StringBuilder();
             
             // ===== LOGS DE MENSAJES Y TRANSCRIPCIONES =====
@@ -709,240 +883,204 @@ public class InformesFrame extends JFrame {
             logs.append("[SUCCESS RATE] Porcentaje de exito: ")
                 .append(String.format("%.1f%%", statsLogs.getPorcentajeExito())).append("\n");
             
-            txtLogs.setText(logs.toString());
-            txtLogs.setCaretPosition(0);
+            return logs.toString();
             
         } catch (Exception e) {
-            txtLogs.setText("Error al cargar logs: " + e.getMessage());
+            return "Error al cargar logs: " + e.getMessage();
         }
     }
     
     /**
-     * Exportar informe a archivo de texto
-     * Genera un informe completo con todos los datos del servidor
+     * Exportar informe en TXT, CSV o JSON Lines a la carpeta de Descargas
+     * Las filas se leen de la BD en streaming fuera del EDT, con progreso y opción de cancelar
      */
     private void exportarInforme() {
-        try {
-            // Obtener carpeta de Descargas del usuario
-            String rutaDescargas = System.getProperty("user.home") + java.io.File.separator + "Downloads";
-            java.io.File carpetaDescargas = new java.io.File(rutaDescargas);
+        Object[] opciones = {"TXT", "CSV", "JSON Lines", "Cancelar"};
+        int eleccion = JOptionPane.showOptionDialog(this,
+            "Formato del informe:\n(CSV y JSON Lines generan un archivo por sección)",
+            "Exportar Informe",
+            JOptionPane.DEFAULT_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null, opciones, opciones[0]);
+        if (eleccion < 0 || eleccion > 2) {
+            return;
+        }
+        ServicioExportacion.Formato formato = ServicioExportacion.Formato.values()[eleccion];
+        
+        // Obtener carpeta de Descargas del usuario
+        String rutaDescargas = System.getProperty("user.home") + java.io.File.separator + "Downloads";
+        java.io.File carpetaDescargas = new java.io.File(rutaDescargas);
+        
+        // Crear carpeta si no existe (por si acaso)
+        if (!carpetaDescargas.exists()) {
+            carpetaDescargas.mkdirs();
+        }
+        
+        // Prefijo de archivos con timestamp
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new java.util.Date());
+        String prefijo = "informe_servidor_" + timestamp;
+        
+        // El resumen y el anexo del TXT se arman en el EDT (leen componentes Swing)
+        String resumen = formato == ServicioExportacion.Formato.TXT ? generarResumenInforme() : null;
+        String anexo = formato == ServicioExportacion.Formato.TXT ? generarAnexoInforme() : null;
+        
+        ProgressMonitor monitor = new ProgressMonitor(this,
+            "Exportando informe (" + opciones[eleccion] + ")...", "Preparando...", 0, 1000);
+        monitor.setMillisToDecideToPopup(200);
+        monitor.setMillisToPopup(200);
+        
+        SwingWorker<List<java.io.File>, Void> tarea = new SwingWorker<List<java.io.File>, Void>() {
+            private volatile boolean cancelado;
             
-            // Crear carpeta si no existe (por si acaso)
-            if (!carpetaDescargas.exists()) {
-                carpetaDescargas.mkdirs();
+            @Override
+            protected List<java.io.File> doInBackground() throws Exception {
+                return new ServicioExportacion().exportar(carpetaDescargas, prefijo, formato, resumen, anexo,
+                    new ServicioExportacion.Progreso() {
+                        @Override
+                        public void avance(String seccion, long filasExportadas, long totalEstimado) {
+                            SwingUtilities.invokeLater(() -> {
+                                monitor.setNote(String.format("%s: %,d filas exportadas", seccion, filasExportadas));
+                                monitor.setProgress(totalEstimado > 0
+                                    ? (int) Math.min(999, filasExportadas * 1000 / totalEstimado)
+                                    : 0);
+                                if (monitor.isCanceled()) {
+                                    cancelado = true;
+                                }
+                            });
+                        }
+                        
+                        @Override
+                        public boolean isCancelado() {
+                            return cancelado;
+                        }
+                    });
             }
             
-            // Generar nombre de archivo con timestamp
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new java.util.Date());
-            String nombreArchivo = "informe_servidor_" + timestamp + ".txt";
-            java.io.File archivoInforme = new java.io.File(carpetaDescargas, nombreArchivo);
-            
-            // Usar try-with-resources para cerrar automáticamente
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(archivoInforme, "UTF-8")) {
-                
-                // ===== ENCABEZADO =====
-                writer.println("═══════════════════════════════════════════════════════════");
-                writer.println("          INFORME DEL SERVIDOR - CHAT UNIVERSITARIO");
-                writer.println("═══════════════════════════════════════════════════════════");
-                writer.println("Fecha de generación: " + new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new java.util.Date()));
-                writer.println();
-                
-                // ===== ESTADÍSTICAS GENERALES =====
-                writer.println("\n╔═══════════════════════════════════════════════════════╗");
-                writer.println("║           ESTADÍSTICAS GENERALES DEL SERVIDOR         ║");
-                writer.println("╚═══════════════════════════════════════════════════════╝\n");
-                
+            @Override
+            protected void done() {
+                monitor.close();
                 try {
-                    ServicioEstadisticas.EstadisticasGenerales statsGenerales = 
-                        servicioEstadisticas.obtenerEstadisticasGenerales();
-                    ServicioInformesLogs.EstadisticasLogs statsLogs = 
-                        servicioLogs.obtenerEstadisticas();
-                    
-                    writer.println("📊 USUARIOS:");
-                    writer.println("   • Total registrados: " + statsGenerales.getTotalUsuarios());
-                    writer.println("   • En línea: " + statsGenerales.getUsuariosEnLinea());
-                    writer.println("   • Desconectados: " + statsGenerales.getUsuariosDesconectados());
-                    writer.println("   • Porcentaje en línea: " + String.format("%.1f%%", statsGenerales.getPorcentajeUsuariosEnLinea()));
-                    
-                    writer.println("\n📢 CANALES:");
-                    writer.println("   • Total canales: " + statsGenerales.getTotalCanales());
-                    writer.println("   • Canales activos: " + statsGenerales.getCanalesActivos());
-                    writer.println("   • Canales inactivos: " + statsGenerales.getCanalesInactivos());
+                    List<java.io.File> archivos = get();
                     
-                    writer.println("\n💬 MENSAJES:");
-                    writer.println("   • Mensajes de texto: " + statsLogs.getTotalMensajesTexto());
-                    writer.println("   • Mensajes de audio: " + statsLogs.getTotalMensajesAudio());
-                    writer.println("   • Total mensajes: " + (statsLogs.getTotalMensajesTexto() + statsLogs.getTotalMensajesAudio()));
-                    
-                    writer.println("\n🎤 TRANSCRIPCIONES:");
-                    writer.println("   • Exitosas: " + statsLogs.getTotalTranscripcionesExitosas());
-                    writer.println("   • Fallidas: " + statsLogs.getTotalTranscripcionesFallidas());
-                    writer.println("   • Tasa de éxito: " + String.format("%.1f%%", statsLogs.getPorcentajeExito()));
-                    
-                } catch (Exception e) {
-                    writer.println("   [Error al obtener estadísticas: " + e.getMessage() + "]");
-                }
-                
-                // ===== USUARIOS REGISTRADOS =====
-                writer.println("\n\n╔═══════════════════════════════════════════════════════╗");
-                writer.println("║              USUARIOS REGISTRADOS                     ║");
-                writer.println("╚═══════════════════════════════════════════════════════╝\n");
-                
-                if (modeloUsuariosRegistrados.getRowCount() == 0) {
-                    writer.println("   [No hay usuarios registrados]");
-                } else {
-                    for (int i = 0; i < modeloUsuariosRegistrados.getRowCount(); i++) {
-                        writer.println(String.format("• ID: %s | %s <%s>",
-                            modeloUsuariosRegistrados.getValueAt(i, 0),
-                            modeloUsuariosRegistrados.getValueAt(i, 1),
-                            modeloUsuariosRegistrados.getValueAt(i, 2)
-                        ));
-                        writer.println(String.format("  Registro: %s | %s | IP: %s",
-                            modeloUsuariosRegistrados.getValueAt(i, 3),
-                            modeloUsuariosRegistrados.getValueAt(i, 4),
-                            modeloUsuariosRegistrados.getValueAt(i, 5) != null ? 
-                                modeloUsuariosRegistrados.getValueAt(i, 5) : "N/A"
-                        ));
-                        writer.println();
-                    }
-                }
-                writer.println("Total: " + modeloUsuariosRegistrados.getRowCount() + " usuarios");
-                
-                // ===== CANALES =====
-                writer.println("\n\n╔═══════════════════════════════════════════════════════╗");
-                writer.println("║              CANALES Y COMUNIDADES                    ║");
-                writer.println("╚═══════════════════════════════════════════════════════╝\n");
-                
-                if (modeloCanalesUsuarios.getRowCount() == 0) {
-                    writer.println("   [No hay canales activos]");
-                } else {
-                    for (int i = 0; i < modeloCanalesUsuarios.getRowCount(); i++) {
-                        writer.println(String.format("• [%s] %s",
-                            modeloCanalesUsuarios.getValueAt(i, 2), // Tipo
-                            modeloCanalesUsuarios.getValueAt(i, 1)  // Nombre
-                        ));
-                        writer.println(String.format("  ID: %s | Creador: %s | Miembros: %s | Creado: %s",
-                            modeloCanalesUsuarios.getValueAt(i, 0),
-                            modeloCanalesUsuarios.getValueAt(i, 3),
-                            modeloCanalesUsuarios.getValueAt(i, 4),
-                            modeloCanalesUsuarios.getValueAt(i, 5)
-                        ));
-                        writer.println();
-                    }
-                }
-                writer.println("Total: " + modeloCanalesUsuarios.getRowCount() + " canales");
-                
-                // ===== USUARIOS CONECTADOS =====
-                writer.println("\n\n╔═══════════════════════════════════════════════════════╗");
-                writer.println("║              USUARIOS CONECTADOS AHORA                ║");
-                writer.println("╚═══════════════════════════════════════════════════════╝\n");
-                
-                if (modeloUsuariosConectados.getRowCount() == 0) {
-                    writer.println("   [No hay usuarios conectados]");
-                } else {
-                    for (int i = 0; i < modeloUsuariosConectados.getRowCount(); i++) {
-                        writer.println(String.format("• %s <%s> - Última conexión: %s",
-                            modeloUsuariosConectados.getValueAt(i, 1),
-                            modeloUsuariosConectados.getValueAt(i, 2),
-                            modeloUsuariosConectados.getValueAt(i, 4)
-                        ));
-                    }
-                }
-                writer.println("\nTotal: " + modeloUsuariosConectados.getRowCount() + " usuarios en línea");
-                
-                // ===== MENSAJES DE AUDIO =====
-                writer.println("\n\n╔═══════════════════════════════════════════════════════╗");
-                writer.println("║              HISTORIAL DE AUDIOS                      ║");
-                writer.println("╚═══════════════════════════════════════════════════════╝\n");
-                
-                if (modeloAudios.getRowCount() == 0) {
-                    writer.println("   [No hay mensajes de audio]");
-                } else {
-                    int maxAudios = Math.min(50, modeloAudios.getRowCount()); // Limitar a 50
-                    for (int i = 0; i < maxAudios; i++) {
-                        writer.println(String.format("• %s → %s",
-                            modeloAudios.getValueAt(i, 1), // Remitente
-                            modeloAudios.getValueAt(i, 2)  // Destinatario
-                        ));
-                        writer.println(String.format("  Formato: %s | Duración: %s | Tamaño: %s | Fecha: %s",
-                            modeloAudios.getValueAt(i, 3),
-                            modeloAudios.getValueAt(i, 4),
-                            modeloAudios.getValueAt(i, 5),
-                            modeloAudios.getValueAt(i, 6)
-                        ));
-                        writer.println();
-                    }
-                    if (modeloAudios.getRowCount() > 50) {
-                        writer.println("   ... y " + (modeloAudios.getRowCount() - 50) + " audios más");
+                    // Mostrar mensaje de éxito con los archivos generados
+                    StringBuilder detalle = new StringBuilder();
+                    for (java.io.File archivo : archivos) {
+                        detalle.append("\n• ").append(archivo.getName());
                     }
-                }
-                writer.println("Total: " + modeloAudios.getRowCount() + " audios");
-                
-                // ===== LOGS DE MENSAJES CON TRANSCRIPCIONES =====
-                writer.println("\n\n╔═══════════════════════════════════════════════════════╗");
-                writer.println("║         LOGS DE MENSAJES Y TRANSCRIPCIONES            ║");
-                writer.println("╚═══════════════════════════════════════════════════════╝\n");
-                
-                if (modeloLogsMensajes.getRowCount() == 0) {
-                    writer.println("   [No hay logs de mensajes]");
-                } else {
-                    int maxLogs = Math.min(100, modeloLogsMensajes.getRowCount()); // Limitar a 100
-                    for (int i = 0; i < maxLogs; i++) {
-                        writer.println(String.format("[%s][%s] %s → %s",
-                            modeloLogsMensajes.getValueAt(i, 1), // Tipo (TXT/AUD)
-                            modeloLogsMensajes.getValueAt(i, 2), // Conversación (PVT/GRP)
-                            modeloLogsMensajes.getValueAt(i, 3), // Remitente
-                            modeloLogsMensajes.getValueAt(i, 4)  // Destinatario
-                        ));
-                        writer.println(String.format("  %s | IP: %s",
-                            modeloLogsMensajes.getValueAt(i, 6), // Timestamp
-                            modeloLogsMensajes.getValueAt(i, 7)  // IP
-                        ));
-                        writer.println(String.format("  Contenido: %s",
-                            modeloLogsMensajes.getValueAt(i, 5)  // Contenido/Transcripción
-                        ));
-                        writer.println();
+                    JOptionPane.showMessageDialog(InformesFrame.this,
+                        "✅ Informe exportado exitosamente\n" + detalle + "\n\n" +
+                        "Ubicación: " + carpetaDescargas.getAbsolutePath(),
+                        "Exportación Completa",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // Abrir la carpeta de Descargas en el explorador
+                    try {
+                        java.awt.Desktop.getDesktop().open(carpetaDescargas);
+                    } catch (Exception e) {
+                        // Si no puede abrir el explorador, no importa
                     }
-                    if (modeloLogsMensajes.getRowCount() > 100) {
-                        writer.println("   ... y " + (modeloLogsMensajes.getRowCount() - 100) + " mensajes más");
+                    
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CancellationException) {
+                        JOptionPane.showMessageDialog(InformesFrame.this,
+                            "Exportación cancelada. Se borraron los archivos parciales.",
+                            "Exportación Cancelada",
+                            JOptionPane.INFORMATION_MESSAGE);
+                        return;
                     }
+                    JOptionPane.showMessageDialog(InformesFrame.this,
+                        "❌ Error al exportar informe:\n" + e.getCause().getMessage(),
+                        "Error de Exportación",
+                        JOptionPane.ERROR_MESSAGE);
+                    e.getCause().printStackTrace();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-                writer.println("Total: " + modeloLogsMensajes.getRowCount() + " mensajes registrados");
-                
-                // ===== LOGS DEL SISTEMA =====
-                writer.println("\n\n╔═══════════════════════════════════════════════════════╗");
-                writer.println("║              LOGS DEL SISTEMA COMPLETOS               ║");
-                writer.println("╚═══════════════════════════════════════════════════════╝\n");
-                
-                writer.println(txtLogs.getText());
-                
-                // ===== PIE =====
-                writer.println("\n\n═══════════════════════════════════════════════════════════");
-                writer.println("              FIN DEL INFORME - CHAT UNIVERSITARIO");
-                writer.println("═══════════════════════════════════════════════════════════");
             }
+        };
+        tarea.execute();
+    }
+    
+    /**
+     * Encabezado y estadísticas generales del informe TXT
+     */
+    private String generarResumenInforme() {
+        java.io.StringWriter texto = new java.io.StringWriter();
+        java.io.PrintWriter writer = new java.io.PrintWriter(texto);
+        
+        // ===== ENCABEZADO =====
+        writer.println("═══════════════════════════════════════════════════════════");
+        writer.println("          INFORME DEL SERVIDOR - CHAT UNIVERSITARIO");
+        writer.println("═══════════════════════════════════════════════════════════");
+        writer.println("Fecha de generación: " + new SimpleDateFormat("dd/MM/yyyy HH:mm:ss").format(new java.util.Date()));
+        writer.println();
+        
+        // ===== ESTADÍSTICAS GENERALES =====
+        writer.println("\n╔═══════════════════════════════════════════════════════╗");
+        writer.println("║           ESTADÍSTICAS GENERALES DEL SERVIDOR         ║");
+        writer.println("╚═══════════════════════════════════════════════════════╝\n");
+        
+        try {
+            ServicioEstadisticas.EstadisticasGenerales statsGenerales = 
+                servicioEstadisticas.obtenerEstadisticasGenerales();
+            ServicioInformesLogs.EstadisticasLogs statsLogs = 
+                servicioLogs.obtenerEstadisticas();
             
-            // Mostrar mensaje de éxito con la ruta completa
-            JOptionPane.showMessageDialog(this,
-                "✅ Informe exportado exitosamente\n\n" +
-                "Archivo: " + nombreArchivo + "\n" +
-                "Ubicación: " + archivoInforme.getAbsolutePath(),
-                "Exportación Completa",
-                JOptionPane.INFORMATION_MESSAGE);
+            writer.println("📊 USUARIOS:");
+            writer.println("   • Total registrados: " + statsGenerales.getTotalUsuarios());
+            writer.println("   • En línea: " + statsGenerales.getUsuariosEnLinea());
+            writer.println("   • Desconectados: " + statsGenerales.getUsuariosDesconectados());
+            writer.println("   • Porcentaje en línea: " + String.format("%.1f%%", statsGenerales.getPorcentajeUsuariosEnLinea()));
             
-            // Abrir la carpeta de Descargas en el explorador
-            try {
-                java.awt.Desktop.getDesktop().open(carpetaDescargas);
-            } catch (Exception e) {
-                // Si no puede abrir el explorador, no importa
-            }
+            writer.println("\n📢 CANALES:");
+            writer.println("   • Total canales: " + statsGenerales.getTotalCanales());
+            writer.println("   • Canales activos: " + statsGenerales.getCanalesActivos());
+            writer.println("   • Canales inactivos: " + statsGenerales.getCanalesInactivos());
+            
+            writer.println("\n💬 MENSAJES:");
+            writer.println("   • Mensajes de texto: " + statsLogs.getTotalMensajesTexto());
+            writer.println("   • Mensajes de audio: " + statsLogs.getTotalMensajesAudio());
+            writer.println("   • Total mensajes: " + (statsLogs.getTotalMensajesTexto() + statsLogs.getTotalMensajesAudio()));
+            
+            writer.println("\n🎤 TRANSCRIPCIONES:");
+            writer.println("   • Exitosas: " + statsLogs.getTotalTranscripcionesExitosas());
+            writer.println("   • Fallidas: " + statsLogs.getTotalTranscripcionesFallidas());
+            writer.println("   • Tasa de éxito: " + String.format("%.1f%%", statsLogs.getPorcentajeExito()));
             
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "❌ Error al exportar informe:\n" + e.getMessage(),
-                "Error de Exportación",
-                JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+            writer.println("   [Error al obtener estadísticas: " + e.getMessage() + "]");
         }
+        
+        writer.flush();
+        return texto.toString();
+    }
+    
+    /**
+     * Logs del sistema y pie del informe TXT
+     */
+    private String generarAnexoInforme() {
+        java.io.StringWriter texto = new java.io.StringWriter();
+        java.io.PrintWriter writer = new java.io.PrintWriter(texto);
+        
+        // ===== LOGS DEL SISTEMA =====
+        writer.println("\n\n╔═══════════════════════════════════════════════════════╗");
+        writer.println("║              LOGS DEL SISTEMA COMPLETOS               ║");
+        writer.println("╚═══════════════════════════════════════════════════════╝\n");
+        
+        writer.println(txtLogs.getText());
+        
+        // ===== PIE =====
+        writer.println("\n\n═══════════════════════════════════════════════════════════");
+        writer.println("              FIN DEL INFORME - CHAT UNIVERSITARIO");
+        writer.println("═══════════════════════════════════════════════════════════");
+        
+        writer.flush();
+        return texto.toString();
+    }
+    
+    @Override
+    public void dispose() {
+        ejecutorPaginas.shutdownNow();
+        super.dispose();
     }
 }
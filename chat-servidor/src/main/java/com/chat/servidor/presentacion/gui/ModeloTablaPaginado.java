@@ -0,0 +1,262 @@
+package com.chat.servidor.presentacion.gui;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableColumn;
+
+import com.chat.common.patterns.CacheLRU;
+import com.chat.servidor.datos.ConsultaPagina;
+import com.chat.servidor.datos.Pagina;
+
+/**
+ * TableModel perezoso para los informes: solo mantiene en memoria unas pocas páginas.
+ *
+ * Las páginas se piden a la fuente en segundo plano a medida que la tabla las pinta,
+ * usando como cursor la última fila de la página anterior (keyset). Si se salta a una
+ * página cuya anterior nunca se cargó (p. ej. arrastrando la barra), esa página se pide
+ * por desplazamiento. Al acercarse al final de una página se precarga la siguiente.
+ * El orden (clic en el encabezado) y el filtro de texto se resuelven en SQL.
+ *
+ * Todo el estado se modifica en el EDT; el ejecutor solo hace las consultas.
+ */
+public class ModeloTablaPaginado<T> extends AbstractTableModel {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private static final String TEXTO_CARGANDO = "Cargando...";
+    
+    /**
+     * Origen de datos de la tabla
+     */
+    public interface FuentePaginas<T> {
+        Pagina<T> cargar(ConsultaPagina consulta) throws SQLException;
+        
+        int contar(String filtro) throws SQLException;
+        
+        Object[] aFila(T elemento);
+    }
+    
+    private final String[] columnas;
+    private final String[] clavesOrden;
+    private final FuentePaginas<T> fuente;
+    private final Executor ejecutor;
+    private final int tamanoPagina;
+    
+    private final CacheLRU<Integer, Object[][]> paginas;
+    private final Map<Integer, Pagina<T>> cursores = new HashMap<>();
+    private final Set<Integer> enCurso = new HashSet<>();
+    
+    private volatile int generacion;
+    private int filas;
+    private String orden;
+    private boolean ascendente;
+    private String filtro = "";
+    
+    /**
+     * @param columnas Títulos de las columnas
+     * @param clavesOrden Clave de orden de cada columna (null = columna no ordenable)
+     * @param ordenInicial Clave de orden por defecto
+     * @param ascendenteInicial Sentido del orden por defecto
+     * @param tamanoPagina Filas por página
+     * @param paginasEnCache Máximo de páginas en memoria
+     * @param ejecutor Ejecutor de las consultas (fuera del EDT)
+     */
+    public ModeloTablaPaginado(String[] columnas, String[] clavesOrden, String ordenInicial,
+                               boolean ascendenteInicial, int tamanoPagina, int paginasEnCache,
+                               Executor ejecutor, FuentePaginas<T> fuente) {
+        this.columnas = columnas;
+        this.clavesOrden = clavesOrden;
+        this.orden = ordenInicial;
+        this.ascendente = ascendenteInicial;
+        this.tamanoPagina = tamanoPagina;
+        this.paginas = new CacheLRU<>("paginas", paginasEnCache, 0);
+        this.ejecutor = ejecutor;
+        this.fuente = fuente;
+    }
+    
+    @Override
+    public int getRowCount() {
+        return filas;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+    
+    @Override
+    public String getColumnName(int columna) {
+        String titulo = columnas[columna];
+        if (clavesOrden[columna] != null && clavesOrden[columna].equals(orden)) {
+            titulo += ascendente ? " ▲" : " ▼";
+        }
+        return titulo;
+    }
+    
+    @Override
+    public boolean isCellEditable(int fila, int columna) {
+        return false;
+    }
+    
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        int pagina = fila / tamanoPagina;
+        int posicion = fila % tamanoPagina;
+        
+        Object[][] datos = paginas.obtener(pagina);
+        if (datos == null) {
+            solicitar(pagina);
+            return columna == 0 ? TEXTO_CARGANDO : null;
+        }
+        
+        // Precarga: la segunda mitad de la página anticipa la siguiente
+        if (posicion >= tamanoPagina / 2) {
+            solicitar(pagina + 1);
+        }
+        
+        return posicion < datos.length ? datos[posicion][columna] : null;
+    }
+    
+    /**
+     * Descartar páginas y cursores y volver a contar (p. ej. botón Actualizar)
+     */
+    public void recargar() {
+        generacion++;
+        paginas.limpiar();
+        cursores.clear();
+        enCurso.clear();
+        filas = 0;
+        fireTableDataChanged();
+        
+        final int gen = generacion;
+        final String filtroActual = filtro;
+        ejecutor.execute(() -> {
+            try {
+                int total = fuente.contar(filtroActual);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen == generacion) {
+                        filas = total;
+                        fireTableDataChanged();
+                    }
+                });
+            } catch (SQLException e) {
+                System.err.println("Error al contar filas del informe: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Ordenar por una columna; un segundo clic en la misma invierte el sentido
+     */
+    public void ordenarPor(int columna) {
+        String clave = clavesOrden[columna];
+        if (clave == null) {
+            return;
+        }
+        ascendente = clave.equals(orden) ? !ascendente : true;
+        orden = clave;
+        recargar();
+    }
+    
+    /**
+     * Aplicar un filtro de texto (vacío = sin filtro)
+     */
+    public void filtrar(String texto) {
+        String nuevo = texto != null ? texto.trim() : "";
+        if (nuevo.equals(filtro)) {
+            return;
+        }
+        filtro = nuevo;
+        recargar();
+    }
+    
+    /**
+     * Ordenar con clic en el encabezado de la tabla y mostrar el indicador de orden
+     */
+    public void instalarEn(JTable tabla) {
+        tabla.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int vista = tabla.columnAtPoint(e.getPoint());
+                if (vista < 0) {
+                    return;
+                }
+                ordenarPor(tabla.convertColumnIndexToModel(vista));
+                for (int i = 0; i < tabla.getColumnCount(); i++) {
+                    TableColumn columna = tabla.getColumnModel().getColumn(i);
+                    columna.setHeaderValue(getColumnName(columna.getModelIndex()));
+                }
+                tabla.getTableHeader().repaint();
+            }
+        });
+    }
+    
+    /**
+     * Encolar la carga de una página si no está en memoria ni pedida
+     */
+    private void solicitar(int pagina) {
+        if (pagina * tamanoPagina >= filas || paginas.contiene(pagina) || !enCurso.add(pagina)) {
+            return;
+        }
+        
+        Pagina<T> anterior = pagina > 0 ? cursores.get(pagina - 1) : null;
+        ConsultaPagina consulta = anterior != null
+            ? new ConsultaPagina(orden, ascendente, filtro, anterior.getCursorValor(),
+                                 anterior.getCursorId(), 0, tamanoPagina)
+            : new ConsultaPagina(orden, ascendente, filtro, null, null, pagina * tamanoPagina, tamanoPagina);
+        final int gen = generacion;
+        
+        ejecutor.execute(() -> {
+            if (gen != generacion) {
+                return;
+            }
+            try {
+                Pagina<T> resultado = fuente.cargar(consulta);
+                Object[][] datos = new Object[resultado.getFilas().size()][];
+                for (int i = 0; i < datos.length; i++) {
+                    datos[i] = fuente.aFila(resultado.getFilas().get(i));
+                }
+                SwingUtilities.invokeLater(() -> recibir(gen, pagina, resultado, datos));
+            } catch (SQLException e) {
+                System.err.println("Error al cargar página " + pagina + " del informe: " + e.getMessage());
+                SwingUtilities.invokeLater(() -> enCurso.remove(pagina));
+            }
+        });
+    }
+    
+    /**
+     * Incorporar una página cargada (en el EDT)
+     */
+    private void recibir(int gen, int pagina, Pagina<T> resultado, Object[][] datos) {
+        if (gen != generacion) {
+            return;
+        }
+        enCurso.remove(pagina);
+        paginas.poner(pagina, datos);
+        if (!resultado.getFilas().isEmpty()) {
+            // Solo se conserva el cursor de la página, no sus filas
+            cursores.put(pagina, new Pagina<>(null, resultado.getCursorValor(), resultado.getCursorId()));
+        }
+        
+        int primera = pagina * tamanoPagina;
+        if (datos.length < tamanoPagina && primera + datos.length < filas) {
+            // Hay menos filas de las contadas (p. ej. contadores desfasados)
+            int anteriores = filas;
+            filas = primera + datos.length;
+            fireTableRowsDeleted(filas, anteriores - 1);
+        }
+        if (datos.length > 0) {
+            fireTableRowsUpdated(primera, primera + datos.length - 1);
+        }
+    }
+}
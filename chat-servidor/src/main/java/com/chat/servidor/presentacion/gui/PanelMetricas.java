@@ -0,0 +1,182 @@
+package com.chat.servidor.presentacion.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.util.ArrayDeque;
+import java.util.Map;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableModel;
+
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
+
+/**
+ * Panel de métricas en vivo del servidor: mensajes por segundo, profundidad de colas
+ * y latencias (p50/p99/p999) de requests, reparto, BD, pool y transcripción.
+ *
+ * Cada segundo toma una muestra del registro de métricas y muestra los valores de los
+ * últimos VENTANA_SEGUNDOS, restando la muestra más antigua de la ventana a la actual.
+ */
+public class PanelMetricas extends JPanel {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private static final int INTERVALO_MS = 1000;
+    private static final int VENTANA_SEGUNDOS = 10;
+    
+    private final JLabel lblRitmo;
+    private final JLabel lblColas;
+    private final DefaultTableModel modelo;
+    private final ArrayDeque<Muestra> muestras = new ArrayDeque<>();
+    private final Timer temporizador;
+    
+    public PanelMetricas() {
+        super(new BorderLayout(5, 5));
+        setBackground(Color.WHITE);
+        setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(189, 195, 199), 1),
+            new EmptyBorder(10, 10, 10, 10)
+        ));
+        
+        JPanel encabezado = new JPanel(new GridLayout(3, 1, 0, 2));
+        encabezado.setOpaque(false);
+        
+        JLabel lblTitulo = new JLabel("Métricas en vivo (últimos " + VENTANA_SEGUNDOS + " s)");
+        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        lblTitulo.setForeground(new Color(52, 73, 94));
+        encabezado.add(lblTitulo);
+        
+        lblRitmo = new JLabel(" ");
+        lblRitmo.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        lblRitmo.setForeground(new Color(41, 128, 185));
+        encabezado.add(lblRitmo);
+        
+        lblColas = new JLabel(" ");
+        lblColas.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        lblColas.setForeground(new Color(52, 73, 94));
+        encabezado.add(lblColas);
+        
+        add(encabezado, BorderLayout.NORTH);
+        
+        String[] columnas = {"Métrica", "Total", "/s", "p50 (ms)", "p99 (ms)", "p999 (ms)", "Máx (ms)"};
+        modelo = new DefaultTableModel(columnas, 0) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        
+        JTable tabla = new JTable(modelo);
+        tabla.setFont(new Font("Consolas", Font.PLAIN, 12));
+        tabla.setRowHeight(22);
+        tabla.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        tabla.getColumnModel().getColumn(0).setPreferredWidth(220);
+        
+        JScrollPane scroll = new JScrollPane(tabla);
+        scroll.setBorder(BorderFactory.createLineBorder(new Color(189, 195, 199), 1));
+        add(scroll, BorderLayout.CENTER);
+        
+        temporizador = new Timer(INTERVALO_MS, e -> actualizar());
+    }
+    
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        temporizador.start();
+    }
+    
+    @Override
+    public void removeNotify() {
+        temporizador.stop();
+        super.removeNotify();
+    }
+    
+    /**
+     * Tomar una muestra y refrescar etiquetas y tabla (en el EDT)
+     */
+    private void actualizar() {
+        RegistroMetricas registro = RegistroMetricas.obtenerInstancia();
+        Muestra actual = new Muestra(registro.leerContadores(), registro.leerHistogramas());
+        muestras.addLast(actual);
+        while (muestras.size() > VENTANA_SEGUNDOS + 1) {
+            muestras.removeFirst();
+        }
+        if (muestras.size() < 2) {
+            lblRitmo.setText("Recopilando métricas...");
+            return;
+        }
+        Muestra base = muestras.peekFirst();
+        double segundos = Math.max(0.001, (actual.instante - base.instante) / 1_000_000_000.0);
+        
+        long requests = 0;
+        modelo.setRowCount(0);
+        for (Map.Entry<String, Histograma.Instantanea> entrada : actual.histogramas.entrySet()) {
+            Histograma.Instantanea acumulado = entrada.getValue();
+            if (acumulado.getTotal() == 0) {
+                continue;
+            }
+            Histograma.Instantanea ventana = acumulado.menos(base.histogramas.get(entrada.getKey()));
+            if (entrada.getKey().startsWith("request.")) {
+                requests += ventana.getTotal();
+            }
+            boolean hayDatos = ventana.getTotal() > 0;
+            modelo.addRow(new Object[] {
+                entrada.getKey(),
+                acumulado.getTotal(),
+                String.format("%.1f", ventana.getTotal() / segundos),
+                hayDatos ? milisegundos(ventana.percentil(50)) : "-",
+                hayDatos ? milisegundos(ventana.percentil(99)) : "-",
+                hayDatos ? milisegundos(ventana.percentil(99.9)) : "-",
+                hayDatos ? milisegundos(ventana.getMaximo()) : "-"
+            });
+        }
+        
+        lblRitmo.setText(String.format("Mensajes/s: %.1f recibidos · %.1f entregados    Requests/s: %.1f    Errores: %d",
+            ritmo(actual, base, "mensajes.recibidos", segundos),
+            ritmo(actual, base, "mensajes.entregados", segundos),
+            requests / segundos,
+            actual.contadores.getOrDefault("request.errores", 0L)));
+        
+        Map<String, Long> medidores = registro.leerMedidores();
+        StringBuilder colas = new StringBuilder("<html>");
+        for (Map.Entry<String, Long> medidor : medidores.entrySet()) {
+            colas.append(medidor.getKey()).append(": <b>").append(medidor.getValue()).append("</b>&nbsp;&nbsp; ");
+        }
+        lblColas.setText(colas.append("</html>").toString());
+    }
+    
+    private static double ritmo(Muestra actual, Muestra base, String contador, double segundos) {
+        long ahora = actual.contadores.getOrDefault(contador, 0L);
+        long antes = base.contadores.getOrDefault(contador, 0L);
+        return (ahora - antes) / segundos;
+    }
+    
+    private static String milisegundos(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+    
+    /**
+     * Valores de contadores e histogramas en un instante
+     */
+    private static class Muestra {
+        private final long instante = System.nanoTime();
+        private final Map<String, Long> contadores;
+        private final Map<String, Histograma.Instantanea> histogramas;
+        
+        Muestra(Map<String, Long> contadores, Map<String, Histograma.Instantanea> histogramas) {
+            this.contadores = contadores;
+            this.histogramas = histogramas;
+        }
+    }
+}
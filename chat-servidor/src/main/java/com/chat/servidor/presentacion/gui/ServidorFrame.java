@@ -7,7 +7,10 @@ import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -18,10 +21,12 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
 import javax.swing.JTable;
 import javax.swing.JTextArea;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 
@@ -58,7 +63,7 @@ public class ServidorFrame extends JFrame {
     private void initComponents() {
         setTitle("Servidor de Chat Universitario - Panel de Control");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(1000, 600);
+        setSize(1000, 760);
         setLocationRelativeTo(null);
         
         // Panel principal
@@ -70,8 +75,11 @@ public class ServidorFrame extends JFrame {
         JPanel headerPanel = crearPanelEncabezado();
         mainPanel.add(headerPanel, BorderLayout.NORTH);
         
-        // Panel central - Tabla de clientes
-        JPanel centerPanel = crearPanelTabla();
+        // Panel central - Tabla de clientes y métricas en vivo
+        JSplitPane centerPanel = new JSplitPane(JSplitPane.VERTICAL_SPLIT, crearPanelTabla(), new PanelMetricas());
+        centerPanel.setResizeWeight(0.5);
+        centerPanel.setBorder(null);
+        centerPanel.setOpaque(false);
         mainPanel.add(centerPanel, BorderLayout.CENTER);
         
         // Panel derecho - Controles y Log
@@ -364,14 +372,13 @@ public class ServidorFrame extends JFrame {
             JOptionPane.QUESTION_MESSAGE);
         
         if (confirmacion == JOptionPane.YES_OPTION) {
-            synchronized (clientesConectados) {
-                for (ManejadorCliente cliente : clientesConectados) {
-                    if (cliente.getDireccionIP().equals(ip) && cliente.isConectado()) {
-                        cliente.desconectar();
-                        agregarLog("Cliente desconectado: " + username + " (" + ip + ")");
-                        actualizarTabla();
-                        break;
-                    }
+            // Copia: al desconectarse, el cliente se quita de la lista
+            for (ManejadorCliente cliente : copiarClientes()) {
+                if (cliente.getDireccionIP().equals(ip) && cliente.isConectado()) {
+                    cliente.desconectar();
+                    agregarLog("Cliente desconectado: " + username + " (" + ip + ")");
+                    actualizarTabla();
+                    break;
                 }
             }
         }
@@ -396,20 +403,24 @@ public class ServidorFrame extends JFrame {
             JOptionPane.WARNING_MESSAGE);
         
         if (confirmacion == JOptionPane.YES_OPTION) {
-            synchronized (clientesConectados) {
-                int desconectados = 0;
-                for (ManejadorCliente cliente : clientesConectados) {
-                    if (cliente.isConectado()) {
-                        cliente.desconectar();
-                        desconectados++;
-                    }
+            int desconectados = 0;
+            for (ManejadorCliente cliente : copiarClientes()) {
+                if (cliente.isConectado()) {
+                    cliente.desconectar();
+                    desconectados++;
                 }
-                agregarLog("Desconectados " + desconectados + " clientes");
             }
+            agregarLog("Desconectados " + desconectados + " clientes");
             actualizarTabla();
         }
     }
     
+    private List<ManejadorCliente> copiarClientes() {
+        synchronized (clientesConectados) {
+            return new ArrayList<>(clientesConectados);
+        }
+    }
+    
     /**
      * Abrir ventana de informes
      */
@@ -429,13 +440,11 @@ public class ServidorFrame extends JFrame {
             JOptionPane.PLAIN_MESSAGE);
         
         if (mensaje != null && !mensaje.trim().isEmpty()) {
-            int usuarios = com.chat.servidor.presentacion.ServidorChat.getInstance()
-                .enviarMensajeBroadcastUsuarios(mensaje.trim());
-            
-            JOptionPane.showMessageDialog(this,
-                "Mensaje enviado a " + usuarios + " usuarios conectados",
-                "Broadcast Completado",
-                JOptionPane.INFORMATION_MESSAGE);
+            ejecutarBroadcast("Broadcast Completado", () -> {
+                int usuarios = com.chat.servidor.presentacion.ServidorChat.getInstance()
+                    .enviarMensajeBroadcastUsuarios(mensaje.trim());
+                return "Mensaje enviado a " + usuarios + " usuarios conectados";
+            });
         }
     }
     
@@ -449,13 +458,11 @@ public class ServidorFrame extends JFrame {
             JOptionPane.PLAIN_MESSAGE);
         
         if (mensaje != null && !mensaje.trim().isEmpty()) {
-            int canales = com.chat.servidor.presentacion.ServidorChat.getInstance()
-                .enviarMensajeBroadcastCanales(mensaje.trim());
-            
-            JOptionPane.showMessageDialog(this,
-                "Mensaje enviado a " + canales + " canales/grupos",
-                "Broadcast Completado",
-                JOptionPane.INFORMATION_MESSAGE);
+            ejecutarBroadcast("Broadcast Completado", () -> {
+                int canales = com.chat.servidor.presentacion.ServidorChat.getInstance()
+                    .enviarMensajeBroadcastCanales(mensaje.trim());
+                return "Mensaje enviado a " + canales + " canales/grupos";
+            });
         }
     }
     
@@ -469,16 +476,38 @@ public class ServidorFrame extends JFrame {
             JOptionPane.PLAIN_MESSAGE);
         
         if (mensaje != null && !mensaje.trim().isEmpty()) {
-            com.chat.servidor.presentacion.ServidorChat.getInstance()
-                .enviarMensajeBroadcastGlobal(mensaje.trim());
-            
-            JOptionPane.showMessageDialog(this,
-                "Mensaje broadcast enviado a todos los usuarios y canales",
-                "Broadcast Global Completado",
-                JOptionPane.INFORMATION_MESSAGE);
+            ejecutarBroadcast("Broadcast Global Completado", () -> {
+                com.chat.servidor.presentacion.ServidorChat.getInstance()
+                    .enviarMensajeBroadcastGlobal(mensaje.trim());
+                return "Mensaje broadcast enviado a todos los usuarios y canales";
+            });
         }
     }
     
+    /**
+     * Enviar un broadcast fuera del EDT (espera a las escrituras a los clientes) y
+     * mostrar el resultado al terminar
+     */
+    private void ejecutarBroadcast(String titulo, Supplier<String> envio) {
+        agregarLog("Enviando broadcast...");
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                return envio.get();
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    JOptionPane.showMessageDialog(ServidorFrame.this, get(), titulo,
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    agregarLog("Error al enviar broadcast: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
     /**
      * Agregar mensaje al log
      */
@@ -6,6 +6,9 @@ import org.vosk.Model;
 import org.vosk.Recognizer;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.chat.common.metricas.Contador;
+import com.chat.common.metricas.Histograma;
+import com.chat.common.metricas.RegistroMetricas;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -18,6 +21,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Servicio de transcripción de audio usando Vosk
@@ -30,6 +34,11 @@ public class ServicioTranscripcion {
     private boolean inicializado = false;
     private String rutaModelo;
     
+    // Métricas: duración de cada transcripción, errores y transcripciones en curso
+    private final Histograma duracion;
+    private final Contador errores;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    
     // Configuración de audio
     private static final float SAMPLE_RATE = 16000.0f; // Vosk requiere 16kHz
     private static final int SAMPLE_SIZE_BITS = 16;
@@ -37,6 +46,10 @@ public class ServicioTranscripcion {
     
     private ServicioTranscripcion() {
         // Constructor privado para singleton
+        RegistroMetricas metricas = RegistroMetricas.obtenerInstancia();
+        this.duracion = metricas.histograma("transcripcion.duracion");
+        this.errores = metricas.contador("transcripcion.errores");
+        metricas.medidor("transcripcion.en_curso", enCurso::get);
     }
     
     /**
@@ -98,6 +111,17 @@ public class ServicioTranscripcion {
      * @return Texto transcrito o null si hay error
      */
     public String transcribir(byte[] audioBytes) {
+        long inicio = System.nanoTime();
+        enCurso.incrementAndGet();
+        try {
+            return transcribirAudio(audioBytes);
+        } finally {
+            enCurso.decrementAndGet();
+            duracion.registrarDesde(inicio);
+        }
+    }
+    
+    private String transcribirAudio(byte[] audioBytes) {
         if (!inicializado) {
             System.err.println("❌ Error: ServicioTranscripcion no está inicializado. Llama a inicializar() primero.");
             return null;
@@ -188,6 +212,7 @@ public class ServicioTranscripcion {
         } catch (Exception e) {
             System.err.println("❌ Error al transcribir audio: " + e.getMessage());
             e.printStackTrace();
+            errores.incrementar();
             return "[Error en transcripción]";
         }
     }
@@ -17,7 +17,10 @@ CREATE TABLE IF NOT EXISTS usuarios (
     ultima_conexion DATETIME,
     INDEX idx_username (username),
     INDEX idx_email (email),
-    INDEX idx_ip (direccion_ip)
+    INDEX idx_ip (direccion_ip),
+    -- Orden por defecto de las páginas de informes (InnoDB agrega el id al índice).
+    -- En bases ya creadas lo agrega ConexionDB al iniciar el servidor.
+    INDEX idx_fecha_registro (fecha_registro)
 );
 
 -- Tabla de grupos
@@ -191,6 +194,10 @@ CREATE TABLE IF NOT EXISTS logs_mensajes (
     INDEX idx_destinatario (destinatario_username),
     INDEX idx_canal (canal_nombre),
     INDEX idx_timestamp (timestamp),
+    -- Índices compuestos para el historial paginado por cursor (timestamp, id).
+    -- En bases creadas antes de estos índices los agrega ConexionDB al iniciar el servidor.
+    INDEX idx_privado_keyset (remitente_username, destinatario_username, timestamp, id),
+    INDEX idx_canal_keyset (canal_id, timestamp, id),
     FULLTEXT INDEX idx_contenido (contenido_texto, transcripcion_audio)
 );
 